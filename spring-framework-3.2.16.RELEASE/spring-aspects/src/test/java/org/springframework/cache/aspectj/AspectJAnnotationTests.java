@@ -16,14 +16,19 @@
 
 package org.springframework.cache.aspectj;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.cache.Cache;
 import org.springframework.cache.config.AbstractAnnotationTests;
+import org.springframework.cache.config.BulkCacheableService;
 import org.springframework.cache.config.CacheableService;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.GenericXmlApplicationContext;
@@ -46,6 +51,29 @@ public class AspectJAnnotationTests extends AbstractAnnotationTests {
 		Assert.assertSame(ctx.getBean("keyGenerator"), aspect.getKeyGenerator());
 	}
 
+	@Test
+	public void testCacheableAll() throws Exception {
+		BulkCacheableService service = ctx.getBean("bulkService", BulkCacheableService.class);
+		Cache cache = cm.getCache("default");
+
+		Map<Long, String> result = service.findAll(Arrays.asList(1L, 2L));
+		assertEquals("{1=value1, 2=value2}", result.toString());
+		assertEquals("value1", cache.get(1L).get());
+		assertEquals("value2", cache.get(2L).get());
+		assertEquals(1, service.getInvocations().size());
+
+		result = service.findAll(Arrays.asList(2L, 1L));
+		assertEquals("{2=value2, 1=value1}", result.toString());
+		assertEquals(1, service.getInvocations().size());
+
+		// with AspectJ weaving, the method receives all requested keys
+		result = service.findAll(Arrays.asList(1L, 3L));
+		assertEquals("{1=value1, 3=value3}", result.toString());
+		assertEquals(2, service.getInvocations().size());
+		assertEquals(Arrays.asList(1L, 3L), service.getInvocations().get(1));
+		assertEquals("value3", cache.get(3L).get());
+	}
+
 	public void testMultiEvict(CacheableService<?> service) {
 		Object o1 = new Object();
 
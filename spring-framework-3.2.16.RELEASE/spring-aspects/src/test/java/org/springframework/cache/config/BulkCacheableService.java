@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.annotation.CacheableAll;
+
+/**
+ * Simple service with a bulk cacheable method, recording the keys it was invoked with.
+ */
+public class BulkCacheableService {
+
+	private final List<Collection<Long>> invocations = new ArrayList<Collection<Long>>();
+
+	@CacheableAll("default")
+	public Map<Long, String> findAll(Collection<Long> keys) {
+		this.invocations.add(new ArrayList<Long>(keys));
+		Map<Long, String> result = new LinkedHashMap<Long, String>();
+		for (Long key : keys) {
+			result.put(key, "value" + key);
+		}
+		return result;
+	}
+
+	public List<Collection<Long>> getInvocations() {
+		return this.invocations;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -119,6 +119,8 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 
 	private int autoGrowCollectionLimit = Integer.MAX_VALUE;
 
+	private boolean useGeneratedAccessors = CachedIntrospectionResults.shouldGenerateAccessors;
+
 
 	/**
 	 * Create new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -184,6 +186,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		setExtractOldValueForEditor(superBw.isExtractOldValueForEditor());
 		setAutoGrowNestedPaths(superBw.isAutoGrowNestedPaths());
 		setAutoGrowCollectionLimit(superBw.getAutoGrowCollectionLimit());
+		setUseGeneratedAccessors(superBw.isUseGeneratedAccessors());
 		setConversionService(superBw.getConversionService());
 		setSecurityContext(superBw.acc);
 	}
@@ -283,6 +286,29 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return this.autoGrowCollectionLimit;
 	}
 
+	/**
+	 * Set whether this BeanWrapper should invoke public read and write methods through
+	 * an accessor class generated for the wrapped bean class, rather than via reflection.
+	 * The accessor is generated once per bean class and cached along with its
+	 * {@link CachedIntrospectionResults}. Methods that cannot be invoked that way,
+	 * for example non-public ones, are still invoked via reflection.
+	 * <p>Default is "false" on a plain BeanWrapper, unless the
+	 * {@link CachedIntrospectionResults#GENERATE_ACCESSORS_PROPERTY_NAME} flag is set.
+	 * Generated accessors are not used when running with a SecurityManager.
+	 * @since 3.2.17
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether generated accessors are used for invoking property methods.
+	 * @since 3.2.17
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
 	/**
 	 * Set the security context used during the invocation of the wrapped instance methods.
 	 * Can be null.
@@ -323,6 +349,16 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return this.cachedIntrospectionResults;
 	}
 
+	/**
+	 * Obtain the generated accessor for the wrapped object, if applicable.
+	 */
+	private GeneratedPropertyAccessor getGeneratedPropertyAccessor() {
+		if (!this.useGeneratedAccessors || System.getSecurityManager() != null) {
+			return null;
+		}
+		return getCachedIntrospectionResults().getGeneratedPropertyAccessor();
+	}
+
 
 	public PropertyDescriptor[] getPropertyDescriptors() {
 		return getCachedIntrospectionResults().getPropertyDescriptors();
@@ -709,8 +745,11 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 			throw new NotReadablePropertyException(getRootClass(), this.nestedPath + propertyName);
 		}
 		final Method readMethod = pd.getReadMethod();
+		GeneratedPropertyAccessor accessor = getGeneratedPropertyAccessor();
+		int accessorIndex = (accessor != null ? accessor.getMethodIndex(readMethod) : -1);
 		try {
-			if (!Modifier.isPublic(readMethod.getDeclaringClass().getModifiers()) && !readMethod.isAccessible()) {
+			if (accessorIndex < 0 &&
+					!Modifier.isPublic(readMethod.getDeclaringClass().getModifiers()) && !readMethod.isAccessible()) {
 				if (System.getSecurityManager() != null) {
 					AccessController.doPrivileged(new PrivilegedAction<Object>() {
 						public Object run() {
@@ -725,7 +764,10 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 			}
 
 			Object value;
-			if (System.getSecurityManager() != null) {
+			if (accessorIndex >= 0) {
+				value = accessor.invokeReadMethod(this.object, accessorIndex);
+			}
+			else if (System.getSecurityManager() != null) {
 				try {
 					value = AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 						public Object run() throws Exception {
@@ -1049,6 +1091,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 				pv.getOriginalPropertyValue().resolvedDescriptor = pd;
 			}
 
+			GeneratedPropertyAccessor accessor = getGeneratedPropertyAccessor();
 			Object oldValue = null;
 			try {
 				Object originalValue = pv.getValue();
@@ -1060,7 +1103,8 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 					else {
 						if (isExtractOldValueForEditor() && pd.getReadMethod() != null) {
 							final Method readMethod = pd.getReadMethod();
-							if (!Modifier.isPublic(readMethod.getDeclaringClass().getModifiers()) &&
+							int readIndex = (accessor != null ? accessor.getMethodIndex(readMethod) : -1);
+							if (readIndex < 0 && !Modifier.isPublic(readMethod.getDeclaringClass().getModifiers()) &&
 									!readMethod.isAccessible()) {
 								if (System.getSecurityManager()!= null) {
 									AccessController.doPrivileged(new PrivilegedAction<Object>() {
@@ -1075,7 +1119,10 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 								}
 							}
 							try {
-								if (System.getSecurityManager() != null) {
+								if (readIndex >= 0) {
+									oldValue = accessor.invokeReadMethod(this.object, readIndex);
+								}
+								else if (System.getSecurityManager() != null) {
 									oldValue = AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 										public Object run() throws Exception {
 											return readMethod.invoke(object);
@@ -1104,7 +1151,9 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 				final Method writeMethod = (pd instanceof GenericTypeAwarePropertyDescriptor ?
 						((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() :
 						pd.getWriteMethod());
-				if (!Modifier.isPublic(writeMethod.getDeclaringClass().getModifiers()) && !writeMethod.isAccessible()) {
+				int writeIndex = (accessor != null ? accessor.getMethodIndex(writeMethod) : -1);
+				if (writeIndex < 0 &&
+						!Modifier.isPublic(writeMethod.getDeclaringClass().getModifiers()) && !writeMethod.isAccessible()) {
 					if (System.getSecurityManager()!= null) {
 						AccessController.doPrivileged(new PrivilegedAction<Object>() {
 							public Object run() {
@@ -1118,7 +1167,10 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 					}
 				}
 				final Object value = valueToApply;
-				if (System.getSecurityManager() != null) {
+				if (writeIndex >= 0) {
+					accessor.invokeWriteMethod(this.object, writeIndex, value);
+				}
+				else if (System.getSecurityManager() != null) {
 					try {
 						AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 							public Object run() throws Exception {
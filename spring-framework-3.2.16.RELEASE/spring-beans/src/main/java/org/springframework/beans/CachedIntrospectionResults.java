@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -91,10 +91,24 @@ public class CachedIntrospectionResults {
 	 */
 	public static final String IGNORE_BEANINFO_PROPERTY_NAME = "spring.beaninfo.ignore";
 
+	/**
+	 * System property that instructs Spring to generate a bytecode accessor per bean class,
+	 * invoking public read and write methods directly instead of through reflection:
+	 * "spring.beaninfo.generateAccessors", with a value of "true" making this the default
+	 * for every {@link BeanWrapperImpl}. This saves the reflective invocation overhead on
+	 * each property access, at the expense of one additional class per bean class.
+	 * <p>The default is "false", invoking all property methods via reflection.
+	 * @since 3.2.17
+	 * @see BeanWrapperImpl#setUseGeneratedAccessors
+	 */
+	public static final String GENERATE_ACCESSORS_PROPERTY_NAME = "spring.beaninfo.generateAccessors";
+
 
 	private static final boolean shouldIntrospectorIgnoreBeaninfoClasses =
 			SpringProperties.getFlag(IGNORE_BEANINFO_PROPERTY_NAME);
 
+	static final boolean shouldGenerateAccessors = SpringProperties.getFlag(GENERATE_ACCESSORS_PROPERTY_NAME);
+
 	/** Stores the BeanInfoFactory instances */
 	private static List<BeanInfoFactory> beanInfoFactories = SpringFactoriesLoader.loadFactories(
 			BeanInfoFactory.class, CachedIntrospectionResults.class.getClassLoader());
@@ -253,6 +267,11 @@ public class CachedIntrospectionResults {
 	/** PropertyDescriptor objects keyed by property name String */
 	private final Map<String, PropertyDescriptor> propertyDescriptorCache;
 
+	/** Lazily generated accessor for the introspected bean class, if any */
+	private volatile GeneratedPropertyAccessor generatedPropertyAccessor;
+
+	private volatile boolean generatedPropertyAccessorResolved;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -354,6 +373,34 @@ public class CachedIntrospectionResults {
 		return pds;
 	}
 
+	/**
+	 * Return the generated accessor for the introspected bean class,
+	 * generating it on first access.
+	 * @return the accessor, or {@code null} if none could be generated
+	 * (e.g. for a non-public bean class)
+	 */
+	GeneratedPropertyAccessor getGeneratedPropertyAccessor() {
+		if (!this.generatedPropertyAccessorResolved) {
+			synchronized (this) {
+				if (!this.generatedPropertyAccessorResolved) {
+					Class<?> beanClass = getBeanClass();
+					try {
+						this.generatedPropertyAccessor =
+								GeneratedPropertyAccessor.generate(beanClass, this.propertyDescriptorCache.values());
+					}
+					catch (Throwable ex) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Could not generate property accessor for class [" +
+									beanClass.getName() + "] - falling back to reflection", ex);
+						}
+					}
+					this.generatedPropertyAccessorResolved = true;
+				}
+			}
+		}
+		return this.generatedPropertyAccessor;
+	}
+
 	private PropertyDescriptor buildGenericTypeAwarePropertyDescriptor(Class<?> beanClass, PropertyDescriptor pd) {
 		try {
 			return new GenericTypeAwarePropertyDescriptor(beanClass, pd.getName(), pd.getReadMethod(),
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Holder for a {@link PropertyMethodAccessor} generated for a specific bean class,
+ * along with the index of each read and write method that it is able to invoke.
+ *
+ * <p>The generated class casts the target to the bean class and invokes the
+ * requested method through a switch on its index, boxing and unboxing primitive
+ * values as necessary. Only public methods whose signature consists of public
+ * types are covered, since the generated class lives in its own ClassLoader;
+ * all other methods need to be invoked via reflection.
+ *
+ * <p>Not intended for direct use by application code. Only public in order to
+ * allow for access from other framework packages, through {@link #forClass}.
+ *
+ * @since 3.2.17
+ * @see CachedIntrospectionResults#getGeneratedPropertyAccessor()
+ */
+public final class GeneratedPropertyAccessor implements Opcodes {
+
+	private static final String ACCESSOR_CLASS_SUFFIX = "$$PropertyMethodAccessor";
+
+	private static final String OBJECT_INTERNAL_NAME = Type.getInternalName(Object.class);
+
+
+	private final PropertyMethodAccessor accessor;
+
+	private final Map<Method, Integer> methodIndexes;
+
+
+	private GeneratedPropertyAccessor(PropertyMethodAccessor accessor, Map<Method, Integer> methodIndexes) {
+		this.accessor = accessor;
+		this.methodIndexes = methodIndexes;
+	}
+
+
+	/**
+	 * Return the index of the given read or write method,
+	 * or -1 if it needs to be invoked via reflection.
+	 */
+	public int getMethodIndex(Method method) {
+		Integer index = this.methodIndexes.get(method);
+		return (index != null ? index : -1);
+	}
+
+	/**
+	 * Invoke the read method with the given index on the given target.
+	 * @throws InvocationTargetException if the read method threw an exception,
+	 * consistent with {@link Method#invoke}
+	 */
+	public Object invokeReadMethod(Object target, int index) throws InvocationTargetException {
+		try {
+			return this.accessor.invokeReadMethod(target, index);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Invoke the write method with the given index on the given target.
+	 * @throws InvocationTargetException if the write method threw an exception,
+	 * consistent with {@link Method#invoke}
+	 */
+	public void invokeWriteMethod(Object target, int index, Object value) throws InvocationTargetException {
+		try {
+			this.accessor.invokeWriteMethod(target, index, value);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+
+	/**
+	 * Return the accessor for the given bean class, generating it on first access
+	 * and caching it along with the class's {@link CachedIntrospectionResults}.
+	 * @param beanClass the bean class to obtain the accessor for
+	 * @return the accessor, or {@code null} if none could be generated
+	 * @throws BeansException in case of introspection failure
+	 */
+	public static GeneratedPropertyAccessor forClass(Class<?> beanClass) throws BeansException {
+		return CachedIntrospectionResults.forClass(beanClass).getGeneratedPropertyAccessor();
+	}
+
+	/**
+	 * Generate an accessor for the given bean class and its property descriptors.
+	 * @param beanClass the bean class to generate an accessor for
+	 * @param pds the property descriptors of the bean class
+	 * @return the generated accessor, or {@code null} if none of the
+	 * read and write methods can be invoked without reflection
+	 */
+	static GeneratedPropertyAccessor generate(Class<?> beanClass, Collection<PropertyDescriptor> pds) {
+		if (!isAccessible(beanClass) || beanClass.getName().startsWith("java.")) {
+			return null;
+		}
+		List<Method> readMethods = new ArrayList<Method>();
+		List<Method> writeMethods = new ArrayList<Method>();
+		Map<Method, Integer> methodIndexes = new HashMap<Method, Integer>();
+		for (PropertyDescriptor pd : pds) {
+			Method readMethod = pd.getReadMethod();
+			if (readMethod != null && isAccessible(readMethod) && !methodIndexes.containsKey(readMethod)) {
+				methodIndexes.put(readMethod, readMethods.size());
+				readMethods.add(readMethod);
+			}
+			Method writeMethod = pd.getWriteMethod();
+			if (writeMethod != null && isAccessible(writeMethod) && !methodIndexes.containsKey(writeMethod)) {
+				methodIndexes.put(writeMethod, writeMethods.size());
+				writeMethods.add(writeMethod);
+			}
+		}
+		if (methodIndexes.isEmpty()) {
+			return null;
+		}
+
+		String className = beanClass.getName() + ACCESSOR_CLASS_SUFFIX;
+		byte[] bytes = generateClass(beanClass, className.replace('.', '/'), readMethods, writeMethods);
+		AccessorClassLoader classLoader = new AccessorClassLoader(beanClass.getClassLoader());
+		Class<?> accessorClass = classLoader.defineAccessorClass(className, bytes);
+		PropertyMethodAccessor accessor = (PropertyMethodAccessor) BeanUtils.instantiate(accessorClass);
+		return new GeneratedPropertyAccessor(accessor, methodIndexes);
+	}
+
+	private static boolean isAccessible(Class<?> type) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		return (typeToCheck.isPrimitive() || Modifier.isPublic(typeToCheck.getModifiers()));
+	}
+
+	private static boolean isAccessible(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers()) ||
+				!isAccessible(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> paramType : method.getParameterTypes()) {
+			if (!isAccessible(paramType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] generateClass(Class<?> beanClass, String internalName,
+			List<Method> readMethods, List<Method> writeMethods) {
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, internalName, null,
+				OBJECT_INTERNAL_NAME, new String[] {Type.getInternalName(PropertyMethodAccessor.class)});
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, OBJECT_INTERNAL_NAME, "<init>", "()V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String beanInternalName = Type.getInternalName(beanClass);
+		boolean isInterface = beanClass.isInterface();
+
+		// Object invokeReadMethod(Object target, int index)
+		mv = cw.visitMethod(ACC_PUBLIC, "invokeReadMethod", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label[] readLabels = visitSwitch(mv, readMethods.size());
+		for (int i = 0; i < readLabels.length; i++) {
+			Method readMethod = readMethods.get(i);
+			mv.visitLabel(readLabels[i]);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, beanInternalName);
+			visitInvoke(mv, beanInternalName, isInterface, readMethod);
+			visitBox(mv, readMethod.getReturnType());
+			mv.visitInsn(ARETURN);
+		}
+		visitIndexMismatch(mv);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// void invokeWriteMethod(Object target, int index, Object value)
+		mv = cw.visitMethod(ACC_PUBLIC, "invokeWriteMethod", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		Label[] writeLabels = visitSwitch(mv, writeMethods.size());
+		for (int i = 0; i < writeLabels.length; i++) {
+			Method writeMethod = writeMethods.get(i);
+			mv.visitLabel(writeLabels[i]);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, beanInternalName);
+			mv.visitVarInsn(ALOAD, 3);
+			visitUnbox(mv, writeMethod.getParameterTypes()[0]);
+			visitInvoke(mv, beanInternalName, isInterface, writeMethod);
+			int returnSize = Type.getType(writeMethod.getReturnType()).getSize();
+			if (returnSize > 0) {
+				// Non-void write method, e.g. a builder-style setter
+				mv.visitInsn(returnSize == 2 ? POP2 : POP);
+			}
+			mv.visitInsn(RETURN);
+		}
+		visitIndexMismatch(mv);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Emit a switch on the index argument, returning the label for each case.
+	 * The default case falls through to the code following the switch.
+	 */
+	private static Label[] visitSwitch(MethodVisitor mv, int caseCount) {
+		Label[] labels = new Label[caseCount];
+		if (caseCount > 0) {
+			for (int i = 0; i < caseCount; i++) {
+				labels[i] = new Label();
+			}
+			Label defaultLabel = new Label();
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitTableSwitchInsn(0, caseCount - 1, defaultLabel, labels);
+			mv.visitLabel(defaultLabel);
+		}
+		return labels;
+	}
+
+	private static void visitIndexMismatch(MethodVisitor mv) {
+		String exceptionName = Type.getInternalName(IllegalArgumentException.class);
+		mv.visitTypeInsn(NEW, exceptionName);
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn("Unknown property method index");
+		mv.visitMethodInsn(INVOKESPECIAL, exceptionName, "<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(ATHROW);
+	}
+
+	private static void visitInvoke(MethodVisitor mv, String owner, boolean isInterface, Method method) {
+		mv.visitMethodInsn((isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL), owner,
+				method.getName(), Type.getMethodDescriptor(method), isInterface);
+	}
+
+	private static void visitBox(MethodVisitor mv, Class<?> type) {
+		if (void.class.equals(type)) {
+			mv.visitInsn(ACONST_NULL);
+		}
+		else if (type.isPrimitive()) {
+			Type wrapperType = Type.getType(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitMethodInsn(INVOKESTATIC, wrapperType.getInternalName(), "valueOf",
+					Type.getMethodDescriptor(wrapperType, Type.getType(type)), false);
+		}
+	}
+
+	private static void visitUnbox(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			String wrapperName = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(CHECKCAST, wrapperName);
+			mv.visitMethodInsn(INVOKEVIRTUAL, wrapperName, type.getName() + "Value",
+					"()" + Type.getDescriptor(type), false);
+		}
+		else if (!Object.class.equals(type)) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+
+	/**
+	 * ClassLoader for a single generated accessor class, delegating to the bean's
+	 * ClassLoader but always exposing the {@link PropertyMethodAccessor} interface.
+	 */
+	private static class AccessorClassLoader extends ClassLoader {
+
+		public AccessorClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (PropertyMethodAccessor.class.getName().equals(name)) {
+				return PropertyMethodAccessor.class;
+			}
+			return super.loadClass(name, resolve);
+		}
+
+		public Class<?> defineAccessorClass(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+}
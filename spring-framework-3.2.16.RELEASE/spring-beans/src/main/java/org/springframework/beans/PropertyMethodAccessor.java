@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+/**
+ * Internal interface implemented by the property accessor classes that
+ * {@link BeanWrapperImpl} generates per bean class, invoking the bean's
+ * read and write methods directly instead of through reflection.
+ * Not intended for direct use by application code.
+ *
+ * <p>Only public so that generated classes, which get defined in their
+ * own ClassLoader, are able to implement it.
+ *
+ * @since 3.2.17
+ * @see BeanWrapperImpl#setUseGeneratedAccessors
+ * @see CachedIntrospectionResults#GENERATE_ACCESSORS_PROPERTY_NAME
+ */
+public interface PropertyMethodAccessor {
+
+	/**
+	 * Invoke the read method with the given index on the given target.
+	 * @param target the bean instance
+	 * @param index the index of the read method
+	 * @return the property value, with primitives in their wrapper form
+	 */
+	Object invokeReadMethod(Object target, int index);
+
+	/**
+	 * Invoke the write method with the given index on the given target.
+	 * @param target the bean instance
+	 * @param index the index of the write method
+	 * @param value the new property value, with primitives in their wrapper form
+	 */
+	void invokeWriteMethod(Object target, int index, Object value);
+
+}
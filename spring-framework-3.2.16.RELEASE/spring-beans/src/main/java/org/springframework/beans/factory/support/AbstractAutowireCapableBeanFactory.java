@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -833,6 +833,17 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			if (bw != null) {
 				return (FactoryBean<?>) bw.getWrappedInstance();
 			}
+			if (isSingletonCurrentlyInCreation(beanName) && !isCurrentlyInCreation(beanName)) {
+				// In creation by another thread: wait for it rather than answering depending on timing
+				Object beanInstance = getSingleton(beanName, false);
+				if (beanInstance instanceof FactoryBean) {
+					return (FactoryBean<?>) beanInstance;
+				}
+			}
+			if (mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()) &&
+					!isCurrentlyInCreation(mbd.getFactoryBeanName())) {
+				getSingleton(mbd.getFactoryBeanName(), false);
+			}
 			if (isSingletonCurrentlyInCreation(beanName) ||
 					(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
 				return null;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
@@ -150,6 +151,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Cached array of bean definition names in case of frozen configuration */
 	private String[] frozenBeanDefinitionNames;
 
+	/** Optional Executor for pre-instantiating singletons in parallel */
+	private Executor preInstantiationExecutor;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -237,6 +241,31 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Specify an Executor for pre-instantiating singletons in parallel.
+	 * <p>Default is none, creating all non-lazy singletons sequentially on the
+	 * thread calling {@link #preInstantiateSingletons()}. If specified, the
+	 * singletons are grouped according to the bean references in their bean
+	 * definitions, and independent groups get created concurrently on the given
+	 * Executor, with the calling thread waiting until all of them have been created.
+	 * <p>Note that singletons need to be safe for concurrent creation then, e.g.
+	 * not relying on side effects of other singletons without declaring a
+	 * dependency on them. Dependencies that do not show up in bean definitions,
+	 * such as annotation-driven autowiring, get resolved on demand by the
+	 * creating thread, waiting for other threads that create the same singleton.
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationExecutor(Executor preInstantiationExecutor) {
+		this.preInstantiationExecutor = preInstantiationExecutor;
+	}
+
+	/**
+	 * Return the Executor for pre-instantiating singletons in parallel, if any.
+	 */
+	public Executor getPreInstantiationExecutor() {
+		return this.preInstantiationExecutor;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -246,6 +275,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.autowireCandidateResolver = otherListableFactory.autowireCandidateResolver;
+			this.preInstantiationExecutor = otherListableFactory.preInstantiationExecutor;
 			this.resolvableDependencies.putAll(otherListableFactory.resolvableDependencies);
 		}
 	}
@@ -620,35 +650,62 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			beanNames = new ArrayList<String>(this.beanDefinitionNames);
 		}
 
-		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-
-			//对非抽象、单例的和非延迟加载的对象进行实例化。
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-					boolean isEagerInit;
-					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-						isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							public Boolean run() {
-								return ((SmartFactoryBean<?>) factory).isEagerInit();
-							}
-						}, getAccessControlContext());
-					}
-					else {
-						isEagerInit = (factory instanceof SmartFactoryBean &&
-								((SmartFactoryBean<?>) factory).isEagerInit());
-					}
-					if (isEagerInit) {
-						getBean(beanName);
-					}
+		if (this.preInstantiationExecutor != null) {
+			List<String> singletonNames = new ArrayList<String>(beanNames.size());
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					singletonNames.add(beanName);
 				}
-				else {
-					getBean(beanName);
+			}
+			new ParallelSingletonInstantiator(this, this.preInstantiationExecutor).preInstantiateSingletons(singletonNames);
+		}
+		else {
+			// Trigger initialization of all non-lazy singleton beans...
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+
+				//对非抽象、单例的和非延迟加载的对象进行实例化。
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
+
+		// With the configuration frozen, the bean dependency graph is essentially complete now.
+		if (isConfigurationFrozen()) {
+			freezeSingletonRegistry();
+		}
+	}
+
+	/**
+	 * Instantiate the given non-lazy singleton, including the object exposed
+	 * by a {@link SmartFactoryBean} that asks for eager initialization.
+	 * @param beanName the name of the bean
+	 * @see #preInstantiateSingletons()
+	 */
+	void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+			boolean isEagerInit;
+			if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+				isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+					public Boolean run() {
+						return ((SmartFactoryBean<?>) factory).isEagerInit();
+					}
+				}, getAccessControlContext());
+			}
+			else {
+				isEagerInit = (factory instanceof SmartFactoryBean &&
+						((SmartFactoryBean<?>) factory).isEagerInit());
+			}
+			if (isEagerInit) {
+				getBean(beanName);
+			}
+		}
+		else {
+			getBean(beanName);
+		}
 	}
 
 
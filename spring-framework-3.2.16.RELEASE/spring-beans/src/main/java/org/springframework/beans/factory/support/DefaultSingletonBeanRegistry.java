@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -98,9 +99,22 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Names of beans currently excluded from in creation checks (using a ConcurrentHashMap as a Set) */
 	private final Map<String, Boolean> inCreationCheckExclusions = new ConcurrentHashMap<String, Boolean>(16);
 
+	/** Threads that are currently creating singletons: bean name --> creating thread */
+	private final Map<String, Thread> singletonCreationThreads = new ConcurrentHashMap<String, Thread>(16);
+
+	/** Threads waiting for an object that another thread is creating: waiting thread --> creating thread */
+	private final Map<Thread, Thread> threadsAwaitingCreation = new HashMap<Thread, Thread>(16);
+
+	/** Whether singletons may currently be created by several threads in parallel */
+	private volatile boolean concurrentSingletonCreation = false;
+
 	/** List of suppressed Exceptions, available for associating related causes */
 	private Set<Exception> suppressedExceptions;
 
+	/** Suppressed Exceptions of the current thread in case of concurrent singleton creation */
+	private final ThreadLocal<Set<Exception>> concurrentSuppressedExceptions =
+			new NamedThreadLocal<Set<Exception>>("Suppressed exceptions during concurrent singleton creation");
+
 	/** Flag that indicates whether we're currently within destroySingletons */
 	private boolean singletonsCurrentlyInDestruction = false;
 
@@ -116,6 +130,15 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name --> Set of bean names for the bean's dependencies */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
 
+	/** Snapshot of the registered singleton names, or {@code null} if it needs to be rebuilt */
+	private volatile String[] singletonNamesSnapshot;
+
+	/**
+	 * Whether the registry has been frozen: from then on, the Sets in the containment
+	 * and dependency maps are never modified but replaced, allowing for lock-free reads
+	 */
+	private volatile boolean registryFrozen = false;
+
 
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "'beanName' must not be null");
@@ -141,6 +164,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.remove(beanName);
 			this.earlySingletonObjects.remove(beanName);
 			this.registeredSingletons.add(beanName);
+			this.singletonNamesSnapshot = null;
  		}
 	}
 
@@ -159,6 +183,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				this.singletonFactories.put(beanName, singletonFactory);
 				this.earlySingletonObjects.remove(beanName);
 				this.registeredSingletons.add(beanName);
+				this.singletonNamesSnapshot = null;
 			}
 		}
 	}
@@ -171,6 +196,8 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Return the (raw) singleton object registered under the given name.
 	 * <p>Checks already instantiated singletons and also allows for an early
 	 * reference to a currently created singleton (resolving a circular reference).
+	 * A singleton that another thread is currently creating is waited for,
+	 * unless that thread is in turn waiting for the current thread.
 	 * @param beanName the name of the bean to look for
 	 * @param allowEarlyReference whether early references should be created or not
 	 * @return the registered singleton object, or {@code null} if none found
@@ -179,13 +206,15 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			synchronized (this.singletonObjects) {
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
+					singletonObject = awaitSingletonInCreation(beanName, allowEarlyReference);
+				}
+				if (singletonObject == null) {
+					// Early references are only exposed to the thread that is creating the singleton.
+					Thread creatingThread = this.singletonCreationThreads.get(beanName);
+					if (creatingThread == null || creatingThread == Thread.currentThread()) {
+						singletonObject = getEarlySingletonObject(beanName, allowEarlyReference);
 					}
 				}
 			}
@@ -193,6 +222,26 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return (singletonObject != NULL_OBJECT ? singletonObject : null);
 	}
 
+	/**
+	 * Obtain an early reference to the specified singleton, if available.
+	 * <p>To be called with the singleton mutex held.
+	 * @param beanName the name of the bean
+	 * @param allowEarlyReference whether early references should be created or not
+	 * @return the early singleton object, or {@code null} if none available
+	 */
+	private Object getEarlySingletonObject(String beanName, boolean allowEarlyReference) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null && allowEarlyReference) {
+			ObjectFactory singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -206,8 +255,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory singletonFactory) {
 		Assert.notNull(beanName, "'beanName' must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = awaitSingletonInCreation(beanName, true);
+			}
 			if (singletonObject == null) {
 				if (this.singletonsCurrentlyInDestruction) {
 					throw new BeanCreationNotAllowedException(beanName,
@@ -250,12 +305,192 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} that does not hold
+	 * the singleton mutex while the singleton is being created, allowing other
+	 * threads to create unrelated singletons at the same time.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton with
+	 * @return the registered singleton object
+	 * @see #setConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory singletonFactory) {
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = awaitSingletonInCreation(beanName, true);
+			}
+			if (singletonObject != null) {
+				return (singletonObject != NULL_OBJECT ? singletonObject : null);
+			}
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
+								"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "' in thread [" +
+						Thread.currentThread().getName() + "]");
+			}
+			beforeSingletonCreation(beanName);
+		}
+		Set<Exception> suppressedExceptions = this.concurrentSuppressedExceptions.get();
+		boolean recordSuppressedExceptions = (suppressedExceptions == null);
+		if (recordSuppressedExceptions) {
+			suppressedExceptions = new LinkedHashSet<Exception>();
+			this.concurrentSuppressedExceptions.set(suppressedExceptions);
+		}
+		Object singletonObject = null;
+		boolean created = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			created = true;
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : suppressedExceptions) {
+					ex.addRelatedCause(suppressedException);
+				}
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.concurrentSuppressedExceptions.remove();
+			}
+			synchronized (this.singletonObjects) {
+				if (created) {
+					addSingleton(beanName, singletonObject);
+				}
+				afterSingletonCreation(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Wait for the specified singleton if it is currently being created by
+	 * another thread. If that thread is in turn (directly or indirectly) waiting
+	 * for a singleton that the current thread is creating, the circular reference
+	 * gets resolved through an early singleton reference, just like a circular
+	 * reference within a single thread.
+	 * <p>To be called with the singleton mutex held.
+	 * @param beanName the name of the bean
+	 * @param allowEarlyReference whether an early reference should be created
+	 * in case of a circular reference between threads
+	 * @return the singleton object or an early reference to it, or {@code null}
+	 * if the singleton is not registered and not in creation by another thread
+	 * (or if no early reference is available and none is to be created)
+	 * @throws BeanCurrentlyInCreationException in case of a circular reference
+	 * between threads that cannot be resolved through an early reference
+	 */
+	private Object awaitSingletonInCreation(String beanName, boolean allowEarlyReference) {
+		Thread creatingThread = this.singletonCreationThreads.get(beanName);
+		while (creatingThread != null && creatingThread != Thread.currentThread()) {
+			if (!awaitCreatingThread(beanName, creatingThread)) {
+				Object earlySingletonObject = getEarlySingletonObject(beanName, allowEarlyReference);
+				if (earlySingletonObject == null && allowEarlyReference) {
+					throw new BeanCurrentlyInCreationException(beanName);
+				}
+				return earlySingletonObject;
+			}
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			creatingThread = this.singletonCreationThreads.get(beanName);
+		}
+		return null;
+	}
+
+	/**
+	 * Wait until the given thread, which is creating the specified object,
+	 * signals progress through the singleton mutex. Does not wait if that thread
+	 * is (directly or indirectly) waiting for the current thread, since the
+	 * threads would wait for each other forever then.
+	 * <p>To be called with the singleton mutex held. Callers need to check
+	 * afterwards whether the object is available and wait again if not.
+	 * @param beanName the name of the bean that the object belongs to
+	 * @param creatingThread the thread that is creating the object
+	 * @return {@code true} if waited, or {@code false} in case of
+	 * a circular reference between the threads
+	 */
+	boolean awaitCreatingThread(String beanName, Thread creatingThread) {
+		if (isWaitingForCurrentThread(creatingThread)) {
+			return false;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Waiting for bean '" + beanName + "' in creation by thread [" +
+					creatingThread.getName() + "]");
+		}
+		Thread currentThread = Thread.currentThread();
+		this.threadsAwaitingCreation.put(currentThread, creatingThread);
+		try {
+			this.singletonObjects.wait();
+		}
+		catch (InterruptedException ex) {
+			currentThread.interrupt();
+			throw new BeanCreationException(beanName,
+					"Interrupted while waiting for bean creation in thread [" + creatingThread.getName() + "]");
+		}
+		finally {
+			this.threadsAwaitingCreation.remove(currentThread);
+		}
+		return true;
+	}
+
+	/**
+	 * Determine whether the given thread is (directly or indirectly) waiting
+	 * for an object that the current thread is creating.
+	 * <p>To be called with the singleton mutex held.
+	 */
+	private boolean isWaitingForCurrentThread(Thread thread) {
+		Thread currentThread = Thread.currentThread();
+		Thread threadToCheck = thread;
+		for (int i = 0; i <= this.threadsAwaitingCreation.size(); i++) {
+			threadToCheck = this.threadsAwaitingCreation.get(threadToCheck);
+			if (threadToCheck == null) {
+				return false;
+			}
+			if (threadToCheck == currentThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Set whether singletons may be created by several threads at the same time.
+	 * <p>Default is "false": creation of a singleton holds the
+	 * {@link #getSingletonMutex() singleton mutex}, serializing the creation of
+	 * all singletons in this registry. If switched on, only threads asking for
+	 * the very same singleton wait for each other, with circular references
+	 * between threads being resolved like circular references within a thread.
+	 * <p>Meant to be switched on for a well-defined bootstrap phase only.
+	 * @see DefaultListableBeanFactory#setPreInstantiationExecutor
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may be created by several threads at the same time.
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
+		Set<Exception> concurrentSuppressedExceptions = this.concurrentSuppressedExceptions.get();
+		if (concurrentSuppressedExceptions != null) {
+			concurrentSuppressedExceptions.add(ex);
+			return;
+		}
 		synchronized (this.singletonObjects) {
 			if (this.suppressedExceptions != null) {
 				this.suppressedExceptions.add(ex);
@@ -275,6 +510,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.remove(beanName);
 			this.earlySingletonObjects.remove(beanName);
 			this.registeredSingletons.remove(beanName);
+			this.singletonNamesSnapshot = null;
 		}
 	}
 
@@ -283,15 +519,26 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	}
 
 	public String[] getSingletonNames() {
-		synchronized (this.singletonObjects) {
-			return StringUtils.toStringArray(this.registeredSingletons);
-		}
+		return getSingletonNamesSnapshot().clone();
 	}
 
 	public int getSingletonCount() {
-		synchronized (this.singletonObjects) {
-			return this.registeredSingletons.size();
+		return getSingletonNamesSnapshot().length;
+	}
+
+	/**
+	 * Return the current snapshot of registered singleton names, in registration order,
+	 * only synchronizing if it has been invalidated by a registration since.
+	 */
+	private String[] getSingletonNamesSnapshot() {
+		String[] singletonNames = this.singletonNamesSnapshot;
+		if (singletonNames == null) {
+			synchronized (this.singletonObjects) {
+				singletonNames = StringUtils.toStringArray(this.registeredSingletons);
+				this.singletonNamesSnapshot = singletonNames;
+			}
 		}
+		return singletonNames;
 	}
 
 
@@ -307,7 +554,29 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	public boolean isCurrentlyInCreation(String beanName) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		return (!this.inCreationCheckExclusions.containsKey(beanName) && isActuallyInCreation(beanName));
+		return (!this.inCreationCheckExclusions.containsKey(beanName) && isActuallyInCreation(beanName) &&
+				!isSingletonInCreationByOtherThread(beanName));
+	}
+
+	/**
+	 * Determine whether the specified singleton is being created by another thread
+	 * that does not wait for the current thread, i.e. outside of the current creation
+	 * chain. Only ever the case with concurrent singleton creation: callers may then
+	 * simply obtain the singleton, waiting for the other thread to complete it.
+	 * @param beanName the name of the bean
+	 * @see #setConcurrentSingletonCreation
+	 */
+	private boolean isSingletonInCreationByOtherThread(String beanName) {
+		if (!this.concurrentSingletonCreation) {
+			return false;
+		}
+		Thread creatingThread = this.singletonCreationThreads.get(beanName);
+		if (creatingThread == null || creatingThread == Thread.currentThread()) {
+			return false;
+		}
+		synchronized (this.singletonObjects) {
+			return !isWaitingForCurrentThread(creatingThread);
+		}
 	}
 
 	protected boolean isActuallyInCreation(String beanName) {
@@ -325,7 +594,8 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	/**
 	 * Callback before singleton creation.
-	 * <p>Default implementation register the singleton as currently in creation.
+	 * <p>Default implementation register the singleton as currently in creation
+	 * by the current thread.
 	 * @param beanName the name of the singleton about to be created
 	 * @see #isSingletonCurrentlyInCreation
 	 */
@@ -334,6 +604,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				this.singletonsCurrentlyInCreation.put(beanName, Boolean.TRUE) != null) {
 			throw new BeanCurrentlyInCreationException(beanName);
 		}
+		this.singletonCreationThreads.put(beanName, Thread.currentThread());
 	}
 
 	/**
@@ -343,6 +614,12 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #isSingletonCurrentlyInCreation
 	 */
 	protected void afterSingletonCreation(String beanName) {
+		if (this.singletonCreationThreads.remove(beanName) != null) {
+			synchronized (this.singletonObjects) {
+				// Wake up threads waiting for this singleton, if any.
+				this.singletonObjects.notifyAll();
+			}
+		}
 		if (!this.inCreationCheckExclusions.containsKey(beanName) &&
 				!this.singletonsCurrentlyInCreation.remove(beanName)) {
 			throw new IllegalStateException("Singleton '" + beanName + "' isn't currently in creation");
@@ -375,13 +652,8 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #registerDependentBean
 	 */
 	public void registerContainedBean(String containedBeanName, String containingBeanName) {
-		synchronized (this.containedBeanMap) {
-			Set<String> containedBeans = this.containedBeanMap.get(containingBeanName);
-			if (containedBeans == null) {
-				containedBeans = new LinkedHashSet<String>(8);
-				this.containedBeanMap.put(containingBeanName, containedBeans);
-			}
-			containedBeans.add(containedBeanName);
+		if (!isRegistered(this.containedBeanMap, containingBeanName, containedBeanName)) {
+			addToSet(this.containedBeanMap, containingBeanName, containedBeanName);
 		}
 		registerDependentBean(containedBeanName, containingBeanName);
 	}
@@ -394,21 +666,90 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public void registerDependentBean(String beanName, String dependentBeanName) {
 		String canonicalName = canonicalName(beanName);
-		synchronized (this.dependentBeanMap) {
-			Set<String> dependentBeans = this.dependentBeanMap.get(canonicalName);
-			if (dependentBeans == null) {
-				dependentBeans = new LinkedHashSet<String>(8);
-				this.dependentBeanMap.put(canonicalName, dependentBeans);
+		if (isRegistered(this.dependentBeanMap, canonicalName, dependentBeanName) &&
+				isRegistered(this.dependenciesForBeanMap, dependentBeanName, canonicalName)) {
+			// Typical for beans created after startup, e.g. prototypes: nothing to record.
+			return;
+		}
+		addToSet(this.dependentBeanMap, canonicalName, dependentBeanName);
+		addToSet(this.dependenciesForBeanMap, dependentBeanName, canonicalName);
+	}
+
+	/**
+	 * Check whether the given value is contained in the Set registered for the given key.
+	 * Only answers {@code true} once the registry has been frozen, as the Sets may be
+	 * modified concurrently before.
+	 * @see #freezeSingletonRegistry()
+	 */
+	private boolean isRegistered(Map<String, Set<String>> map, String key, String value) {
+		if (!this.registryFrozen) {
+			return false;
+		}
+		Set<String> values = map.get(key);
+		return (values != null && values.contains(value));
+	}
+
+	/**
+	 * Add the given value to the Set registered for the given key, replacing the Set
+	 * with an extended copy rather than modifying it if the registry has been frozen.
+	 */
+	private void addToSet(Map<String, Set<String>> map, String key, String value) {
+		synchronized (map) {
+			Set<String> values = map.get(key);
+			if (this.registryFrozen) {
+				if (values == null || !values.contains(value)) {
+					Set<String> newValues = (values != null ? new LinkedHashSet<String>(values) :
+							new LinkedHashSet<String>(8));
+					newValues.add(value);
+					map.put(key, newValues);
+				}
+			}
+			else {
+				if (values == null) {
+					values = new LinkedHashSet<String>(8);
+					map.put(key, values);
+				}
+				values.add(value);
 			}
-			dependentBeans.add(dependentBeanName);
 		}
-		synchronized (this.dependenciesForBeanMap) {
-			Set<String> dependenciesForBean = this.dependenciesForBeanMap.get(dependentBeanName);
-			if (dependenciesForBean == null) {
-				dependenciesForBean = new LinkedHashSet<String>(8);
-				this.dependenciesForBeanMap.put(dependentBeanName, dependenciesForBean);
+	}
+
+	/**
+	 * Freeze the containment and dependency bookkeeping of this registry, typically
+	 * once all non-lazy singletons have been created: from then on, the registered
+	 * relationships are read without locking, and registering an already known
+	 * relationship (as happens for every prototype or scoped bean instance) does
+	 * not synchronize anymore. New relationships may still be registered.
+	 * <p>The registry gets unfrozen again when all of its singletons are destroyed.
+	 * @since 3.2.17
+	 * @see #destroySingletons()
+	 */
+	protected void freezeSingletonRegistry() {
+		synchronized (this.containedBeanMap) {
+			synchronized (this.dependentBeanMap) {
+				synchronized (this.dependenciesForBeanMap) {
+					// Re-publish all Sets for lock-free readers: they won't be modified anymore.
+					republishSets(this.containedBeanMap);
+					republishSets(this.dependentBeanMap);
+					republishSets(this.dependenciesForBeanMap);
+					this.registryFrozen = true;
+				}
 			}
-			dependenciesForBean.add(canonicalName);
+		}
+	}
+
+	/**
+	 * Return whether the containment and dependency bookkeeping has been frozen.
+	 * @since 3.2.17
+	 * @see #freezeSingletonRegistry()
+	 */
+	protected boolean isSingletonRegistryFrozen() {
+		return this.registryFrozen;
+	}
+
+	private static void republishSets(Map<String, Set<String>> map) {
+		for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+			entry.setValue(new LinkedHashSet<String>(entry.getValue()));
 		}
 	}
 
@@ -463,15 +804,23 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			destroySingleton(disposableBeanNames[i]);
 		}
 
-		this.containedBeanMap.clear();
-		this.dependentBeanMap.clear();
-		this.dependenciesForBeanMap.clear();
+		synchronized (this.containedBeanMap) {
+			synchronized (this.dependentBeanMap) {
+				synchronized (this.dependenciesForBeanMap) {
+					this.containedBeanMap.clear();
+					this.dependentBeanMap.clear();
+					this.dependenciesForBeanMap.clear();
+					this.registryFrozen = false;
+				}
+			}
+		}
 
 		synchronized (this.singletonObjects) {
 			this.singletonObjects.clear();
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
+			this.singletonNamesSnapshot = null;
 			this.singletonsCurrentlyInDestruction = false;
 		}
 	}
@@ -539,7 +888,17 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			for (Iterator<Map.Entry<String, Set<String>>> it = this.dependentBeanMap.entrySet().iterator(); it.hasNext();) {
 				Map.Entry<String, Set<String>> entry = it.next();
 				Set<String> dependenciesToClean = entry.getValue();
-				dependenciesToClean.remove(beanName);
+				if (this.registryFrozen && dependenciesToClean.contains(beanName)) {
+					// Never modify a Set that lock-free readers may be looking at...
+					dependenciesToClean = new LinkedHashSet<String>(dependenciesToClean);
+					dependenciesToClean.remove(beanName);
+					if (!dependenciesToClean.isEmpty()) {
+						entry.setValue(dependenciesToClean);
+					}
+				}
+				else {
+					dependenciesToClean.remove(beanName);
+				}
 				if (dependenciesToClean.isEmpty()) {
 					it.remove();
 				}
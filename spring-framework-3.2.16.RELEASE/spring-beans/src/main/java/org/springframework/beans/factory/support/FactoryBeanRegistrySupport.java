@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -45,6 +46,12 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	/** Cache of singleton objects created by FactoryBeans: FactoryBean name --> object */
 	private final Map<String, Object> factoryBeanObjectCache = new ConcurrentHashMap<String, Object>(16);
 
+	/**
+	 * Threads currently obtaining singleton objects from FactoryBeans: FactoryBean name --> thread.
+	 * Guarded by the singleton mutex.
+	 */
+	private final Map<String, Thread> factoryBeanObjectCreationThreads = new HashMap<String, Thread>(16);
+
 
 	/**
 	 * Determine the type for the given FactoryBean.
@@ -98,27 +105,46 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 		if (factory.isSingleton() && containsSingleton(beanName)) {
 			synchronized (getSingletonMutex()) {
 				Object object = this.factoryBeanObjectCache.get(beanName);
+				// The singleton mutex gets released while getObject() waits for a singleton
+				// in creation by another thread: make other threads wait for the object then.
+				Thread creatingThread = this.factoryBeanObjectCreationThreads.get(beanName);
+				while (object == null && creatingThread != null && creatingThread != Thread.currentThread() &&
+						awaitCreatingThread(beanName, creatingThread)) {
+					object = this.factoryBeanObjectCache.get(beanName);
+					creatingThread = this.factoryBeanObjectCreationThreads.get(beanName);
+				}
 				if (object == null) {
-
-					//创建Bean
-					object = doGetObjectFromFactoryBean(factory, beanName);
-					// Only post-process and store if not put there already during getObject() call above
-					// (e.g. because of circular reference processing triggered by custom getBean calls)
-					Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
-					if (alreadyThere != null) {
-						object = alreadyThere;
+					boolean registerCreation = (creatingThread == null);
+					if (registerCreation) {
+						this.factoryBeanObjectCreationThreads.put(beanName, Thread.currentThread());
 					}
-					else {
-						if (object != null && shouldPostProcess) {
-							try {
-								object = postProcessObjectFromFactoryBean(object, beanName);
-							}
-							catch (Throwable ex) {
-								throw new BeanCreationException(beanName,
-										"Post-processing of FactoryBean's singleton object failed", ex);
+					try {
+						//创建Bean
+						object = doGetObjectFromFactoryBean(factory, beanName);
+						// Only post-process and store if not put there already during getObject() call above
+						// (e.g. because of circular reference processing triggered by custom getBean calls)
+						Object alreadyThere = this.factoryBeanObjectCache.get(beanName);
+						if (alreadyThere != null) {
+							object = alreadyThere;
+						}
+						else {
+							if (object != null && shouldPostProcess) {
+								try {
+									object = postProcessObjectFromFactoryBean(object, beanName);
+								}
+								catch (Throwable ex) {
+									throw new BeanCreationException(beanName,
+											"Post-processing of FactoryBean's singleton object failed", ex);
+								}
 							}
+							this.factoryBeanObjectCache.put(beanName, (object != null ? object : NULL_OBJECT));
+						}
+					}
+					finally {
+						if (registerCreation) {
+							this.factoryBeanObjectCreationThreads.remove(beanName);
+							getSingletonMutex().notifyAll();
 						}
-						this.factoryBeanObjectCache.put(beanName, (object != null ? object : NULL_OBJECT));
 					}
 				}
 				return (object != NULL_OBJECT ? object : null);
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Helper class for {@link DefaultListableBeanFactory}, pre-instantiating
+ * singletons on a given {@link Executor}.
+ *
+ * <p>Builds a dependency graph between the singletons to pre-instantiate,
+ * based on the bean references found in their merged bean definitions
+ * (depends-on, constructor arguments, property values, factory beans)
+ * as well as the dependencies registered with the factory so far.
+ * Beans that are part of a circular reference are grouped and created
+ * in registration order within a single task, just like in sequential
+ * pre-instantiation. Groups are submitted to the Executor as soon as
+ * all groups they depend on have been created, so independent parts of
+ * the graph get instantiated concurrently.
+ *
+ * <p>Dependencies that are not visible in bean definitions (e.g. annotation-driven
+ * autowiring) are resolved on demand by the creating thread, with the factory
+ * coordinating threads that ask for the same singleton.
+ *
+ * @since 3.2.17
+ * @see DefaultListableBeanFactory#setPreInstantiationExecutor
+ * @see DefaultSingletonBeanRegistry#setConcurrentSingletonCreation
+ */
+class ParallelSingletonInstantiator {
+
+	private static final Log logger = LogFactory.getLog(ParallelSingletonInstantiator.class);
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final Executor executor;
+
+	private final Object monitor = new Object();
+
+	private int runningGroups = 0;
+
+	private int remainingGroups = 0;
+
+	private Throwable failure;
+
+
+	/**
+	 * Create a new ParallelSingletonInstantiator for the given factory.
+	 * @param beanFactory the factory to pre-instantiate singletons in
+	 * @param executor the Executor to create the singletons on
+	 */
+	public ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, Executor executor) {
+		this.beanFactory = beanFactory;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Pre-instantiate the given singletons, returning once all of them have
+	 * been created or once creation failed and all running tasks have finished.
+	 * @param beanNames the names of the candidate beans, in registration order
+	 * (all of them non-abstract, non-lazy singletons)
+	 */
+	public void preInstantiateSingletons(List<String> beanNames) {
+		List<BeanGroup> groups = buildGroups(beanNames);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + beanNames.size() + " singletons in " + groups.size() +
+					" groups on executor [" + this.executor + "]");
+		}
+		List<BeanGroup> readyGroups = new ArrayList<BeanGroup>();
+		for (BeanGroup group : groups) {
+			if (group.pendingDependencies == 0) {
+				readyGroups.add(group);
+			}
+		}
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		boolean interrupted = false;
+		this.beanFactory.setConcurrentSingletonCreation(true);
+		try {
+			synchronized (this.monitor) {
+				this.remainingGroups = groups.size();
+				this.runningGroups = readyGroups.size();
+			}
+			submit(readyGroups, classLoader);
+			synchronized (this.monitor) {
+				while (this.runningGroups > 0) {
+					try {
+						this.monitor.wait();
+					}
+					catch (InterruptedException ex) {
+						// Stop submitting further groups, but wait for the running ones to finish.
+						interrupted = true;
+						if (this.failure == null) {
+							this.failure = ex;
+						}
+					}
+				}
+			}
+		}
+		finally {
+			this.beanFactory.setConcurrentSingletonCreation(false);
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this.monitor) {
+			if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			if (this.failure instanceof Error) {
+				throw (Error) this.failure;
+			}
+			if (this.failure != null) {
+				throw new FatalBeanException("Pre-instantiation of singletons interrupted", this.failure);
+			}
+			if (this.remainingGroups > 0) {
+				throw new IllegalStateException(this.remainingGroups + " groups of singletons have not been created");
+			}
+		}
+	}
+
+	private void submit(List<BeanGroup> groups, ClassLoader classLoader) {
+		for (BeanGroup group : groups) {
+			Runnable task = new BeanGroupTask(group, classLoader);
+			try {
+				this.executor.execute(task);
+			}
+			catch (RejectedExecutionException ex) {
+				task.run();
+			}
+		}
+	}
+
+	/**
+	 * Create the singletons in the given group and submit the groups
+	 * that only depended on this one and other completed groups.
+	 */
+	private void instantiateGroup(BeanGroup group, ClassLoader classLoader) {
+		Throwable ex = null;
+		if (!isAborted()) {
+			Thread currentThread = Thread.currentThread();
+			ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+			currentThread.setContextClassLoader(classLoader);
+			try {
+				for (String beanName : group.beanNames) {
+					this.beanFactory.preInstantiateSingleton(beanName);
+				}
+			}
+			catch (Throwable t) {
+				ex = t;
+			}
+			finally {
+				currentThread.setContextClassLoader(previousClassLoader);
+			}
+		}
+		List<BeanGroup> readyGroups = new ArrayList<BeanGroup>();
+		synchronized (this.monitor) {
+			if (ex != null && this.failure == null) {
+				this.failure = ex;
+			}
+			if (this.failure == null) {
+				this.remainingGroups--;
+				for (BeanGroup dependent : group.dependents) {
+					dependent.pendingDependencies--;
+					if (dependent.pendingDependencies == 0) {
+						readyGroups.add(dependent);
+					}
+				}
+			}
+			this.runningGroups += readyGroups.size() - 1;
+			this.monitor.notifyAll();
+		}
+		submit(readyGroups, classLoader);
+	}
+
+	private boolean isAborted() {
+		synchronized (this.monitor) {
+			return (this.failure != null);
+		}
+	}
+
+
+	/**
+	 * Build the groups of beans to instantiate: the strongly connected components
+	 * of the dependency graph, with dependencies between groups.
+	 */
+	private List<BeanGroup> buildGroups(List<String> beanNames) {
+		Map<String, Set<String>> dependencies = new LinkedHashMap<String, Set<String>>(beanNames.size());
+		for (String beanName : beanNames) {
+			dependencies.put(beanName, new LinkedHashSet<String>());
+		}
+		for (String beanName : beanNames) {
+			Set<String> references = new LinkedHashSet<String>();
+			collectReferences(this.beanFactory.getMergedLocalBeanDefinition(beanName), references);
+			for (String registeredDependency : this.beanFactory.getDependenciesForBean(beanName)) {
+				references.add(registeredDependency);
+			}
+			for (String reference : references) {
+				String dependency = this.beanFactory.canonicalName(BeanFactoryUtils.transformedBeanName(reference));
+				if (!dependency.equals(beanName) && dependencies.containsKey(dependency)) {
+					dependencies.get(beanName).add(dependency);
+				}
+			}
+		}
+		return new GroupBuilder(dependencies).build();
+	}
+
+	private void collectReferences(BeanDefinition bd, Set<String> references) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependsOnBean : dependsOn) {
+				references.add(dependsOnBean);
+			}
+		}
+		if (bd.getFactoryBeanName() != null) {
+			references.add(bd.getFactoryBeanName());
+		}
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+			collectReferences(valueHolder.getValue(), references);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+			collectReferences(valueHolder.getValue(), references);
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			collectReferences(pv.getValue(), references);
+		}
+	}
+
+	private void collectReferences(Object value, Set<String> references) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				references.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectReferences(((BeanDefinitionHolder) value).getBeanDefinition(), references);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectReferences((BeanDefinition) value, references);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferences(element, references);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferences(entry.getKey(), references);
+				collectReferences(entry.getValue(), references);
+			}
+		}
+	}
+
+
+	/**
+	 * A group of beans to be created in registration order within a single task.
+	 */
+	private static class BeanGroup {
+
+		private final List<String> beanNames = new LinkedList<String>();
+
+		private final Set<BeanGroup> dependents = new LinkedHashSet<BeanGroup>();
+
+		private int pendingDependencies = 0;
+	}
+
+
+	/**
+	 * Runnable that instantiates the singletons of a BeanGroup.
+	 */
+	private class BeanGroupTask implements Runnable {
+
+		private final BeanGroup group;
+
+		private final ClassLoader classLoader;
+
+		public BeanGroupTask(BeanGroup group, ClassLoader classLoader) {
+			this.group = group;
+			this.classLoader = classLoader;
+		}
+
+		public void run() {
+			instantiateGroup(this.group, this.classLoader);
+		}
+	}
+
+
+	/**
+	 * Computes the strongly connected components of the dependency graph
+	 * (Tarjan's algorithm), i.e. groups of beans that are part of the same
+	 * circular reference, and the dependencies between those groups.
+	 */
+	private static class GroupBuilder {
+
+		private final Map<String, Set<String>> dependencies;
+
+		private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+		private final Map<String, Integer> lowLinks = new HashMap<String, Integer>();
+
+		private final LinkedList<String> stack = new LinkedList<String>();
+
+		private final Set<String> onStack = new HashSet<String>();
+
+		private final Map<String, BeanGroup> groupsByBeanName = new HashMap<String, BeanGroup>();
+
+		private final List<BeanGroup> groups = new ArrayList<BeanGroup>();
+
+		private int index = 0;
+
+		public GroupBuilder(Map<String, Set<String>> dependencies) {
+			this.dependencies = dependencies;
+		}
+
+		public List<BeanGroup> build() {
+			for (String beanName : this.dependencies.keySet()) {
+				if (!this.indexes.containsKey(beanName)) {
+					visit(beanName);
+				}
+			}
+			for (Map.Entry<String, Set<String>> entry : this.dependencies.entrySet()) {
+				BeanGroup group = this.groupsByBeanName.get(entry.getKey());
+				for (String dependency : entry.getValue()) {
+					BeanGroup dependencyGroup = this.groupsByBeanName.get(dependency);
+					if (dependencyGroup != group && dependencyGroup.dependents.add(group)) {
+						group.pendingDependencies++;
+					}
+				}
+			}
+			// Create the beans of each group in registration order
+			for (String beanName : this.dependencies.keySet()) {
+				this.groupsByBeanName.get(beanName).beanNames.add(beanName);
+			}
+			return this.groups;
+		}
+
+		private void visit(String beanName) {
+			this.indexes.put(beanName, this.index);
+			this.lowLinks.put(beanName, this.index);
+			this.index++;
+			this.stack.push(beanName);
+			this.onStack.add(beanName);
+			for (String dependency : this.dependencies.get(beanName)) {
+				if (!this.indexes.containsKey(dependency)) {
+					visit(dependency);
+					this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.lowLinks.get(dependency)));
+				}
+				else if (this.onStack.contains(dependency)) {
+					this.lowLinks.put(beanName, Math.min(this.lowLinks.get(beanName), this.indexes.get(dependency)));
+				}
+			}
+			if (this.lowLinks.get(beanName).equals(this.indexes.get(beanName))) {
+				BeanGroup group = new BeanGroup();
+				String member;
+				do {
+					member = this.stack.pop();
+					this.onStack.remove(member);
+					this.groupsByBeanName.put(member, group);
+				}
+				while (!member.equals(beanName));
+				this.groups.add(group);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanWrapperImpl} with generated property accessors.
+ */
+public class BeanWrapperGeneratedAccessorTests {
+
+	@Test
+	public void testPrimitiveAndObjectProperties() throws Exception {
+		AccessorBean bean = new AccessorBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setUseGeneratedAccessors(true);
+		bw.setPropertyValue("name", "Rod");
+		bw.setPropertyValue("age", "42");
+		bw.setPropertyValue("id", 7L);
+		bw.setPropertyValue("ratio", "0.5");
+		bw.setPropertyValue("active", true);
+		bw.setPropertyValue("tags", new String[] {"a", "b"});
+		bw.setPropertyValue("fluent", "value");
+
+		assertEquals("Rod", bean.getName());
+		assertEquals(42, bean.getAge());
+		assertEquals(7L, bean.getId());
+		assertEquals(0.5, bean.getRatio(), 0.0);
+		assertTrue(bean.isActive());
+		assertArrayEquals(new String[] {"a", "b"}, bean.getTags());
+		assertEquals("value", bean.fluent);
+
+		assertEquals("Rod", bw.getPropertyValue("name"));
+		assertEquals(42, bw.getPropertyValue("age"));
+		assertEquals(7L, bw.getPropertyValue("id"));
+		assertEquals(Boolean.TRUE, bw.getPropertyValue("active"));
+		assertEquals("b", bw.getPropertyValue("tags[1]"));
+
+		GeneratedPropertyAccessor accessor =
+				CachedIntrospectionResults.forClass(AccessorBean.class).getGeneratedPropertyAccessor();
+		assertNotNull(accessor);
+		assertTrue(accessor.getMethodIndex(AccessorBean.class.getMethod("getName")) >= 0);
+		assertTrue(accessor.getMethodIndex(AccessorBean.class.getMethod("setAge", int.class)) >= 0);
+	}
+
+	@Test
+	public void testNestedProperties() {
+		AccessorBean bean = new AccessorBean();
+		bean.setSpouse(new AccessorBean());
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setUseGeneratedAccessors(true);
+		bw.setPropertyValue("spouse.name", "Kerry");
+		assertEquals("Kerry", bean.getSpouse().getName());
+		assertEquals("Kerry", bw.getPropertyValue("spouse.name"));
+	}
+
+	@Test
+	public void testNonPublicClassFallsBackToReflection() {
+		NonPublicBean bean = new NonPublicBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setUseGeneratedAccessors(true);
+		bw.setPropertyValue("name", "Juergen");
+		assertEquals("Juergen", bw.getPropertyValue("name"));
+		assertNull(CachedIntrospectionResults.forClass(NonPublicBean.class).getGeneratedPropertyAccessor());
+	}
+
+	@Test
+	public void testExceptionFromSetter() {
+		BeanWrapperImpl bw = new BeanWrapperImpl(new AccessorBean());
+		bw.setUseGeneratedAccessors(true);
+		try {
+			bw.setPropertyValue("failing", "value");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testExceptionFromGetter() {
+		BeanWrapperImpl bw = new BeanWrapperImpl(new AccessorBean());
+		bw.setUseGeneratedAccessors(true);
+		try {
+			bw.getPropertyValue("failing");
+			fail("Should have thrown InvalidPropertyException");
+		}
+		catch (InvalidPropertyException ex) {
+			assertTrue(ex.getCause().getCause() instanceof IllegalStateException);
+		}
+	}
+
+
+	public static class AccessorBean {
+
+		private String name;
+
+		private int age;
+
+		private long id;
+
+		private double ratio;
+
+		private boolean active;
+
+		private String[] tags;
+
+		private AccessorBean spouse;
+
+		private String fluent;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public double getRatio() {
+			return this.ratio;
+		}
+
+		public void setRatio(double ratio) {
+			this.ratio = ratio;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public String[] getTags() {
+			return this.tags;
+		}
+
+		public void setTags(String[] tags) {
+			this.tags = tags;
+		}
+
+		public AccessorBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(AccessorBean spouse) {
+			this.spouse = spouse;
+		}
+
+		public String getFluent() {
+			return this.fluent;
+		}
+
+		public AccessorBean setFluent(String fluent) {
+			this.fluent = fluent;
+			return this;
+		}
+
+		public String getFailing() {
+			throw new IllegalStateException("Cannot read");
+		}
+
+		public void setFailing(String failing) {
+			throw new IllegalStateException("Cannot write");
+		}
+	}
+
+
+	static class NonPublicBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
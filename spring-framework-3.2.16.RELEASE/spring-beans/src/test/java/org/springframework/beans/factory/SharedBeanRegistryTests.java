@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -90,4 +90,43 @@ public final class SharedBeanRegistryTests {
         assertTrue(tb.wasDestroyed());
     }
 
+    @Test
+    public void testDependentBeansInFrozenRegistry() {
+        FreezableSingletonBeanRegistry beanRegistry = new FreezableSingletonBeanRegistry();
+        beanRegistry.registerSingleton("a", new TestBean());
+        beanRegistry.registerSingleton("b", new TestBean());
+        beanRegistry.registerDependentBean("a", "b");
+        beanRegistry.freeze();
+        assertTrue(beanRegistry.isFrozen());
+
+        beanRegistry.registerDependentBean("a", "b");
+        beanRegistry.registerDependentBean("a", "c");
+        beanRegistry.registerContainedBean("inner", "c");
+        assertEquals(Arrays.asList("b", "c"), Arrays.asList(beanRegistry.getDependentBeans("a")));
+        assertEquals(Arrays.asList("c"), Arrays.asList(beanRegistry.getDependentBeans("inner")));
+        assertEquals(Arrays.asList("a"), Arrays.asList(beanRegistry.getDependenciesForBean("b")));
+
+        String[] dependentBeans = beanRegistry.getDependentBeans("a");
+        beanRegistry.destroySingleton("b");
+        assertEquals(Arrays.asList("c"), Arrays.asList(beanRegistry.getDependentBeans("a")));
+        assertEquals(2, dependentBeans.length);
+        assertEquals(1, beanRegistry.getSingletonCount());
+
+        beanRegistry.destroySingletons();
+        assertFalse(beanRegistry.isFrozen());
+        assertEquals(0, beanRegistry.getDependentBeans("a").length);
+    }
+
+
+    private static class FreezableSingletonBeanRegistry extends DefaultSingletonBeanRegistry {
+
+        public void freeze() {
+            freezeSingletonRegistry();
+        }
+
+        public boolean isFrozen() {
+            return isSingletonRegistryFrozen();
+        }
+    }
+
 }
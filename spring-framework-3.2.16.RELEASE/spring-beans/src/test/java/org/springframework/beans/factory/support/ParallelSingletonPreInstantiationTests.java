@@ -0,0 +1,408 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel pre-instantiation of singletons in a
+ * {@link DefaultListableBeanFactory}.
+ */
+public class ParallelSingletonPreInstantiationTests {
+
+	private static final Map<String, Thread> creatingThreads = new ConcurrentHashMap<String, Thread>();
+
+	private static volatile CountDownLatch latch;
+
+	private static volatile CountDownLatch blockingBeanInCreation;
+
+	private static volatile CountDownLatch blockingBeanRelease;
+
+	private ExecutorService executor;
+
+	private DefaultListableBeanFactory bf;
+
+
+	@Before
+	public void setUp() {
+		this.executor = Executors.newFixedThreadPool(4);
+		this.bf = new DefaultListableBeanFactory();
+		this.bf.setPreInstantiationExecutor(this.executor);
+		creatingThreads.clear();
+		latch = new CountDownLatch(2);
+		blockingBeanInCreation = new CountDownLatch(1);
+		blockingBeanRelease = new CountDownLatch(1);
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void independentSingletonsCreatedConcurrently() {
+		// Each bean waits for the other one to be in creation at the same time
+		this.bf.registerBeanDefinition("a", new RootBeanDefinition(LatchBean.class));
+		this.bf.registerBeanDefinition("b", new RootBeanDefinition(LatchBean.class));
+		this.bf.preInstantiateSingletons();
+		assertTrue(this.bf.getBean("a", LatchBean.class).concurrent);
+		assertTrue(this.bf.getBean("b", LatchBean.class).concurrent);
+		assertNotSame(creatingThreads.get("a"), creatingThreads.get("b"));
+		assertNotSame(Thread.currentThread(), creatingThreads.get("a"));
+	}
+
+	@Test
+	public void dependenciesCreatedFirst() {
+		RootBeanDefinition dependent = new RootBeanDefinition(DependentBean.class);
+		dependent.getPropertyValues().add("dependency", new RuntimeBeanReference("dependency"));
+		this.bf.registerBeanDefinition("dependent", dependent);
+		this.bf.registerBeanDefinition("dependency", new RootBeanDefinition(DependentBean.class));
+		RootBeanDefinition lazy = new RootBeanDefinition(DependentBean.class);
+		lazy.setLazyInit(true);
+		this.bf.registerBeanDefinition("lazy", lazy);
+		this.bf.preInstantiateSingletons();
+		assertTrue(this.bf.containsSingleton("dependent"));
+		assertTrue(this.bf.containsSingleton("dependency"));
+		assertFalse(this.bf.containsSingleton("lazy"));
+		DependentBean bean = this.bf.getBean("dependent", DependentBean.class);
+		assertSame(this.bf.getBean("dependency"), bean.dependency);
+		assertTrue(bean.dependencyInitialized);
+	}
+
+	@Test
+	public void circularReferenceInBeanDefinitions() {
+		RootBeanDefinition a = new RootBeanDefinition(DependentBean.class);
+		a.getPropertyValues().add("dependency", new RuntimeBeanReference("b"));
+		RootBeanDefinition b = new RootBeanDefinition(DependentBean.class);
+		b.getPropertyValues().add("dependency", new RuntimeBeanReference("a"));
+		this.bf.registerBeanDefinition("a", a);
+		this.bf.registerBeanDefinition("b", b);
+		this.bf.preInstantiateSingletons();
+		assertSame(this.bf.getBean("b"), this.bf.getBean("a", DependentBean.class).dependency);
+		assertSame(this.bf.getBean("a"), this.bf.getBean("b", DependentBean.class).dependency);
+		// Created within the same group, i.e. on the same thread
+		assertSame(creatingThreads.get("a"), creatingThreads.get("b"));
+	}
+
+	@Test
+	public void hiddenDependencyWaitsForFullyInitializedSingleton() {
+		RootBeanDefinition lookup = new RootBeanDefinition(LookupBean.class);
+		lookup.getPropertyValues().add("lookupName", "latch");
+		lookup.getPropertyValues().add("awaitLatch", true);
+		this.bf.registerBeanDefinition("lookup", lookup);
+		this.bf.registerBeanDefinition("latch", new RootBeanDefinition(LatchBean.class));
+		this.bf.preInstantiateSingletons();
+		LookupBean bean = this.bf.getBean("lookup", LookupBean.class);
+		assertSame(this.bf.getBean("latch"), bean.lookedUp);
+		assertTrue(bean.lookedUpInitialized);
+	}
+
+	@Test
+	public void hiddenCircularReferenceBetweenThreads() {
+		RootBeanDefinition a = new RootBeanDefinition(LookupBean.class);
+		a.getPropertyValues().add("lookupName", "b");
+		a.getPropertyValues().add("awaitLatch", true);
+		RootBeanDefinition b = new RootBeanDefinition(LookupBean.class);
+		b.getPropertyValues().add("lookupName", "a");
+		b.getPropertyValues().add("awaitLatch", true);
+		this.bf.registerBeanDefinition("a", a);
+		this.bf.registerBeanDefinition("b", b);
+		this.bf.preInstantiateSingletons();
+		assertSame(this.bf.getBean("b"), this.bf.getBean("a", LookupBean.class).lookedUp);
+		assertSame(this.bf.getBean("a"), this.bf.getBean("b", LookupBean.class).lookedUp);
+	}
+
+	@Test
+	public void failureIsPropagated() {
+		RootBeanDefinition failing = new RootBeanDefinition(DependentBean.class);
+		failing.getPropertyValues().add("fail", true);
+		this.bf.registerBeanDefinition("failing", failing);
+		for (int i = 0; i < 20; i++) {
+			this.bf.registerBeanDefinition("bean" + i, new RootBeanDefinition(DependentBean.class));
+		}
+		try {
+			this.bf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("failing", ex.getBeanName());
+		}
+		assertFalse(this.bf.containsSingleton("failing"));
+		assertFalse(this.bf.isConcurrentSingletonCreation());
+	}
+
+	@Test
+	public void factoryBeanObjectCreatedOnceWhileWaitingForSingleton() throws Exception {
+		this.bf.setConcurrentSingletonCreation(true);
+		this.bf.registerBeanDefinition("blocking", new RootBeanDefinition(BlockingBean.class));
+		this.bf.registerBeanDefinition("factory", new RootBeanDefinition(CountingFactoryBean.class));
+		ResultThread blocking = startThread(getBeanTask("blocking"));
+		assertTrue(blockingBeanInCreation.await(5, TimeUnit.SECONDS));
+		// getObject() waits for the blocking bean, which releases the singleton mutex
+		ResultThread first = startThread(getBeanTask("factory"));
+		awaitWaiting(first);
+		ResultThread second = startThread(getBeanTask("factory"));
+		awaitWaiting(second);
+		blockingBeanRelease.countDown();
+		assertNotNull(blocking.getResult());
+		assertNotNull(first.getResult());
+		assertSame(first.getResult(), second.getResult());
+		assertEquals(1, this.bf.getBean("&factory", CountingFactoryBean.class).objectCount.get());
+	}
+
+	@Test
+	public void typeCheckWaitsForSingletonInCreationByOtherThread() throws Exception {
+		this.bf.setConcurrentSingletonCreation(true);
+		RootBeanDefinition blockingDefinition = new RootBeanDefinition(BlockingBean.class);
+		// Declared to return Object: the type of the bean definition differs from the type of the instance
+		blockingDefinition.setFactoryMethodName("createBlockingString");
+		this.bf.registerBeanDefinition("blocking", blockingDefinition);
+		ResultThread blocking = startThread(getBeanTask("blocking"));
+		assertTrue(blockingBeanInCreation.await(5, TimeUnit.SECONDS));
+		ResultThread typeCheck = startThread(new Callable<Object>() {
+			public Object call() {
+				return bf.isTypeMatch("blocking", String.class);
+			}
+		});
+		awaitWaiting(typeCheck);
+		blockingBeanRelease.countDown();
+		assertEquals("blocking", blocking.getResult());
+		assertEquals(Boolean.TRUE, typeCheck.getResult());
+	}
+
+	@Test
+	public void sequentialWithoutExecutor() {
+		this.bf.setPreInstantiationExecutor(null);
+		this.bf.registerBeanDefinition("a", new RootBeanDefinition(DependentBean.class));
+		this.bf.registerBeanDefinition("b", new RootBeanDefinition(DependentBean.class));
+		this.bf.preInstantiateSingletons();
+		assertSame(Thread.currentThread(), creatingThreads.get("a"));
+		assertSame(Thread.currentThread(), creatingThreads.get("b"));
+	}
+
+
+	private Callable<Object> getBeanTask(final String beanName) {
+		return new Callable<Object>() {
+			public Object call() {
+				return bf.getBean(beanName);
+			}
+		};
+	}
+
+	private static ResultThread startThread(Callable<Object> task) {
+		ResultThread thread = new ResultThread(task);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Wait until the given thread waits on a monitor (or has already terminated).
+	 */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TERMINATED) {
+			assertTrue("Thread did not start waiting", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+
+	private static class ResultThread extends Thread {
+
+		private final Callable<Object> task;
+
+		private volatile Object result;
+
+		private volatile Exception failure;
+
+		public ResultThread(Callable<Object> task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.result = this.task.call();
+			}
+			catch (Exception ex) {
+				this.failure = ex;
+			}
+		}
+
+		public Object getResult() throws Exception {
+			join(5000);
+			assertFalse("Thread did not finish", isAlive());
+			if (this.failure != null) {
+				throw this.failure;
+			}
+			return this.result;
+		}
+	}
+
+
+	public static class DependentBean implements BeanNameAware, BeanFactoryAware {
+
+		private DependentBean dependency;
+
+		private boolean dependencyInitialized;
+
+		private boolean initialized;
+
+		public void setDependency(DependentBean dependency) {
+			this.dependency = dependency;
+			this.dependencyInitialized = dependency.initialized;
+		}
+
+		public void setFail(boolean fail) {
+			if (fail) {
+				throw new IllegalStateException("Failing on purpose");
+			}
+		}
+
+		public void setBeanName(String name) {
+			creatingThreads.put(name, Thread.currentThread());
+		}
+
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.initialized = true;
+		}
+	}
+
+
+	public static class LatchBean implements BeanNameAware {
+
+		private boolean concurrent;
+
+		private boolean initialized;
+
+		public void setBeanName(String name) {
+			creatingThreads.put(name, Thread.currentThread());
+			latch.countDown();
+			try {
+				this.concurrent = latch.await(5, TimeUnit.SECONDS);
+				// Give other threads the chance to ask for this bean in the meantime
+				Thread.sleep(50);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.initialized = true;
+		}
+	}
+
+
+	public static class BlockingBean {
+
+		public BlockingBean() throws InterruptedException {
+			blockingBeanInCreation.countDown();
+			blockingBeanRelease.await(5, TimeUnit.SECONDS);
+		}
+
+		public static Object createBlockingString() throws InterruptedException {
+			new BlockingBean();
+			return "blocking";
+		}
+	}
+
+
+	public static class CountingFactoryBean implements FactoryBean<Object>, BeanFactoryAware {
+
+		private final AtomicInteger objectCount = new AtomicInteger();
+
+		private BeanFactory beanFactory;
+
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = beanFactory;
+		}
+
+		public Object getObject() {
+			this.objectCount.incrementAndGet();
+			return new Object[] {this.beanFactory.getBean("blocking")};
+		}
+
+		public Class<?> getObjectType() {
+			return Object.class;
+		}
+
+		public boolean isSingleton() {
+			return true;
+		}
+	}
+
+
+	public static class LookupBean implements BeanNameAware, BeanFactoryAware {
+
+		private String lookupName;
+
+		private boolean awaitLatch;
+
+		private Object lookedUp;
+
+		private boolean lookedUpInitialized;
+
+		public void setLookupName(String lookupName) {
+			this.lookupName = lookupName;
+		}
+
+		public void setAwaitLatch(boolean awaitLatch) {
+			this.awaitLatch = awaitLatch;
+		}
+
+		public void setBeanName(String name) {
+			creatingThreads.put(name, Thread.currentThread());
+		}
+
+		public void setBeanFactory(BeanFactory beanFactory) {
+			if (this.awaitLatch) {
+				// Make sure that the other bean is in creation at the same time
+				latch.countDown();
+				try {
+					latch.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			this.lookedUp = beanFactory.getBean(this.lookupName);
+			if (this.lookedUp instanceof LatchBean) {
+				this.lookedUpInitialized = ((LatchBean) this.lookedUp).initialized;
+			}
+		}
+	}
+
+}
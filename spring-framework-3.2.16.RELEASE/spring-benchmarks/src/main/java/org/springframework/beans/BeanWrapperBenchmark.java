@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link BeanWrapperImpl#setPropertyValue} and
+ * {@link BeanWrapperImpl#getPropertyValue}, with and without type conversion
+ * and with nested property paths.
+ *
+ * @since 3.2.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanWrapperBenchmark {
+
+	private BeanWrapperImpl beanWrapper;
+
+
+	@Setup
+	public void setup() {
+		Person person = new Person();
+		person.setSpouse(new Person());
+		this.beanWrapper = new BeanWrapperImpl(person);
+	}
+
+
+	@Benchmark
+	public void setStringProperty() {
+		this.beanWrapper.setPropertyValue("name", "Juergen");
+	}
+
+	@Benchmark
+	public void setConvertedProperty() {
+		this.beanWrapper.setPropertyValue("age", "37");
+	}
+
+	@Benchmark
+	public void setNestedProperty() {
+		this.beanWrapper.setPropertyValue("spouse.name", "Kerry");
+	}
+
+	@Benchmark
+	public Object getProperty() {
+		return this.beanWrapper.getPropertyValue("name");
+	}
+
+	@Benchmark
+	public Object getNestedProperty() {
+		return this.beanWrapper.getPropertyValue("spouse.name");
+	}
+
+	@Benchmark
+	public Object newBeanWrapper() {
+		BeanWrapperImpl bw = new BeanWrapperImpl(new Person());
+		bw.setPropertyValue("name", "Juergen");
+		bw.setPropertyValue("age", "37");
+		return bw.getWrappedInstance();
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Person spouse;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Person getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(Person spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+}
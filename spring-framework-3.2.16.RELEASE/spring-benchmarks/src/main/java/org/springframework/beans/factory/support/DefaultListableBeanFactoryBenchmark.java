@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.context.support.SimpleThreadScope;
+
+/**
+ * Benchmarks for {@link DefaultListableBeanFactory#getBean} against singleton,
+ * prototype and custom-scoped bean definitions.
+ *
+ * @since 3.2.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultListableBeanFactoryBenchmark {
+
+	private DefaultListableBeanFactory beanFactory;
+
+
+	@Setup
+	public void setup() {
+		this.beanFactory = new DefaultListableBeanFactory();
+		this.beanFactory.registerScope("thread", new SimpleThreadScope());
+
+		RootBeanDefinition spouse = new RootBeanDefinition(Person.class);
+		spouse.getPropertyValues().add("name", "Kerry");
+		this.beanFactory.registerBeanDefinition("spouse", spouse);
+
+		this.beanFactory.registerBeanDefinition("singleton", createPersonDefinition(BeanDefinition.SCOPE_SINGLETON));
+		this.beanFactory.registerBeanDefinition("prototype", createPersonDefinition(BeanDefinition.SCOPE_PROTOTYPE));
+		this.beanFactory.registerBeanDefinition("scoped", createPersonDefinition("thread"));
+		this.beanFactory.freezeConfiguration();
+		this.beanFactory.preInstantiateSingletons();
+	}
+
+	private static RootBeanDefinition createPersonDefinition(String scope) {
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.add("name", "Juergen");
+		pvs.add("age", 37);
+		pvs.add("spouse", new RuntimeBeanReference("spouse"));
+		RootBeanDefinition bd = new RootBeanDefinition(Person.class, null, pvs);
+		bd.setScope(scope);
+		return bd;
+	}
+
+
+	@Benchmark
+	public Object singletonByName() {
+		return this.beanFactory.getBean("singleton");
+	}
+
+	@Benchmark
+	public Object singletonByType() {
+		return this.beanFactory.getBean("singleton", Person.class);
+	}
+
+	@Benchmark
+	public Object prototype() {
+		return this.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object scoped() {
+		return this.beanFactory.getBean("scoped");
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Person spouse;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Person getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(Person spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+}
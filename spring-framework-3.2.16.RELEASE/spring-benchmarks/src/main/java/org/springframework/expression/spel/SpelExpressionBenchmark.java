@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for {@code SpelExpression.getValue} with pre-parsed expressions,
+ * covering literals, property navigation, method invocation and operators,
+ * both interpreted and compiled.
+ *
+ * @since 3.2.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpelExpressionBenchmark {
+
+	@Param({"OFF", "MIXED"})
+	public String compilerMode;
+
+	private final Customer root = new Customer("Juergen", new Address("Linz"));
+
+	private StandardEvaluationContext context;
+
+	private Expression literal;
+
+	private Expression property;
+
+	private Expression nestedProperty;
+
+	private Expression methodInvocation;
+
+	private Expression operators;
+
+
+	@Setup
+	public void setup() {
+		SpelExpressionParser parser = new SpelExpressionParser(new SpelParserConfiguration(
+				SpelCompilerMode.valueOf(this.compilerMode), getClass().getClassLoader()));
+		this.context = new StandardEvaluationContext(this.root);
+		this.literal = parser.parseExpression("'hello'");
+		this.property = parser.parseExpression("name");
+		this.nestedProperty = parser.parseExpression("address.city");
+		this.methodInvocation = parser.parseExpression("name.substring(1, 3)");
+		this.operators = parser.parseExpression("age > 18 and name != null");
+	}
+
+
+	@Benchmark
+	public Object literal() {
+		return this.literal.getValue(this.context);
+	}
+
+	@Benchmark
+	public Object property() {
+		return this.property.getValue(this.context);
+	}
+
+	@Benchmark
+	public Object nestedProperty() {
+		return this.nestedProperty.getValue(this.context);
+	}
+
+	@Benchmark
+	public Object methodInvocation() {
+		return this.methodInvocation.getValue(this.context);
+	}
+
+	@Benchmark
+	public Object operators() {
+		return this.operators.getValue(this.context);
+	}
+
+
+	public static class Customer {
+
+		private final String name;
+
+		private final Address address;
+
+		public Customer(String name, Address address) {
+			this.name = name;
+			this.address = address;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return 42;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+	}
+
+
+	public static class Address {
+
+		private final String city;
+
+		public Address(String city) {
+			this.city = city;
+		}
+
+		public String getCity() {
+			return this.city;
+		}
+	}
+
+}
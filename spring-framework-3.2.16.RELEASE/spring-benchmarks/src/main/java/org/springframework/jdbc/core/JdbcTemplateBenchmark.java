@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmarks for {@link JdbcTemplate} queries against an embedded HSQL database,
+ * comparing a hand-written {@link RowMapper}, {@link BeanPropertyRowMapper}
+ * and {@link JdbcTemplate#queryForList(String)}.
+ *
+ * @since 3.2.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcTemplateBenchmark {
+
+	private static final String QUERY = "select id, first_name, last_name, age, balance from person";
+
+	@Param({"10", "1000"})
+	public int rows;
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private final RowMapper<Person> personRowMapper = new RowMapper<Person>() {
+		@Override
+		public Person mapRow(ResultSet rs, int rowNum) throws SQLException {
+			Person person = new Person();
+			person.setId(rs.getLong(1));
+			person.setFirstName(rs.getString(2));
+			person.setLastName(rs.getString(3));
+			person.setAge(rs.getInt(4));
+			person.setBalance(rs.getDouble(5));
+			return person;
+		}
+	};
+
+	private final RowMapper<Person> beanPropertyRowMapper = new BeanPropertyRowMapper<Person>(Person.class);
+
+
+	@Setup
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL)
+				.setName("benchmark-" + this.rows).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("create table person (id bigint primary key, first_name varchar(50), " +
+				"last_name varchar(50), age integer, balance double)");
+		for (int i = 0; i < this.rows; i++) {
+			this.jdbcTemplate.update("insert into person values (?, ?, ?, ?, ?)",
+					(long) i, "first" + i, "last" + i, i % 100, i * 1.5d);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.database.shutdown();
+	}
+
+
+	@Benchmark
+	public List<Person> rowMapper() {
+		return this.jdbcTemplate.query(QUERY, this.personRowMapper);
+	}
+
+	@Benchmark
+	public List<Person> beanPropertyRowMapper() {
+		return this.jdbcTemplate.query(QUERY, this.beanPropertyRowMapper);
+	}
+
+	@Benchmark
+	public Object queryForList() {
+		return this.jdbcTemplate.queryForList(QUERY);
+	}
+
+
+	public static class Person {
+
+		private long id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private int age;
+
+		private double balance;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return this.firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return this.lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public double getBalance() {
+			return this.balance;
+		}
+
+		public void setBalance(double balance) {
+			this.balance = balance;
+		}
+	}
+
+}
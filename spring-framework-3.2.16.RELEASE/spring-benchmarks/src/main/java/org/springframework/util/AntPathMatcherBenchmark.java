@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link AntPathMatcher#match} with the kind of patterns
+ * typically seen in handler mappings and resource pattern resolution.
+ *
+ * @since 3.2.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntPathMatcherBenchmark {
+
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+
+	@Benchmark
+	public boolean literal() {
+		return this.pathMatcher.match("/hotels/bookings/list", "/hotels/bookings/list");
+	}
+
+	@Benchmark
+	public boolean literalMismatch() {
+		return this.pathMatcher.match("/hotels/bookings/list", "/hotels/bookings/show");
+	}
+
+	@Benchmark
+	public boolean uriTemplate() {
+		return this.pathMatcher.match("/hotels/{hotel}/bookings/{booking}", "/hotels/42/bookings/21");
+	}
+
+	@Benchmark
+	public boolean wildcardSegment() {
+		return this.pathMatcher.match("/resources/*.css", "/resources/main.css");
+	}
+
+	@Benchmark
+	public boolean doubleWildcard() {
+		return this.pathMatcher.match("/resources/**/images/*.png", "/resources/static/theme/images/logo.png");
+	}
+
+	@Benchmark
+	public boolean doubleWildcardMismatch() {
+		return this.pathMatcher.match("/resources/**/images/*.png", "/resources/static/theme/css/main.css");
+	}
+
+	@Benchmark
+	public boolean classpathPattern() {
+		return this.pathMatcher.match("org/springframework/**/*.class",
+				"org/springframework/beans/factory/support/DefaultListableBeanFactory.class");
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+/**
+ * Benchmarks for {@link RequestMappingHandlerMapping#getHandler} with a mix of
+ * direct (literal) and URI template mappings.
+ *
+ * @since 3.2.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMappingHandlerMappingBenchmark {
+
+	private RequestMappingHandlerMapping handlerMapping;
+
+	private MockHttpServletRequest directRequest;
+
+	private MockHttpServletRequest patternRequest;
+
+	private MockHttpServletRequest nestedPatternRequest;
+
+	private MockHttpServletRequest unmappedRequest;
+
+
+	@Setup
+	public void setup() {
+		StaticWebApplicationContext wac = new StaticWebApplicationContext();
+		wac.setServletContext(new MockServletContext());
+		wac.registerSingleton("orderController", OrderController.class);
+		wac.registerSingleton("customerController", CustomerController.class);
+		wac.registerSingleton("productController", ProductController.class);
+		wac.refresh();
+
+		this.handlerMapping = new RequestMappingHandlerMapping();
+		this.handlerMapping.setApplicationContext(wac);
+		this.handlerMapping.afterPropertiesSet();
+
+		this.directRequest = new MockHttpServletRequest("GET", "/orders");
+		this.patternRequest = new MockHttpServletRequest("GET", "/products/42");
+		this.nestedPatternRequest = new MockHttpServletRequest("PUT", "/customers/7/addresses/3");
+		this.unmappedRequest = new MockHttpServletRequest("GET", "/unknown/path");
+	}
+
+
+	@Benchmark
+	public Object direct() throws Exception {
+		return this.handlerMapping.getHandler(this.directRequest);
+	}
+
+	@Benchmark
+	public Object pattern() throws Exception {
+		return this.handlerMapping.getHandler(this.patternRequest);
+	}
+
+	@Benchmark
+	public Object nestedPattern() throws Exception {
+		return this.handlerMapping.getHandler(this.nestedPatternRequest);
+	}
+
+	@Benchmark
+	public Object unmapped() throws Exception {
+		return this.handlerMapping.getHandler(this.unmappedRequest);
+	}
+
+
+	@Controller
+	@RequestMapping("/orders")
+	public static class OrderController {
+
+		@RequestMapping(method = RequestMethod.GET)
+		public void list() {
+		}
+
+		@RequestMapping(method = RequestMethod.POST)
+		public void create() {
+		}
+
+		@RequestMapping(value = "/{id}", method = RequestMethod.GET)
+		public void show(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}", method = RequestMethod.PUT)
+		public void update(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+		public void delete(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}/items", method = RequestMethod.GET)
+		public void items(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}/items/{item}", method = RequestMethod.GET)
+		public void item(@PathVariable String id, @PathVariable String item) {
+		}
+	}
+
+
+	@Controller
+	@RequestMapping("/customers")
+	public static class CustomerController {
+
+		@RequestMapping(method = RequestMethod.GET)
+		public void list() {
+		}
+
+		@RequestMapping(value = "/search", method = RequestMethod.GET)
+		public void search() {
+		}
+
+		@RequestMapping(value = "/{id}", method = RequestMethod.GET)
+		public void show(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}/addresses", method = RequestMethod.GET)
+		public void addresses(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}/addresses/{address}", method = RequestMethod.GET)
+		public void address(@PathVariable String id, @PathVariable String address) {
+		}
+
+		@RequestMapping(value = "/{id}/addresses/{address}", method = RequestMethod.PUT)
+		public void updateAddress(@PathVariable String id, @PathVariable String address) {
+		}
+	}
+
+
+	@Controller
+	@RequestMapping("/products")
+	public static class ProductController {
+
+		@RequestMapping(method = RequestMethod.GET)
+		public void list() {
+		}
+
+		@RequestMapping(value = "/{id}", method = RequestMethod.GET)
+		public void show(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/{id}/reviews", method = RequestMethod.GET)
+		public void reviews(@PathVariable String id) {
+		}
+
+		@RequestMapping(value = "/categories/**", method = RequestMethod.GET)
+		public void categories() {
+		}
+	}
+
+}
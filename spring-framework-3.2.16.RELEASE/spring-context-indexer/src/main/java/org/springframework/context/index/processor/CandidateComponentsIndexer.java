@@ -0,0 +1,265 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation {@link Processor} that writes a {@code META-INF/spring.components}
+ * index of the candidate components in the compiled sources, to be used by
+ * {@code ClassPathScanningCandidateComponentProvider} instead of scanning
+ * the classpath at runtime.
+ *
+ * <p>Each entry maps the binary name of a type to the stereotypes that it
+ * exposes: {@code org.springframework.stereotype.Component} for types annotated
+ * or meta-annotated with {@code @Component} (including {@code @Service} etc),
+ * as well as the names of all {@code javax.*} annotations present on the type
+ * (e.g. {@code javax.annotation.ManagedBean} and {@code javax.inject.Named}).
+ * Annotations on implemented interfaces get taken into account as well.
+ *
+ * <p>The index gets written even if no candidate components were found, marking
+ * the output as fully indexed. This processor does not depend on any Spring
+ * classes; simply put the jar on the annotation processor path of a build.
+ *
+ * @since 3.2.17
+ */
+public class CandidateComponentsIndexer implements Processor {
+
+	/**
+	 * The location of the index file within the class output.
+	 */
+	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+	private static final String COMPONENT_ANNOTATION = "org.springframework.stereotype.Component";
+
+	private static final String JAVAX_PACKAGE_PREFIX = "javax.";
+
+
+	private ProcessingEnvironment processingEnvironment;
+
+	private final Map<String, Set<String>> candidates = new TreeMap<String, Set<String>>();
+
+	private final Set<String> processedTypes = new HashSet<String>();
+
+
+	public Set<String> getSupportedOptions() {
+		return Collections.emptySet();
+	}
+
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	public void init(ProcessingEnvironment processingEnvironment) {
+		this.processingEnvironment = processingEnvironment;
+	}
+
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			processType(type);
+		}
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		// Never claim the annotations, leaving them to other processors
+		return false;
+	}
+
+	public Iterable<? extends Completion> getCompletions(
+			Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+
+		return Collections.emptyList();
+	}
+
+
+	/**
+	 * Record the stereotypes of the given type and of its member types.
+	 */
+	private void processType(TypeElement type) {
+		String typeName = getElements().getBinaryName(type).toString();
+		this.processedTypes.add(typeName);
+		Set<String> stereotypes = new LinkedHashSet<String>();
+		Set<String> visited = new HashSet<String>();
+		collectStereotypes(getElements().getAllAnnotationMirrors(type), stereotypes, visited);
+		collectInterfaceStereotypes(type, stereotypes, visited);
+		if (!stereotypes.isEmpty()) {
+			this.candidates.put(typeName, stereotypes);
+		}
+		for (TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+			processType(memberType);
+		}
+	}
+
+	private void collectInterfaceStereotypes(TypeElement type, Set<String> stereotypes, Set<String> visited) {
+		for (TypeMirror interfaceType : type.getInterfaces()) {
+			Element element = getTypes().asElement(interfaceType);
+			if (element instanceof TypeElement) {
+				collectStereotypes(getElements().getAllAnnotationMirrors(element), stereotypes, visited);
+				collectInterfaceStereotypes((TypeElement) element, stereotypes, visited);
+			}
+		}
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass instanceof DeclaredType) {
+			collectInterfaceStereotypes((TypeElement) ((DeclaredType) superclass).asElement(), stereotypes, visited);
+		}
+	}
+
+	/**
+	 * Collect the stereotypes exposed by the given annotations, following
+	 * meta-annotations to any depth.
+	 */
+	private void collectStereotypes(List<? extends AnnotationMirror> annotations, Set<String> stereotypes,
+			Set<String> visited) {
+
+		for (AnnotationMirror annotation : annotations) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			String annotationName = annotationType.getQualifiedName().toString();
+			if (!visited.add(annotationName)) {
+				continue;
+			}
+			if (COMPONENT_ANNOTATION.equals(annotationName)) {
+				stereotypes.add(COMPONENT_ANNOTATION);
+			}
+			else if (annotationName.startsWith(JAVAX_PACKAGE_PREFIX)) {
+				stereotypes.add(annotationName);
+			}
+			if (!annotationName.startsWith("java.lang.annotation.")) {
+				collectStereotypes(annotationType.getAnnotationMirrors(), stereotypes, visited);
+			}
+		}
+	}
+
+
+	/**
+	 * Write the index, including the still existing entries of a previous index
+	 * in case of an incremental compilation.
+	 */
+	private void writeIndex() {
+		Map<String, Set<String>> index = new TreeMap<String, Set<String>>(readPreviousIndex());
+		index.putAll(this.candidates);
+		try {
+			FileObject file = this.processingEnvironment.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+			OutputStream out = file.openOutputStream();
+			try {
+				// Not using Properties.store, which writes a timestamp comment
+				Writer writer = new OutputStreamWriter(out, "ISO-8859-1");
+				for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+					writer.write(entry.getKey());
+					writer.write('=');
+					writer.write(join(entry.getValue()));
+					writer.write('\n');
+				}
+				writer.flush();
+			}
+			finally {
+				out.close();
+			}
+		}
+		catch (IOException ex) {
+			this.processingEnvironment.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Failed to write " + COMPONENTS_RESOURCE_LOCATION + ": " + ex);
+		}
+	}
+
+	private Map<String, Set<String>> readPreviousIndex() {
+		Map<String, Set<String>> previousIndex = new TreeMap<String, Set<String>>();
+		Properties properties = new Properties();
+		try {
+			FileObject file = this.processingEnvironment.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+			InputStream in = file.openInputStream();
+			try {
+				properties.load(in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException ex) {
+			// No previous index - a full compilation
+			return previousIndex;
+		}
+		for (String typeName : properties.stringPropertyNames()) {
+			// Drop entries for types that have been recompiled or removed since
+			if (!this.processedTypes.contains(typeName) &&
+					getElements().getTypeElement(typeName.replace('$', '.')) != null) {
+				Set<String> stereotypes = new LinkedHashSet<String>();
+				for (String stereotype : properties.getProperty(typeName).split(",")) {
+					if (stereotype.trim().length() > 0) {
+						stereotypes.add(stereotype.trim());
+					}
+				}
+				previousIndex.put(typeName, stereotypes);
+			}
+		}
+		return previousIndex;
+	}
+
+	private Elements getElements() {
+		return this.processingEnvironment.getElementUtils();
+	}
+
+	private Types getTypes() {
+		return this.processingEnvironment.getTypeUtils();
+	}
+
+	private static String join(Set<String> values) {
+		StringBuilder sb = new StringBuilder();
+		for (String value : values) {
+			if (sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(value);
+		}
+		return sb.toString();
+	}
+
+}
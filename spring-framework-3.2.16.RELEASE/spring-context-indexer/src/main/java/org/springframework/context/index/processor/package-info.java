@@ -0,0 +1,7 @@
+/**
+ *
+ * Annotation processor that generates the index of candidate components
+ * read by Spring's classpath scanning at runtime.
+ *
+ */
+package org.springframework.context.index.processor;
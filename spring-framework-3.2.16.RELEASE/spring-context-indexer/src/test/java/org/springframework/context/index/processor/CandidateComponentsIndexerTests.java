@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import javax.inject.Named;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleNamed;
+import org.springframework.context.index.sample.SampleNone;
+import org.springframework.context.index.sample.SampleRepository;
+import org.springframework.context.index.sample.SampleRepositoryImpl;
+import org.springframework.context.index.sample.SampleService;
+import org.springframework.stereotype.Component;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CandidateComponentsIndexer}.
+ */
+public class CandidateComponentsIndexerTests {
+
+	private static final String COMPONENT = Component.class.getName();
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void componentAnnotation() throws Exception {
+		Properties index = compile(SampleComponent.class);
+		assertEquals(COMPONENT, index.getProperty(SampleComponent.class.getName()));
+	}
+
+	@Test
+	public void nestedComponentUsesBinaryName() throws Exception {
+		Properties index = compile(SampleComponent.class);
+		assertEquals(COMPONENT, index.getProperty(SampleComponent.Nested.class.getName()));
+	}
+
+	@Test
+	public void componentMetaAnnotation() throws Exception {
+		Properties index = compile(SampleService.class);
+		assertEquals(COMPONENT, index.getProperty(SampleService.class.getName()));
+	}
+
+	@Test
+	public void javaxAnnotation() throws Exception {
+		Properties index = compile(SampleNamed.class);
+		List<String> stereotypes = Arrays.asList(index.getProperty(SampleNamed.class.getName()).split(","));
+		assertTrue(stereotypes.contains(Named.class.getName()));
+		assertFalse(stereotypes.contains(COMPONENT));
+	}
+
+	@Test
+	public void annotationOnInterface() throws Exception {
+		Properties index = compile(SampleRepository.class, SampleRepositoryImpl.class);
+		assertEquals(COMPONENT, index.getProperty(SampleRepository.class.getName()));
+		assertEquals(COMPONENT, index.getProperty(SampleRepositoryImpl.class.getName()));
+	}
+
+	@Test
+	public void noCandidates() throws Exception {
+		Properties index = compile(SampleNone.class);
+		assertTrue(index.isEmpty());
+	}
+
+
+	/**
+	 * Compile the sources of the given types with the indexer, returning the
+	 * index that has been written.
+	 */
+	private Properties compile(Class<?>... types) throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		File outputDir = this.temporaryFolder.newFolder();
+		fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(outputDir));
+		fileManager.setLocation(StandardLocation.CLASS_PATH,
+				Arrays.asList(getLocation(Component.class), getLocation(Named.class)));
+		List<File> sources = new ArrayList<File>();
+		for (Class<?> type : types) {
+			sources.add(new File("src/test/java", type.getName().replace('.', '/') + ".java"));
+		}
+		JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, null, null,
+				fileManager.getJavaFileObjectsFromFiles(sources));
+		task.setProcessors(Collections.singleton(new CandidateComponentsIndexer()));
+		assertTrue("Compilation failed", task.call());
+		fileManager.close();
+
+		File indexFile = new File(outputDir, CandidateComponentsIndexer.COMPONENTS_RESOURCE_LOCATION);
+		assertTrue("No index written", indexFile.exists());
+		Properties index = new Properties();
+		InputStream in = new FileInputStream(indexFile);
+		try {
+			index.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return index;
+	}
+
+	private static File getLocation(Class<?> type) throws Exception {
+		return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,25 +16,57 @@
 
 package org.springframework.cache.ehcache;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.Status;
 
-import org.springframework.cache.Cache;
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.LoadingCache;
+import org.springframework.cache.support.BulkCacheUtils;
 import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.cache.support.StripedLockValueLoader;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
- * {@link Cache} implementation on top of an {@link Ehcache} instance.
+ * {@link org.springframework.cache.Cache} implementation on top of an
+ * {@link Ehcache} instance.
+ *
+ * <p>Loads through {@link #get(Object, Callable)} are synchronized per key
+ * within this JVM, based on a {@link StripedLockValueLoader}. Bulk operations
+ * are passed on to the Ehcache bulk API on EhCache 2.5+, and performed
+ * one key at a time on earlier versions.
  *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @since 3.1
  */
-public class EhCacheCache implements Cache {
+public class EhCacheCache implements LoadingCache, BulkCache {
+
+	// EhCache 2.5+ bulk operations available?
+	private static final Method getAllMethod =
+			ClassUtils.getMethodIfAvailable(Ehcache.class, "getAll", Collection.class);
+
+	private static final Method putAllMethod =
+			ClassUtils.getMethodIfAvailable(Ehcache.class, "putAll", Collection.class);
+
+	private static final Method removeAllMethod =
+			ClassUtils.getMethodIfAvailable(Ehcache.class, "removeAll", Collection.class);
+
 
 	private final Ehcache cache;
 
+	private final StripedLockValueLoader stripedLoader = new StripedLockValueLoader();
+
 
 	/**
 	 * Create an {@link EhCacheCache} instance.
@@ -62,6 +94,10 @@ public class EhCacheCache implements Cache {
 		return (element != null ? new SimpleValueWrapper(element.getObjectValue()) : null);
 	}
 
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return this.stripedLoader.get(this, key, valueLoader);
+	}
+
 	public void put(Object key, Object value) {
 		this.cache.put(new Element(key, value));
 	}
@@ -74,4 +110,39 @@ public class EhCacheCache implements Cache {
 		this.cache.removeAll();
 	}
 
+	@SuppressWarnings("unchecked")
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		if (getAllMethod == null) {
+			return BulkCacheUtils.getAllIndividually(this, keys);
+		}
+		Map<Object, Element> elements = (Map<Object, Element>) ReflectionUtils.invokeMethod(getAllMethod, this.cache, keys);
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(elements.size());
+		for (Map.Entry<Object, Element> entry : elements.entrySet()) {
+			if (entry.getValue() != null) {
+				result.put(entry.getKey(), new SimpleValueWrapper(entry.getValue().getObjectValue()));
+			}
+		}
+		return result;
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		if (putAllMethod == null) {
+			BulkCacheUtils.putAllIndividually(this, entries);
+			return;
+		}
+		List<Element> elements = new ArrayList<Element>(entries.size());
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			elements.add(new Element(entry.getKey(), entry.getValue()));
+		}
+		ReflectionUtils.invokeMethod(putAllMethod, this.cache, elements);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		if (removeAllMethod == null) {
+			BulkCacheUtils.evictAllIndividually(this, keys);
+			return;
+		}
+		ReflectionUtils.invokeMethod(removeAllMethod, this.cache, keys);
+	}
+
 }
@@ -17,21 +17,43 @@
 package org.springframework.cache.jcache;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.cache.Status;
 
-import org.springframework.cache.Cache;
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.LoadingCache;
+import org.springframework.cache.support.BulkCacheUtils;
 import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.cache.support.StripedLockValueLoader;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * {@link org.springframework.cache.Cache} implementation on top of a
  * {@link javax.cache.Cache} instance.
  *
+ * <p>Loads through {@link #get(Object, Callable)} are synchronized per key
+ * within this JVM, based on a {@link StripedLockValueLoader}. Bulk operations
+ * are passed on to the JCache bulk API.
+ *
  * @author Juergen Hoeller
  * @since 3.2
  */
-public class JCacheCache implements Cache {
+public class JCacheCache implements LoadingCache, BulkCache {
+
+	// JCache bulk operations: taking a Set as of JCache 0.6, a Collection in earlier drafts
+	private static final Method getAllMethod = getBulkMethod("getAll");
+
+	private static final Method removeAllMethod = getBulkMethod("removeAll");
+
 
 	private static final Object NULL_HOLDER = new NullHolder();
 
@@ -40,6 +62,8 @@ public class JCacheCache implements Cache {
 
 	private final boolean allowNullValues;
 
+	private final StripedLockValueLoader stripedLoader = new StripedLockValueLoader();
+
 
 	/**
 	 * Create an {@link org.springframework.cache.jcache.JCacheCache} instance.
@@ -82,6 +106,10 @@ public class JCacheCache implements Cache {
 		return (value != null ? new SimpleValueWrapper(fromStoreValue(value)) : null);
 	}
 
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return this.stripedLoader.get(this, key, valueLoader);
+	}
+
 	@SuppressWarnings("unchecked")
 	public void put(Object key, Object value) {
 		this.cache.put(key, toStoreValue(value));
@@ -96,6 +124,39 @@ public class JCacheCache implements Cache {
 		this.cache.removeAll();
 	}
 
+	@SuppressWarnings("unchecked")
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		if (getAllMethod == null) {
+			return BulkCacheUtils.getAllIndividually(this, keys);
+		}
+		Map<Object, Object> values = (Map<Object, Object>) ReflectionUtils.invokeMethod(
+				getAllMethod, this.cache, new LinkedHashSet<Object>(keys));
+		Map<Object, ValueWrapper> result = new LinkedHashMap<Object, ValueWrapper>(values.size());
+		for (Map.Entry<Object, Object> entry : values.entrySet()) {
+			if (entry.getValue() != null) {
+				result.put(entry.getKey(), new SimpleValueWrapper(fromStoreValue(entry.getValue())));
+			}
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeEntries = new LinkedHashMap<Object, Object>(entries.size());
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			storeEntries.put(entry.getKey(), toStoreValue(entry.getValue()));
+		}
+		this.cache.putAll(storeEntries);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		if (removeAllMethod == null) {
+			BulkCacheUtils.evictAllIndividually(this, keys);
+			return;
+		}
+		ReflectionUtils.invokeMethod(removeAllMethod, this.cache, new LinkedHashSet<Object>(keys));
+	}
+
 
 	/**
 	 * Convert the given value from the internal store to a user value
@@ -124,6 +185,12 @@ public class JCacheCache implements Cache {
 	}
 
 
+	private static Method getBulkMethod(String name) {
+		Method method = ClassUtils.getMethodIfAvailable(javax.cache.Cache.class, name, Set.class);
+		return (method != null ? method : ClassUtils.getMethodIfAvailable(javax.cache.Cache.class, name, Collection.class));
+	}
+
+
 	@SuppressWarnings("serial")
 	private static class NullHolder implements Serializable {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,23 +16,29 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.cache.BulkCache;
 import org.springframework.cache.Cache;
+import org.springframework.cache.support.BulkCacheUtils;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 /**
- * Cache decorator which synchronizes its {@link #put} and {@link #evict} operations with
- * Spring-managed transactions (through Spring's {@link TransactionSynchronizationManager},
- * performing the actual cache put/evict operation only in the after-commit phase of a
- * successful transaction. If no transaction is active, {@link #put} and {@link #evict}
+ * Cache decorator which synchronizes its {@link #put} and {@link #evict} operations
+ * (as well as their {@link #putAll bulk} {@link #evictAll variants}) with Spring-managed
+ * transactions (through Spring's {@link TransactionSynchronizationManager}, performing
+ * the actual cache put/evict operation only in the after-commit phase of a successful
+ * transaction. If no transaction is active, {@link #put} and {@link #evict}
  * operations will be performed immediately, as usual.
  *
  * @author Juergen Hoeller
  * @since 3.2
  * @see TransactionAwareCacheManagerProxy
  */
-public class TransactionAwareCacheDecorator implements Cache {
+public class TransactionAwareCacheDecorator implements BulkCache {
 
 	private final Cache targetCache;
 
@@ -91,4 +97,36 @@ public class TransactionAwareCacheDecorator implements Cache {
 		this.targetCache.clear();
 	}
 
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return BulkCacheUtils.getAll(this.targetCache, keys);
+	}
+
+	public void putAll(final Map<?, ?> entries) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					BulkCacheUtils.putAll(targetCache, entries);
+				}
+			});
+		}
+		else {
+			BulkCacheUtils.putAll(this.targetCache, entries);
+		}
+	}
+
+	public void evictAll(final Collection<?> keys) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					BulkCacheUtils.evictAll(targetCache, keys);
+				}
+			});
+		}
+		else {
+			BulkCacheUtils.evictAll(this.targetCache, keys);
+		}
+	}
+
 }
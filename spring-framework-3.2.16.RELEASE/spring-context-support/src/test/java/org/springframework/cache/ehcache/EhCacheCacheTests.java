@@ -1,5 +1,5 @@
 /*
- * Copyright 2010-2013 the original author or authors.
+ * Copyright 2010-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.ehcache;
 
+import java.util.concurrent.Callable;
+
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
@@ -24,7 +26,7 @@ import net.sf.ehcache.config.CacheConfiguration;
 import org.junit.Before;
 import org.junit.Test;
 
-import org.springframework.cache.Cache;
+import org.springframework.cache.LoadingCache;
 import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
 
@@ -39,7 +41,7 @@ public class EhCacheCacheTests {
 
 	protected Ehcache nativeCache;
 
-	protected Cache cache;
+	protected LoadingCache cache;
 
 
 	@Before
@@ -96,6 +98,21 @@ public class EhCacheCacheTests {
 		assertNull(cache.get("enescu"));
 	}
 
+	@Test
+	public void testCacheGetWithValueLoader() throws Exception {
+		assertEquals("george", cache.get("enescu", new Callable<String>() {
+			public String call() {
+				return "george";
+			}
+		}));
+		assertEquals("george", cache.get("enescu", new Callable<String>() {
+			public String call() {
+				throw new IllegalStateException("Should not be called");
+			}
+		}));
+		assertEquals("george", nativeCache.get("enescu").getObjectValue());
+	}
+
 	@Test
 	public void testExpiredElements() throws Exception {
 		Assume.group(TestGroup.LONG_RUNNING);
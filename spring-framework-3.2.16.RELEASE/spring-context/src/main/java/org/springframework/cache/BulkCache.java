@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Extension of the {@link Cache} interface for caches that are able to
+ * look up, store and evict several entries at once, e.g. in a single
+ * round trip to a remote cache tier.
+ *
+ * <p>Callers which deal with arbitrary {@code Cache} instances can use
+ * {@link org.springframework.cache.support.BulkCacheUtils}, which falls
+ * back to single-key operations for caches not implementing this interface.
+ *
+ * @since 3.2.17
+ * @see org.springframework.cache.annotation.CacheableAll
+ */
+public interface BulkCache extends Cache {
+
+	/**
+	 * Return the values to which this cache maps the specified keys.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map containing an entry for each key that this cache contains
+	 * a mapping for, with the cached value (which may be {@code null} itself)
+	 * contained within a {@link ValueWrapper}; keys without a mapping are
+	 * not contained in the map
+	 * @see #get(Object)
+	 */
+	Map<Object, ValueWrapper> getAll(Collection<?> keys);
+
+	/**
+	 * Associate the specified values with their keys in this cache,
+	 * replacing any values previously mapped to those keys.
+	 * @param entries the keys and values to store
+	 * @see #put(Object, Object)
+	 */
+	void putAll(Map<?, ?> entries);
+
+	/**
+	 * Evict the mappings for the specified keys from this cache if present.
+	 * @param keys the keys whose mappings are to be removed from the cache
+	 * @see #evict(Object)
+	 */
+	void evictAll(Collection<?> keys);
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Extension of the {@link Cache} interface for caches that are able to
+ * compute a missing value themselves, making sure that concurrent callers
+ * asking for the same key do not load the value more than once.
+ *
+ * <p>Used for {@code @Cacheable(sync = true)} operations. Caches that do not
+ * implement this interface get synchronized by the caching infrastructure
+ * through a {@link org.springframework.cache.support.StripedLockValueLoader}.
+ *
+ * @since 3.2.17
+ * @see org.springframework.cache.annotation.Cacheable#sync()
+ */
+public interface LoadingCache extends Cache {
+
+	/**
+	 * Return the value to which this cache maps the specified key, obtaining
+	 * that value from {@code valueLoader} if necessary.
+	 * <p>If the cache contains no mapping for the key, the loader is invoked
+	 * and its result (which may be {@code null}) is stored in the cache and
+	 * returned. Concurrent calls for the same key block until the value has
+	 * been loaded, so that the loader is invoked at most once at a time per key.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the callback to compute the value if necessary
+	 * @return the value to which this cache maps the specified key
+	 * @throws ValueRetrievalException if the {@code valueLoader} throws an exception
+	 */
+	<T> T get(Object key, Callable<T> valueLoader);
+
+
+	/**
+	 * Wrapper exception to be thrown from {@link #get(Object, Callable)}
+	 * in case of the value loader callback failing with an exception.
+	 */
+	@SuppressWarnings("serial")
+	class ValueRetrievalException extends RuntimeException {
+
+		private final Object key;
+
+		public ValueRetrievalException(Object key, Callable<?> loader, Throwable ex) {
+			super(String.format("Value for key '%s' could not be loaded using '%s'", key, loader), ex);
+			this.key = key;
+		}
+
+		public Object getKey() {
+			return this.key;
+		}
+	}
+
+}
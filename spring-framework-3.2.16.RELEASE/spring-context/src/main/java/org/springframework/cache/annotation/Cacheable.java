@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,4 +66,16 @@ public @interface Cacheable {
 	 * @since 3.2
 	 */
 	String unless() default "";
+
+	/**
+	 * Synchronize the invocation of the underlying method if several threads are
+	 * attempting to load a value for the same key, so that the method is invoked
+	 * only once per key while the other callers wait for its result.
+	 * <p>Only supported for a single cache and when no other cache operation
+	 * applies to the method; {@link #unless()} is not supported in this mode.
+	 * Default is {@code false}.
+	 * @since 3.2.17
+	 * @see org.springframework.cache.LoadingCache
+	 */
+	boolean sync() default false;
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation indicating that the result of a method looking up several values at
+ * once can be cached per element, so that only the keys missing from the cache are
+ * passed on to the method.
+ *
+ * <p>The annotated method is expected to take a single {@link java.util.Collection}
+ * of keys (typically declared as {@code Collection}, {@code List} or {@code Set}) and
+ * to return a {@link java.util.Map} from those keys to their values. Each key is used
+ * as the cache key of its value as-is. The method is invoked with the subset of keys
+ * not found in the cache (or not at all if all keys are cached), and returns a map
+ * containing both the cached and the newly retrieved values, in the order of the
+ * requested keys:
+ *
+ * <pre class="code">
+ * &#064;CacheableAll("users")
+ * public Map&lt;Long, User&gt; findUsers(Collection&lt;Long&gt; ids) {
+ *   ...
+ * }</pre>
+ *
+ * <p>Lookups and stores go through the {@link org.springframework.cache.BulkCache}
+ * operations if supported by the cache. Cannot be combined with other cache
+ * annotations on the same method.
+ *
+ * <p><b>Note:</b> The method arguments are only narrowed down to the missing keys in
+ * proxy mode; with AspectJ weaving, the method is invoked with all requested keys
+ * if any of them is missing.
+ *
+ * @since 3.2.17
+ * @see Cacheable
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface CacheableAll {
+
+	/**
+	 * Name of the cache in which the elements are cached.
+	 */
+	String value();
+
+	/**
+	 * Spring Expression Language (SpEL) attribute used for conditioning the method caching.
+	 * <p>Default is "", meaning the method is always cached.
+	 */
+	String condition() default "";
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,12 +25,13 @@ import java.util.Collection;
 import org.springframework.cache.interceptor.CacheEvictOperation;
 import org.springframework.cache.interceptor.CacheOperation;
 import org.springframework.cache.interceptor.CachePutOperation;
+import org.springframework.cache.interceptor.CacheableAllOperation;
 import org.springframework.cache.interceptor.CacheableOperation;
 import org.springframework.util.ObjectUtils;
 
 /**
  * Strategy implementation for parsing Spring's {@link Caching}, {@link Cacheable},
- * {@link CacheEvict} and {@link CachePut} annotations.
+ * {@link CacheableAll}, {@link CacheEvict} and {@link CachePut} annotations.
  *
  * @author Costin Leau
  * @author Juergen Hoeller
@@ -52,6 +53,13 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 				ops.add(parseCacheableAnnotation(ae, cacheable));
 			}
 		}
+		Collection<CacheableAll> cacheableAlls = getAnnotations(ae, CacheableAll.class);
+		if (cacheableAlls != null) {
+			ops = lazyInit(ops);
+			for (CacheableAll cacheableAll : cacheableAlls) {
+				ops.add(parseCacheableAllAnnotation(ae, cacheableAll));
+			}
+		}
 		Collection<CacheEvict> evicts = getAnnotations(ae, CacheEvict.class);
 		if (evicts != null) {
 			ops = lazyInit(ops);
@@ -86,11 +94,20 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		op.setCacheNames(caching.value());
 		op.setCondition(caching.condition());
 		op.setUnless(caching.unless());
+		op.setSync(caching.sync());
 		op.setKey(caching.key());
 		op.setName(ae.toString());
 		return op;
 	}
 
+	CacheableAllOperation parseCacheableAllAnnotation(AnnotatedElement ae, CacheableAll caching) {
+		CacheableAllOperation op = new CacheableAllOperation();
+		op.setCacheName(caching.value());
+		op.setCondition(caching.condition());
+		op.setName(ae.toString());
+		return op;
+	}
+
 	CacheEvictOperation parseEvictAnnotation(AnnotatedElement ae, CacheEvict caching) {
 		CacheEvictOperation op = new CacheEvictOperation();
 		op.setCacheNames(caching.value());
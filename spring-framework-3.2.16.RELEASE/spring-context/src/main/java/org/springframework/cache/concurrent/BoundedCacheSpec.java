@@ -0,0 +1,247 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Settings for a {@link BoundedConcurrentCache}: maximum size, expiration
+ * and refresh periods, and whether {@code null} values are allowed.
+ *
+ * <p>Can be built from a specification string through {@link #parse(String)},
+ * which makes it easy to configure caches from XML bean definitions or
+ * properties files, e.g. {@code "maximumSize=1000,expireAfterWrite=10m"}.
+ *
+ * @since 3.2.17
+ * @see BoundedConcurrentCacheManager#setCacheSpecs
+ */
+public class BoundedCacheSpec implements Cloneable {
+
+	private long maximumSize = -1;
+
+	private long expireAfterWrite = -1;
+
+	private long expireAfterAccess = -1;
+
+	private long refreshAfterWrite = -1;
+
+	private boolean allowNullValues = true;
+
+
+	/**
+	 * Set the maximum number of entries in the cache. When that number is
+	 * exceeded, the least valuable entries get evicted.
+	 * <p>Default is -1, meaning that the cache size is not bounded.
+	 */
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache, or -1 if not bounded.
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Set the number of milliseconds after which an entry expires once it
+	 * has been written. Default is -1, meaning no expiration after write.
+	 */
+	public void setExpireAfterWrite(long expireAfterWrite) {
+		this.expireAfterWrite = expireAfterWrite;
+	}
+
+	/**
+	 * Return the number of milliseconds after which an entry expires once
+	 * it has been written, or -1 if none.
+	 */
+	public long getExpireAfterWrite() {
+		return this.expireAfterWrite;
+	}
+
+	/**
+	 * Set the number of milliseconds after which an entry expires once it
+	 * has been last read or written. Default is -1, meaning no such expiration.
+	 */
+	public void setExpireAfterAccess(long expireAfterAccess) {
+		this.expireAfterAccess = expireAfterAccess;
+	}
+
+	/**
+	 * Return the number of milliseconds after which an entry expires once
+	 * it has been last read or written, or -1 if none.
+	 */
+	public long getExpireAfterAccess() {
+		return this.expireAfterAccess;
+	}
+
+	/**
+	 * Set the number of milliseconds after which an entry becomes eligible for
+	 * refresh once it has been written. Default is -1, meaning no refresh.
+	 * <p>A refresh is only triggered by
+	 * {@link BoundedConcurrentCache#get(Object, java.util.concurrent.Callable)}:
+	 * the first caller to encounter an entry due for refresh reloads it, while
+	 * concurrent callers keep being served the current value in the meantime.
+	 */
+	public void setRefreshAfterWrite(long refreshAfterWrite) {
+		this.refreshAfterWrite = refreshAfterWrite;
+	}
+
+	/**
+	 * Return the number of milliseconds after which an entry becomes eligible
+	 * for refresh once it has been written, or -1 if none.
+	 */
+	public long getRefreshAfterWrite() {
+		return this.refreshAfterWrite;
+	}
+
+	/**
+	 * Set whether to accept and convert {@code null} values for the cache.
+	 * Default is {@code true}.
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		this.allowNullValues = allowNullValues;
+	}
+
+	/**
+	 * Return whether {@code null} values are accepted for the cache.
+	 */
+	public boolean isAllowNullValues() {
+		return this.allowNullValues;
+	}
+
+
+	@Override
+	public BoundedCacheSpec clone() {
+		try {
+			return (BoundedCacheSpec) super.clone();
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("maximumSize=").append(this.maximumSize);
+		sb.append(",expireAfterWrite=").append(this.expireAfterWrite).append("ms");
+		sb.append(",expireAfterAccess=").append(this.expireAfterAccess).append("ms");
+		sb.append(",refreshAfterWrite=").append(this.refreshAfterWrite).append("ms");
+		sb.append(",allowNullValues=").append(this.allowNullValues);
+		return sb.toString();
+	}
+
+
+	/**
+	 * Parse the given specification string into a new {@code BoundedCacheSpec}.
+	 * <p>The specification consists of comma-separated {@code name=value} pairs,
+	 * with the names corresponding to the properties of this class. Durations are
+	 * specified as a number followed by a unit of {@code ms}, {@code s}, {@code m},
+	 * {@code h} or {@code d}, e.g. {@code "maximumSize=500,expireAfterAccess=30m"}.
+	 * @param specification the specification string (may be empty)
+	 * @return the parsed specification
+	 * @throws IllegalArgumentException if the specification is invalid
+	 */
+	public static BoundedCacheSpec parse(String specification) {
+		return parse(specification, new BoundedCacheSpec());
+	}
+
+	/**
+	 * Parse the given specification string on top of the given defaults.
+	 * @param specification the specification string (may be empty)
+	 * @param defaults the specification to take unspecified settings from
+	 * @return the parsed specification, as a new instance
+	 * @throws IllegalArgumentException if the specification is invalid
+	 */
+	public static BoundedCacheSpec parse(String specification, BoundedCacheSpec defaults) {
+		Assert.notNull(defaults, "Default BoundedCacheSpec must not be null");
+		BoundedCacheSpec spec = defaults.clone();
+		for (String pair : StringUtils.commaDelimitedListToStringArray(specification)) {
+			pair = pair.trim();
+			if (pair.length() == 0) {
+				continue;
+			}
+			int index = pair.indexOf('=');
+			if (index == -1) {
+				throw new IllegalArgumentException("Invalid cache specification entry '" + pair +
+						"' in [" + specification + "]: expected name=value");
+			}
+			String name = pair.substring(0, index).trim();
+			String value = pair.substring(index + 1).trim();
+			try {
+				if ("maximumSize".equals(name)) {
+					spec.setMaximumSize(Long.parseLong(value));
+				}
+				else if ("expireAfterWrite".equals(name)) {
+					spec.setExpireAfterWrite(parseDuration(value));
+				}
+				else if ("expireAfterAccess".equals(name)) {
+					spec.setExpireAfterAccess(parseDuration(value));
+				}
+				else if ("refreshAfterWrite".equals(name)) {
+					spec.setRefreshAfterWrite(parseDuration(value));
+				}
+				else if ("allowNullValues".equals(name)) {
+					spec.setAllowNullValues(Boolean.valueOf(value));
+				}
+				else {
+					throw new IllegalArgumentException("Unknown cache specification setting '" + name +
+							"' in [" + specification + "]");
+				}
+			}
+			catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Invalid value '" + value + "' for cache specification setting '" +
+						name + "' in [" + specification + "]", ex);
+			}
+		}
+		return spec;
+	}
+
+	private static long parseDuration(String value) {
+		long multiplier;
+		String amount;
+		if (value.endsWith("ms")) {
+			multiplier = 1;
+			amount = value.substring(0, value.length() - 2);
+		}
+		else {
+			char suffix = (value.length() > 0 ? value.charAt(value.length() - 1) : ' ');
+			switch (suffix) {
+				case 's':
+					multiplier = 1000;
+					break;
+				case 'm':
+					multiplier = 60 * 1000;
+					break;
+				case 'h':
+					multiplier = 60 * 60 * 1000;
+					break;
+				case 'd':
+					multiplier = 24 * 60 * 60 * 1000;
+					break;
+				default:
+					throw new NumberFormatException("Missing duration unit");
+			}
+			amount = value.substring(0, value.length() - 1);
+		}
+		return Long.parseLong(amount.trim()) * multiplier;
+	}
+
+}
@@ -0,0 +1,698 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.LoadingCache;
+import org.springframework.cache.support.BulkCacheUtils;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation for production use
+ * within a single JVM, with an optional maximum size, expiration after write
+ * and/or access, refresh-ahead, and statistics.
+ *
+ * <p>Lookups are served from a {@link ConcurrentHashMap} without locking.
+ * When the cache is bounded, entries are evicted according to a segmented LRU
+ * policy: new entries start out in a probationary segment, and are promoted
+ * to a protected segment once they are read again. Eviction takes the least
+ * recently used probationary entries first, so that a burst of entries
+ * which are read only once does not flush the frequently read ones.
+ * The policy is updated under a lock; reads are recorded in a buffer and
+ * applied in batches, dropping reads when the buffer is full rather than
+ * making readers wait.
+ *
+ * <p>Expired entries are removed when they are encountered by a lookup and
+ * during maintenance after writes, and count towards the maximum size until then.
+ * Each write checks the least recently used entries of both segments; since
+ * that order may differ from the expiration order, all entries are checked
+ * once the number of writes since the last full check reaches the number of
+ * entries, so that an expired entry is removed within that many writes.
+ *
+ * <p>Typically created through a {@link BoundedConcurrentCacheManager}.
+ *
+ * @since 3.2.17
+ * @see BoundedCacheSpec
+ */
+public class BoundedConcurrentCache implements LoadingCache, BulkCache {
+
+	private static final Object NULL_HOLDER = new NullHolder();
+
+	private static final int READ_BUFFER_THRESHOLD = 32;
+
+	private static final int READ_BUFFER_MAXIMUM = 128;
+
+	private static final int EXPIRATION_SCAN_LIMIT = 16;
+
+	private static final int PROBATION = 1;
+
+	private static final int PROTECTED = 2;
+
+	private static final int UNLINKED = 0;
+
+
+	private final String name;
+
+	private final BoundedCacheSpec spec;
+
+	private final long maximumSize;
+
+	private final long protectedMaximumSize;
+
+	private final long expireAfterWriteNanos;
+
+	private final long expireAfterAccessNanos;
+
+	private final long refreshAfterWriteNanos;
+
+	private final ConcurrentMap<Object, Node> data = new ConcurrentHashMap<Object, Node>(64);
+
+	private final ConcurrentMap<Object, FutureTask<Object>> loadsInProgress =
+			new ConcurrentHashMap<Object, FutureTask<Object>>(16);
+
+	private final Queue<Node> readBuffer = new ConcurrentLinkedQueue<Node>();
+
+	private final AtomicInteger readBufferSize = new AtomicInteger();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	// the following fields are guarded by the eviction lock
+
+	private final Node probation = new Node(null, null, 0);
+
+	private final Node protectedSegment = new Node(null, null, 0);
+
+	private long protectedSize;
+
+	private long size;
+
+	private long writesSinceExpirationSweep;
+
+	// statistics
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final AtomicLong loadSuccessCount = new AtomicLong();
+
+	private final AtomicLong loadFailureCount = new AtomicLong();
+
+	private final AtomicLong totalLoadTime = new AtomicLong();
+
+
+	/**
+	 * Create a new unbounded BoundedConcurrentCache with the specified name
+	 * and no expiration.
+	 * @param name the name of the cache
+	 */
+	public BoundedConcurrentCache(String name) {
+		this(name, new BoundedCacheSpec());
+	}
+
+	/**
+	 * Create a new BoundedConcurrentCache with the specified name and settings.
+	 * @param name the name of the cache
+	 * @param spec the settings for the cache (copied, so that later changes
+	 * to the given instance do not affect this cache)
+	 */
+	public BoundedConcurrentCache(String name, BoundedCacheSpec spec) {
+		Assert.notNull(name, "Name must not be null");
+		Assert.notNull(spec, "BoundedCacheSpec must not be null");
+		this.name = name;
+		this.spec = spec.clone();
+		this.maximumSize = (spec.getMaximumSize() >= 0 ? spec.getMaximumSize() : Long.MAX_VALUE);
+		this.protectedMaximumSize = (spec.getMaximumSize() >= 0 ? spec.getMaximumSize() * 4 / 5 : Long.MAX_VALUE);
+		this.expireAfterWriteNanos = toNanos(spec.getExpireAfterWrite());
+		this.expireAfterAccessNanos = toNanos(spec.getExpireAfterAccess());
+		this.refreshAfterWriteNanos = toNanos(spec.getRefreshAfterWrite());
+		this.probation.prev = this.probation.next = this.probation;
+		this.protectedSegment.prev = this.protectedSegment.next = this.protectedSegment;
+	}
+
+	private static long toNanos(long millis) {
+		return (millis >= 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : -1);
+	}
+
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself, as it is not backed by
+	 * a separate native cache provider.
+	 */
+	public BoundedConcurrentCache getNativeCache() {
+		return this;
+	}
+
+	/**
+	 * Return a copy of the settings that this cache has been created with.
+	 */
+	public BoundedCacheSpec getSpec() {
+		return this.spec.clone();
+	}
+
+	/**
+	 * Return the number of entries currently held, including entries
+	 * which have expired but have not been removed yet.
+	 */
+	public int size() {
+		return this.data.size();
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this cache.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(this.hitCount.get(), this.missCount.get(), this.evictionCount.get(),
+				this.loadSuccessCount.get(), this.loadFailureCount.get(), this.totalLoadTime.get());
+	}
+
+	public ValueWrapper get(Object key) {
+		Node node = lookup(key, currentTimeNanos());
+		if (node == null) {
+			this.missCount.incrementAndGet();
+			return null;
+		}
+		this.hitCount.incrementAndGet();
+		return new SimpleValueWrapper(fromStoreValue(node.value));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		long now = currentTimeNanos();
+		Node node = lookup(key, now);
+		if (node != null) {
+			this.hitCount.incrementAndGet();
+			if (this.refreshAfterWriteNanos >= 0 && now - node.writeTime >= this.refreshAfterWriteNanos &&
+					node.refreshing.compareAndSet(false, true)) {
+				// refresh ahead: concurrent callers keep getting the current value meanwhile
+				try {
+					T value = loadValue(key, valueLoader);
+					put(key, value);
+					return value;
+				}
+				finally {
+					node.refreshing.set(false);
+				}
+			}
+			return (T) fromStoreValue(node.value);
+		}
+		this.missCount.incrementAndGet();
+		return (T) loadSynchronized(key, valueLoader);
+	}
+
+	public void put(Object key, Object value) {
+		long now = currentTimeNanos();
+		Node node = new Node(key, toStoreValue(value), now);
+		this.evictionLock.lock();
+		try {
+			// replace and link under the lock, so that the prior node is always unlinked;
+			// a concurrent removal unlinks the new node once it obtains the lock itself
+			Node prior = this.data.put(key, node);
+			int segment = PROBATION;
+			if (prior != null && prior.segment != UNLINKED) {
+				segment = prior.segment;
+				unlink(prior);
+			}
+			link(node, segment);
+			drainReadBuffer();
+			expireEntries(now);
+			evictEntries();
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	public void evict(Object key) {
+		Node node = this.data.remove(key);
+		if (node != null) {
+			this.evictionLock.lock();
+			try {
+				unlink(node);
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			for (Object key : this.data.keySet()) {
+				Node node = this.data.remove(key);
+				if (node != null) {
+					unlink(node);
+				}
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return BulkCacheUtils.getAllIndividually(this, keys);
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		BulkCacheUtils.putAllIndividually(this, entries);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		BulkCacheUtils.evictAllIndividually(this, keys);
+	}
+
+
+	/**
+	 * Return the current time in nanoseconds, as a base for expiration.
+	 * Defaults to {@link System#nanoTime()}; may be overridden for testing.
+	 */
+	protected long currentTimeNanos() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Convert the given value from the internal store to a user value
+	 * returned from the get method (adapting {@code null}).
+	 * @param storeValue the store value
+	 * @return the value to return to the user
+	 */
+	protected Object fromStoreValue(Object storeValue) {
+		if (this.spec.isAllowNullValues() && storeValue == NULL_HOLDER) {
+			return null;
+		}
+		return storeValue;
+	}
+
+	/**
+	 * Convert the given user value, as passed into the put method,
+	 * to a value in the internal store (adapting {@code null}).
+	 * @param userValue the given user value
+	 * @return the value to store
+	 */
+	protected Object toStoreValue(Object userValue) {
+		if (this.spec.isAllowNullValues() && userValue == null) {
+			return NULL_HOLDER;
+		}
+		Assert.notNull(userValue, "Cache '" + this.name + "' is configured to not allow null values");
+		return userValue;
+	}
+
+
+	/**
+	 * Return the live node for the given key, recording the read,
+	 * or {@code null} if there is none.
+	 */
+	private Node lookup(Object key, long now) {
+		Node node = this.data.get(key);
+		if (node == null) {
+			return null;
+		}
+		if (isExpired(node, now)) {
+			if (this.data.remove(key, node)) {
+				this.evictionLock.lock();
+				try {
+					unlink(node);
+				}
+				finally {
+					this.evictionLock.unlock();
+				}
+			}
+			return null;
+		}
+		if (this.expireAfterAccessNanos >= 0) {
+			node.accessTime = now;
+		}
+		recordRead(node);
+		return node;
+	}
+
+	private boolean isExpired(Node node, long now) {
+		return ((this.expireAfterWriteNanos >= 0 && now - node.writeTime >= this.expireAfterWriteNanos) ||
+				(this.expireAfterAccessNanos >= 0 && now - node.accessTime >= this.expireAfterAccessNanos));
+	}
+
+	private Object loadSynchronized(final Object key, final Callable<?> valueLoader) {
+		FutureTask<Object> load = new FutureTask<Object>(new Callable<Object>() {
+			public Object call() throws Exception {
+				// another load may have completed in the meantime
+				Node node = data.get(key);
+				if (node != null && !isExpired(node, currentTimeNanos())) {
+					return fromStoreValue(node.value);
+				}
+				Object value = loadValue(key, valueLoader);
+				put(key, value);
+				return value;
+			}
+		});
+		FutureTask<Object> loadInProgress = this.loadsInProgress.putIfAbsent(key, load);
+		if (loadInProgress == null) {
+			try {
+				load.run();
+			}
+			finally {
+				this.loadsInProgress.remove(key, load);
+			}
+			loadInProgress = load;
+		}
+		try {
+			return loadInProgress.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			if (cause instanceof ValueRetrievalException) {
+				throw (ValueRetrievalException) cause;
+			}
+			throw new ValueRetrievalException(key, valueLoader, cause);
+		}
+	}
+
+	private <T> T loadValue(Object key, Callable<T> valueLoader) {
+		long start = System.nanoTime();
+		try {
+			T value = valueLoader.call();
+			this.loadSuccessCount.incrementAndGet();
+			return value;
+		}
+		catch (Exception ex) {
+			this.loadFailureCount.incrementAndGet();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		finally {
+			this.totalLoadTime.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	private void recordRead(Node node) {
+		if (this.readBufferSize.get() < READ_BUFFER_MAXIMUM) {
+			this.readBuffer.offer(node);
+			if (this.readBufferSize.incrementAndGet() >= READ_BUFFER_THRESHOLD && this.evictionLock.tryLock()) {
+				try {
+					drainReadBuffer();
+				}
+				finally {
+					this.evictionLock.unlock();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Return the number of entries tracked by the eviction policy,
+	 * which is expected to match {@link #size()} when there are no
+	 * concurrent modifications. Exposed for testing.
+	 */
+	long getPolicySize() {
+		this.evictionLock.lock();
+		try {
+			return this.size;
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+
+	// the following methods must only be called while holding the eviction lock
+
+	private void drainReadBuffer() {
+		Node node;
+		while ((node = this.readBuffer.poll()) != null) {
+			this.readBufferSize.decrementAndGet();
+			if (node.segment == PROBATION) {
+				unlink(node);
+				link(node, PROTECTED);
+				while (this.protectedSize > this.protectedMaximumSize) {
+					Node demoted = this.protectedSegment.next;
+					unlink(demoted);
+					link(demoted, PROBATION);
+				}
+			}
+			else if (node.segment == PROTECTED) {
+				unlink(node);
+				link(node, PROTECTED);
+			}
+		}
+	}
+
+	private void expireEntries(long now) {
+		if (this.expireAfterWriteNanos >= 0 || this.expireAfterAccessNanos >= 0) {
+			expireEntries(this.probation, now);
+			expireEntries(this.protectedSegment, now);
+			// segment order is not expiration order: entries expire by write time
+			// while reads reorder them, so check all entries every so often
+			if (++this.writesSinceExpirationSweep >= this.size) {
+				this.writesSinceExpirationSweep = 0;
+				sweepExpiredEntries(this.probation, now);
+				sweepExpiredEntries(this.protectedSegment, now);
+			}
+		}
+	}
+
+	private void expireEntries(Node sentinel, long now) {
+		for (int i = 0; i < EXPIRATION_SCAN_LIMIT; i++) {
+			Node node = sentinel.next;
+			if (node == sentinel || !isExpired(node, now)) {
+				return;
+			}
+			unlink(node);
+			this.data.remove(node.key, node);
+		}
+	}
+
+	private void sweepExpiredEntries(Node sentinel, long now) {
+		Node node = sentinel.next;
+		while (node != sentinel) {
+			Node next = node.next;
+			if (isExpired(node, now)) {
+				unlink(node);
+				this.data.remove(node.key, node);
+			}
+			node = next;
+		}
+	}
+
+	private void evictEntries() {
+		while (this.size > this.maximumSize) {
+			Node victim = (this.probation.next != this.probation ? this.probation.next : this.protectedSegment.next);
+			unlink(victim);
+			if (this.data.remove(victim.key, victim)) {
+				this.evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	private void link(Node node, int segment) {
+		Node sentinel = (segment == PROTECTED ? this.protectedSegment : this.probation);
+		node.prev = sentinel.prev;
+		node.next = sentinel;
+		sentinel.prev.next = node;
+		sentinel.prev = node;
+		node.segment = segment;
+		if (segment == PROTECTED) {
+			this.protectedSize++;
+		}
+		this.size++;
+	}
+
+	private void unlink(Node node) {
+		if (node.segment == UNLINKED) {
+			return;
+		}
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+		if (node.segment == PROTECTED) {
+			this.protectedSize--;
+		}
+		node.segment = UNLINKED;
+		this.size--;
+	}
+
+
+	/**
+	 * A cache entry, doubling as an element of the doubly-linked list of
+	 * its segment (least recently used first).
+	 */
+	private static final class Node {
+
+		final Object key;
+
+		final Object value;
+
+		final long writeTime;
+
+		volatile long accessTime;
+
+		final AtomicBoolean refreshing = new AtomicBoolean();
+
+		// guarded by the eviction lock
+
+		Node prev;
+
+		Node next;
+
+		int segment = UNLINKED;
+
+		Node(Object key, Object value, long writeTime) {
+			this.key = key;
+			this.value = value;
+			this.writeTime = writeTime;
+			this.accessTime = writeTime;
+		}
+	}
+
+
+	/**
+	 * Snapshot of the statistics of a {@link BoundedConcurrentCache}.
+	 * <p>Hits and misses are recorded for all lookups; loads only for
+	 * values obtained through {@link BoundedConcurrentCache#get(Object, Callable)}.
+	 */
+	public static final class Statistics {
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		private final long loadSuccessCount;
+
+		private final long loadFailureCount;
+
+		private final long totalLoadTime;
+
+		Statistics(long hitCount, long missCount, long evictionCount,
+				long loadSuccessCount, long loadFailureCount, long totalLoadTime) {
+
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.loadSuccessCount = loadSuccessCount;
+			this.loadFailureCount = loadFailureCount;
+			this.totalLoadTime = totalLoadTime;
+		}
+
+		/**
+		 * Return the number of lookups that found a cached value.
+		 */
+		public long getHitCount() {
+			return this.hitCount;
+		}
+
+		/**
+		 * Return the number of lookups that found no (or an expired) value.
+		 */
+		public long getMissCount() {
+			return this.missCount;
+		}
+
+		/**
+		 * Return the ratio of hits to lookups, or 1.0 if there were no lookups.
+		 */
+		public double getHitRate() {
+			long requestCount = this.hitCount + this.missCount;
+			return (requestCount > 0 ? (double) this.hitCount / requestCount : 1.0);
+		}
+
+		/**
+		 * Return the number of entries evicted because of the maximum size.
+		 */
+		public long getEvictionCount() {
+			return this.evictionCount;
+		}
+
+		/**
+		 * Return the number of values loaded successfully.
+		 */
+		public long getLoadSuccessCount() {
+			return this.loadSuccessCount;
+		}
+
+		/**
+		 * Return the number of value loads that failed with an exception.
+		 */
+		public long getLoadFailureCount() {
+			return this.loadFailureCount;
+		}
+
+		/**
+		 * Return the total time spent loading values, in nanoseconds.
+		 */
+		public long getTotalLoadTime() {
+			return this.totalLoadTime;
+		}
+
+		/**
+		 * Return the average time spent loading a value, in nanoseconds.
+		 */
+		public double getAverageLoadPenalty() {
+			long loadCount = this.loadSuccessCount + this.loadFailureCount;
+			return (loadCount > 0 ? (double) this.totalLoadTime / loadCount : 0.0);
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + this.hitCount + ", misses=" + this.missCount + ", evictions=" + this.evictionCount +
+					", loadSuccesses=" + this.loadSuccessCount + ", loadFailures=" + this.loadFailureCount +
+					", totalLoadTime=" + this.totalLoadTime + "ns";
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NullHolder implements Serializable {
+
+		private Object readResolve() {
+			return NULL_HOLDER;
+		}
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation that lazily builds {@link BoundedConcurrentCache}
+ * instances for each {@link #getCache} request. Also supports a 'static' mode where
+ * the set of cache names is pre-defined through {@link #setCacheNames}, with no
+ * dynamic creation of further cache regions at runtime.
+ *
+ * <p>Each cache is created with the {@link #setDefaultSpec default specification},
+ * overridden by the {@link #setCacheSpecs specification for its name} if any.
+ * For example, in XML:
+ *
+ * <pre class="code">
+ * &lt;bean id="cacheManager" class="org.springframework.cache.concurrent.BoundedConcurrentCacheManager"&gt;
+ *   &lt;property name="defaultSpec" value="maximumSize=1000,expireAfterWrite=10m"/&gt;
+ *   &lt;property name="cacheSpecs"&gt;
+ *     &lt;map&gt;
+ *       &lt;entry key="users" value="maximumSize=200,expireAfterAccess=30m"/&gt;
+ *     &lt;/map&gt;
+ *   &lt;/property&gt;
+ * &lt;/bean&gt;</pre>
+ *
+ * @since 3.2.17
+ * @see BoundedCacheSpec#parse(String)
+ */
+public class BoundedConcurrentCacheManager implements CacheManager {
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<String, Cache>(16);
+
+	private boolean dynamic = true;
+
+	private BoundedCacheSpec defaultSpec = new BoundedCacheSpec();
+
+	private final Map<String, String> cacheSpecifications = new HashMap<String, String>();
+
+	private final Map<String, BoundedCacheSpec> cacheSpecs = new HashMap<String, BoundedCacheSpec>();
+
+
+	/**
+	 * Construct a dynamic BoundedConcurrentCacheManager,
+	 * lazily creating cache instances as they are being requested.
+	 */
+	public BoundedConcurrentCacheManager() {
+	}
+
+	/**
+	 * Construct a static BoundedConcurrentCacheManager,
+	 * managing caches for the specified cache names only.
+	 */
+	public BoundedConcurrentCacheManager(String... cacheNames) {
+		setCacheNames(Arrays.asList(cacheNames));
+	}
+
+
+	/**
+	 * Set the specification to apply to all caches, unless overridden
+	 * for a specific cache name, e.g. {@code "maximumSize=1000,expireAfterWrite=10m"}.
+	 * <p>Needs to be set before any cache is being created.
+	 * Default is an unbounded cache without expiration.
+	 * @see BoundedCacheSpec#parse(String)
+	 */
+	public void setDefaultSpec(String specification) {
+		setDefaultCacheSpec(BoundedCacheSpec.parse(specification));
+	}
+
+	/**
+	 * Set the specification to apply to all caches, unless overridden
+	 * for a specific cache name.
+	 * <p>Needs to be set before any cache is being created.
+	 */
+	public void setDefaultCacheSpec(BoundedCacheSpec defaultSpec) {
+		Assert.notNull(defaultSpec, "Default BoundedCacheSpec must not be null");
+		this.defaultSpec = defaultSpec.clone();
+	}
+
+	/**
+	 * Set specifications for individual caches, keyed by cache name.
+	 * <p>Settings not contained in a cache's specification are taken from the
+	 * {@link #setDefaultSpec default specification}. Specifications need to be set
+	 * before the caches are being created.
+	 * @see BoundedCacheSpec#parse(String, BoundedCacheSpec)
+	 */
+	public void setCacheSpecs(Map<String, String> cacheSpecs) {
+		for (Map.Entry<String, String> entry : cacheSpecs.entrySet()) {
+			// validate eagerly, but apply on top of the default specification at creation time
+			BoundedCacheSpec.parse(entry.getValue());
+			this.cacheSpecifications.put(entry.getKey(), entry.getValue());
+			this.cacheSpecs.remove(entry.getKey());
+		}
+	}
+
+	/**
+	 * Set the specification for the cache of the given name.
+	 * <p>Needs to be set before that cache is being created.
+	 */
+	public void setCacheSpec(String name, BoundedCacheSpec spec) {
+		Assert.notNull(spec, "BoundedCacheSpec must not be null");
+		this.cacheSpecs.put(name, spec.clone());
+		this.cacheSpecifications.remove(name);
+	}
+
+	/**
+	 * Specify the set of cache names for this CacheManager's 'static' mode.
+	 * <p>The number of caches and their names will be fixed after a call to this method,
+	 * with no creation of further cache regions at runtime. Specifications for these
+	 * caches need to be set before calling this method.
+	 */
+	public void setCacheNames(Collection<String> cacheNames) {
+		if (cacheNames != null) {
+			for (String name : cacheNames) {
+				this.cacheMap.put(name, createBoundedConcurrentCache(name));
+			}
+			this.dynamic = false;
+		}
+	}
+
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.cacheMap.keySet());
+	}
+
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null && this.dynamic) {
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					cache = createBoundedConcurrentCache(name);
+					this.cacheMap.put(name, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Return the specification that applies to the cache of the given name.
+	 * @param name the name of the cache
+	 * @return the specific specification for that cache, or the default one
+	 */
+	protected BoundedCacheSpec getCacheSpec(String name) {
+		String specification = this.cacheSpecifications.get(name);
+		if (specification != null) {
+			return BoundedCacheSpec.parse(specification, this.defaultSpec);
+		}
+		BoundedCacheSpec spec = this.cacheSpecs.get(name);
+		return (spec != null ? spec : this.defaultSpec);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentCache instance for the specified cache name.
+	 * @param name the name of the cache
+	 * @return the BoundedConcurrentCache (or a decorator thereof)
+	 */
+	protected Cache createBoundedConcurrentCache(String name) {
+		return new BoundedConcurrentCache(name, getCacheSpec(name));
+	}
+
+}
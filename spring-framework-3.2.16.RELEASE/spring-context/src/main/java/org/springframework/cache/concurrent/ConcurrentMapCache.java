@@ -17,10 +17,17 @@
 package org.springframework.cache.concurrent;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
-import org.springframework.cache.Cache;
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.LoadingCache;
+import org.springframework.cache.support.BulkCacheUtils;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.util.Assert;
 
@@ -37,11 +44,15 @@ import org.springframework.util.Assert;
  * them with a predefined internal object. This behavior can be changed through the
  * {@link #ConcurrentMapCache(String, ConcurrentMap, boolean)} constructor.
  *
+ * <p>Implements {@link LoadingCache}: concurrent {@link #get(Object, Callable)}
+ * calls for the same missing key share a single invocation of the value loader,
+ * without blocking callers that ask for other keys.
+ *
  * @author Costin Leau
  * @author Juergen Hoeller
  * @since 3.1
  */
-public class ConcurrentMapCache implements Cache {
+public class ConcurrentMapCache implements LoadingCache, BulkCache {
 
 	private static final Object NULL_HOLDER = new NullHolder();
 
@@ -51,6 +62,9 @@ public class ConcurrentMapCache implements Cache {
 
 	private final boolean allowNullValues;
 
+	private final ConcurrentMap<Object, FutureTask<Object>> loadsInProgress =
+			new ConcurrentHashMap<Object, FutureTask<Object>>(16);
+
 
 	/**
 	 * Create a new ConcurrentMapCache with the specified name.
@@ -104,6 +118,50 @@ public class ConcurrentMapCache implements Cache {
 		return (value != null ? new SimpleValueWrapper(fromStoreValue(value)) : null);
 	}
 
+	@SuppressWarnings("unchecked")
+	public <T> T get(final Object key, final Callable<T> valueLoader) {
+		Object storeValue = this.store.get(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+		FutureTask<Object> load = new FutureTask<Object>(new Callable<Object>() {
+			public Object call() throws Exception {
+				// another load may have completed in the meantime
+				Object storeValue = store.get(key);
+				if (storeValue != null) {
+					return fromStoreValue(storeValue);
+				}
+				T value = valueLoader.call();
+				put(key, value);
+				return value;
+			}
+		});
+		FutureTask<Object> loadInProgress = this.loadsInProgress.putIfAbsent(key, load);
+		if (loadInProgress == null) {
+			try {
+				load.run();
+			}
+			finally {
+				this.loadsInProgress.remove(key, load);
+			}
+			loadInProgress = load;
+		}
+		try {
+			return (T) loadInProgress.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ValueRetrievalException(key, valueLoader, cause);
+		}
+	}
+
 	public void put(Object key, Object value) {
 		this.store.put(key, toStoreValue(value));
 	}
@@ -116,6 +174,18 @@ public class ConcurrentMapCache implements Cache {
 		this.store.clear();
 	}
 
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return BulkCacheUtils.getAllIndividually(this, keys);
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		BulkCacheUtils.putAllIndividually(this, entries);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		BulkCacheUtils.evictAllIndividually(this, keys);
+	}
+
 
 	/**
 	 * Convert the given value from the internal store to a user value
@@ -3,5 +3,6 @@
  * Provides a {@link org.springframework.cache.CacheManager CacheManager}
  * and {@link org.springframework.cache.Cache Cache} implementation for
  * use in a Spring context, using a JDK based thread pool at runtime.
+ * Includes a bounded, expiring variant for production use.
  */
 package org.springframework.cache.concurrent;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,6 +31,10 @@ import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.LoadingCache;
+import org.springframework.cache.support.BulkCacheUtils;
+import org.springframework.cache.support.StripedLockValueLoader;
+import org.springframework.core.CollectionFactory;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -51,6 +56,10 @@ import org.springframework.util.StringUtils;
  * {@link CacheOperationSource} is used for determining caching
  * operations.
  *
+ * <p>{@link CacheableOperation#isSync() Synchronized} cacheable operations are
+ * loaded through {@link LoadingCache#get(Object, Callable)} if the target cache
+ * supports it, and through a {@link StripedLockValueLoader} otherwise.
+ *
  * <p>A cache aspect is serializable if its {@code CacheManager} and
  * {@code CacheOperationSource} are serializable.
  *
@@ -64,6 +73,8 @@ public abstract class CacheAspectSupport implements InitializingBean {
 
 	private static final String CACHEABLE = "cacheable";
 
+	private static final String CACHEABLE_ALL = "cacheableall";
+
 	private static final String UPDATE = "cacheupdate";
 
 	private static final String EVICT = "cacheevict";
@@ -79,6 +90,8 @@ public abstract class CacheAspectSupport implements InitializingBean {
 
 	private KeyGenerator keyGenerator = new DefaultKeyGenerator();
 
+	private final StripedLockValueLoader stripedLoader = new StripedLockValueLoader();
+
 	private boolean initialized = false;
 
 
@@ -193,6 +206,16 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		// analyze caching information
 		if (!CollectionUtils.isEmpty(cacheOp)) {
 			Map<String, Collection<CacheOperationContext>> ops = createOperationContext(cacheOp, method, args, target, targetClass);
+			if (isSynchronized(ops.get(CACHEABLE), cacheOp.size())) {
+				return executeSynchronized(invoker, ops.get(CACHEABLE).iterator().next());
+			}
+			if (!ops.get(CACHEABLE_ALL).isEmpty()) {
+				if (cacheOp.size() > 1) {
+					throw new IllegalStateException("A cacheable-all operation cannot be combined with other " +
+							"cache operations on method " + method);
+				}
+				return executeCacheableAll(invoker, ops.get(CACHEABLE_ALL).iterator().next(), args);
+			}
 			// start with evictions
 			inspectBeforeCacheEvicts(ops.get(EVICT));
 			// follow up with cacheable
@@ -219,6 +242,113 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		return invoker.invoke();
 	}
 
+	private boolean isSynchronized(Collection<CacheOperationContext> cacheables, int operationCount) {
+		for (CacheOperationContext context : cacheables) {
+			CacheableOperation operation = (CacheableOperation) context.operation;
+			if (operation.isSync()) {
+				if (operationCount > 1) {
+					throw new IllegalStateException("A sync=true operation cannot be combined with other " +
+							"cache operations on method " + context.method);
+				}
+				if (context.getCaches().size() > 1) {
+					throw new IllegalStateException("A sync=true operation is restricted to a single cache: " + operation);
+				}
+				if (StringUtils.hasText(operation.getUnless())) {
+					throw new IllegalStateException("A sync=true operation does not support the unless attribute: " +
+							operation);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Object executeSynchronized(final Invoker invoker, CacheOperationContext context) {
+		if (!context.isConditionPassing()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Cache condition failed on method " + context.method + " for operation " + context.operation);
+			}
+			return invoker.invoke();
+		}
+		Object key = context.generateKey();
+		if (logger.isTraceEnabled()) {
+			logger.trace("Computed cache key " + key + " for operation " + context.operation);
+		}
+		if (key == null) {
+			throw new IllegalArgumentException("Null key returned for cache operation (maybe you " +
+					"are using named params on classes without debug info?) " + context.operation);
+		}
+		Cache cache = context.getCaches().iterator().next();
+		Callable<Object> valueLoader = new Callable<Object>() {
+			public Object call() {
+				return invoker.invoke();
+			}
+		};
+		try {
+			if (cache instanceof LoadingCache) {
+				return ((LoadingCache) cache).get(key, valueLoader);
+			}
+			return this.stripedLoader.get(cache, key, valueLoader);
+		}
+		catch (LoadingCache.ValueRetrievalException ex) {
+			// rethrow the exception of the method invocation as-is
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object executeCacheableAll(Invoker invoker, CacheOperationContext context, Object[] args) {
+		if (args.length != 1 || (args[0] != null && !(args[0] instanceof Collection)) ||
+				!context.method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+			throw new IllegalStateException("A cacheable-all operation requires a method taking a single " +
+					"Collection of keys and returning a Map: " + context.method);
+		}
+		Collection<Object> keys = (Collection<Object>) args[0];
+		if (keys == null || keys.isEmpty() || !context.isConditionPassing()) {
+			return invoker.invoke();
+		}
+		Cache cache = context.getCaches().iterator().next();
+		Map<Object, Cache.ValueWrapper> cached = BulkCacheUtils.getAll(cache, keys);
+		Collection<Object> missingKeys = CollectionFactory.createApproximateCollection(keys, keys.size());
+		for (Object key : keys) {
+			if (!cached.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Found " + cached.size() + " of " + keys.size() + " keys in cache for operation " +
+					context.operation);
+		}
+		Map<Object, Object> loaded = null;
+		if (!missingKeys.isEmpty()) {
+			// pass on the missing keys only (AOP Alliance allows for changing argument values in place)
+			args[0] = missingKeys;
+			try {
+				loaded = (Map<Object, Object>) invoker.invoke();
+			}
+			finally {
+				args[0] = keys;
+			}
+			if (loaded != null && !loaded.isEmpty()) {
+				BulkCacheUtils.putAll(cache, loaded);
+			}
+		}
+		Map<Object, Object> result = new LinkedHashMap<Object, Object>(keys.size());
+		for (Object key : keys) {
+			Cache.ValueWrapper wrapper = cached.get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper.get());
+			}
+			else if (loaded != null && loaded.containsKey(key)) {
+				result.put(key, loaded.get(key));
+			}
+		}
+		return result;
+	}
+
 	private void inspectBeforeCacheEvicts(Collection<CacheOperationContext> evictions) {
 		inspectCacheEvicts(evictions, true, ExpressionEvaluator.NO_RESULT);
 	}
@@ -357,8 +487,9 @@ public abstract class CacheAspectSupport implements InitializingBean {
 	private Map<String, Collection<CacheOperationContext>> createOperationContext(
 			Collection<CacheOperation> cacheOperations, Method method, Object[] args, Object target, Class<?> targetClass) {
 
-		Map<String, Collection<CacheOperationContext>> result = new LinkedHashMap<String, Collection<CacheOperationContext>>(3);
+		Map<String, Collection<CacheOperationContext>> result = new LinkedHashMap<String, Collection<CacheOperationContext>>(4);
 		Collection<CacheOperationContext> cacheables = new ArrayList<CacheOperationContext>();
+		Collection<CacheOperationContext> cacheableAlls = new ArrayList<CacheOperationContext>();
 		Collection<CacheOperationContext> evicts = new ArrayList<CacheOperationContext>();
 		Collection<CacheOperationContext> updates = new ArrayList<CacheOperationContext>();
 
@@ -367,6 +498,9 @@ public abstract class CacheAspectSupport implements InitializingBean {
 			if (cacheOperation instanceof CacheableOperation) {
 				cacheables.add(opContext);
 			}
+			if (cacheOperation instanceof CacheableAllOperation) {
+				cacheableAlls.add(opContext);
+			}
 			if (cacheOperation instanceof CacheEvictOperation) {
 				evicts.add(opContext);
 			}
@@ -376,6 +510,7 @@ public abstract class CacheAspectSupport implements InitializingBean {
 		}
 
 		result.put(CACHEABLE, cacheables);
+		result.put(CACHEABLE_ALL, cacheableAlls);
 		result.put(EVICT, evicts);
 		result.put(UPDATE, updates);
 		return result;
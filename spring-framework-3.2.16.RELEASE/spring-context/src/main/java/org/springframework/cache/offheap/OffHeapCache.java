@@ -0,0 +1,371 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.LoadingCache;
+import org.springframework.cache.support.BulkCacheUtils;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.cache.support.StripedLockValueLoader;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation which keeps its entries
+ * outside of the Java heap, allowing for caches of many gigabytes without adding
+ * to garbage collection pauses.
+ *
+ * <p>Keys and values are serialized through a {@link Serializer} (standard Java
+ * serialization by default) and stored in a number of segments, each of which
+ * is a circular log in a direct {@link ByteBuffer} of at most 1 GB, guarded by
+ * its own read-write lock. The only per-entry data on the heap is a compact
+ * index of 8 bytes per entry. Once a segment is full, its oldest entries are
+ * evicted to make room for new ones, bounding the cache to its byte capacity.
+ * Keys are compared by their serialized form, so they need to serialize
+ * consistently for equal keys.
+ *
+ * <p>If created with a persistence file, the segments are memory-mapped from
+ * that file instead, and the cache contents survive a restart of the application:
+ * on {@link #close()}, the file is flushed and marked as cleanly closed, and a
+ * new cache opened on that file with the same capacity restores its entries.
+ * Files which have not been closed cleanly, e.g. after a crash, are discarded.
+ *
+ * <p>Note that the memory of direct and mapped buffers is only released once
+ * the buffers are garbage collected, so caches are meant to be long-lived.
+ *
+ * @since 3.2.17
+ * @see OffHeapCacheManager
+ */
+public class OffHeapCache implements LoadingCache, BulkCache {
+
+	/** The maximum size of a single segment (1 GB) */
+	static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+	private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+	private static final int MAX_SEGMENTS = 16;
+
+	private static final long FILE_MAGIC = 0x5350524F4646484CL;
+
+	private static final int FILE_VERSION = 1;
+
+	private static final int FILE_HEADER_SIZE = 32;
+
+
+	private final String name;
+
+	private final OffHeapSegment[] segments;
+
+	private final int segmentShift;
+
+	private final SerializingConverter serializer;
+
+	private final DeserializingConverter deserializer;
+
+	private final StripedLockValueLoader stripedLoader = new StripedLockValueLoader();
+
+	private final File persistenceFile;
+
+	private final Object closeMonitor = new Object();
+
+	private RandomAccessFile file;
+
+	private MappedByteBuffer fileHeader;
+
+	private volatile boolean closed;
+
+
+	/**
+	 * Create a new OffHeapCache with the specified name and capacity,
+	 * using standard Java serialization.
+	 * @param name the name of the cache
+	 * @param capacity the number of bytes to allocate for storing entries
+	 */
+	public OffHeapCache(String name, long capacity) {
+		this(name, capacity, new DefaultSerializer(), new DefaultDeserializer());
+	}
+
+	/**
+	 * Create a new OffHeapCache with the specified name and capacity.
+	 * @param name the name of the cache
+	 * @param capacity the number of bytes to allocate for storing entries
+	 * @param serializer the serializer to use for keys and values
+	 * @param deserializer the deserializer to use for values
+	 */
+	public OffHeapCache(String name, long capacity, Serializer<Object> serializer, Deserializer<Object> deserializer) {
+		Assert.notNull(name, "Name must not be null");
+		this.name = name;
+		this.serializer = new SerializingConverter(serializer);
+		this.deserializer = new DeserializingConverter(deserializer);
+		this.persistenceFile = null;
+		this.segments = new OffHeapSegment[segmentCount(capacity)];
+		this.segmentShift = 32 - Integer.numberOfTrailingZeros(this.segments.length);
+		int segmentSize = (int) (capacity / this.segments.length);
+		for (int i = 0; i < this.segments.length; i++) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(OffHeapSegment.HEADER_SIZE + segmentSize);
+			this.segments[i] = new OffHeapSegment(buffer, false);
+		}
+	}
+
+	/**
+	 * Create a new persistent OffHeapCache with the specified name and capacity,
+	 * using standard Java serialization.
+	 * @param name the name of the cache
+	 * @param capacity the number of bytes to allocate for storing entries
+	 * @param persistenceFile the file to map the cache contents from
+	 * @throws IOException if the file could not be opened or mapped
+	 */
+	public OffHeapCache(String name, long capacity, File persistenceFile) throws IOException {
+		this(name, capacity, persistenceFile, new DefaultSerializer(), new DefaultDeserializer());
+	}
+
+	/**
+	 * Create a new persistent OffHeapCache with the specified name and capacity.
+	 * <p>Entries stored in the given file by a previous, cleanly closed cache
+	 * with the same capacity are restored; otherwise the cache starts out empty.
+	 * @param name the name of the cache
+	 * @param capacity the number of bytes to allocate for storing entries
+	 * @param persistenceFile the file to map the cache contents from
+	 * @param serializer the serializer to use for keys and values
+	 * @param deserializer the deserializer to use for values
+	 * @throws IOException if the file could not be opened or mapped
+	 */
+	public OffHeapCache(String name, long capacity, File persistenceFile,
+			Serializer<Object> serializer, Deserializer<Object> deserializer) throws IOException {
+
+		Assert.notNull(name, "Name must not be null");
+		Assert.notNull(persistenceFile, "Persistence file must not be null");
+		this.name = name;
+		this.serializer = new SerializingConverter(serializer);
+		this.deserializer = new DeserializingConverter(deserializer);
+		this.persistenceFile = persistenceFile;
+		this.segments = new OffHeapSegment[segmentCount(capacity)];
+		this.segmentShift = 32 - Integer.numberOfTrailingZeros(this.segments.length);
+		int segmentSize = (int) (capacity / this.segments.length);
+		long mappedSegmentSize = OffHeapSegment.HEADER_SIZE + segmentSize;
+		long fileSize = FILE_HEADER_SIZE + this.segments.length * mappedSegmentSize;
+
+		this.file = new RandomAccessFile(persistenceFile, "rw");
+		try {
+			boolean restore = (this.file.length() == fileSize);
+			this.file.setLength(fileSize);
+			FileChannel channel = this.file.getChannel();
+			this.fileHeader = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE);
+			restore = restore && this.fileHeader.getLong(0) == FILE_MAGIC &&
+					this.fileHeader.getInt(8) == FILE_VERSION && this.fileHeader.getInt(12) == this.segments.length &&
+					this.fileHeader.getInt(16) == segmentSize && this.fileHeader.getInt(20) == 1;
+			this.fileHeader.putLong(0, FILE_MAGIC);
+			this.fileHeader.putInt(8, FILE_VERSION);
+			this.fileHeader.putInt(12, this.segments.length);
+			this.fileHeader.putInt(16, segmentSize);
+			// mark as in use: the contents get discarded unless closed cleanly
+			this.fileHeader.putInt(20, 0);
+			this.fileHeader.force();
+			for (int i = 0; i < this.segments.length; i++) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+						FILE_HEADER_SIZE + i * mappedSegmentSize, mappedSegmentSize);
+				this.segments[i] = new OffHeapSegment(buffer, restore);
+			}
+		}
+		catch (IOException ex) {
+			this.file.close();
+			throw ex;
+		}
+	}
+
+	private static int segmentCount(long capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be positive");
+		int segmentCount = MAX_SEGMENTS;
+		while (segmentCount > 1 && capacity / segmentCount < MIN_SEGMENT_SIZE) {
+			segmentCount >>= 1;
+		}
+		while (capacity / segmentCount > MAX_SEGMENT_SIZE) {
+			segmentCount <<= 1;
+		}
+		return segmentCount;
+	}
+
+
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself, as there is no
+	 * separate native cache object.
+	 */
+	public final OffHeapCache getNativeCache() {
+		return this;
+	}
+
+	/**
+	 * Return the persistence file that this cache is mapped from,
+	 * or {@code null} if it is held in direct buffers only.
+	 */
+	public final File getPersistenceFile() {
+		return this.persistenceFile;
+	}
+
+	public ValueWrapper get(Object key) {
+		byte[] keyBytes = serializeKey(key);
+		int hash = hash(keyBytes);
+		byte[] value = segmentFor(hash).get(keyBytes, hash);
+		if (value == null) {
+			return null;
+		}
+		return new SimpleValueWrapper(value.length > 0 ? this.deserializer.convert(value) : null);
+	}
+
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return this.stripedLoader.get(this, key, valueLoader);
+	}
+
+	/**
+	 * Store the given value for the given key, evicting the oldest entries as
+	 * necessary. Entries larger than a single segment are not cached at all.
+	 */
+	public void put(Object key, Object value) {
+		byte[] keyBytes = serializeKey(key);
+		int hash = hash(keyBytes);
+		byte[] valueBytes = (value != null ? this.serializer.convert(value) : new byte[0]);
+		segmentFor(hash).put(keyBytes, hash, valueBytes);
+	}
+
+	public void evict(Object key) {
+		byte[] keyBytes = serializeKey(key);
+		int hash = hash(keyBytes);
+		segmentFor(hash).remove(keyBytes, hash);
+	}
+
+	public void clear() {
+		assertOpen();
+		for (OffHeapSegment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		return BulkCacheUtils.getAllIndividually(this, keys);
+	}
+
+	public void putAll(Map<?, ?> entries) {
+		BulkCacheUtils.putAllIndividually(this, entries);
+	}
+
+	public void evictAll(Collection<?> keys) {
+		BulkCacheUtils.evictAllIndividually(this, keys);
+	}
+
+	/**
+	 * Return the number of entries in this cache.
+	 */
+	public int size() {
+		int size = 0;
+		for (OffHeapSegment segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of bytes in use for storing entries, including
+	 * space occupied by evicted entries that has not been reclaimed yet.
+	 */
+	public long getUsedBytes() {
+		long usedBytes = 0;
+		for (OffHeapSegment segment : this.segments) {
+			usedBytes += segment.usedBytes();
+		}
+		return usedBytes;
+	}
+
+	/**
+	 * Close this cache: flush the contents of a persistent cache to its
+	 * file and mark the file as cleanly closed, so that the entries get
+	 * restored by the next cache opened on it.
+	 * <p>The cache must not be used anymore after it has been closed.
+	 * @throws IOException if the persistence file could not be closed
+	 */
+	public void close() throws IOException {
+		synchronized (this.closeMonitor) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			if (this.file != null) {
+				try {
+					for (OffHeapSegment segment : this.segments) {
+						segment.flush();
+					}
+					this.fileHeader.putInt(20, 1);
+					this.fileHeader.force();
+				}
+				finally {
+					this.file.close();
+				}
+			}
+		}
+	}
+
+
+	private byte[] serializeKey(Object key) {
+		assertOpen();
+		Assert.notNull(key, "Key must not be null");
+		return this.serializer.convert(key);
+	}
+
+	private void assertOpen() {
+		Assert.state(!this.closed, "OffHeapCache '" + this.name + "' has been closed");
+	}
+
+	private OffHeapSegment segmentFor(int hash) {
+		return (this.segmentShift == 32 ? this.segments[0] : this.segments[hash >>> this.segmentShift]);
+	}
+
+	/**
+	 * Hash the serialized key, spreading the bits so that the high bits select
+	 * the segment and the low bits the slot in the segment's index.
+	 */
+	private static int hash(byte[] keyBytes) {
+		int h = 1;
+		for (byte b : keyBytes) {
+			h = 31 * h + b;
+		}
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+}
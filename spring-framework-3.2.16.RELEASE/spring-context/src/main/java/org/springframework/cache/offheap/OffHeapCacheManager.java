@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation that lazily builds {@link OffHeapCache}
+ * instances for each {@link #getCache} request. Also supports a 'static' mode where
+ * the set of cache names is pre-defined through {@link #setCacheNames}, with no
+ * dynamic creation of further cache regions at runtime.
+ *
+ * <p>Each cache allocates its {@link #setCapacity capacity} up front, unless
+ * a specific capacity has been {@link #setCapacities set for its name}. If a
+ * {@link #setPersistenceDirectory persistence directory} is specified, each
+ * cache is mapped from a file named after the cache in that directory, and its
+ * contents survive a restart of the application context. The caches are closed
+ * when this manager gets destroyed.
+ *
+ * @since 3.2.17
+ * @see OffHeapCache
+ */
+public class OffHeapCacheManager implements CacheManager, DisposableBean {
+
+	/** The default capacity of each cache: 64 MB */
+	public static final long DEFAULT_CAPACITY = 64 * 1024 * 1024;
+
+	/** The suffix of the persistence file names */
+	public static final String PERSISTENCE_FILE_SUFFIX = ".cache";
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final ConcurrentMap<String, OffHeapCache> cacheMap = new ConcurrentHashMap<String, OffHeapCache>(16);
+
+	private boolean dynamic = true;
+
+	private long capacity = DEFAULT_CAPACITY;
+
+	private final Map<String, Long> capacities = new HashMap<String, Long>();
+
+	private File persistenceDirectory;
+
+	private Serializer<Object> serializer = new DefaultSerializer();
+
+	private Deserializer<Object> deserializer = new DefaultDeserializer();
+
+
+	/**
+	 * Construct a dynamic OffHeapCacheManager,
+	 * lazily creating cache instances as they are being requested.
+	 */
+	public OffHeapCacheManager() {
+	}
+
+	/**
+	 * Construct a static OffHeapCacheManager,
+	 * managing caches for the specified cache names only.
+	 * <p>Note that the caches are created right away, with the default capacity.
+	 * Use {@link #setCacheNames} after the other settings to customize them.
+	 */
+	public OffHeapCacheManager(String... cacheNames) {
+		setCacheNames(Arrays.asList(cacheNames));
+	}
+
+
+	/**
+	 * Set the number of bytes to allocate for each cache, unless overridden
+	 * for a specific cache name. Default is 64 MB.
+	 * <p>Needs to be set before any cache is being created.
+	 */
+	public void setCapacity(long capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be positive");
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Set the number of bytes to allocate for individual caches, keyed by cache name.
+	 * <p>Needs to be set before the caches are being created.
+	 */
+	public void setCapacities(Map<String, Long> capacities) {
+		for (Map.Entry<String, Long> entry : capacities.entrySet()) {
+			Assert.isTrue(entry.getValue() != null && entry.getValue() > 0,
+					"Capacity for cache '" + entry.getKey() + "' must be positive");
+			this.capacities.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Set the directory to keep persistence files for the caches in, one file
+	 * per cache name. Default is none, holding the caches in direct buffers only.
+	 * <p>Needs to be set before any cache is being created.
+	 * @see OffHeapCache#OffHeapCache(String, long, File)
+	 */
+	public void setPersistenceDirectory(File persistenceDirectory) {
+		this.persistenceDirectory = persistenceDirectory;
+	}
+
+	/**
+	 * Set the serializer to use for keys and values.
+	 * Default is standard Java serialization.
+	 * <p>Needs to be set before any cache is being created.
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		Assert.notNull(serializer, "Serializer must not be null");
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Set the deserializer to use for values.
+	 * Default is standard Java serialization.
+	 * <p>Needs to be set before any cache is being created.
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		Assert.notNull(deserializer, "Deserializer must not be null");
+		this.deserializer = deserializer;
+	}
+
+	/**
+	 * Specify the set of cache names for this CacheManager's 'static' mode.
+	 * <p>The number of caches and their names will be fixed after a call to this method,
+	 * with no creation of further cache regions at runtime. The other settings for
+	 * these caches need to be specified before calling this method.
+	 */
+	public void setCacheNames(Collection<String> cacheNames) {
+		if (cacheNames != null) {
+			for (String name : cacheNames) {
+				this.cacheMap.put(name, createOffHeapCache(name));
+			}
+			this.dynamic = false;
+		}
+	}
+
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.cacheMap.keySet());
+	}
+
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null && this.dynamic) {
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					OffHeapCache offHeapCache = createOffHeapCache(name);
+					this.cacheMap.put(name, offHeapCache);
+					cache = offHeapCache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Close all caches, flushing the persistent ones to their files.
+	 */
+	public void destroy() {
+		synchronized (this.cacheMap) {
+			for (OffHeapCache cache : this.cacheMap.values()) {
+				try {
+					cache.close();
+				}
+				catch (IOException ex) {
+					logger.warn("Could not close OffHeapCache '" + cache.getName() + "'", ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a new OffHeapCache instance for the specified cache name.
+	 * @param name the name of the cache
+	 * @return the OffHeapCache
+	 * @throws IllegalStateException if the persistence file could not be mapped
+	 */
+	protected OffHeapCache createOffHeapCache(String name) {
+		Long specificCapacity = this.capacities.get(name);
+		long cacheCapacity = (specificCapacity != null ? specificCapacity : this.capacity);
+		if (this.persistenceDirectory == null) {
+			return new OffHeapCache(name, cacheCapacity, this.serializer, this.deserializer);
+		}
+		File file = new File(this.persistenceDirectory, name + PERSISTENCE_FILE_SUFFIX);
+		try {
+			return new OffHeapCache(name, cacheCapacity, file, this.serializer, this.deserializer);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Could not map persistence file [" + file + "] for cache '" +
+					name + "'", ex);
+		}
+	}
+
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A single segment of an {@link OffHeapCache}: a circular log of serialized
+ * entries in a (direct or memory-mapped) {@link ByteBuffer}, together with a
+ * compact on-heap open-addressing index from key hash to log offset.
+ *
+ * <p>Entries are always appended at the tail of the log. When there is not
+ * enough contiguous room left, the oldest records at the head of the log are
+ * evicted (FIFO) until the new record fits. Removed or replaced records are
+ * flagged as dead and their space is reclaimed once the head passes them.
+ *
+ * <p>The buffer starts with a small header holding the log positions, which
+ * is kept up to date on every write so that a memory-mapped segment can be
+ * {@link #OffHeapSegment(ByteBuffer, boolean) restored} later on.
+ *
+ * @since 3.2.17
+ */
+final class OffHeapSegment {
+
+	/** Size of the segment header: head, tail and used byte count */
+	static final int HEADER_SIZE = 16;
+
+	/** Size of the record header: record length, key hash and key length */
+	static final int RECORD_HEADER_SIZE = 12;
+
+	/** Marks the end of the log before wrapping around to the start of the buffer */
+	private static final int WRAP_MARKER = -1;
+
+	/** Set in the key length of records which have been removed or replaced */
+	private static final int DEAD_FLAG = 0x80000000;
+
+	private static final int INITIAL_INDEX_SIZE = 64;
+
+
+	private final ByteBuffer buffer;
+
+	private final int capacity;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private int head;
+
+	private int tail;
+
+	private int used;
+
+	/** Index slots: key hash in the high, record offset + 1 in the low 32 bits, 0 if empty */
+	private long[] index;
+
+	private int count;
+
+
+	/**
+	 * Create a new segment on top of the given buffer.
+	 * @param buffer the buffer to store entries in, including the segment header
+	 * @param restore whether to restore the entries previously stored in the buffer
+	 * (as for a memory-mapped file), rather than starting out empty
+	 */
+	OffHeapSegment(ByteBuffer buffer, boolean restore) {
+		this.buffer = buffer;
+		this.capacity = buffer.capacity() - HEADER_SIZE;
+		this.index = new long[INITIAL_INDEX_SIZE];
+		if (!restore || !restore()) {
+			reset();
+		}
+	}
+
+
+	/**
+	 * Return the serialized value stored for the given serialized key.
+	 * @return the value bytes (empty for a {@code null} value),
+	 * or {@code null} if there is no entry for the key
+	 */
+	byte[] get(byte[] key, int hash) {
+		Lock readLock = this.lock.readLock();
+		readLock.lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot < 0) {
+				return null;
+			}
+			int offset = offsetOf(this.index[slot]);
+			int position = HEADER_SIZE + offset;
+			byte[] value = new byte[this.buffer.getInt(position) - RECORD_HEADER_SIZE - key.length];
+			ByteBuffer source = this.buffer.duplicate();
+			source.position(position + RECORD_HEADER_SIZE + key.length);
+			source.get(value);
+			return value;
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Store the given serialized value for the given serialized key,
+	 * evicting the oldest entries as necessary.
+	 * @return {@code true} if the entry has been stored, {@code false} if it
+	 * is too large to fit into this segment at all
+	 */
+	boolean put(byte[] key, int hash, byte[] value) {
+		int length = RECORD_HEADER_SIZE + key.length + value.length;
+		Lock writeLock = this.lock.writeLock();
+		writeLock.lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot >= 0) {
+				markDead(offsetOf(this.index[slot]));
+				removeSlot(slot);
+			}
+			if (length > this.capacity) {
+				writeHeader();
+				return false;
+			}
+			makeRoom(length);
+			int position = HEADER_SIZE + this.tail;
+			this.buffer.putInt(position, length);
+			this.buffer.putInt(position + 4, hash);
+			this.buffer.putInt(position + 8, key.length);
+			ByteBuffer target = this.buffer.duplicate();
+			target.position(position + RECORD_HEADER_SIZE);
+			target.put(key);
+			target.put(value);
+			insertSlot(hash, this.tail);
+			this.tail += length;
+			this.used += length;
+			writeHeader();
+			return true;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the entry for the given serialized key, if any.
+	 */
+	void remove(byte[] key, int hash) {
+		Lock writeLock = this.lock.writeLock();
+		writeLock.lock();
+		try {
+			int slot = findSlot(key, hash);
+			if (slot >= 0) {
+				markDead(offsetOf(this.index[slot]));
+				removeSlot(slot);
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove all entries from this segment.
+	 */
+	void clear() {
+		Lock writeLock = this.lock.writeLock();
+		writeLock.lock();
+		try {
+			reset();
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Write the log positions to the buffer and, if memory-mapped,
+	 * force all changes to be written to the underlying file.
+	 */
+	void flush() {
+		Lock writeLock = this.lock.writeLock();
+		writeLock.lock();
+		try {
+			writeHeader();
+			if (this.buffer instanceof MappedByteBuffer) {
+				((MappedByteBuffer) this.buffer).force();
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Return the number of entries in this segment.
+	 */
+	int size() {
+		Lock readLock = this.lock.readLock();
+		readLock.lock();
+		try {
+			return this.count;
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Return the number of log bytes in use, including not yet reclaimed dead records.
+	 */
+	int usedBytes() {
+		Lock readLock = this.lock.readLock();
+		readLock.lock();
+		try {
+			return this.used;
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+
+	private void reset() {
+		this.head = 0;
+		this.tail = 0;
+		this.used = 0;
+		this.index = new long[INITIAL_INDEX_SIZE];
+		this.count = 0;
+		writeHeader();
+	}
+
+	private void writeHeader() {
+		this.buffer.putInt(0, this.head);
+		this.buffer.putInt(4, this.tail);
+		this.buffer.putInt(8, this.used);
+	}
+
+	/**
+	 * Rebuild the index from the log positions and records found in the buffer.
+	 * @return {@code false} if the buffer does not contain a consistent log
+	 */
+	private boolean restore() {
+		this.head = this.buffer.getInt(0);
+		this.tail = this.buffer.getInt(4);
+		this.used = this.buffer.getInt(8);
+		if (this.head < 0 || this.head > this.capacity || this.tail < 0 || this.tail > this.capacity ||
+				this.used < 0 || this.used > this.capacity) {
+			return false;
+		}
+		int position = this.head;
+		int remaining = this.used;
+		while (remaining > 0) {
+			if (this.capacity - position < 4 || this.buffer.getInt(HEADER_SIZE + position) == WRAP_MARKER) {
+				remaining -= this.capacity - position;
+				position = 0;
+				continue;
+			}
+			int length = this.buffer.getInt(HEADER_SIZE + position);
+			int keyLength = this.buffer.getInt(HEADER_SIZE + position + 8);
+			if (length < RECORD_HEADER_SIZE || length > remaining || length > this.capacity - position ||
+					(keyLength & ~DEAD_FLAG) > length - RECORD_HEADER_SIZE) {
+				return false;
+			}
+			if ((keyLength & DEAD_FLAG) == 0) {
+				insertSlot(this.buffer.getInt(HEADER_SIZE + position + 4), position);
+			}
+			position += length;
+			remaining -= length;
+		}
+		return (remaining == 0 && position == this.tail);
+	}
+
+	/**
+	 * Evict records from the head of the log until {@code length}
+	 * contiguous bytes are available at its tail.
+	 */
+	private void makeRoom(int length) {
+		while (true) {
+			if (this.used == 0) {
+				this.head = 0;
+				this.tail = 0;
+			}
+			if (this.used == 0 || this.tail > this.head) {
+				if (this.capacity - this.tail >= length) {
+					return;
+				}
+				// not enough room before the end of the buffer: wrap around
+				if (this.capacity - this.tail >= 4) {
+					this.buffer.putInt(HEADER_SIZE + this.tail, WRAP_MARKER);
+				}
+				this.used += this.capacity - this.tail;
+				this.tail = 0;
+			}
+			else if (this.head - this.tail >= length) {
+				return;
+			}
+			else {
+				evictHead();
+			}
+		}
+	}
+
+	private void evictHead() {
+		if (this.capacity - this.head < 4 || this.buffer.getInt(HEADER_SIZE + this.head) == WRAP_MARKER) {
+			this.used -= this.capacity - this.head;
+			this.head = 0;
+			return;
+		}
+		int position = HEADER_SIZE + this.head;
+		int length = this.buffer.getInt(position);
+		if ((this.buffer.getInt(position + 8) & DEAD_FLAG) == 0) {
+			int slot = findSlot(this.buffer.getInt(position + 4), this.head);
+			if (slot >= 0) {
+				removeSlot(slot);
+			}
+		}
+		this.used -= length;
+		this.head += length;
+	}
+
+	private void markDead(int offset) {
+		int position = HEADER_SIZE + offset + 8;
+		this.buffer.putInt(position, this.buffer.getInt(position) | DEAD_FLAG);
+	}
+
+
+	// Open-addressing index with linear probing and backward-shift deletion
+
+	private int findSlot(byte[] key, int hash) {
+		int mask = this.index.length - 1;
+		for (int slot = hash & mask; this.index[slot] != 0; slot = (slot + 1) & mask) {
+			long entry = this.index[slot];
+			if (hashOf(entry) == hash && keyEquals(offsetOf(entry), key)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private int findSlot(int hash, int offset) {
+		int mask = this.index.length - 1;
+		for (int slot = hash & mask; this.index[slot] != 0; slot = (slot + 1) & mask) {
+			if (offsetOf(this.index[slot]) == offset) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private boolean keyEquals(int offset, byte[] key) {
+		int position = HEADER_SIZE + offset;
+		if (this.buffer.getInt(position + 8) != key.length) {
+			return false;
+		}
+		position += RECORD_HEADER_SIZE;
+		for (int i = 0; i < key.length; i++) {
+			if (this.buffer.get(position + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void insertSlot(int hash, int offset) {
+		if ((this.count + 1) * 4L > this.index.length * 3L) {
+			resizeIndex();
+		}
+		int mask = this.index.length - 1;
+		int slot = hash & mask;
+		while (this.index[slot] != 0) {
+			long entry = this.index[slot];
+			if (hashOf(entry) == hash && restoringDuplicate(offsetOf(entry), offset)) {
+				// only possible while restoring an unclean log: the later record wins
+				markDead(offsetOf(entry));
+				this.index[slot] = entryFor(hash, offset);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		this.index[slot] = entryFor(hash, offset);
+		this.count++;
+	}
+
+	private boolean restoringDuplicate(int existingOffset, int offset) {
+		int keyLength = this.buffer.getInt(HEADER_SIZE + offset + 8);
+		if (this.buffer.getInt(HEADER_SIZE + existingOffset + 8) != keyLength) {
+			return false;
+		}
+		int existing = HEADER_SIZE + existingOffset + RECORD_HEADER_SIZE;
+		int candidate = HEADER_SIZE + offset + RECORD_HEADER_SIZE;
+		for (int i = 0; i < keyLength; i++) {
+			if (this.buffer.get(existing + i) != this.buffer.get(candidate + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void removeSlot(int slot) {
+		int mask = this.index.length - 1;
+		this.index[slot] = 0;
+		this.count--;
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			long entry = this.index[next];
+			if (entry == 0) {
+				return;
+			}
+			int ideal = hashOf(entry) & mask;
+			boolean inPlace = (slot <= next ? (slot < ideal && ideal <= next) : (slot < ideal || ideal <= next));
+			if (!inPlace) {
+				this.index[slot] = entry;
+				this.index[next] = 0;
+				slot = next;
+			}
+		}
+	}
+
+	private void resizeIndex() {
+		long[] oldIndex = this.index;
+		long[] newIndex = new long[oldIndex.length * 2];
+		int mask = newIndex.length - 1;
+		for (long entry : oldIndex) {
+			if (entry != 0) {
+				int slot = hashOf(entry) & mask;
+				while (newIndex[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				newIndex[slot] = entry;
+			}
+		}
+		this.index = newIndex;
+	}
+
+	private static long entryFor(int hash, int offset) {
+		return ((long) hash << 32) | ((offset + 1) & 0xFFFFFFFFL);
+	}
+
+	private static int hashOf(long entry) {
+		return (int) (entry >>> 32);
+	}
+
+	private static int offsetOf(long entry) {
+		return (int) entry - 1;
+	}
+
+}
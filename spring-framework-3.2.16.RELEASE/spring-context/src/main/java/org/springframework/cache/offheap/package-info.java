@@ -0,0 +1,8 @@
+/**
+ * Implementation package for caches which keep their entries outside of
+ * the Java heap, in direct or memory-mapped buffers. Provides a
+ * {@link org.springframework.cache.CacheManager CacheManager} and
+ * {@link org.springframework.cache.Cache Cache} implementation for
+ * large caches, optionally persistent across restarts.
+ */
+package org.springframework.cache.offheap;
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cache.BulkCache;
+import org.springframework.cache.Cache;
+
+/**
+ * Utility methods for performing multi-key operations on any {@link Cache},
+ * delegating to the {@link BulkCache} operations if supported by the cache
+ * and falling back to one single-key operation per key otherwise.
+ *
+ * @since 3.2.17
+ */
+public abstract class BulkCacheUtils {
+
+	/**
+	 * Return the values to which the given cache maps the specified keys.
+	 * @param cache the cache to look up
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map containing an entry for each key that the cache contains
+	 * a mapping for (in the order of the given keys, if not a {@code BulkCache})
+	 * @see BulkCache#getAll
+	 */
+	public static Map<Object, Cache.ValueWrapper> getAll(Cache cache, Collection<?> keys) {
+		if (cache instanceof BulkCache) {
+			return ((BulkCache) cache).getAll(keys);
+		}
+		return getAllIndividually(cache, keys);
+	}
+
+	/**
+	 * Associate the specified values with their keys in the given cache.
+	 * @param cache the cache to populate
+	 * @param entries the keys and values to store
+	 * @see BulkCache#putAll
+	 */
+	public static void putAll(Cache cache, Map<?, ?> entries) {
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).putAll(entries);
+		}
+		else {
+			putAllIndividually(cache, entries);
+		}
+	}
+
+	/**
+	 * Evict the mappings for the specified keys from the given cache.
+	 * @param cache the cache to evict from
+	 * @param keys the keys whose mappings are to be removed from the cache
+	 * @see BulkCache#evictAll
+	 */
+	public static void evictAll(Cache cache, Collection<?> keys) {
+		if (cache instanceof BulkCache) {
+			((BulkCache) cache).evictAll(keys);
+		}
+		else {
+			evictAllIndividually(cache, keys);
+		}
+	}
+
+	/**
+	 * Look up the specified keys one at a time, for {@code BulkCache}
+	 * implementations without a more efficient way of doing so.
+	 * @param cache the cache to look up
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map containing an entry for each key that the cache contains
+	 * a mapping for, in the order of the given keys
+	 */
+	public static Map<Object, Cache.ValueWrapper> getAllIndividually(Cache cache, Collection<?> keys) {
+		Map<Object, Cache.ValueWrapper> result = new LinkedHashMap<Object, Cache.ValueWrapper>(keys.size());
+		for (Object key : keys) {
+			Cache.ValueWrapper wrapper = cache.get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Store the specified entries one at a time, for {@code BulkCache}
+	 * implementations without a more efficient way of doing so.
+	 * @param cache the cache to populate
+	 * @param entries the keys and values to store
+	 */
+	public static void putAllIndividually(Cache cache, Map<?, ?> entries) {
+		for (Map.Entry<?, ?> entry : entries.entrySet()) {
+			cache.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Evict the specified keys one at a time, for {@code BulkCache}
+	 * implementations without a more efficient way of doing so.
+	 * @param cache the cache to evict from
+	 * @param keys the keys whose mappings are to be removed from the cache
+	 */
+	public static void evictAllIndividually(Cache cache, Collection<?> keys) {
+		for (Object key : keys) {
+			cache.evict(key);
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.LoadingCache;
+import org.springframework.util.Assert;
+
+/**
+ * Loads missing values into an arbitrary {@link Cache} while holding one
+ * of a fixed number of locks selected by cache name and key, so that
+ * concurrent callers for the same key wait for a single load instead of
+ * all invoking the loader.
+ *
+ * <p>Serves as the fallback for caches that do not implement
+ * {@link LoadingCache}, and as a building block for {@code LoadingCache}
+ * implementations whose native cache provides no per-key locking.
+ * Unrelated keys which happen to map to the same stripe wait for
+ * each other as well; the number of stripes bounds that contention.
+ *
+ * <p>The locks are local to this instance and therefore only
+ * coordinate callers within the same JVM.
+ *
+ * @since 3.2.17
+ */
+public class StripedLockValueLoader {
+
+	/**
+	 * The default number of lock stripes.
+	 */
+	public static final int DEFAULT_STRIPES = 64;
+
+
+	private final Object[] locks;
+
+	private final int mask;
+
+
+	/**
+	 * Create a new StripedLockValueLoader with the default number of stripes.
+	 * @see #DEFAULT_STRIPES
+	 */
+	public StripedLockValueLoader() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Create a new StripedLockValueLoader.
+	 * @param stripes the number of locks to distribute keys over
+	 * (rounded up to the next power of two)
+	 */
+	public StripedLockValueLoader(int stripes) {
+		Assert.isTrue(stripes > 0, "Number of stripes must be greater than 0");
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.locks = new Object[size];
+		for (int i = 0; i < size; i++) {
+			this.locks[i] = new Object();
+		}
+		this.mask = size - 1;
+	}
+
+
+	/**
+	 * Return the value to which the given cache maps the specified key,
+	 * invoking {@code valueLoader} and storing its result in the cache
+	 * if there is no such mapping yet.
+	 * @param cache the cache to look up and populate
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the callback to compute the value if necessary
+	 * @return the cached or newly loaded value
+	 * @throws LoadingCache.ValueRetrievalException if the {@code valueLoader}
+	 * throws an exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Cache cache, Object key, Callable<T> valueLoader) {
+		Cache.ValueWrapper wrapper = cache.get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		synchronized (getLock(cache, key)) {
+			wrapper = cache.get(key);
+			if (wrapper != null) {
+				return (T) wrapper.get();
+			}
+			T value;
+			try {
+				value = valueLoader.call();
+			}
+			catch (Exception ex) {
+				throw new LoadingCache.ValueRetrievalException(key, valueLoader, ex);
+			}
+			cache.put(key, value);
+			return value;
+		}
+	}
+
+	private Object getLock(Cache cache, Object key) {
+		int hash = 31 * cache.getName().hashCode() + (key != null ? key.hashCode() : 0);
+		// spread the higher bits, as done by java.util.HashMap
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		hash ^= (hash >>> 7) ^ (hash >>> 4);
+		return this.locks[hash & this.mask];
+	}
+
+}
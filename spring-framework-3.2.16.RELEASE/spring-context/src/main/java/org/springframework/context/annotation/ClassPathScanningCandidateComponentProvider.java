@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,21 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,7 +39,10 @@ import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
@@ -51,6 +63,8 @@ import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * A component provider that scans the classpath from a base package. It then
@@ -60,6 +74,14 @@ import org.springframework.util.ClassUtils;
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
  * facility, backed by an ASM {@link org.springframework.asm.ClassReader ClassReader}.
  *
+ * <p>If all classpath roots that contain a base package come with a
+ * {@code META-INF/spring.components} index, as generated by the
+ * {@code spring-context-indexer} annotation processor, the candidates
+ * are taken from the index instead of scanning all classes in the package.
+ * This requires the include filters to be supported by the index: i.e.
+ * {@link AnnotationTypeFilter AnnotationTypeFilters} for {@link Component @Component}
+ * stereotypes or for {@code javax.*} annotations, as used by default.
+ *
  * @author Mark Fisher
  * @author Juergen Hoeller
  * @author Ramnivas Laddad
@@ -250,10 +272,242 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * @return a corresponding Set of autodetected bean definitions
 	 */
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
+		String packagePath = resolveBasePackage(basePackage);
+		CandidateComponentsIndex index =
+				CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+		if (index != null && index.hasIndexedRoots() && indexSupportsIncludeFilters() &&
+				isFullyIndexed(index, packagePath)) {
+			return addCandidateComponentsFromIndex(index, packagePath);
+		}
+		return scanCandidateComponents(packagePath);
+	}
+
+	/**
+	 * Determine whether all include filters are supported by the index.
+	 * @see #extractStereotype(TypeFilter)
+	 */
+	private boolean indexSupportsIncludeFilters() {
+		for (TypeFilter includeFilter : this.includeFilters) {
+			if (extractStereotype(includeFilter) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Extract the stereotype to use for the specified compatible filter.
+	 * @param filter the filter to handle
+	 * @return the stereotype in the index matching this filter, or {@code null}
+	 * if the filter is not supported by the index
+	 */
+	private String extractStereotype(TypeFilter filter) {
+		if (filter instanceof AnnotationTypeFilter) {
+			Class<? extends Annotation> annotationType = ((AnnotationTypeFilter) filter).getAnnotationType();
+			if (AnnotationUtils.findAnnotation(annotationType, Component.class) != null ||
+					Component.class.equals(annotationType)) {
+				return Component.class.getName();
+			}
+			if (annotationType.getName().startsWith("javax.")) {
+				return annotationType.getName();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Determine whether every classpath root that contains the given package
+	 * comes with an index, so that the index covers all candidates.
+	 * <p>Roots are found through their package directory as well as through the
+	 * class path of the class loader, since jar files without directory entries
+	 * do not expose the package directory as a resource.
+	 * @param index the index to check
+	 * @param packagePath the resolved "/"-based base package path
+	 */
+	private boolean isFullyIndexed(CandidateComponentsIndex index, String packagePath) {
+		String rootDirPath = packagePath + "/";
+		for (int i = 0; i < packagePath.length(); i++) {
+			char c = packagePath.charAt(i);
+			if (c == '*' || c == '?') {
+				rootDirPath = packagePath.substring(0, packagePath.lastIndexOf('/', i) + 1);
+				break;
+			}
+		}
+		if (rootDirPath.length() <= 1) {
+			// The classpath roots of jar files cannot be determined without a package path
+			return false;
+		}
+		try {
+			Resource[] rootDirs = this.resourcePatternResolver.getResources(
+					ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + rootDirPath);
+			if (rootDirs.length == 0) {
+				return false;
+			}
+			for (Resource rootDir : rootDirs) {
+				String url = rootDir.getURL().toString();
+				if (!url.endsWith(rootDirPath) ||
+						!index.isIndexedRoot(url.substring(0, url.length() - rootDirPath.length()))) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Scanning classpath for package '" + packagePath +
+								"' since no component index found for [" + url + "]");
+					}
+					return false;
+				}
+			}
+			Set<File> visited = new HashSet<File>();
+			for (File root : getClassPathRoots()) {
+				if (!isIndexedOrUnrelatedRoot(index, root, rootDirPath, visited)) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Scanning classpath for package '" + packagePath +
+								"' since no component index found for [" + root + "]");
+					}
+					return false;
+				}
+			}
+			return true;
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+	}
+
+	/**
+	 * Return the local directories and jar files on the class path of the
+	 * class loader, as far as they can be determined.
+	 */
+	private Set<File> getClassPathRoots() throws IOException {
+		Set<File> roots = new LinkedHashSet<File>();
+		ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+		ClassLoader classLoader = this.resourcePatternResolver.getClassLoader();
+		if (classLoader == null) {
+			classLoader = ClassUtils.getDefaultClassLoader();
+		}
+		for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+			if (cl instanceof URLClassLoader) {
+				for (URL url : ((URLClassLoader) cl).getURLs()) {
+					if (ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+						roots.add(ResourceUtils.getFile(url));
+					}
+				}
+			}
+			if (cl == systemClassLoader) {
+				// Parents of the system class loader only hold the JDK classes
+				String classPath = System.getProperty("java.class.path");
+				for (String path : StringUtils.tokenizeToStringArray(classPath, File.pathSeparator)) {
+					roots.add(new File(path).getAbsoluteFile());
+				}
+				break;
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Determine whether the given class path entry either comes with an index
+	 * or does not contain the given package, including the entries on the
+	 * manifest class path of a jar file.
+	 * @param index the index to check
+	 * @param root the directory or jar file to check
+	 * @param rootDirPath the package directory to look for, ending with a slash
+	 * @param visited the class path entries that have been checked already
+	 */
+	private boolean isIndexedOrUnrelatedRoot(CandidateComponentsIndex index, File root, String rootDirPath,
+			Set<File> visited) throws IOException {
+
+		if (!visited.add(root)) {
+			return true;
+		}
+		if (root.isDirectory()) {
+			return (index.isIndexedRoot(root.toURI().toString()) || !new File(root, rootDirPath).exists());
+		}
+		if (!root.isFile()) {
+			return true;
+		}
+		JarFile jarFile;
+		try {
+			jarFile = new JarFile(root);
+		}
+		catch (IOException ex) {
+			// Not a jar file: cannot contain any classes either
+			return true;
+		}
+		try {
+			String rootUrl = ResourceUtils.URL_PROTOCOL_JAR + ":" + root.toURI() + ResourceUtils.JAR_URL_SEPARATOR;
+			if (!index.isIndexedRoot(rootUrl)) {
+				for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+					if (entries.nextElement().getName().startsWith(rootDirPath)) {
+						return false;
+					}
+				}
+			}
+			Manifest manifest = jarFile.getManifest();
+			String classPath = (manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) : null);
+			if (classPath != null) {
+				URL baseUrl = root.toURI().toURL();
+				for (String path : StringUtils.tokenizeToStringArray(classPath, " ")) {
+					URL url = new URL(baseUrl, path);
+					if (ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol()) &&
+							!isIndexedOrUnrelatedRoot(index, ResourceUtils.getFile(url), rootDirPath, visited)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		finally {
+			jarFile.close();
+		}
+	}
+
+	private Set<BeanDefinition> addCandidateComponentsFromIndex(CandidateComponentsIndex index, String packagePath) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
+		Set<String> types = new LinkedHashSet<String>();
+		for (TypeFilter filter : this.includeFilters) {
+			types.addAll(index.getCandidateTypes(packagePath, this.resourcePattern, extractStereotype(filter)));
+		}
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		if (debugEnabled) {
+			logger.debug("Using component index for package '" + packagePath + "': " + types.size() +
+					" candidate classes");
+		}
+		for (String type : types) {
+			try {
+				MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(type);
+				if (isCandidateComponent(metadataReader)) {
+					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+					sbd.setResource(metadataReader.getResource());
+					sbd.setSource(metadataReader.getResource());
+					if (isCandidateComponent(sbd)) {
+						if (debugEnabled) {
+							logger.debug("Using candidate component class from index: " + type);
+						}
+						candidates.add(sbd);
+					}
+					else {
+						if (debugEnabled) {
+							logger.debug("Ignored because not a concrete top-level class: " + type);
+						}
+					}
+				}
+				else {
+					if (traceEnabled) {
+						logger.trace("Ignored because not matching any filter: " + type);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException("Failed to read candidate component class: " + type, ex);
+			}
+		}
+		return candidates;
+	}
+
+	private Set<BeanDefinition> scanCandidateComponents(String packagePath) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
-					resolveBasePackage(basePackage) + "/" + this.resourcePattern;
+					packagePath + "/" + this.resourcePattern;
 			Resource[] resources = this.resourcePatternResolver.getResources(packageSearchPath);
 			boolean traceEnabled = logger.isTraceEnabled();
 			boolean debugEnabled = logger.isDebugEnabled();
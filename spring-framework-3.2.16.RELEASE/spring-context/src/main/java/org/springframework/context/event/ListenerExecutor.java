@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation for an {@link org.springframework.context.ApplicationListener}
+ * class, declaring the executor that {@link SimpleApplicationEventMulticaster}
+ * is supposed to invoke the listener with, instead of its default one.
+ *
+ * <p>The executor name refers to one of the multicaster's
+ * {@link SimpleApplicationEventMulticaster#setListenerExecutors listener executors}
+ * or, if there is no such executor, to an {@link java.util.concurrent.Executor}
+ * bean in the containing bean factory. Listeners sharing a single-threaded
+ * executor form an ordering lane: they see events in publication order,
+ * without blocking the publishing thread.
+ *
+ * @since 3.2.17
+ * @see SimpleApplicationEventMulticaster#SYNC_EXECUTOR_NAME
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface ListenerExecutor {
+
+	/**
+	 * The name of the executor to invoke the annotated listener with.
+	 */
+	String value();
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,24 @@
 
 package org.springframework.context.event;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.Assert;
 
 /**
  * Simple implementation of the {@link ApplicationEventMulticaster} interface.
@@ -35,14 +48,65 @@ import org.springframework.context.ApplicationListener;
  * but adds minimal overhead. Specify an alternative TaskExecutor to have
  * listeners executed in different threads, for example from a thread pool.
  *
+ * <p>Individual listeners may declare a specific executor through the
+ * {@link ListenerExecutor @ListenerExecutor} annotation, e.g. to move a slow
+ * auditing listener off the publishing thread while all other listeners keep
+ * being invoked synchronously. Such executors will typically have a bounded
+ * queue; the {@link #setRejectionPolicy rejection policy} determines what
+ * happens to events that such an executor does not accept. Invocation
+ * {@link #setCollectStatistics statistics} can be collected per listener.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #setTaskExecutor
+ * @see #setListenerExecutors
  */
 public class SimpleApplicationEventMulticaster extends AbstractApplicationEventMulticaster {
 
+	/**
+	 * Executor name for {@link ListenerExecutor @ListenerExecutor}, indicating that
+	 * the listener is to be invoked synchronously in the publishing thread, even if
+	 * a {@link #setTaskExecutor TaskExecutor} has been specified.
+	 * @since 3.2.17
+	 */
+	public static final String SYNC_EXECUTOR_NAME = "sync";
+
+
+	/**
+	 * Policy for events that a listener's executor does not accept,
+	 * e.g. because its queue is full.
+	 * @since 3.2.17
+	 */
+	public enum RejectionPolicy {
+
+		/** Propagate the executor's {@link RejectedExecutionException} to the publisher */
+		ABORT,
+
+		/** Invoke the listener in the publishing thread, slowing down the publisher */
+		CALLER_RUNS,
+
+		/** Log a warning and do not deliver the event to the listener */
+		DISCARD
+	}
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
 	private Executor taskExecutor;
 
+	private final Map<String, Executor> listenerExecutors = new ConcurrentHashMap<String, Executor>();
+
+	private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+	private boolean collectStatistics = false;
+
+	private BeanFactory beanFactory;
+
+	private final Map<Class<?>, String> executorNameCache = new ConcurrentHashMap<Class<?>, String>(64);
+
+	private final ConcurrentMap<ApplicationListener<?>, ListenerStatistics> statistics =
+			new ConcurrentHashMap<ApplicationListener<?>, ListenerStatistics>(64);
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -80,22 +144,267 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.taskExecutor;
 	}
 
+	/**
+	 * Register executors by name, for listeners which declare their executor through
+	 * the {@link ListenerExecutor @ListenerExecutor} annotation. Names which are not
+	 * registered here get resolved as {@code Executor} beans in the BeanFactory.
+	 * <p>Consider a {@link org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor}
+	 * with a limited queue capacity, to bound the number of pending events; with a
+	 * single thread, it preserves the order of events for all of its listeners.
+	 * @since 3.2.17
+	 * @see #setRejectionPolicy
+	 */
+	public void setListenerExecutors(Map<String, ? extends Executor> listenerExecutors) {
+		this.listenerExecutors.putAll(listenerExecutors);
+	}
+
+	/**
+	 * Set the policy for events that an executor does not accept for a listener.
+	 * Default is {@link RejectionPolicy#ABORT}.
+	 * @since 3.2.17
+	 */
+	public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+		Assert.notNull(rejectionPolicy, "RejectionPolicy must not be null");
+		this.rejectionPolicy = rejectionPolicy;
+	}
+
+	/**
+	 * Set whether to collect invocation statistics per listener.
+	 * Default is "false", avoiding the timing overhead.
+	 * @since 3.2.17
+	 * @see #getListenerStatistics()
+	 */
+	public void setCollectStatistics(boolean collectStatistics) {
+		this.collectStatistics = collectStatistics;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		super.setBeanFactory(beanFactory);
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Return the invocation statistics collected so far, per listener.
+	 * @since 3.2.17
+	 * @see #setCollectStatistics
+	 */
+	public Map<ApplicationListener<?>, ListenerStatistics> getListenerStatistics() {
+		return Collections.unmodifiableMap(new HashMap<ApplicationListener<?>, ListenerStatistics>(this.statistics));
+	}
+
 
-	@SuppressWarnings("unchecked")
 	public void multicastEvent(final ApplicationEvent event) {
-		for (final ApplicationListener listener : getApplicationListeners(event)) {
-			Executor executor = getTaskExecutor();
+		for (final ApplicationListener<?> listener : getApplicationListeners(event)) {
+			Executor executor = determineExecutor(listener);
 			if (executor != null) {
-				executor.execute(new Runnable() {
-					public void run() {
-						listener.onApplicationEvent(event);
-					}
-				});
+				dispatchEvent(executor, listener, event);
 			}
 			else {
-				listener.onApplicationEvent(event);
+				invokeListener(listener, event);
+			}
+		}
+	}
+
+	/**
+	 * Determine the executor to invoke the given listener with.
+	 * <p>The default implementation resolves the executor declared through
+	 * {@link ListenerExecutor @ListenerExecutor}, falling back to the
+	 * {@link #getTaskExecutor() TaskExecutor}.
+	 * @param listener the listener to invoke
+	 * @return the executor, or {@code null} to invoke the listener in the calling thread
+	 * @since 3.2.17
+	 */
+	protected Executor determineExecutor(ApplicationListener<?> listener) {
+		String executorName = determineExecutorName(listener);
+		if (executorName == null) {
+			return getTaskExecutor();
+		}
+		if (SYNC_EXECUTOR_NAME.equals(executorName)) {
+			return null;
+		}
+		Executor executor = this.listenerExecutors.get(executorName);
+		if (executor == null) {
+			if (this.beanFactory == null) {
+				throw new IllegalStateException("No listener executor named '" + executorName +
+						"' registered and no BeanFactory to resolve it from");
+			}
+			executor = this.beanFactory.getBean(executorName, Executor.class);
+			this.listenerExecutors.put(executorName, executor);
+		}
+		return executor;
+	}
+
+	/**
+	 * Determine the name of the executor that the given listener declares.
+	 * @param listener the listener to invoke
+	 * @return the executor name, or {@code null} if none declared
+	 * @since 3.2.17
+	 * @see ListenerExecutor
+	 */
+	protected String determineExecutorName(ApplicationListener<?> listener) {
+		Class<?> listenerClass = AopUtils.getTargetClass(listener);
+		String executorName = this.executorNameCache.get(listenerClass);
+		if (executorName == null) {
+			ListenerExecutor annotation = AnnotationUtils.findAnnotation(listenerClass, ListenerExecutor.class);
+			executorName = (annotation != null ? annotation.value() : "");
+			this.executorNameCache.put(listenerClass, executorName);
+		}
+		return (executorName.length() > 0 ? executorName : null);
+	}
+
+	/**
+	 * Hand the given event for the given listener to the given executor,
+	 * applying the {@link #setRejectionPolicy rejection policy} if necessary.
+	 * @since 3.2.17
+	 */
+	protected void dispatchEvent(Executor executor, final ApplicationListener<?> listener,
+			final ApplicationEvent event) {
+
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					invokeListener(listener, event);
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			if (this.collectStatistics) {
+				getStatistics(listener).rejectionCount.incrementAndGet();
+			}
+			switch (this.rejectionPolicy) {
+				case CALLER_RUNS:
+					invokeListener(listener, event);
+					break;
+				case DISCARD:
+					if (logger.isWarnEnabled()) {
+						logger.warn("Discarded " + event + " for listener [" + listener +
+								"] rejected by its executor: " + ex.getMessage());
+					}
+					break;
+				default:
+					throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Invoke the given listener with the given event,
+	 * recording its statistics if necessary.
+	 * @since 3.2.17
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	protected void invokeListener(ApplicationListener listener, ApplicationEvent event) {
+		if (!this.collectStatistics) {
+			listener.onApplicationEvent(event);
+			return;
+		}
+		ListenerStatistics listenerStatistics = getStatistics(listener);
+		long startTime = System.nanoTime();
+		boolean success = false;
+		try {
+			listener.onApplicationEvent(event);
+			success = true;
+		}
+		finally {
+			listenerStatistics.recordInvocation(System.nanoTime() - startTime, success);
+		}
+	}
+
+	private ListenerStatistics getStatistics(ApplicationListener<?> listener) {
+		ListenerStatistics listenerStatistics = this.statistics.get(listener);
+		if (listenerStatistics == null) {
+			listenerStatistics = new ListenerStatistics();
+			ListenerStatistics existing = this.statistics.putIfAbsent(listener, listenerStatistics);
+			if (existing != null) {
+				listenerStatistics = existing;
+			}
+		}
+		return listenerStatistics;
+	}
+
+
+	/**
+	 * Invocation statistics for a single listener.
+	 * @since 3.2.17
+	 * @see SimpleApplicationEventMulticaster#getListenerStatistics()
+	 */
+	public static final class ListenerStatistics {
+
+		private final AtomicLong invocationCount = new AtomicLong();
+
+		private final AtomicLong failureCount = new AtomicLong();
+
+		private final AtomicLong rejectionCount = new AtomicLong();
+
+		private final AtomicLong totalTime = new AtomicLong();
+
+		private final AtomicLong maxTime = new AtomicLong();
+
+		private ListenerStatistics() {
+		}
+
+		private void recordInvocation(long time, boolean success) {
+			this.invocationCount.incrementAndGet();
+			if (!success) {
+				this.failureCount.incrementAndGet();
+			}
+			this.totalTime.addAndGet(time);
+			long max = this.maxTime.get();
+			while (time > max && !this.maxTime.compareAndSet(max, time)) {
+				max = this.maxTime.get();
 			}
 		}
+
+		/**
+		 * Return the number of invocations of the listener, including failed ones.
+		 */
+		public long getInvocationCount() {
+			return this.invocationCount.get();
+		}
+
+		/**
+		 * Return the number of invocations that threw an exception.
+		 */
+		public long getFailureCount() {
+			return this.failureCount.get();
+		}
+
+		/**
+		 * Return the number of events that the listener's executor rejected.
+		 */
+		public long getRejectionCount() {
+			return this.rejectionCount.get();
+		}
+
+		/**
+		 * Return the total time spent in the listener, in nanoseconds.
+		 */
+		public long getTotalTime() {
+			return this.totalTime.get();
+		}
+
+		/**
+		 * Return the average time spent per invocation, in nanoseconds.
+		 */
+		public long getAverageTime() {
+			long count = this.invocationCount.get();
+			return (count > 0 ? this.totalTime.get() / count : 0);
+		}
+
+		/**
+		 * Return the longest time spent in a single invocation, in nanoseconds.
+		 */
+		public long getMaxTime() {
+			return this.maxTime.get();
+		}
+
+		@Override
+		public String toString() {
+			return "invocations=" + getInvocationCount() + ", failures=" + getFailureCount() +
+					", rejections=" + getRejectionCount() + ", averageTime=" + getAverageTime() +
+					"ns, maxTime=" + getMaxTime() + "ns";
+		}
 	}
 
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Provide access to the candidates that are defined in {@code META-INF/spring.components}
+ * files, as generated at build time by the {@code spring-context-indexer} annotation
+ * processor.
+ *
+ * <p>An arbitrary number of stereotypes can be registered (and queried) on the index:
+ * typically the fully qualified name of an annotation. Each index file is associated
+ * with the classpath root that it has been found in, so that callers can check whether
+ * all roots that contain a given package are indexed before relying on the index.
+ *
+ * @since 3.2.17
+ * @see CandidateComponentsIndexLoader
+ */
+public class CandidateComponentsIndex {
+
+	private static final PathMatcher pathMatcher = new AntPathMatcher();
+
+	private final Set<String> indexedRoots;
+
+	private final MultiValueMap<String, String> index;
+
+
+	/**
+	 * Create a new CandidateComponentsIndex for the given index files.
+	 * @param indexesByRoot the content of each index file, keyed by the URL
+	 * of the classpath root that contains it (ending with a slash)
+	 */
+	public CandidateComponentsIndex(Map<String, Properties> indexesByRoot) {
+		this.indexedRoots = Collections.unmodifiableSet(new LinkedHashSet<String>(indexesByRoot.keySet()));
+		this.index = parseIndex(indexesByRoot.values());
+	}
+
+	private static MultiValueMap<String, String> parseIndex(Iterable<Properties> content) {
+		MultiValueMap<String, String> index = new LinkedMultiValueMap<String, String>();
+		for (Properties entry : content) {
+			for (String type : entry.stringPropertyNames()) {
+				String[] stereotypes = StringUtils.commaDelimitedListToStringArray(entry.getProperty(type));
+				for (String stereotype : stereotypes) {
+					index.add(stereotype.trim(), type);
+				}
+			}
+		}
+		return index;
+	}
+
+
+	/**
+	 * Return whether any index files have been found at all.
+	 */
+	public boolean hasIndexedRoots() {
+		return !this.indexedRoots.isEmpty();
+	}
+
+	/**
+	 * Return whether the given classpath root comes with an index file.
+	 * @param rootUrl the URL of the classpath root (ending with a slash),
+	 * e.g. "file:/app/classes/" or "jar:file:/app/lib/app.jar!/"
+	 */
+	public boolean isIndexedRoot(String rootUrl) {
+		return this.indexedRoots.contains(rootUrl);
+	}
+
+	/**
+	 * Return the candidate types that are associated with the specified stereotype.
+	 * @param basePackage the package to check for candidates, as a "/"-based path
+	 * that may contain Ant-style wildcards
+	 * @param resourcePattern the pattern for class files below the base package
+	 * (e.g. "**&#47;*.class")
+	 * @param stereotype the stereotype to use
+	 * @return the candidate types associated with the specified {@code stereotype}
+	 * or an empty set if none has been found for the specified {@code basePackage}
+	 */
+	public Set<String> getCandidateTypes(String basePackage, String resourcePattern, String stereotype) {
+		List<String> candidates = this.index.get(stereotype);
+		if (candidates == null) {
+			return Collections.emptySet();
+		}
+		String pattern = basePackage + "/" + resourcePattern;
+		Set<String> result = new LinkedHashSet<String>();
+		for (String candidate : candidates) {
+			if (pathMatcher.match(pattern, ClassUtils.convertClassNameToResourcePath(candidate) +
+					ClassUtils.CLASS_FILE_SUFFIX)) {
+				result.add(candidate);
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Candidate components index loading mechanism for internal use within the framework.
+ *
+ * @since 3.2.17
+ */
+public abstract class CandidateComponentsIndexLoader {
+
+	/**
+	 * The location to look for components.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+	/**
+	 * System property that instructs Spring to ignore the index, i.e.
+	 * to always scan the classpath: "spring.index.ignore".
+	 * <p>The default is "false", using the index for all packages that are
+	 * fully indexed. Can also be set in a {@code spring.properties} file.
+	 * @see org.springframework.core.SpringProperties
+	 */
+	public static final String IGNORE_INDEX = "spring.index.ignore";
+
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(CandidateComponentsIndexLoader.class);
+
+	private static final Map<ClassLoader, CandidateComponentsIndex> cache =
+			new ConcurrentReferenceHashMap<ClassLoader, CandidateComponentsIndex>();
+
+
+	/**
+	 * Load and instantiate the {@link CandidateComponentsIndex} from
+	 * {@value #COMPONENTS_RESOURCE_LOCATION}, using the given class loader.
+	 * The index is cached per class loader.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null}
+	 * to use the default)
+	 * @return the index to use, or {@code null} if the index is to be ignored
+	 * @throws IllegalArgumentException if any module index cannot be loaded
+	 */
+	public static CandidateComponentsIndex loadIndex(ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = CandidateComponentsIndexLoader.class.getClassLoader();
+		}
+		CandidateComponentsIndex index = cache.get(classLoaderToUse);
+		if (index == null) {
+			index = doLoadIndex(classLoaderToUse);
+			cache.put(classLoaderToUse, index);
+		}
+		return index;
+	}
+
+	private static CandidateComponentsIndex doLoadIndex(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+			Map<String, Properties> indexesByRoot = new LinkedHashMap<String, Properties>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				Properties properties = PropertiesLoaderUtils.loadProperties(new UrlResource(url));
+				String location = url.toString();
+				String rootUrl = location.substring(0, location.length() - COMPONENTS_RESOURCE_LOCATION.length());
+				indexesByRoot.put(rootUrl, properties);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + indexesByRoot.size() + " component indexes from " +
+						indexesByRoot.keySet());
+			}
+			return new CandidateComponentsIndex(indexesByRoot);
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Unable to load indexes from location [" +
+					COMPONENTS_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+}
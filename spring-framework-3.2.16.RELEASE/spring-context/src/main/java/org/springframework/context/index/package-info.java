@@ -0,0 +1,7 @@
+/**
+ *
+ * Support for reading the index of candidate components that the
+ * {@code spring-context-indexer} annotation processor writes at build time.
+ *
+ */
+package org.springframework.context.index;
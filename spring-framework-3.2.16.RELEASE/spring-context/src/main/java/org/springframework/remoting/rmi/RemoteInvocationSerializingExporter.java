@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,8 @@ import java.io.OutputStream;
 import java.rmi.RemoteException;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationBasedExporter;
 import org.springframework.remoting.support.RemoteInvocationResult;
@@ -37,7 +39,9 @@ import org.springframework.util.ClassUtils;
  * for example Spring's HTTP invoker.
  *
  * <p>Provides template methods for {@code ObjectInputStream} and
- * {@code ObjectOutputStream} handling.
+ * {@code ObjectOutputStream} handling. Alternatively, a {@link Deserializer}
+ * and a {@link Serializer} may be specified to replace Java Serialization
+ * with a different wire format.
  *
  * @author Juergen Hoeller
  * @since 2.5.1
@@ -59,6 +63,10 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 
 	private boolean acceptProxyClasses = true;
 
+	private Deserializer<Object> deserializer;
+
+	private Serializer<Object> serializer;
+
 	private Object proxy;
 
 
@@ -93,6 +101,45 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 		return this.acceptProxyClasses;
 	}
 
+	/**
+	 * Specify a {@link Deserializer} for reading remote invocations,
+	 * replacing the default {@code ObjectInputStream} based reading.
+	 * <p>Needs to match the serializer used by the client, e.g. a
+	 * {@link org.springframework.core.serializer.CompactDeserializer}
+	 * for a client using a {@link org.springframework.core.serializer.CompactSerializer}.
+	 * @since 3.2.17
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		this.deserializer = deserializer;
+	}
+
+	/**
+	 * Return the {@link Deserializer} for reading remote invocations, if any.
+	 * @since 3.2.17
+	 */
+	public Deserializer<Object> getDeserializer() {
+		return this.deserializer;
+	}
+
+	/**
+	 * Specify a {@link Serializer} for writing remote invocation results,
+	 * replacing the default {@code ObjectOutputStream} based writing.
+	 * <p>Consider specifying a corresponding {@link #setContentType content type}
+	 * as well, in particular when using a non-Java-Serialization wire format.
+	 * @since 3.2.17
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Return the {@link Serializer} for writing remote invocation results, if any.
+	 * @since 3.2.17
+	 */
+	public Serializer<Object> getSerializer() {
+		return this.serializer;
+	}
+
 
 	public void afterPropertiesSet() {
 		prepare();
@@ -111,6 +158,41 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 	}
 
 
+	/**
+	 * Read a remote invocation from the given InputStream through the
+	 * specified {@link #setDeserializer Deserializer}.
+	 * @param is the InputStream to read from
+	 * @return the RemoteInvocation object
+	 * @throws java.io.IOException in case of I/O or deserialization failure
+	 * @since 3.2.17
+	 */
+	protected RemoteInvocation deserializeRemoteInvocation(InputStream is) throws IOException {
+		Assert.state(this.deserializer != null, "No Deserializer specified");
+		Object obj = this.deserializer.deserialize(is);
+		if (!(obj instanceof RemoteInvocation)) {
+			throw new RemoteException("Deserialized object needs to be assignable to type [" +
+					RemoteInvocation.class.getName() + "]: " + obj);
+		}
+		return (RemoteInvocation) obj;
+	}
+
+	/**
+	 * Write the given remote invocation result to the given OutputStream
+	 * through the specified {@link #setSerializer Serializer}.
+	 * @param result the RemoteInvocationResult object
+	 * @param os the OutputStream to write to
+	 * @throws java.io.IOException in case of I/O or serialization failure
+	 * @since 3.2.17
+	 */
+	protected void serializeRemoteInvocationResult(RemoteInvocationResult result, OutputStream os)
+			throws IOException {
+
+		Assert.state(this.serializer != null, "No Serializer specified");
+		this.serializer.serialize(result, os);
+		os.flush();
+	}
+
+
 	/**
 	 * Create an ObjectInputStream for the given InputStream.
 	 * <p>The default implementation creates a Spring {@link CodebaseAwareObjectInputStream}.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,15 @@ public class RemoteInvocationResult implements Serializable {
 	private Throwable exception;
 
 
+	/**
+	 * Create a new, empty RemoteInvocationResult, for field-based
+	 * deserialization (e.g. with a
+	 * {@link org.springframework.core.serializer.CompactDeserializer}).
+	 * @since 3.2.17
+	 */
+	public RemoteInvocationResult() {
+	}
+
 	/**
 	 * Create a new RemoteInvocationResult for the given result value.
 	 * @param value the result value returned by a successful invocation
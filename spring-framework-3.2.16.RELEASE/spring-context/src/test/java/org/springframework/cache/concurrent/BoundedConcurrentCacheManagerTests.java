@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BoundedConcurrentCacheManager}.
+ */
+public class BoundedConcurrentCacheManagerTests {
+
+	@Test
+	public void testDynamicMode() {
+		CacheManager cm = new BoundedConcurrentCacheManager();
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof BoundedConcurrentCache);
+		assertSame(cache1, cm.getCache("c1"));
+		assertNotSame(cache1, cm.getCache("c2"));
+	}
+
+	@Test
+	public void testStaticMode() {
+		BoundedConcurrentCacheManager cm = new BoundedConcurrentCacheManager("c1", "c2");
+		assertTrue(cm.getCache("c1") instanceof BoundedConcurrentCache);
+		assertTrue(cm.getCache("c2") instanceof BoundedConcurrentCache);
+		assertNull(cm.getCache("c3"));
+	}
+
+	@Test
+	public void testCacheSpecs() {
+		BoundedConcurrentCacheManager cm = new BoundedConcurrentCacheManager();
+		cm.setCacheSpecs(Collections.singletonMap("c1", "maximumSize=10"));
+		cm.setDefaultSpec("maximumSize=100,expireAfterWrite=1m");
+
+		BoundedCacheSpec spec1 = ((BoundedConcurrentCache) cm.getCache("c1")).getSpec();
+		assertEquals(10, spec1.getMaximumSize());
+		assertEquals(60000, spec1.getExpireAfterWrite());
+		BoundedCacheSpec spec2 = ((BoundedConcurrentCache) cm.getCache("c2")).getSpec();
+		assertEquals(100, spec2.getMaximumSize());
+		assertEquals(60000, spec2.getExpireAfterWrite());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCacheSpec() {
+		new BoundedConcurrentCacheManager().setCacheSpecs(Collections.singletonMap("c1", "maximumSize"));
+	}
+
+}
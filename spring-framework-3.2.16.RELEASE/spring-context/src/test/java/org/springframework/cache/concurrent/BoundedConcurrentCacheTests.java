@@ -0,0 +1,258 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.cache.LoadingCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BoundedConcurrentCache} and {@link BoundedCacheSpec}.
+ */
+public class BoundedConcurrentCacheTests {
+
+	@Test
+	public void putAndGet() {
+		BoundedConcurrentCache cache = new BoundedConcurrentCache("test");
+		assertNull(cache.get("enescu"));
+		cache.put("enescu", "george");
+		cache.put("vlaicu", null);
+		assertEquals("george", cache.get("enescu").get());
+		assertNull(cache.get("vlaicu").get());
+		cache.evict("enescu");
+		assertNull(cache.get("enescu"));
+		cache.clear();
+		assertNull(cache.get("vlaicu"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullValuesNotAllowed() {
+		new BoundedConcurrentCache("test", BoundedCacheSpec.parse("allowNullValues=false")).put("enescu", null);
+	}
+
+	@Test
+	public void maximumSizeEvictsEntriesNotReadAgain() {
+		BoundedConcurrentCache cache = new BoundedConcurrentCache("test", BoundedCacheSpec.parse("maximumSize=10"));
+		for (int i = 0; i < 5; i++) {
+			cache.put(i, i);
+		}
+		// read the first entries repeatedly so that they get promoted
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 5; i++) {
+				assertNotNull(cache.get(i));
+			}
+		}
+		for (int i = 100; i < 200; i++) {
+			cache.put(i, i);
+		}
+		assertEquals(10, cache.size());
+		for (int i = 0; i < 5; i++) {
+			assertNotNull("Frequently read entry " + i + " evicted", cache.get(i));
+		}
+		assertEquals(95, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	public void expireAfterWrite() {
+		ManualClockCache cache = new ManualClockCache(BoundedCacheSpec.parse("expireAfterWrite=10s"));
+		cache.put("enescu", "george");
+		cache.advance(9);
+		assertNotNull(cache.get("enescu"));
+		cache.advance(1);
+		assertNull(cache.get("enescu"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void expireAfterAccess() {
+		ManualClockCache cache = new ManualClockCache(BoundedCacheSpec.parse("expireAfterAccess=10s"));
+		cache.put("enescu", "george");
+		cache.put("vlaicu", "aurel");
+		for (int i = 0; i < 3; i++) {
+			cache.advance(6);
+			assertNotNull(cache.get("enescu"));
+		}
+		assertNull(cache.get("vlaicu"));
+		cache.advance(10);
+		cache.put("brancusi", "constantin");
+		// expired entries get removed as part of the maintenance after a write
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void expireAfterWriteWithEntriesReorderedByReads() {
+		ManualClockCache cache = new ManualClockCache(BoundedCacheSpec.parse("expireAfterWrite=10s"));
+		for (int i = 0; i < 20; i++) {
+			cache.put(i, i);
+		}
+		cache.advance(5);
+		cache.put("live", "value");
+		// read the live entry first, so that it precedes the older entries in the protected segment
+		assertNotNull(cache.get("live"));
+		for (int i = 0; i < 20; i++) {
+			assertNotNull(cache.get(i));
+		}
+		cache.advance(5);
+		for (int i = 0; i < cache.size(); i++) {
+			cache.put("trigger", "value");
+		}
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getPolicySize());
+		assertNotNull(cache.get("live"));
+	}
+
+	@Test
+	public void concurrentPutsForSameKey() throws Exception {
+		final BoundedConcurrentCache cache = new BoundedConcurrentCache("test");
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					}
+					catch (InterruptedException ex) {
+						return;
+					}
+					for (int i = 0; i < 10000; i++) {
+						cache.put(i % 4, i);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(4, cache.size());
+		assertEquals(cache.size(), cache.getPolicySize());
+	}
+
+	@Test
+	public void refreshAfterWrite() {
+		ManualClockCache cache = new ManualClockCache(BoundedCacheSpec.parse("refreshAfterWrite=10s"));
+		final AtomicInteger counter = new AtomicInteger();
+		Callable<Integer> valueLoader = new Callable<Integer>() {
+			public Integer call() {
+				return counter.incrementAndGet();
+			}
+		};
+		assertEquals(Integer.valueOf(1), cache.get("key", valueLoader));
+		cache.advance(5);
+		assertEquals(Integer.valueOf(1), cache.get("key", valueLoader));
+		cache.advance(5);
+		assertEquals(Integer.valueOf(2), cache.get("key", valueLoader));
+		assertEquals(Integer.valueOf(2), cache.get("key", valueLoader));
+		assertEquals(2, cache.getStatistics().getLoadSuccessCount());
+	}
+
+	@Test
+	public void loadFailure() {
+		BoundedConcurrentCache cache = new BoundedConcurrentCache("test");
+		final IllegalStateException failure = new IllegalStateException("boom");
+		try {
+			cache.get("enescu", new Callable<Object>() {
+				public Object call() {
+					throw failure;
+				}
+			});
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (LoadingCache.ValueRetrievalException ex) {
+			assertSame(failure, ex.getCause());
+		}
+		assertNull(cache.get("enescu"));
+		assertEquals(1, cache.getStatistics().getLoadFailureCount());
+	}
+
+	@Test
+	public void statistics() {
+		BoundedConcurrentCache cache = new BoundedConcurrentCache("test");
+		Callable<String> valueLoader = new Callable<String>() {
+			public String call() {
+				return "george";
+			}
+		};
+		cache.get("enescu", valueLoader);
+		cache.get("enescu", valueLoader);
+		cache.get("enescu");
+		cache.get("vlaicu");
+		BoundedConcurrentCache.Statistics statistics = cache.getStatistics();
+		assertEquals(2, statistics.getHitCount());
+		assertEquals(2, statistics.getMissCount());
+		assertEquals(0.5, statistics.getHitRate(), 0.0);
+		assertEquals(1, statistics.getLoadSuccessCount());
+		assertEquals(0, statistics.getEvictionCount());
+	}
+
+	@Test
+	public void parseSpec() {
+		BoundedCacheSpec spec = BoundedCacheSpec.parse(
+				"maximumSize=100, expireAfterWrite=10m,expireAfterAccess=30s,refreshAfterWrite=250ms,allowNullValues=false");
+		assertEquals(100, spec.getMaximumSize());
+		assertEquals(TimeUnit.SECONDS.toMillis(600), spec.getExpireAfterWrite());
+		assertEquals(30000, spec.getExpireAfterAccess());
+		assertEquals(250, spec.getRefreshAfterWrite());
+		assertFalse(spec.isAllowNullValues());
+
+		BoundedCacheSpec derived = BoundedCacheSpec.parse("expireAfterWrite=1h", spec);
+		assertEquals(100, derived.getMaximumSize());
+		assertEquals(3600000, derived.getExpireAfterWrite());
+		assertEquals(TimeUnit.SECONDS.toMillis(600), spec.getExpireAfterWrite());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseSpecWithUnknownSetting() {
+		BoundedCacheSpec.parse("maximumWeight=100");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseSpecWithMissingUnit() {
+		BoundedCacheSpec.parse("expireAfterWrite=100");
+	}
+
+
+	private static class ManualClockCache extends BoundedConcurrentCache {
+
+		private long time = 0;
+
+		public ManualClockCache(BoundedCacheSpec spec) {
+			super("test", spec);
+		}
+
+		public void advance(long seconds) {
+			this.time += TimeUnit.SECONDS.toNanos(seconds);
+		}
+
+		@Override
+		protected long currentTimeNanos() {
+			return this.time;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2010-2012 the original author or authors.
+ * Copyright 2010-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,21 @@
 
 package org.springframework.cache.concurrent;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import org.springframework.cache.Cache;
+import org.springframework.cache.LoadingCache;
 
 import static org.junit.Assert.*;
 
@@ -35,7 +43,7 @@ public class ConcurrentCacheTests  {
 
 	protected ConcurrentMap<Object, Object> nativeCache;
 
-	protected Cache cache;
+	protected ConcurrentMapCache cache;
 
 
 	@Before
@@ -86,4 +94,113 @@ public class ConcurrentCacheTests  {
 		assertNull(cache.get("enescu"));
 	}
 
+	@Test
+	public void testCacheGetWithValueLoader() throws Exception {
+		final AtomicInteger counter = new AtomicInteger();
+		Callable<String> valueLoader = new Callable<String>() {
+			public String call() {
+				counter.incrementAndGet();
+				return "george";
+			}
+		};
+		assertEquals("george", cache.get("enescu", valueLoader));
+		assertEquals("george", cache.get("enescu", valueLoader));
+		assertEquals("george", cache.get("enescu").get());
+		assertEquals(1, counter.get());
+	}
+
+	@Test
+	public void testCacheGetWithNullValueLoader() throws Exception {
+		assertNull(cache.get("enescu", new Callable<Object>() {
+			public Object call() {
+				return null;
+			}
+		}));
+		assertNotNull(cache.get("enescu"));
+		assertNull(cache.get("enescu").get());
+	}
+
+	@Test
+	public void testCacheGetWithFailingValueLoader() throws Exception {
+		final IllegalStateException failure = new IllegalStateException("boom");
+		try {
+			cache.get("enescu", new Callable<Object>() {
+				public Object call() {
+					throw failure;
+				}
+			});
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (LoadingCache.ValueRetrievalException ex) {
+			assertSame(failure, ex.getCause());
+			assertEquals("enescu", ex.getKey());
+		}
+		assertNull(cache.get("enescu"));
+		assertEquals("george", cache.get("enescu", new Callable<Object>() {
+			public Object call() {
+				return "george";
+			}
+		}));
+	}
+
+	@Test
+	public void testCacheGetWithValueLoaderConcurrently() throws Exception {
+		final AtomicInteger counter = new AtomicInteger();
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Callable<String> valueLoader = new Callable<String>() {
+			public String call() throws Exception {
+				counter.incrementAndGet();
+				loading.countDown();
+				assertTrue(release.await(10, TimeUnit.SECONDS));
+				return "george";
+			}
+		};
+		final String[] results = new String[4];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					results[index] = cache.get("enescu", valueLoader);
+				}
+			};
+			threads[i].start();
+		}
+		assertTrue(loading.await(10, TimeUnit.SECONDS));
+		// another key is not blocked by the load in progress
+		assertEquals("aurel", cache.get("vlaicu", new Callable<String>() {
+			public String call() {
+				return "aurel";
+			}
+		}));
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(10000);
+		}
+		assertEquals(1, counter.get());
+		for (String result : results) {
+			assertEquals("george", result);
+		}
+	}
+
+	@Test
+	public void testCacheBulkOperations() throws Exception {
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		entries.put("enescu", "george");
+		entries.put("vlaicu", null);
+		cache.putAll(entries);
+
+		Map<Object, Cache.ValueWrapper> result = cache.getAll(Arrays.asList("enescu", "vlaicu", "brancusi"));
+		assertEquals(2, result.size());
+		assertEquals("george", result.get("enescu").get());
+		assertNull(result.get("vlaicu").get());
+		assertFalse(result.containsKey("brancusi"));
+
+		cache.evictAll(Arrays.asList("enescu", "brancusi"));
+		assertNull(cache.get("enescu"));
+		assertNotNull(cache.get("vlaicu"));
+	}
+
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@code @Cacheable(sync = true)} operations.
+ */
+public class CacheSyncTests {
+
+	private AnnotationConfigApplicationContext context;
+
+
+	@After
+	public void closeContext() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+
+	@Test
+	public void syncWithLoadingCache() throws Exception {
+		assertSingleInvocation(LoadingCacheConfig.class);
+	}
+
+	@Test
+	public void syncWithPlainCache() throws Exception {
+		assertSingleInvocation(PlainCacheConfig.class);
+	}
+
+	@Test
+	public void syncWithCondition() throws Exception {
+		this.context = new AnnotationConfigApplicationContext(LoadingCacheConfig.class);
+		SyncService service = this.context.getBean(SyncService.class);
+		service.getRelease().countDown();
+		assertNotSame(service.getConditionally(-1), service.getConditionally(-1));
+		assertSame(service.getConditionally(1), service.getConditionally(1));
+	}
+
+	@Test
+	public void syncPropagatesException() throws Exception {
+		this.context = new AnnotationConfigApplicationContext(PlainCacheConfig.class);
+		SyncService service = this.context.getBean(SyncService.class);
+		try {
+			service.getFailing(1);
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertEquals("boom", ex.getMessage());
+		}
+		assertNull(this.context.getBean(CacheManager.class).getCache("testCache").get(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void syncWithUnlessNotSupported() {
+		this.context = new AnnotationConfigApplicationContext(InvalidSyncConfig.class);
+		this.context.getBean(InvalidSyncService.class).getWithUnless(1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void syncWithOtherOperationsNotSupported() {
+		this.context = new AnnotationConfigApplicationContext(InvalidSyncConfig.class);
+		this.context.getBean(InvalidSyncService.class).getWithOtherOperations(1);
+	}
+
+
+	private void assertSingleInvocation(Class<?> configClass) throws Exception {
+		this.context = new AnnotationConfigApplicationContext(configClass);
+		final SyncService service = this.context.getBean(SyncService.class);
+		final Object[] results = new Object[4];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						results[index] = service.get(1);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		assertTrue(service.getLoading().await(10, TimeUnit.SECONDS));
+		service.getRelease().countDown();
+		for (Thread thread : threads) {
+			thread.join(10000);
+		}
+		assertEquals(1, service.getCounter().get());
+		for (Object result : results) {
+			assertNotNull(result);
+			assertSame(results[0], result);
+		}
+		assertSame(results[0], service.get(1));
+	}
+
+
+	@Configuration
+	@EnableCaching
+	public static class LoadingCacheConfig {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("testCache");
+		}
+
+		@Bean
+		public SyncService syncService() {
+			return new SyncService();
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	public static class PlainCacheConfig {
+
+		@Bean
+		public CacheManager cacheManager() {
+			SimpleCacheManager cacheManager = new SimpleCacheManager();
+			cacheManager.setCaches(Arrays.asList(new MapCache("testCache")));
+			return cacheManager;
+		}
+
+		@Bean
+		public SyncService syncService() {
+			return new SyncService();
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	public static class InvalidSyncConfig {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("testCache", "otherCache");
+		}
+
+		@Bean
+		public InvalidSyncService invalidSyncService() {
+			return new InvalidSyncService();
+		}
+	}
+
+
+	public static class SyncService {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private final CountDownLatch loading = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		// accessed through the proxy, so exposed as methods rather than fields
+
+		public AtomicInteger getCounter() {
+			return this.counter;
+		}
+
+		public CountDownLatch getLoading() {
+			return this.loading;
+		}
+
+		public CountDownLatch getRelease() {
+			return this.release;
+		}
+
+		@Cacheable(value = "testCache", sync = true)
+		public Object get(Object key) throws InterruptedException {
+			this.counter.incrementAndGet();
+			this.loading.countDown();
+			assertTrue(this.release.await(10, TimeUnit.SECONDS));
+			return new Object();
+		}
+
+		@Cacheable(value = "testCache", condition = "#key > 0", sync = true)
+		public Object getConditionally(int key) {
+			return new Object();
+		}
+
+		@Cacheable(value = "testCache", sync = true)
+		public Object getFailing(Object key) throws IOException {
+			throw new IOException("boom");
+		}
+	}
+
+
+	public static class InvalidSyncService {
+
+		@Cacheable(value = "testCache", unless = "#result == null", sync = true)
+		public Object getWithUnless(Object key) {
+			return new Object();
+		}
+
+		@Caching(cacheable = {
+				@Cacheable(value = "testCache", sync = true),
+				@Cacheable("otherCache") })
+		public Object getWithOtherOperations(Object key) {
+			return new Object();
+		}
+	}
+
+
+	/**
+	 * Simple {@link Cache} without native support for synchronized loading.
+	 */
+	static class MapCache implements Cache {
+
+		private final String name;
+
+		private final ConcurrentMap<Object, Object> store = new ConcurrentHashMap<Object, Object>();
+
+		MapCache(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Object getNativeCache() {
+			return this.store;
+		}
+
+		public ValueWrapper get(Object key) {
+			Object value = this.store.get(key);
+			return (value != null ? new SimpleValueWrapper(value) : null);
+		}
+
+		public void put(Object key, Object value) {
+			this.store.put(key, value);
+		}
+
+		public void evict(Object key) {
+			this.store.remove(key);
+		}
+
+		public void clear() {
+			this.store.clear();
+		}
+	}
+
+}
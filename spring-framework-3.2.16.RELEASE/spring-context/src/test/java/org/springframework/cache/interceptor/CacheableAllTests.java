@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CacheableAll;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link org.springframework.cache.annotation.CacheableAll @CacheableAll} operations.
+ */
+public class CacheableAllTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private NameService service;
+
+	private Cache cache;
+
+
+	@Before
+	public void setUp() {
+		this.context = new AnnotationConfigApplicationContext(CacheableAllConfig.class);
+		this.service = this.context.getBean(NameService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("names");
+	}
+
+	@After
+	public void closeContext() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void onlyMissingKeysReachTarget() {
+		this.cache.put(2, "cached-2");
+
+		Map<Integer, String> names = this.service.findNames(Arrays.asList(1, 2, 3));
+		assertEquals(Arrays.asList(1, 2, 3), new ArrayList<Integer>(names.keySet()));
+		assertEquals("name-1", names.get(1));
+		assertEquals("cached-2", names.get(2));
+		assertEquals("name-3", names.get(3));
+		assertEquals(Collections.singletonList(Arrays.asList(1, 3)), this.service.getInvocations());
+
+		assertEquals("name-1", this.cache.get(1).get());
+		assertEquals("name-3", this.cache.get(3).get());
+	}
+
+	@Test
+	public void allKeysCached() {
+		this.service.findNames(Arrays.asList(1, 2));
+		Map<Integer, String> names = this.service.findNames(Arrays.asList(2, 1));
+		assertEquals(Arrays.asList(2, 1), new ArrayList<Integer>(names.keySet()));
+		assertEquals(1, this.service.getInvocations().size());
+	}
+
+	@Test
+	public void unknownKeysNotCached() {
+		Map<Integer, String> names = this.service.findNames(Arrays.asList(1, -1));
+		assertEquals(1, names.size());
+		assertNull(this.cache.get(-1));
+		this.service.findNames(Arrays.asList(1, -1));
+		assertEquals(Arrays.asList(-1), this.service.getInvocations().get(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void combinedWithOtherOperation() {
+		this.service.findNamesCombined(Arrays.asList(1));
+	}
+
+
+	@Configuration
+	@EnableCaching
+	public static class CacheableAllConfig {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("names");
+		}
+
+		@Bean
+		public NameService nameService() {
+			return new NameService();
+		}
+	}
+
+
+	public static class NameService {
+
+		private final List<List<Integer>> invocations = new ArrayList<List<Integer>>();
+
+		public List<List<Integer>> getInvocations() {
+			return this.invocations;
+		}
+
+		@CacheableAll("names")
+		public Map<Integer, String> findNames(Collection<Integer> ids) {
+			this.invocations.add(new ArrayList<Integer>(ids));
+			Map<Integer, String> names = new LinkedHashMap<Integer, String>();
+			for (Integer id : ids) {
+				if (id > 0) {
+					names.put(id, "name-" + id);
+				}
+			}
+			return names;
+		}
+
+		@CacheableAll("names")
+		@Cacheable("names")
+		public Map<Integer, String> findNamesCombined(Collection<Integer> ids) {
+			return Collections.emptyMap();
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cache.Cache;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OffHeapCacheManager}.
+ */
+public class OffHeapCacheManagerTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void testDynamicMode() {
+		OffHeapCacheManager cm = new OffHeapCacheManager();
+		cm.setCapacity(64 * 1024);
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof OffHeapCache);
+		assertSame(cache1, cm.getCache("c1"));
+		assertNotSame(cache1, cm.getCache("c2"));
+		cm.destroy();
+	}
+
+	@Test
+	public void testStaticMode() {
+		OffHeapCacheManager cm = new OffHeapCacheManager();
+		cm.setCapacity(64 * 1024);
+		cm.setCacheNames(Arrays.asList("c1", "c2"));
+		assertTrue(cm.getCache("c1") instanceof OffHeapCache);
+		assertTrue(cm.getCache("c2") instanceof OffHeapCache);
+		assertNull(cm.getCache("c3"));
+		cm.destroy();
+	}
+
+	@Test
+	public void testPersistenceDirectory() {
+		File directory = this.temporaryFolder.getRoot();
+		OffHeapCacheManager cm = new OffHeapCacheManager();
+		cm.setCapacities(Collections.singletonMap("c1", 128 * 1024L));
+		cm.setPersistenceDirectory(directory);
+		OffHeapCache cache = (OffHeapCache) cm.getCache("c1");
+		assertEquals(new File(directory, "c1.cache"), cache.getPersistenceFile());
+		cache.put("key", "value");
+		cm.destroy();
+
+		OffHeapCacheManager restored = new OffHeapCacheManager();
+		restored.setCapacities(Collections.singletonMap("c1", 128 * 1024L));
+		restored.setPersistenceDirectory(directory);
+		assertEquals("value", restored.getCache("c1").get("key").get());
+		restored.destroy();
+	}
+
+}
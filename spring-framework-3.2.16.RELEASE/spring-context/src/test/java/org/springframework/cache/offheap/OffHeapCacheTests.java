@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cache.Cache;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OffHeapCache}.
+ */
+public class OffHeapCacheTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void testPutGetEvictClear() {
+		OffHeapCache cache = new OffHeapCache("test", 1024 * 1024);
+		assertEquals("test", cache.getName());
+		assertSame(cache, cache.getNativeCache());
+
+		assertNull(cache.get("key"));
+		cache.put("key", "value");
+		assertEquals("value", cache.get("key").get());
+		cache.put("key", "other");
+		assertEquals("other", cache.get("key").get());
+		cache.put(42L, null);
+		Cache.ValueWrapper wrapper = cache.get(42L);
+		assertNotNull(wrapper);
+		assertNull(wrapper.get());
+		assertEquals(2, cache.size());
+
+		cache.evict("key");
+		assertNull(cache.get("key"));
+		assertEquals(1, cache.size());
+		cache.clear();
+		assertNull(cache.get(42L));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getUsedBytes());
+	}
+
+	@Test
+	public void testEvictsOldestEntriesWhenFull() {
+		OffHeapCache cache = new OffHeapCache("test", 16 * 1024);
+		for (int i = 0; i < 2000; i++) {
+			cache.put(i, "value-" + i);
+		}
+		assertTrue(cache.size() < 2000);
+		assertTrue(cache.getUsedBytes() <= 16 * 1024);
+		assertNull(cache.get(0));
+		assertEquals("value-1999", cache.get(1999).get());
+	}
+
+	@Test
+	public void testEntryLargerThanCapacityIsNotStored() {
+		OffHeapCache cache = new OffHeapCache("test", 1024);
+		cache.put("key", "value");
+		cache.put("key", new byte[2048]);
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	public void testConsistentUnderRandomOperations() {
+		OffHeapCache cache = new OffHeapCache("test", 64 * 1024);
+		Map<Integer, String> expected = new HashMap<Integer, String>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50000; i++) {
+			Integer key = random.nextInt(1000);
+			if (random.nextInt(4) == 0) {
+				cache.evict(key);
+				expected.remove(key);
+			}
+			else {
+				String value = "value-" + i + (random.nextBoolean() ? "-padding-padding" : "");
+				cache.put(key, value);
+				expected.put(key, value);
+			}
+		}
+		int found = 0;
+		for (int key = 0; key < 1000; key++) {
+			Cache.ValueWrapper wrapper = cache.get(key);
+			if (wrapper != null) {
+				assertEquals(expected.get(key), wrapper.get());
+				found++;
+			}
+		}
+		assertEquals(found, cache.size());
+		assertTrue(found > 0);
+	}
+
+	@Test
+	public void testPersistentCacheSurvivesClose() throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), "test.cache");
+		OffHeapCache cache = new OffHeapCache("test", 256 * 1024, file);
+		assertSame(file, cache.getPersistenceFile());
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, "value-" + i);
+		}
+		cache.evict(50);
+		cache.put(60, "replaced");
+		cache.close();
+
+		OffHeapCache restored = new OffHeapCache("test", 256 * 1024, file);
+		assertEquals(99, restored.size());
+		assertEquals("value-1", restored.get(1).get());
+		assertNull(restored.get(50));
+		assertEquals("replaced", restored.get(60).get());
+		restored.close();
+	}
+
+	@Test
+	public void testPersistentCacheSurvivesCloseAfterEviction() throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), "test.cache");
+		OffHeapCache cache = new OffHeapCache("test", 16 * 1024, file);
+		for (int i = 0; i < 2000; i++) {
+			cache.put(i % 700, "value-" + i);
+		}
+		int size = cache.size();
+		cache.close();
+
+		OffHeapCache restored = new OffHeapCache("test", 16 * 1024, file);
+		assertEquals(size, restored.size());
+		assertEquals("value-1999", restored.get(1999 % 700).get());
+		restored.close();
+	}
+
+	@Test
+	public void testPersistentCacheDiscardedIfNotClosed() throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), "test.cache");
+		OffHeapCache cache = new OffHeapCache("test", 256 * 1024, file);
+		cache.put("key", "value");
+
+		OffHeapCache reopened = new OffHeapCache("test", 256 * 1024, file);
+		assertNull(reopened.get("key"));
+		reopened.close();
+		cache.close();
+	}
+
+	@Test
+	public void testPersistentCacheDiscardedForDifferentCapacity() throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), "test.cache");
+		OffHeapCache cache = new OffHeapCache("test", 256 * 1024, file);
+		cache.put("key", "value");
+		cache.close();
+
+		OffHeapCache reopened = new OffHeapCache("test", 512 * 1024, file);
+		assertNull(reopened.get("key"));
+		reopened.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosedCacheRejectsAccess() throws Exception {
+		OffHeapCache cache = new OffHeapCache("test", 1024);
+		cache.close();
+		cache.get("key");
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,18 +22,38 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 import java.util.regex.Pattern;
 
 import org.aspectj.lang.annotation.Aspect;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Repository;
@@ -48,6 +68,7 @@ import example.scannable.FooServiceImpl;
 import example.scannable.MessageBean;
 import example.scannable.NamedComponent;
 import example.scannable.NamedStubDao;
+import example.scannable.ScopedProxyTestBean;
 import example.scannable.ServiceInvocationCounter;
 import example.scannable.StubFooDao;
 
@@ -62,6 +83,9 @@ public class ClassPathScanningCandidateComponentProviderTests {
 	private static final String TEST_PROFILE_PACKAGE = "example.profilescan";
 	private static final String TEST_DEFAULT_PROFILE_NAME = "testDefault";
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
 	@Test
 	public void testWithDefaults() {
@@ -276,6 +300,120 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		}
 	}
 
+	@Test
+	public void testWithIndex() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(createIndexedClassLoader(true)));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		// Scanning would find six candidates: these can only come from the index
+		assertEquals(2, candidates.size());
+		assertTrue(containsBeanClass(candidates, FooServiceImpl.class));
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+	}
+
+	@Test
+	public void testWithIndexAndExcludeFilter() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(createIndexedClassLoader(true)));
+		provider.addExcludeFilter(new AnnotationTypeFilter(Service.class));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(1, candidates.size());
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+	}
+
+	@Test
+	public void testWithIndexAndUnsupportedIncludeFilter() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.setResourceLoader(new DefaultResourceLoader(createIndexedClassLoader(true)));
+		provider.addIncludeFilter(new AssignableTypeFilter(FooService.class));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		// Falls back to scanning: the index does not list any implementations of FooService
+		assertTrue(containsBeanClass(candidates, FooServiceImpl.class));
+		assertTrue(containsBeanClass(candidates, ScopedProxyTestBean.class));
+	}
+
+	@Test
+	public void testWithIndexForSomeRootsOnly() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(createIndexedClassLoader(false)));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(6, candidates.size());
+		assertTrue(containsBeanClass(candidates, NamedComponent.class));
+		assertTrue(containsBeanClass(candidates, ServiceInvocationCounter.class));
+	}
+
+	@Test
+	public void testWithIndexAndJarWithoutDirectoryEntries() throws IOException {
+		// Jar files built without directory entries are not found through the package directory
+		File jar = this.temporaryFolder.newFile("unindexed.jar");
+		String classFile = NamedComponent.class.getName().replace('.', '/') + ".class";
+		byte[] content = FileCopyUtils.copyToByteArray(getClass().getClassLoader().getResourceAsStream(classFile));
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			out.putNextEntry(new JarEntry(classFile));
+			out.write(content);
+			out.closeEntry();
+		}
+		finally {
+			out.close();
+		}
+		ClassLoader classLoader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, createIndexedClassLoader(true));
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(classLoader));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertTrue(containsBeanClass(candidates, NamedComponent.class));
+		assertTrue(containsBeanClass(candidates, ServiceInvocationCounter.class));
+	}
+
+	/**
+	 * Create a ClassLoader that exposes an index for the classpath roots of the test
+	 * package, or only for an additional classpath root that does not contain it.
+	 */
+	private ClassLoader createIndexedClassLoader(boolean indexPackageRoots) throws IOException {
+		final byte[] index = (FooServiceImpl.class.getName() + "=" + Component.class.getName() + "\n" +
+				StubFooDao.class.getName() + "=" + Component.class.getName() + "\n" +
+				"example.other.OtherComponent=" + Component.class.getName() + "\n").getBytes("ISO-8859-1");
+		URLStreamHandler indexHandler = new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(URL url) {
+				return new URLConnection(url) {
+					@Override
+					public void connect() {
+					}
+					@Override
+					public InputStream getInputStream() {
+						return new ByteArrayInputStream(index);
+					}
+				};
+			}
+		};
+		List<String> rootUrls = new ArrayList<String>();
+		if (indexPackageRoots) {
+			String packagePath = TEST_BASE_PACKAGE.replace('.', '/') + "/";
+			for (URL url : Collections.list(getClass().getClassLoader().getResources(packagePath))) {
+				String location = url.toString();
+				rootUrls.add(location.substring(0, location.length() - packagePath.length()));
+			}
+		}
+		else {
+			rootUrls.add(this.temporaryFolder.newFolder("indexed").toURI().toString());
+		}
+		final List<URL> indexUrls = new ArrayList<URL>();
+		for (String rootUrl : rootUrls) {
+			indexUrls.add(new URL(null, rootUrl + CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION,
+					indexHandler));
+		}
+		return new ClassLoader(getClass().getClassLoader()) {
+			@Override
+			public Enumeration<URL> getResources(String name) throws IOException {
+				if (CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION.equals(name)) {
+					return Collections.enumeration(indexUrls);
+				}
+				return super.getResources(name);
+			}
+		};
+	}
+
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (Iterator<BeanDefinition> it = candidates.iterator(); it.hasNext();) {
 			ScannedGenericBeanDefinition definition = (ScannedGenericBeanDefinition) it.next();
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the listener executor support in {@link SimpleApplicationEventMulticaster}.
+ */
+public class SimpleApplicationEventMulticasterTests {
+
+	private final ApplicationEvent event = new TestEvent(this);
+
+
+	@Test
+	public void listenerExecutorFromAnnotation() {
+		RecordingExecutor auditExecutor = new RecordingExecutor(false);
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerExecutors(Collections.singletonMap("audit", auditExecutor));
+		AuditListener auditListener = new AuditListener();
+		PlainListener plainListener = new PlainListener();
+		smc.addApplicationListener(auditListener);
+		smc.addApplicationListener(plainListener);
+
+		smc.multicastEvent(this.event);
+		assertEquals(1, plainListener.events.size());
+		assertEquals(0, auditListener.events.size());
+		assertEquals(1, auditExecutor.tasks.size());
+		auditExecutor.tasks.get(0).run();
+		assertEquals(1, auditListener.events.size());
+	}
+
+	@Test
+	public void listenerExecutorFromBeanFactory() {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		RecordingExecutor auditExecutor = new RecordingExecutor(false);
+		beanFactory.addBean("audit", auditExecutor);
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster(beanFactory);
+		AuditListener auditListener = new AuditListener();
+		smc.addApplicationListener(auditListener);
+
+		smc.multicastEvent(this.event);
+		assertEquals(0, auditListener.events.size());
+		assertEquals(1, auditExecutor.tasks.size());
+	}
+
+	@Test
+	public void syncListenerIgnoresTaskExecutor() {
+		RecordingExecutor taskExecutor = new RecordingExecutor(false);
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(taskExecutor);
+		SyncListener syncListener = new SyncListener();
+		smc.addApplicationListener(syncListener);
+		smc.addApplicationListener(new PlainListener());
+
+		smc.multicastEvent(this.event);
+		assertEquals(1, syncListener.events.size());
+		assertEquals(1, taskExecutor.tasks.size());
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void rejectionPolicyAbort() {
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerExecutors(Collections.singletonMap("audit", new RecordingExecutor(true)));
+		smc.addApplicationListener(new AuditListener());
+		smc.multicastEvent(this.event);
+	}
+
+	@Test
+	public void rejectionPolicyCallerRuns() {
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerExecutors(Collections.singletonMap("audit", new RecordingExecutor(true)));
+		smc.setRejectionPolicy(SimpleApplicationEventMulticaster.RejectionPolicy.CALLER_RUNS);
+		AuditListener auditListener = new AuditListener();
+		smc.addApplicationListener(auditListener);
+		smc.multicastEvent(this.event);
+		assertEquals(1, auditListener.events.size());
+	}
+
+	@Test
+	public void rejectionPolicyDiscard() {
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerExecutors(Collections.singletonMap("audit", new RecordingExecutor(true)));
+		smc.setRejectionPolicy(SimpleApplicationEventMulticaster.RejectionPolicy.DISCARD);
+		smc.setCollectStatistics(true);
+		AuditListener auditListener = new AuditListener();
+		smc.addApplicationListener(auditListener);
+		smc.multicastEvent(this.event);
+		assertEquals(0, auditListener.events.size());
+		assertEquals(1, smc.getListenerStatistics().get(auditListener).getRejectionCount());
+	}
+
+	@Test
+	public void listenerStatistics() {
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setCollectStatistics(true);
+		PlainListener plainListener = new PlainListener();
+		smc.addApplicationListener(plainListener);
+		smc.multicastEvent(this.event);
+		smc.multicastEvent(this.event);
+
+		Map<ApplicationListener<?>, SimpleApplicationEventMulticaster.ListenerStatistics> statistics =
+				smc.getListenerStatistics();
+		SimpleApplicationEventMulticaster.ListenerStatistics listenerStatistics = statistics.get(plainListener);
+		assertEquals(2, listenerStatistics.getInvocationCount());
+		assertEquals(0, listenerStatistics.getFailureCount());
+		assertTrue(listenerStatistics.getMaxTime() >= listenerStatistics.getAverageTime());
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class TestEvent extends ApplicationEvent {
+
+		public TestEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	public static class RecordingExecutor implements Executor {
+
+		private final boolean reject;
+
+		public final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		public RecordingExecutor(boolean reject) {
+			this.reject = reject;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			if (this.reject) {
+				throw new RejectedExecutionException("Queue full");
+			}
+			this.tasks.add(task);
+		}
+	}
+
+
+	public static class PlainListener implements ApplicationListener<ApplicationEvent> {
+
+		public final List<ApplicationEvent> events = new ArrayList<ApplicationEvent>();
+
+		@Override
+		public void onApplicationEvent(ApplicationEvent event) {
+			this.events.add(event);
+		}
+	}
+
+
+	@ListenerExecutor("audit")
+	public static class AuditListener extends PlainListener {
+	}
+
+
+	@ListenerExecutor(SimpleApplicationEventMulticaster.SYNC_EXECUTOR_NAME)
+	public static class SyncListener extends PlainListener {
+	}
+
+}
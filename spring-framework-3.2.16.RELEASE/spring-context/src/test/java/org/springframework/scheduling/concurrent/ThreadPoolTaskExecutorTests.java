@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.NoOpRunnable;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@code submitListenable} variants of {@link ThreadPoolTaskExecutor}.
+ */
+public class ThreadPoolTaskExecutorTests {
+
+	private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+
+	@Before
+	public void initExecutor() {
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(0);
+		executor.afterPropertiesSet();
+	}
+
+	@After
+	public void shutdownExecutor() {
+		executor.destroy();
+	}
+
+
+	@Test
+	public void submitListenableRunnable() throws Exception {
+		ListenableFuture<?> future = executor.submitListenable(new NoOpRunnable());
+		ResultHarvester<Object> callback = new ResultHarvester<Object>();
+		future.addCallback(callback);
+		callback.await();
+		assertNull(callback.result.get());
+		assertNull(callback.failure.get());
+		assertTrue(future.isDone());
+	}
+
+	@Test
+	public void submitListenableCallable() throws Exception {
+		ListenableFuture<String> future = executor.submitListenable(new Callable<String>() {
+			@Override
+			public String call() {
+				return "foo";
+			}
+		});
+		ResultHarvester<String> callback = new ResultHarvester<String>();
+		future.addCallback(callback);
+		callback.await();
+		assertEquals("foo", callback.result.get());
+		assertEquals("foo", future.get());
+	}
+
+	@Test
+	public void submitListenableCallableWithFailure() throws Exception {
+		final IllegalStateException ex = new IllegalStateException("foo");
+		ListenableFuture<String> future = executor.submitListenable(new Callable<String>() {
+			@Override
+			public String call() {
+				throw ex;
+			}
+		});
+		ResultHarvester<String> callback = new ResultHarvester<String>();
+		future.addCallback(callback);
+		callback.await();
+		assertNull(callback.result.get());
+		assertSame(ex, callback.failure.get());
+	}
+
+	@Test
+	public void submitListenableRejected() throws Exception {
+		final CountDownLatch blockingLatch = new CountDownLatch(1);
+		ListenableFuture<?> blockingFuture = executor.submitListenable(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					blockingLatch.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			try {
+				executor.submitListenable(new NoOpRunnable());
+				fail("Should have thrown TaskRejectedException");
+			}
+			catch (TaskRejectedException expected) {
+			}
+			try {
+				executor.submitListenable(new Callable<String>() {
+					@Override
+					public String call() {
+						return "foo";
+					}
+				});
+				fail("Should have thrown TaskRejectedException");
+			}
+			catch (TaskRejectedException expected) {
+			}
+		}
+		finally {
+			blockingLatch.countDown();
+		}
+		blockingFuture.get(5, TimeUnit.SECONDS);
+	}
+
+
+	private static class ResultHarvester<T> implements ListenableFutureCallback<T> {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private final AtomicReference<T> result = new AtomicReference<T>();
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		@Override
+		public void onSuccess(T result) {
+			this.result.set(result);
+			this.latch.countDown();
+		}
+
+		@Override
+		public void onFailure(Throwable ex) {
+			this.failure.set(ex);
+			this.latch.countDown();
+		}
+
+		public void await() throws InterruptedException {
+			assertTrue("Callback not invoked", this.latch.await(5, TimeUnit.SECONDS));
+		}
+	}
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.io.UTFDataFormatException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.NestedIOException;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Deserializer that reads an object graph written by a {@link CompactSerializer}.
+ *
+ * <p>Classes are resolved against the ClassLoader specified at construction time,
+ * or the thread context ClassLoader by default. Fields are matched by name: fields
+ * that are not present in the local version of a class are skipped, while local
+ * fields without a transferred value keep the value assigned by the class's
+ * no-arg constructor.
+ *
+ * <p>Exactly the bytes written by the serializer are consumed, so callers
+ * reading from an unbuffered source may want to pass in a buffered stream.
+ *
+ * @since 3.2.17
+ * @see CompactSerializer
+ */
+public class CompactDeserializer implements Deserializer<Object> {
+
+	private final ClassLoader classLoader;
+
+
+	/**
+	 * Create a new CompactDeserializer, resolving classes against
+	 * the thread context ClassLoader at the time of deserialization.
+	 */
+	public CompactDeserializer() {
+		this.classLoader = null;
+	}
+
+	/**
+	 * Create a new CompactDeserializer for the given ClassLoader.
+	 * @param classLoader the ClassLoader to resolve classes against
+	 */
+	public CompactDeserializer(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+
+	public Object deserialize(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		int magic = in.read();
+		int version = in.read();
+		if (magic != CompactFormat.MAGIC || version != CompactFormat.VERSION) {
+			throw new StreamCorruptedException("Not a compact serialization stream of version " +
+					CompactFormat.VERSION + ": header " + magic + "/" + version);
+		}
+		ClassLoader classLoaderToUse = (this.classLoader != null ? this.classLoader : ClassUtils.getDefaultClassLoader());
+		return new ObjectGraphReader(in, classLoaderToUse).readValue();
+	}
+
+
+	/**
+	 * Reads the objects of a single object graph, keeping track of
+	 * the objects and classes read so far.
+	 */
+	private static class ObjectGraphReader {
+
+		private final DataInputStream in;
+
+		private final ClassLoader classLoader;
+
+		private final List<Object> handles = new ArrayList<Object>();
+
+		private final List<Class<?>> classes = new ArrayList<Class<?>>();
+
+		private final List<Field[]> layouts = new ArrayList<Field[]>();
+
+		public ObjectGraphReader(DataInputStream in, ClassLoader classLoader) {
+			this.in = in;
+			this.classLoader = classLoader;
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Object readValue() throws IOException {
+			int tag = this.in.readUnsignedByte();
+			switch (tag) {
+				case CompactFormat.NULL:
+					return null;
+				case CompactFormat.INT:
+					return (int) readSignedVarLong();
+				case CompactFormat.LONG:
+					return readSignedVarLong();
+				case CompactFormat.TRUE:
+					return Boolean.TRUE;
+				case CompactFormat.FALSE:
+					return Boolean.FALSE;
+				case CompactFormat.DOUBLE:
+					return this.in.readDouble();
+				case CompactFormat.FLOAT:
+					return this.in.readFloat();
+				case CompactFormat.SHORT:
+					return (short) readSignedVarLong();
+				case CompactFormat.BYTE:
+					return this.in.readByte();
+				case CompactFormat.CHAR:
+					return (char) readVarInt();
+				case CompactFormat.CLASS:
+					return this.classes.get(readClassId());
+				case CompactFormat.ENUM:
+					Class enumType = this.classes.get(readClassId());
+					if (!enumType.isEnum()) {
+						throw new InvalidClassException(enumType.getName(), "Not an enum type");
+					}
+					return Enum.valueOf(enumType, readString());
+				case CompactFormat.REFERENCE:
+					int handle = readVarInt();
+					if (handle >= this.handles.size()) {
+						throw new StreamCorruptedException("Invalid object reference: " + handle);
+					}
+					return this.handles.get(handle);
+				case CompactFormat.STRING:
+					return register(readString());
+				case CompactFormat.BYTE_ARRAY:
+					byte[] bytes = new byte[readVarInt()];
+					this.in.readFully(bytes);
+					return register(bytes);
+				case CompactFormat.ARRAY:
+					return readArray();
+				case CompactFormat.DATE:
+					return register(new Date(this.in.readLong()));
+				case CompactFormat.COLLECTION:
+					Class<?> collectionType = this.classes.get(readClassId());
+					if (!CompactFormat.isCompactCollectionType(collectionType)) {
+						throw new InvalidClassException(collectionType.getName(), "Not a supported collection type");
+					}
+					Collection collection = (Collection) instantiate(collectionType);
+					register(collection);
+					int collectionSize = readVarInt();
+					for (int i = 0; i < collectionSize; i++) {
+						collection.add(readValue());
+					}
+					return collection;
+				case CompactFormat.MAP:
+					Class<?> mapType = this.classes.get(readClassId());
+					if (!CompactFormat.isCompactMapType(mapType)) {
+						throw new InvalidClassException(mapType.getName(), "Not a supported map type");
+					}
+					Map map = (Map) instantiate(mapType);
+					register(map);
+					int mapSize = readVarInt();
+					for (int i = 0; i < mapSize; i++) {
+						map.put(readValue(), readValue());
+					}
+					return map;
+				case CompactFormat.OBJECT:
+					return readObject();
+				case CompactFormat.SERIALIZED:
+					return readSerialized();
+				default:
+					throw new StreamCorruptedException("Invalid type tag: " + tag);
+			}
+		}
+
+		private Object readArray() throws IOException {
+			Class<?> componentType = this.classes.get(readClassId());
+			int length = readVarInt();
+			Object array = register(Array.newInstance(componentType, length));
+			if (componentType == int.class) {
+				int[] ints = (int[]) array;
+				for (int i = 0; i < length; i++) {
+					ints[i] = (int) readSignedVarLong();
+				}
+			}
+			else if (componentType == long.class) {
+				long[] longs = (long[]) array;
+				for (int i = 0; i < length; i++) {
+					longs[i] = readSignedVarLong();
+				}
+			}
+			else if (componentType == double.class) {
+				double[] doubles = (double[]) array;
+				for (int i = 0; i < length; i++) {
+					doubles[i] = this.in.readDouble();
+				}
+			}
+			else if (componentType == float.class) {
+				float[] floats = (float[]) array;
+				for (int i = 0; i < length; i++) {
+					floats[i] = this.in.readFloat();
+				}
+			}
+			else if (componentType == short.class) {
+				short[] shorts = (short[]) array;
+				for (int i = 0; i < length; i++) {
+					shorts[i] = (short) readSignedVarLong();
+				}
+			}
+			else if (componentType == char.class) {
+				char[] chars = (char[]) array;
+				for (int i = 0; i < length; i++) {
+					chars[i] = (char) readVarInt();
+				}
+			}
+			else if (componentType == boolean.class) {
+				boolean[] booleans = (boolean[]) array;
+				for (int i = 0; i < length; i++) {
+					booleans[i] = this.in.readBoolean();
+				}
+			}
+			else if (componentType.isPrimitive()) {
+				throw new InvalidClassException(componentType.getName(), "Unexpected array component type");
+			}
+			else {
+				Object[] objects = (Object[]) array;
+				for (int i = 0; i < length; i++) {
+					objects[i] = readValue();
+				}
+			}
+			return array;
+		}
+
+		private Object readObject() throws IOException {
+			int classId = readClassId();
+			Class<?> clazz = this.classes.get(classId);
+			CompactFormat.ClassLayout layout = CompactFormat.getClassLayout(clazz);
+			if (!layout.isFieldBased()) {
+				throw new InvalidClassException(clazz.getName(), "Not serializable field by field");
+			}
+			Field[] fields = this.layouts.get(classId);
+			if (fields == null) {
+				// first instance of this class in the stream: read its field names
+				fields = new Field[readVarInt()];
+				for (int i = 0; i < fields.length; i++) {
+					fields[i] = layout.getField(readString());
+				}
+				this.layouts.set(classId, fields);
+			}
+			Object instance;
+			try {
+				instance = layout.newInstance();
+			}
+			catch (Exception ex) {
+				throw new NestedIOException("Failed to instantiate [" + clazz.getName() + "]", ex);
+			}
+			register(instance);
+			for (Field field : fields) {
+				Object value = readValue();
+				if (field != null) {
+					try {
+						ReflectionUtils.setField(field, instance, value);
+					}
+					catch (IllegalArgumentException ex) {
+						throw new NestedIOException("Incompatible value for field '" + field.getName() +
+								"' of [" + clazz.getName() + "]", ex);
+					}
+				}
+			}
+			return instance;
+		}
+
+		private Object readSerialized() throws IOException {
+			int handle = this.handles.size();
+			this.handles.add(null);
+			byte[] bytes = new byte[readVarInt()];
+			this.in.readFully(bytes);
+			ObjectInputStream ois = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes), this.classLoader);
+			try {
+				Object value = ois.readObject();
+				this.handles.set(handle, value);
+				return value;
+			}
+			catch (ClassNotFoundException ex) {
+				throw new NestedIOException("Failed to deserialize object type", ex);
+			}
+		}
+
+		private Object instantiate(Class<?> clazz) throws IOException {
+			try {
+				return clazz.newInstance();
+			}
+			catch (Exception ex) {
+				throw new NestedIOException("Failed to instantiate [" + clazz.getName() + "]", ex);
+			}
+		}
+
+		private <T> T register(T value) {
+			this.handles.add(value);
+			return value;
+		}
+
+		private int readClassId() throws IOException {
+			int id = readVarInt();
+			if (id > 0) {
+				if (id > this.classes.size()) {
+					throw new StreamCorruptedException("Invalid class reference: " + id);
+				}
+				return id - 1;
+			}
+			String className = readString();
+			try {
+				this.classes.add(ClassUtils.forName(className, this.classLoader));
+			}
+			catch (ClassNotFoundException ex) {
+				throw new NestedIOException("Failed to deserialize object type", ex);
+			}
+			this.layouts.add(null);
+			return this.classes.size() - 1;
+		}
+
+		private String readString() throws IOException {
+			int length = readVarInt();
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				int b = this.in.readUnsignedByte();
+				if (b < 0x80) {
+					chars[i] = (char) b;
+				}
+				else if ((b & 0xE0) == 0xC0) {
+					chars[i] = (char) (((b & 0x1F) << 6) | readContinuationByte());
+				}
+				else if ((b & 0xF0) == 0xE0) {
+					chars[i] = (char) (((b & 0x0F) << 12) | (readContinuationByte() << 6) | readContinuationByte());
+				}
+				else {
+					throw new UTFDataFormatException("Malformed input around char " + i);
+				}
+			}
+			return new String(chars);
+		}
+
+		private int readContinuationByte() throws IOException {
+			int b = this.in.readUnsignedByte();
+			if ((b & 0xC0) != 0x80) {
+				throw new UTFDataFormatException("Malformed continuation byte");
+			}
+			return (b & 0x3F);
+		}
+
+		private int readVarInt() throws IOException {
+			long value = readVarLong();
+			if (value < 0 || value > Integer.MAX_VALUE) {
+				throw new StreamCorruptedException("Invalid length or index: " + value);
+			}
+			return (int) value;
+		}
+
+		private long readSignedVarLong() throws IOException {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = this.in.readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new StreamCorruptedException("Malformed variable-length number");
+		}
+	}
+
+}
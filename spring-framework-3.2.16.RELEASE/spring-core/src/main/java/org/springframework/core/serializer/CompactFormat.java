@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.serializer;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Wire format constants and cached per-class field layouts, shared by
+ * {@link CompactSerializer} and {@link CompactDeserializer}.
+ *
+ * @since 3.2.17
+ */
+abstract class CompactFormat {
+
+	static final int MAGIC = 0xC5;
+
+	static final int VERSION = 1;
+
+
+	static final int NULL = 0;
+
+	static final int REFERENCE = 1;
+
+	static final int STRING = 2;
+
+	static final int TRUE = 3;
+
+	static final int FALSE = 4;
+
+	static final int BYTE = 5;
+
+	static final int SHORT = 6;
+
+	static final int CHAR = 7;
+
+	static final int INT = 8;
+
+	static final int LONG = 9;
+
+	static final int FLOAT = 10;
+
+	static final int DOUBLE = 11;
+
+	static final int BYTE_ARRAY = 12;
+
+	static final int ARRAY = 13;
+
+	static final int CLASS = 14;
+
+	static final int ENUM = 15;
+
+	static final int COLLECTION = 16;
+
+	static final int MAP = 17;
+
+	static final int DATE = 18;
+
+	static final int OBJECT = 19;
+
+	static final int SERIALIZED = 20;
+
+
+	/**
+	 * Cache for introspected class layouts, holding soft references only
+	 * so that the serialized classes' ClassLoaders can still be collected.
+	 */
+	private static final Map<Class<?>, ClassLayout> layoutCache =
+			new ConcurrentReferenceHashMap<Class<?>, ClassLayout>(64);
+
+
+	/**
+	 * Determine whether the given class is a collection type with a
+	 * built-in representation in the compact format.
+	 */
+	static boolean isCompactCollectionType(Class<?> clazz) {
+		return (clazz == ArrayList.class || clazz == LinkedList.class || clazz == HashSet.class ||
+				clazz == LinkedHashSet.class || clazz == TreeSet.class);
+	}
+
+	/**
+	 * Determine whether the given class is a map type with a
+	 * built-in representation in the compact format.
+	 */
+	static boolean isCompactMapType(Class<?> clazz) {
+		return (clazz == HashMap.class || clazz == LinkedHashMap.class || clazz == TreeMap.class ||
+				clazz == ConcurrentHashMap.class);
+	}
+
+	/**
+	 * Return the field layout for the given class, introspecting it on first access.
+	 */
+	static ClassLayout getClassLayout(Class<?> clazz) {
+		ClassLayout layout = layoutCache.get(clazz);
+		if (layout == null) {
+			layout = introspect(clazz);
+			layoutCache.put(clazz, layout);
+		}
+		return layout;
+	}
+
+	/**
+	 * Determine the serializable fields of the given class, following Java
+	 * Serialization rules for non-static, non-transient fields of Serializable
+	 * classes. Classes that customize their serialized form in any way, JDK
+	 * classes and classes without a no-arg constructor get no field layout;
+	 * their instances are written with Java Serialization instead.
+	 */
+	private static ClassLayout introspect(Class<?> clazz) {
+		if (!Serializable.class.isAssignableFrom(clazz) || Externalizable.class.isAssignableFrom(clazz) ||
+				clazz.isArray() || clazz.getName().startsWith("java.") || clazz.getName().startsWith("javax.") ||
+				Proxy.isProxyClass(clazz) || ReflectionUtils.findMethod(clazz, "writeReplace") != null ||
+				ReflectionUtils.findMethod(clazz, "readResolve") != null) {
+			return ClassLayout.NONE;
+		}
+		Constructor<?> constructor;
+		try {
+			constructor = clazz.getDeclaredConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			return ClassLayout.NONE;
+		}
+		Map<String, Field> fields = new LinkedHashMap<String, Field>();
+		for (Class<?> current = clazz; current != null && Serializable.class.isAssignableFrom(current);
+				current = current.getSuperclass()) {
+			if (hasCustomSerialization(current)) {
+				return ClassLayout.NONE;
+			}
+			for (Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+					if (fields.containsKey(field.getName())) {
+						// shadowed field: cannot be identified by name
+						return ClassLayout.NONE;
+					}
+					ReflectionUtils.makeAccessible(field);
+					fields.put(field.getName(), field);
+				}
+			}
+		}
+		ReflectionUtils.makeAccessible(constructor);
+		return new ClassLayout(constructor, fields);
+	}
+
+	private static boolean hasCustomSerialization(Class<?> clazz) {
+		try {
+			clazz.getDeclaredField("serialPersistentFields");
+			return true;
+		}
+		catch (NoSuchFieldException ex) {
+			// fall through
+		}
+		return (declaresMethod(clazz, "writeObject", ObjectOutputStream.class) ||
+				declaresMethod(clazz, "readObject", ObjectInputStream.class) ||
+				declaresMethod(clazz, "readObjectNoData"));
+	}
+
+	private static boolean declaresMethod(Class<?> clazz, String name, Class<?>... paramTypes) {
+		try {
+			clazz.getDeclaredMethod(name, paramTypes);
+			return true;
+		}
+		catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * The fields to transfer for a specific class, along with the
+	 * constructor to create instances with.
+	 */
+	static class ClassLayout {
+
+		static final ClassLayout NONE = new ClassLayout(null, null);
+
+		private final Constructor<?> constructor;
+
+		private final Map<String, Field> fieldsByName;
+
+		private final Field[] fields;
+
+		private ClassLayout(Constructor<?> constructor, Map<String, Field> fieldsByName) {
+			this.constructor = constructor;
+			this.fieldsByName = fieldsByName;
+			this.fields = (fieldsByName != null ? fieldsByName.values().toArray(new Field[fieldsByName.size()]) : null);
+		}
+
+		/**
+		 * Return whether instances are written field by field.
+		 */
+		public boolean isFieldBased() {
+			return (this.fields != null);
+		}
+
+		public Field[] getFields() {
+			return this.fields;
+		}
+
+		public Field getField(String name) {
+			return this.fieldsByName.get(name);
+		}
+
+		public Object newInstance() throws Exception {
+			return this.constructor.newInstance();
+		}
+	}
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.serializer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Serializer that writes an object graph in a compact binary format,
+ * to be read by a {@link CompactDeserializer}.
+ *
+ * <p>Strings, primitive wrappers, arrays, enums, classes and dates as well as common
+ * {@code java.util} collections and maps have built-in representations. Other objects
+ * are written field by field, following Java Serialization rules as to which fields
+ * to include. Class names and field names are written only once per stream, and
+ * the reflective field layout of each class is cached across invocations. Shared
+ * and circular references within the object graph are preserved.
+ *
+ * <p>Objects that customize their serialized form ({@code writeObject},
+ * {@code writeReplace}, {@code Externalizable} etc), JDK types without a built-in
+ * representation, and classes without a no-arg constructor are embedded using
+ * Java Serialization. As with Java Serialization, all objects in the graph need
+ * to implement {@link Serializable}.
+ *
+ * <p>Like {@link DefaultSerializer}, this serializer is stateless and may be
+ * used concurrently.
+ *
+ * @since 3.2.17
+ * @see CompactDeserializer
+ */
+public class CompactSerializer implements Serializer<Object> {
+
+	public void serialize(Object object, OutputStream outputStream) throws IOException {
+		if (object != null && !(object instanceof Serializable)) {
+			throw new IllegalArgumentException(getClass().getSimpleName() + " requires a Serializable payload " +
+					"but received an object of type [" + object.getClass().getName() + "]");
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(StreamUtils.nonClosing(outputStream)));
+		out.write(CompactFormat.MAGIC);
+		out.write(CompactFormat.VERSION);
+		new ObjectGraphWriter(out).writeValue(object);
+		out.flush();
+	}
+
+
+	/**
+	 * Writes the objects of a single object graph, keeping track of
+	 * the objects and classes written so far.
+	 */
+	private static class ObjectGraphWriter {
+
+		private final DataOutputStream out;
+
+		private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+
+		private final Map<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>();
+
+		private final Set<Class<?>> layoutsWritten = new HashSet<Class<?>>();
+
+		public ObjectGraphWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		public void writeValue(Object value) throws IOException {
+			if (value == null) {
+				this.out.write(CompactFormat.NULL);
+				return;
+			}
+			Class<?> clazz = value.getClass();
+			if (clazz == Integer.class) {
+				this.out.write(CompactFormat.INT);
+				writeSignedVarLong((Integer) value);
+				return;
+			}
+			if (clazz == Long.class) {
+				this.out.write(CompactFormat.LONG);
+				writeSignedVarLong((Long) value);
+				return;
+			}
+			if (clazz == Boolean.class) {
+				this.out.write((Boolean) value ? CompactFormat.TRUE : CompactFormat.FALSE);
+				return;
+			}
+			if (clazz == Double.class) {
+				this.out.write(CompactFormat.DOUBLE);
+				this.out.writeDouble((Double) value);
+				return;
+			}
+			if (clazz == Float.class) {
+				this.out.write(CompactFormat.FLOAT);
+				this.out.writeFloat((Float) value);
+				return;
+			}
+			if (clazz == Short.class) {
+				this.out.write(CompactFormat.SHORT);
+				writeSignedVarLong((Short) value);
+				return;
+			}
+			if (clazz == Byte.class) {
+				this.out.write(CompactFormat.BYTE);
+				this.out.write((Byte) value);
+				return;
+			}
+			if (clazz == Character.class) {
+				this.out.write(CompactFormat.CHAR);
+				writeVarLong((Character) value);
+				return;
+			}
+			if (value instanceof Class) {
+				this.out.write(CompactFormat.CLASS);
+				writeClass((Class<?>) value);
+				return;
+			}
+			if (value instanceof Enum) {
+				this.out.write(CompactFormat.ENUM);
+				writeClass(((Enum<?>) value).getDeclaringClass());
+				writeString(((Enum<?>) value).name());
+				return;
+			}
+
+			Integer handle = this.handles.get(value);
+			if (handle != null) {
+				this.out.write(CompactFormat.REFERENCE);
+				writeVarLong(handle);
+				return;
+			}
+			this.handles.put(value, this.handles.size());
+
+			if (clazz == String.class) {
+				this.out.write(CompactFormat.STRING);
+				writeString((String) value);
+			}
+			else if (clazz == byte[].class) {
+				byte[] bytes = (byte[]) value;
+				this.out.write(CompactFormat.BYTE_ARRAY);
+				writeVarLong(bytes.length);
+				this.out.write(bytes);
+			}
+			else if (clazz.isArray()) {
+				this.out.write(CompactFormat.ARRAY);
+				writeClass(clazz.getComponentType());
+				writeArrayElements(value, clazz.getComponentType());
+			}
+			else if (clazz == Date.class) {
+				this.out.write(CompactFormat.DATE);
+				this.out.writeLong(((Date) value).getTime());
+			}
+			else if (CompactFormat.isCompactCollectionType(clazz) &&
+					!(value instanceof SortedSet && ((SortedSet<?>) value).comparator() != null)) {
+				Collection<?> collection = (Collection<?>) value;
+				this.out.write(CompactFormat.COLLECTION);
+				writeClass(clazz);
+				writeVarLong(collection.size());
+				for (Object element : collection) {
+					writeValue(element);
+				}
+			}
+			else if (CompactFormat.isCompactMapType(clazz) &&
+					!(value instanceof SortedMap && ((SortedMap<?, ?>) value).comparator() != null)) {
+				Map<?, ?> map = (Map<?, ?>) value;
+				this.out.write(CompactFormat.MAP);
+				writeClass(clazz);
+				writeVarLong(map.size());
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					writeValue(entry.getKey());
+					writeValue(entry.getValue());
+				}
+			}
+			else {
+				CompactFormat.ClassLayout layout = CompactFormat.getClassLayout(clazz);
+				if (layout.isFieldBased()) {
+					writeObject(value, clazz, layout);
+				}
+				else if (value instanceof Serializable) {
+					writeSerialized(value);
+				}
+				else {
+					throw new NotSerializableException(clazz.getName());
+				}
+			}
+		}
+
+		private void writeArrayElements(Object array, Class<?> componentType) throws IOException {
+			int length = Array.getLength(array);
+			writeVarLong(length);
+			if (componentType == int.class) {
+				for (int element : (int[]) array) {
+					writeSignedVarLong(element);
+				}
+			}
+			else if (componentType == long.class) {
+				for (long element : (long[]) array) {
+					writeSignedVarLong(element);
+				}
+			}
+			else if (componentType == double.class) {
+				for (double element : (double[]) array) {
+					this.out.writeDouble(element);
+				}
+			}
+			else if (componentType == float.class) {
+				for (float element : (float[]) array) {
+					this.out.writeFloat(element);
+				}
+			}
+			else if (componentType == short.class) {
+				for (short element : (short[]) array) {
+					writeSignedVarLong(element);
+				}
+			}
+			else if (componentType == char.class) {
+				for (char element : (char[]) array) {
+					writeVarLong(element);
+				}
+			}
+			else if (componentType == boolean.class) {
+				for (boolean element : (boolean[]) array) {
+					this.out.writeBoolean(element);
+				}
+			}
+			else {
+				for (Object element : (Object[]) array) {
+					writeValue(element);
+				}
+			}
+		}
+
+		private void writeObject(Object value, Class<?> clazz, CompactFormat.ClassLayout layout) throws IOException {
+			this.out.write(CompactFormat.OBJECT);
+			writeClass(clazz);
+			Field[] fields = layout.getFields();
+			if (this.layoutsWritten.add(clazz)) {
+				writeVarLong(fields.length);
+				for (Field field : fields) {
+					writeString(field.getName());
+				}
+			}
+			for (Field field : fields) {
+				writeValue(ReflectionUtils.getField(field, value));
+			}
+		}
+
+		private void writeSerialized(Object value) throws IOException {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+			ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(value);
+			oos.flush();
+			this.out.write(CompactFormat.SERIALIZED);
+			writeVarLong(bos.size());
+			bos.writeTo(this.out);
+		}
+
+		private void writeClass(Class<?> clazz) throws IOException {
+			Integer classId = this.classIds.get(clazz);
+			if (classId != null) {
+				writeVarLong(classId + 1);
+			}
+			else {
+				this.classIds.put(clazz, this.classIds.size());
+				writeVarLong(0);
+				writeString(clazz.getName());
+			}
+		}
+
+		/**
+		 * Write the given String as its number of chars, followed by the chars
+		 * in the modified UTF-8 encoding used by {@link java.io.DataOutput#writeUTF}.
+		 */
+		private void writeString(String value) throws IOException {
+			int length = value.length();
+			writeVarLong(length);
+			for (int i = 0; i < length; i++) {
+				char c = value.charAt(i);
+				if (c >= 0x0001 && c <= 0x007F) {
+					this.out.write(c);
+				}
+				else if (c > 0x07FF) {
+					this.out.write(0xE0 | ((c >> 12) & 0x0F));
+					this.out.write(0x80 | ((c >> 6) & 0x3F));
+					this.out.write(0x80 | (c & 0x3F));
+				}
+				else {
+					this.out.write(0xC0 | ((c >> 6) & 0x1F));
+					this.out.write(0x80 | (c & 0x3F));
+				}
+			}
+		}
+
+		private void writeSignedVarLong(long value) throws IOException {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		private void writeVarLong(long value) throws IOException {
+			while ((value & ~0x7FL) != 0) {
+				this.out.write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			this.out.write((int) value);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -108,10 +108,17 @@ final class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor
 
 	public AnnotationAttributes getAnnotationAttributes(String annotationType, boolean classValuesAsString) {
 		AnnotationAttributes raw = this.attributeMap.get(annotationType);
-		return convertClassValues(raw, classValuesAsString);
+		return convertClassValues(raw, classValuesAsString, this.classLoader);
 	}
 
-	private AnnotationAttributes convertClassValues(AnnotationAttributes original, boolean classValuesAsString) {
+	/**
+	 * Convert the raw class references in the given attributes into either
+	 * class names or loaded classes.
+	 * <p>Shared with {@link AnnotationMetadataSnapshot}.
+	 */
+	static AnnotationAttributes convertClassValues(AnnotationAttributes original, boolean classValuesAsString,
+			ClassLoader classLoader) {
+
 		if (original == null) {
 			return null;
 		}
@@ -120,24 +127,24 @@ final class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor
 			try {
 				Object value = entry.getValue();
 				if (value instanceof AnnotationAttributes) {
-					value = convertClassValues((AnnotationAttributes) value, classValuesAsString);
+					value = convertClassValues((AnnotationAttributes) value, classValuesAsString, classLoader);
 				}
 				else if (value instanceof AnnotationAttributes[]) {
 					AnnotationAttributes[] values = (AnnotationAttributes[])value;
 					for (int i = 0; i < values.length; i++) {
-						values[i] = convertClassValues(values[i], classValuesAsString);
+						values[i] = convertClassValues(values[i], classValuesAsString, classLoader);
 					}
 				}
 				else if (value instanceof Type) {
 					value = (classValuesAsString ? ((Type) value).getClassName() :
-							this.classLoader.loadClass(((Type) value).getClassName()));
+							classLoader.loadClass(((Type) value).getClassName()));
 				}
 				else if (value instanceof Type[]) {
 					Type[] array = (Type[]) value;
 					Object[] convArray = (classValuesAsString ? new String[array.length] : new Class[array.length]);
 					for (int i = 0; i < array.length; i++) {
 						convArray[i] = (classValuesAsString ? array[i].getClassName() :
-								this.classLoader.loadClass(array[i].getClassName()));
+								classLoader.loadClass(array[i].getClassName()));
 					}
 					value = convArray;
 				}
@@ -182,4 +189,26 @@ final class AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor
 		return annotatedMethods;
 	}
 
+
+	/**
+	 * Return the raw attributes of all annotations and meta-annotations, keyed by annotation type.
+	 */
+	Map<String, AnnotationAttributes> getAttributeMap() {
+		return this.attributeMap;
+	}
+
+	/**
+	 * Return the meta-annotation types, keyed by annotation type.
+	 */
+	Map<String, Set<String>> getMetaAnnotationMap() {
+		return this.metaAnnotationMap;
+	}
+
+	/**
+	 * Return the metadata of all annotated methods.
+	 */
+	Set<MethodMetadata> getMethodMetadataSet() {
+		return this.methodMetadataSet;
+	}
+
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Immutable {@link AnnotationMetadata} holding the state that an
+ * {@link AnnotationMetadataReadingVisitor} collected for a class, so that it can
+ * be written to and restored from a {@link PersistentMetadataReaderFactory} cache
+ * without parsing the class file again.
+ *
+ * <p>Annotation attributes are kept in their raw form, i.e. with class references
+ * as ASM types, and get converted on access just like in the reading visitor.
+ *
+ * @since 3.2.17
+ * @see MetadataSnapshotCodec
+ */
+final class AnnotationMetadataSnapshot implements AnnotationMetadata {
+
+	static final int INTERFACE = 1;
+
+	static final int ABSTRACT = 2;
+
+	static final int FINAL = 4;
+
+	static final int INDEPENDENT = 8;
+
+
+	private final String className;
+
+	private final int flags;
+
+	private final String enclosingClassName;
+
+	private final String superClassName;
+
+	private final String[] interfaceNames;
+
+	private final String[] memberClassNames;
+
+	private final Set<String> annotationTypes;
+
+	private final Map<String, Set<String>> metaAnnotationMap;
+
+	private final Map<String, AnnotationAttributes> attributeMap;
+
+	private final Set<MethodMetadata> methodMetadataSet;
+
+	private final ClassLoader classLoader;
+
+
+	AnnotationMetadataSnapshot(String className, int flags, String enclosingClassName, String superClassName,
+			String[] interfaceNames, String[] memberClassNames, Set<String> annotationTypes,
+			Map<String, Set<String>> metaAnnotationMap, Map<String, AnnotationAttributes> attributeMap,
+			Set<MethodMetadata> methodMetadataSet, ClassLoader classLoader) {
+
+		this.className = className;
+		this.flags = flags;
+		this.enclosingClassName = enclosingClassName;
+		this.superClassName = superClassName;
+		this.interfaceNames = interfaceNames;
+		this.memberClassNames = memberClassNames;
+		this.annotationTypes = annotationTypes;
+		this.metaAnnotationMap = metaAnnotationMap;
+		this.attributeMap = attributeMap;
+		this.methodMetadataSet = methodMetadataSet;
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Create a snapshot of the metadata that the given visitor has read.
+	 */
+	AnnotationMetadataSnapshot(AnnotationMetadataReadingVisitor visitor, ClassLoader classLoader) {
+		this.className = visitor.getClassName();
+		this.flags = (visitor.isInterface() ? INTERFACE : 0) | (visitor.isAbstract() ? ABSTRACT : 0) |
+				(visitor.isFinal() ? FINAL : 0) | (visitor.isIndependent() ? INDEPENDENT : 0);
+		this.enclosingClassName = visitor.getEnclosingClassName();
+		this.superClassName = visitor.getSuperClassName();
+		this.interfaceNames = visitor.getInterfaceNames();
+		this.memberClassNames = visitor.getMemberClassNames();
+		this.annotationTypes = visitor.getAnnotationTypes();
+		this.metaAnnotationMap = visitor.getMetaAnnotationMap();
+		this.attributeMap = visitor.getAttributeMap();
+		this.methodMetadataSet = new LinkedHashSet<MethodMetadata>(visitor.getMethodMetadataSet().size());
+		for (MethodMetadata method : visitor.getMethodMetadataSet()) {
+			this.methodMetadataSet.add(new MethodSnapshot(method.getMethodName(), method.getDeclaringClassName(),
+					(method.isStatic() ? MethodSnapshot.STATIC : 0) | (method.isFinal() ? MethodSnapshot.FINAL : 0) |
+					(method.isOverridable() ? MethodSnapshot.OVERRIDABLE : 0),
+					((MethodMetadataReadingVisitor) method).getAttributeMap()));
+		}
+		this.classLoader = classLoader;
+	}
+
+
+	public String getClassName() {
+		return this.className;
+	}
+
+	public boolean isInterface() {
+		return ((this.flags & INTERFACE) != 0);
+	}
+
+	public boolean isAbstract() {
+		return ((this.flags & ABSTRACT) != 0);
+	}
+
+	public boolean isConcrete() {
+		return !(isInterface() || isAbstract());
+	}
+
+	public boolean isFinal() {
+		return ((this.flags & FINAL) != 0);
+	}
+
+	public boolean isIndependent() {
+		return ((this.flags & INDEPENDENT) != 0);
+	}
+
+	public boolean hasEnclosingClass() {
+		return (this.enclosingClassName != null);
+	}
+
+	public String getEnclosingClassName() {
+		return this.enclosingClassName;
+	}
+
+	public boolean hasSuperClass() {
+		return (this.superClassName != null);
+	}
+
+	public String getSuperClassName() {
+		return this.superClassName;
+	}
+
+	public String[] getInterfaceNames() {
+		return this.interfaceNames;
+	}
+
+	public String[] getMemberClassNames() {
+		return this.memberClassNames;
+	}
+
+	public Set<String> getAnnotationTypes() {
+		return this.annotationTypes;
+	}
+
+	public Set<String> getMetaAnnotationTypes(String annotationType) {
+		return this.metaAnnotationMap.get(annotationType);
+	}
+
+	public boolean hasAnnotation(String annotationType) {
+		return this.annotationTypes.contains(annotationType);
+	}
+
+	public boolean hasMetaAnnotation(String metaAnnotationType) {
+		Collection<Set<String>> allMetaTypes = this.metaAnnotationMap.values();
+		for (Set<String> metaTypes : allMetaTypes) {
+			if (metaTypes.contains(metaAnnotationType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isAnnotated(String annotationType) {
+		return this.attributeMap.containsKey(annotationType);
+	}
+
+	public AnnotationAttributes getAnnotationAttributes(String annotationType) {
+		return getAnnotationAttributes(annotationType, false);
+	}
+
+	public AnnotationAttributes getAnnotationAttributes(String annotationType, boolean classValuesAsString) {
+		AnnotationAttributes raw = this.attributeMap.get(annotationType);
+		return AnnotationMetadataReadingVisitor.convertClassValues(raw, classValuesAsString, this.classLoader);
+	}
+
+	public boolean hasAnnotatedMethods(String annotationType) {
+		for (MethodMetadata methodMetadata : this.methodMetadataSet) {
+			if (methodMetadata.isAnnotated(annotationType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public Set<MethodMetadata> getAnnotatedMethods(String annotationType) {
+		Set<MethodMetadata> annotatedMethods = new LinkedHashSet<MethodMetadata>(4);
+		for (MethodMetadata methodMetadata : this.methodMetadataSet) {
+			if (methodMetadata.isAnnotated(annotationType)) {
+				annotatedMethods.add(methodMetadata);
+			}
+		}
+		return annotatedMethods;
+	}
+
+
+	int getFlags() {
+		return this.flags;
+	}
+
+	Map<String, Set<String>> getMetaAnnotationMap() {
+		return this.metaAnnotationMap;
+	}
+
+	Map<String, AnnotationAttributes> getAttributeMap() {
+		return this.attributeMap;
+	}
+
+	Set<MethodMetadata> getMethodMetadataSet() {
+		return this.methodMetadataSet;
+	}
+
+
+	/**
+	 * Immutable {@link MethodMetadata} for an annotated method of a snapshot.
+	 */
+	static final class MethodSnapshot implements MethodMetadata {
+
+		static final int STATIC = 1;
+
+		static final int FINAL = 2;
+
+		static final int OVERRIDABLE = 4;
+
+
+		private final String methodName;
+
+		private final String declaringClassName;
+
+		private final int flags;
+
+		private final Map<String, AnnotationAttributes> attributeMap;
+
+		MethodSnapshot(String methodName, String declaringClassName, int flags,
+				Map<String, AnnotationAttributes> attributeMap) {
+
+			this.methodName = methodName;
+			this.declaringClassName = declaringClassName;
+			this.flags = flags;
+			this.attributeMap = attributeMap;
+		}
+
+		public String getMethodName() {
+			return this.methodName;
+		}
+
+		public String getDeclaringClassName() {
+			return this.declaringClassName;
+		}
+
+		public boolean isStatic() {
+			return ((this.flags & STATIC) != 0);
+		}
+
+		public boolean isFinal() {
+			return ((this.flags & FINAL) != 0);
+		}
+
+		public boolean isOverridable() {
+			return ((this.flags & OVERRIDABLE) != 0);
+		}
+
+		public boolean isAnnotated(String annotationType) {
+			return this.attributeMap.containsKey(annotationType);
+		}
+
+		public AnnotationAttributes getAnnotationAttributes(String annotationType) {
+			return this.attributeMap.get(annotationType);
+		}
+
+		int getFlags() {
+			return this.flags;
+		}
+
+		Map<String, AnnotationAttributes> getAttributeMap() {
+			return this.attributeMap;
+		}
+	}
+
+}
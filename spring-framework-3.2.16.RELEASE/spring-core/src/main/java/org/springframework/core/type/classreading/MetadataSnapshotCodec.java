@@ -0,0 +1,505 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Compact binary encoding of {@link AnnotationMetadataSnapshot AnnotationMetadataSnapshots}
+ * for {@link PersistentMetadataReaderFactory}.
+ *
+ * <p>All strings go into a string table that precedes the actual content, so that
+ * the many recurring class and annotation names get written once only. Snapshots
+ * are written as length-prefixed blocks: a snapshot that cannot be restored (e.g.
+ * because an enum type referenced in an annotation attribute is not available
+ * anymore) can be skipped without affecting the rest of the content.
+ *
+ * @since 3.2.17
+ */
+final class MetadataSnapshotCodec {
+
+	private static final int NULL_STRING = -1;
+
+	private static final byte STRING = 1;
+
+	private static final byte BOOLEAN = 2;
+
+	private static final byte BYTE = 3;
+
+	private static final byte CHAR = 4;
+
+	private static final byte SHORT = 5;
+
+	private static final byte INT = 6;
+
+	private static final byte LONG = 7;
+
+	private static final byte FLOAT = 8;
+
+	private static final byte DOUBLE = 9;
+
+	private static final byte TYPE = 10;
+
+	private static final byte CLASS = 11;
+
+	private static final byte ENUM = 12;
+
+	private static final byte ATTRIBUTES = 13;
+
+	private static final byte ARRAY = 14;
+
+
+	private MetadataSnapshotCodec() {
+	}
+
+
+	/**
+	 * Determine whether all annotation attribute values of the given snapshot
+	 * can be encoded.
+	 */
+	static boolean isSupported(AnnotationMetadataSnapshot snapshot) {
+		if (!isSupportedAttributes(snapshot.getAttributeMap())) {
+			return false;
+		}
+		for (MethodMetadata method : snapshot.getMethodMetadataSet()) {
+			if (!isSupportedAttributes(((AnnotationMetadataSnapshot.MethodSnapshot) method).getAttributeMap())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSupportedAttributes(Map<String, AnnotationAttributes> attributeMap) {
+		for (AnnotationAttributes attributes : attributeMap.values()) {
+			if (!isSupportedValue(attributes)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSupportedValue(Object value) {
+		if (value instanceof AnnotationAttributes) {
+			for (Object nestedValue : ((AnnotationAttributes) value).values()) {
+				if (!isSupportedValue(nestedValue)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (value != null && value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			for (int i = 0; i < length; i++) {
+				if (!isSupportedValue(Array.get(value, i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return (value instanceof String || value instanceof Boolean || value instanceof Byte ||
+				value instanceof Character || value instanceof Short || value instanceof Integer ||
+				value instanceof Long || value instanceof Float || value instanceof Double ||
+				value instanceof Type || value instanceof Class || value instanceof Enum);
+	}
+
+
+	/**
+	 * Writes content with a string table: call {@link #writeTo} once all content
+	 * has been written.
+	 */
+	static final class Output {
+
+		private final Map<String, Integer> strings = new HashMap<String, Integer>(1024);
+
+		private final List<String> stringTable = new ArrayList<String>(1024);
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream(64 * 1024);
+
+		private final DataOutputStream out = new DataOutputStream(this.content);
+
+		public void writeString(String value) throws IOException {
+			writeString(value, this.out);
+		}
+
+		public void writeLong(long value) throws IOException {
+			this.out.writeLong(value);
+		}
+
+		public void writeInt(int value) throws IOException {
+			this.out.writeInt(value);
+		}
+
+		/**
+		 * Write the given snapshot as a length-prefixed block.
+		 * @see #isSupported(AnnotationMetadataSnapshot)
+		 */
+		public void writeSnapshot(AnnotationMetadataSnapshot snapshot) throws IOException {
+			ByteArrayOutputStream block = new ByteArrayOutputStream(512);
+			DataOutputStream blockOut = new DataOutputStream(block);
+			writeString(snapshot.getClassName(), blockOut);
+			blockOut.writeByte(snapshot.getFlags());
+			writeString(snapshot.getEnclosingClassName(), blockOut);
+			writeString(snapshot.getSuperClassName(), blockOut);
+			writeStrings(snapshot.getInterfaceNames(), blockOut);
+			writeStrings(snapshot.getMemberClassNames(), blockOut);
+			Set<String> annotationTypes = snapshot.getAnnotationTypes();
+			writeStrings(annotationTypes.toArray(new String[annotationTypes.size()]), blockOut);
+			blockOut.writeInt(snapshot.getMetaAnnotationMap().size());
+			for (Map.Entry<String, Set<String>> entry : snapshot.getMetaAnnotationMap().entrySet()) {
+				writeString(entry.getKey(), blockOut);
+				writeStrings(entry.getValue().toArray(new String[entry.getValue().size()]), blockOut);
+			}
+			writeAttributeMap(snapshot.getAttributeMap(), blockOut);
+			blockOut.writeInt(snapshot.getMethodMetadataSet().size());
+			for (MethodMetadata method : snapshot.getMethodMetadataSet()) {
+				AnnotationMetadataSnapshot.MethodSnapshot methodSnapshot = (AnnotationMetadataSnapshot.MethodSnapshot) method;
+				writeString(methodSnapshot.getMethodName(), blockOut);
+				writeString(methodSnapshot.getDeclaringClassName(), blockOut);
+				blockOut.writeByte(methodSnapshot.getFlags());
+				writeAttributeMap(methodSnapshot.getAttributeMap(), blockOut);
+			}
+			blockOut.flush();
+			this.out.writeInt(block.size());
+			block.writeTo(this.out);
+		}
+
+		/**
+		 * Write the string table, followed by the content written so far.
+		 */
+		public void writeTo(DataOutputStream target) throws IOException {
+			this.out.flush();
+			target.writeInt(this.stringTable.size());
+			for (String value : this.stringTable) {
+				target.writeUTF(value);
+			}
+			this.content.writeTo(target);
+		}
+
+		private void writeAttributeMap(Map<String, AnnotationAttributes> attributeMap, DataOutputStream target)
+				throws IOException {
+
+			target.writeInt(attributeMap.size());
+			for (Map.Entry<String, AnnotationAttributes> entry : attributeMap.entrySet()) {
+				writeString(entry.getKey(), target);
+				writeAttributes(entry.getValue(), target);
+			}
+		}
+
+		private void writeAttributes(AnnotationAttributes attributes, DataOutputStream target) throws IOException {
+			target.writeInt(attributes.size());
+			for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+				writeString(entry.getKey(), target);
+				writeValue(entry.getValue(), target);
+			}
+		}
+
+		private void writeValue(Object value, DataOutputStream target) throws IOException {
+			if (value instanceof String) {
+				target.writeByte(STRING);
+				writeString((String) value, target);
+			}
+			else if (value instanceof Boolean) {
+				target.writeByte(BOOLEAN);
+				target.writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Byte) {
+				target.writeByte(BYTE);
+				target.writeByte((Byte) value);
+			}
+			else if (value instanceof Character) {
+				target.writeByte(CHAR);
+				target.writeChar((Character) value);
+			}
+			else if (value instanceof Short) {
+				target.writeByte(SHORT);
+				target.writeShort((Short) value);
+			}
+			else if (value instanceof Integer) {
+				target.writeByte(INT);
+				target.writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				target.writeByte(LONG);
+				target.writeLong((Long) value);
+			}
+			else if (value instanceof Float) {
+				target.writeByte(FLOAT);
+				target.writeFloat((Float) value);
+			}
+			else if (value instanceof Double) {
+				target.writeByte(DOUBLE);
+				target.writeDouble((Double) value);
+			}
+			else if (value instanceof Type) {
+				target.writeByte(TYPE);
+				writeString(((Type) value).getDescriptor(), target);
+			}
+			else if (value instanceof Class) {
+				target.writeByte(CLASS);
+				writeString(((Class<?>) value).getName(), target);
+			}
+			else if (value instanceof Enum) {
+				Enum<?> enumValue = (Enum<?>) value;
+				target.writeByte(ENUM);
+				writeString(enumValue.getDeclaringClass().getName(), target);
+				writeString(enumValue.name(), target);
+			}
+			else if (value instanceof AnnotationAttributes) {
+				target.writeByte(ATTRIBUTES);
+				writeAttributes((AnnotationAttributes) value, target);
+			}
+			else if (value != null && value.getClass().isArray()) {
+				target.writeByte(ARRAY);
+				writeString(value.getClass().getComponentType().getName(), target);
+				int length = Array.getLength(value);
+				target.writeInt(length);
+				for (int i = 0; i < length; i++) {
+					writeValue(Array.get(value, i), target);
+				}
+			}
+			else {
+				throw new IOException("Unsupported annotation attribute value: " + value);
+			}
+		}
+
+		private void writeStrings(String[] values, DataOutputStream target) throws IOException {
+			target.writeInt(values.length);
+			for (String value : values) {
+				writeString(value, target);
+			}
+		}
+
+		private void writeString(String value, DataOutputStream target) throws IOException {
+			if (value == null) {
+				target.writeInt(NULL_STRING);
+				return;
+			}
+			Integer index = this.strings.get(value);
+			if (index == null) {
+				index = this.stringTable.size();
+				this.strings.put(value, index);
+				this.stringTable.add(value);
+			}
+			target.writeInt(index);
+		}
+	}
+
+
+	/**
+	 * Reads content written by {@link Output}, starting with the string table.
+	 */
+	static final class Input {
+
+		private final DataInputStream in;
+
+		private final ClassLoader classLoader;
+
+		private final String[] stringTable;
+
+		public Input(DataInputStream in, ClassLoader classLoader) throws IOException {
+			this.in = in;
+			this.classLoader = classLoader;
+			this.stringTable = new String[in.readInt()];
+			for (int i = 0; i < this.stringTable.length; i++) {
+				this.stringTable[i] = in.readUTF();
+			}
+		}
+
+		public String readString() throws IOException {
+			return readString(this.in);
+		}
+
+		public long readLong() throws IOException {
+			return this.in.readLong();
+		}
+
+		public int readInt() throws IOException {
+			return this.in.readInt();
+		}
+
+		/**
+		 * Read a snapshot block.
+		 * @return the snapshot, or {@code null} if the snapshot cannot be restored
+		 * since it refers to classes that are not available
+		 */
+		public AnnotationMetadataSnapshot readSnapshot() throws IOException {
+			byte[] block = new byte[this.in.readInt()];
+			this.in.readFully(block);
+			DataInputStream blockIn = new DataInputStream(new ByteArrayInputStream(block));
+			try {
+				String className = readString(blockIn);
+				int flags = blockIn.readByte();
+				String enclosingClassName = readString(blockIn);
+				String superClassName = readString(blockIn);
+				String[] interfaceNames = readStrings(blockIn);
+				String[] memberClassNames = readStrings(blockIn);
+				Set<String> annotationTypes = new LinkedHashSet<String>();
+				for (String annotationType : readStrings(blockIn)) {
+					annotationTypes.add(annotationType);
+				}
+				int metaAnnotationCount = blockIn.readInt();
+				Map<String, Set<String>> metaAnnotationMap = new LinkedHashMap<String, Set<String>>(4);
+				for (int i = 0; i < metaAnnotationCount; i++) {
+					String annotationType = readString(blockIn);
+					Set<String> metaAnnotationTypes = new LinkedHashSet<String>();
+					for (String metaAnnotationType : readStrings(blockIn)) {
+						metaAnnotationTypes.add(metaAnnotationType);
+					}
+					metaAnnotationMap.put(annotationType, metaAnnotationTypes);
+				}
+				Map<String, AnnotationAttributes> attributeMap = readAttributeMap(blockIn);
+				int methodCount = blockIn.readInt();
+				Set<MethodMetadata> methodMetadataSet = new LinkedHashSet<MethodMetadata>(4);
+				for (int i = 0; i < methodCount; i++) {
+					String methodName = readString(blockIn);
+					String declaringClassName = readString(blockIn);
+					int methodFlags = blockIn.readByte();
+					methodMetadataSet.add(new AnnotationMetadataSnapshot.MethodSnapshot(
+							methodName, declaringClassName, methodFlags, readAttributeMap(blockIn)));
+				}
+				return new AnnotationMetadataSnapshot(className, flags, enclosingClassName, superClassName,
+						interfaceNames, memberClassNames, annotationTypes, metaAnnotationMap, attributeMap,
+						methodMetadataSet, this.classLoader);
+			}
+			catch (ClassNotFoundException ex) {
+				return null;
+			}
+			catch (IllegalArgumentException ex) {
+				// e.g. an enum constant that does not exist anymore
+				return null;
+			}
+		}
+
+		/**
+		 * Skip a snapshot block without restoring it.
+		 */
+		public void skipSnapshot() throws IOException {
+			int length = this.in.readInt();
+			int skipped = 0;
+			while (skipped < length) {
+				int count = this.in.skipBytes(length - skipped);
+				if (count <= 0) {
+					throw new IOException("Corrupt metadata cache: unexpected end of content");
+				}
+				skipped += count;
+			}
+		}
+
+		private Map<String, AnnotationAttributes> readAttributeMap(DataInputStream source)
+				throws IOException, ClassNotFoundException {
+
+			int count = source.readInt();
+			Map<String, AnnotationAttributes> attributeMap = new LinkedHashMap<String, AnnotationAttributes>(4);
+			for (int i = 0; i < count; i++) {
+				String annotationType = readString(source);
+				attributeMap.put(annotationType, readAttributes(source));
+			}
+			return attributeMap;
+		}
+
+		private AnnotationAttributes readAttributes(DataInputStream source) throws IOException, ClassNotFoundException {
+			int count = source.readInt();
+			AnnotationAttributes attributes = new AnnotationAttributes(count);
+			for (int i = 0; i < count; i++) {
+				String attributeName = readString(source);
+				attributes.put(attributeName, readValue(source));
+			}
+			return attributes;
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private Object readValue(DataInputStream source) throws IOException, ClassNotFoundException {
+			byte tag = source.readByte();
+			switch (tag) {
+				case STRING:
+					return readString(source);
+				case BOOLEAN:
+					return source.readBoolean();
+				case BYTE:
+					return source.readByte();
+				case CHAR:
+					return source.readChar();
+				case SHORT:
+					return source.readShort();
+				case INT:
+					return source.readInt();
+				case LONG:
+					return source.readLong();
+				case FLOAT:
+					return source.readFloat();
+				case DOUBLE:
+					return source.readDouble();
+				case TYPE:
+					return Type.getType(readString(source));
+				case CLASS:
+					return ClassUtils.forName(readString(source), this.classLoader);
+				case ENUM:
+					Class enumType = ClassUtils.forName(readString(source), this.classLoader);
+					return Enum.valueOf(enumType, readString(source));
+				case ATTRIBUTES:
+					return readAttributes(source);
+				case ARRAY:
+					Class<?> componentType = ClassUtils.forName(readString(source), this.classLoader);
+					int length = source.readInt();
+					Object array = Array.newInstance(componentType, length);
+					for (int i = 0; i < length; i++) {
+						Array.set(array, i, readValue(source));
+					}
+					return array;
+				default:
+					throw new IOException("Corrupt metadata cache: unknown value type " + tag);
+			}
+		}
+
+		private String[] readStrings(DataInputStream source) throws IOException {
+			String[] values = new String[source.readInt()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = readString(source);
+			}
+			return values;
+		}
+
+		private String readString(DataInputStream source) throws IOException {
+			int index = source.readInt();
+			if (index == NULL_STRING) {
+				return null;
+			}
+			if (index < 0 || index >= this.stringTable.length) {
+				throw new IOException("Corrupt metadata cache: invalid string index " + index);
+			}
+			return this.stringTable[index];
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -101,4 +101,11 @@ final class MethodMetadataReadingVisitor extends MethodVisitor implements Method
 		return this.declaringClassName;
 	}
 
+	/**
+	 * Return the raw attributes of all annotations on this method, keyed by annotation type.
+	 */
+	Map<String, AnnotationAttributes> getAttributeMap() {
+		return this.attributeMap;
+	}
+
 }
@@ -0,0 +1,503 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringVersion;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * {@link MetadataReaderFactory} that keeps the class metadata it reads in a
+ * binary cache file, so that unchanged classes do not have to be parsed again
+ * on the next start of the JVM.
+ *
+ * <p>Cache entries are associated with the file that a class has been read from:
+ * the jar file for classes in a jar, or the class file itself for classes in a
+ * directory. An entry is only reused as long as the size and the last-modified
+ * timestamp of that file as well as of the files containing the annotation types
+ * that the class is annotated with are unchanged. A cache file that has been
+ * written by a different Java or Spring version is discarded as a whole.
+ *
+ * <p>The cache file is read on first access and written on {@link #persist()},
+ * provided that any entries have been added or invalidated in the meantime.
+ * Call {@link #registerShutdownHook()} to persist the cache on JVM shutdown.
+ * Resources that are neither files nor contained in a jar file are always
+ * read from scratch.
+ *
+ * <p>Typically used through {@code ClassPathScanningCandidateComponentProvider
+ * #setMetadataReaderFactory} and {@code ConfigurationClassPostProcessor
+ * #setMetadataReaderFactory}, e.g. with a cache file per application in the
+ * build output directory.
+ *
+ * @since 3.2.17
+ * @see CachingMetadataReaderFactory
+ */
+public class PersistentMetadataReaderFactory extends SimpleMetadataReaderFactory {
+
+	private static final int MAGIC = 0x53504d44;
+
+	private static final int VERSION = 1;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderFactory.class);
+
+
+	private final File cacheFile;
+
+	/** Cache entries, keyed by resource URL */
+	private final Map<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(256);
+
+	/** Stamps of the files that the cache entries depend on, as currently found */
+	private final Map<String, FileStamp> currentStamps = new HashMap<String, FileStamp>(64);
+
+	private boolean loaded = false;
+
+	private boolean modified = false;
+
+	private Thread shutdownHook;
+
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the default class loader.
+	 * @param cacheFile the file to keep the cache in (does not need to exist yet)
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile) {
+		super();
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given resource loader.
+	 * @param cacheFile the file to keep the cache in (does not need to exist yet)
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile, ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given class loader.
+	 * @param cacheFile the file to keep the cache in (does not need to exist yet)
+	 * @param classLoader the ClassLoader to use
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile, ClassLoader classLoader) {
+		super(classLoader);
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+
+	/**
+	 * Return the file that this factory keeps its cache in.
+	 */
+	public final File getCacheFile() {
+		return this.cacheFile;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		String key = resource.getURL().toString();
+		String origin = determineOrigin(resource.getURL());
+		if (origin == null) {
+			return super.getMetadataReader(resource);
+		}
+
+		synchronized (this) {
+			loadIfNecessary();
+			CacheEntry entry = this.entries.get(key);
+			if (entry != null) {
+				return new SnapshotMetadataReader(resource, entry.snapshot);
+			}
+		}
+
+		MetadataReader metadataReader = super.getMetadataReader(resource);
+		AnnotationMetadataSnapshot snapshot = new AnnotationMetadataSnapshot(
+				(AnnotationMetadataReadingVisitor) metadataReader.getAnnotationMetadata(),
+				getResourceLoader().getClassLoader());
+		if (MetadataSnapshotCodec.isSupported(snapshot)) {
+			synchronized (this) {
+				Set<String> dependencies = determineDependencies(origin, snapshot);
+				if (dependencies != null) {
+					this.entries.put(key, new CacheEntry(dependencies.toArray(new String[dependencies.size()]), snapshot));
+					this.modified = true;
+				}
+			}
+		}
+		return new SnapshotMetadataReader(resource, snapshot);
+	}
+
+	/**
+	 * Write the cache file if any entries have been added or invalidated
+	 * since it has been read.
+	 * <p>The content is written to a temporary file first which then replaces
+	 * the existing cache file, so that concurrent readers never see a partially
+	 * written cache.
+	 * @throws IOException if the cache file could not be written
+	 */
+	public synchronized void persist() throws IOException {
+		if (!this.modified) {
+			return;
+		}
+		MetadataSnapshotCodec.Output output = new MetadataSnapshotCodec.Output();
+		Set<String> paths = new LinkedHashSet<String>();
+		for (CacheEntry entry : this.entries.values()) {
+			for (String path : entry.dependencies) {
+				paths.add(path);
+			}
+		}
+		output.writeInt(paths.size());
+		for (String path : paths) {
+			FileStamp stamp = this.currentStamps.get(path);
+			output.writeString(path);
+			output.writeLong(stamp.size);
+			output.writeLong(stamp.lastModified);
+		}
+		output.writeInt(this.entries.size());
+		for (Map.Entry<String, CacheEntry> entry : this.entries.entrySet()) {
+			output.writeString(entry.getKey());
+			String[] dependencies = entry.getValue().dependencies;
+			output.writeInt(dependencies.length);
+			for (String dependency : dependencies) {
+				output.writeString(dependency);
+			}
+			output.writeSnapshot(entry.getValue().snapshot);
+		}
+
+		File parentDir = this.cacheFile.getAbsoluteFile().getParentFile();
+		if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+			throw new IOException("Could not create directory for metadata cache: " + parentDir);
+		}
+		File tempFile = new File(parentDir, this.cacheFile.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			writeHeader(out);
+			output.writeTo(out);
+		}
+		finally {
+			out.close();
+		}
+		if (!tempFile.renameTo(this.cacheFile)) {
+			// Target file exists on a platform that does not replace on rename
+			this.cacheFile.delete();
+			if (!tempFile.renameTo(this.cacheFile)) {
+				tempFile.delete();
+				throw new IOException("Could not replace metadata cache " + this.cacheFile);
+			}
+		}
+		this.modified = false;
+		if (logger.isDebugEnabled()) {
+			logger.debug("Persisted " + this.entries.size() + " class metadata entries to " + this.cacheFile);
+		}
+	}
+
+	/**
+	 * Register a shutdown hook with the JVM runtime that {@link #persist() persists}
+	 * the cache on JVM shutdown, unless already registered.
+	 */
+	public synchronized void registerShutdownHook() {
+		if (this.shutdownHook == null) {
+			this.shutdownHook = new Thread() {
+				@Override
+				public void run() {
+					try {
+						persist();
+					}
+					catch (IOException ex) {
+						logger.warn("Could not persist class metadata cache " + cacheFile, ex);
+					}
+				}
+			};
+			Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+		}
+	}
+
+	/**
+	 * Discard all cache entries, in memory as well as in the cache file
+	 * (on the next {@link #persist()}).
+	 */
+	public synchronized void clearCache() {
+		this.entries.clear();
+		this.currentStamps.clear();
+		this.loaded = true;
+		this.modified = true;
+	}
+
+
+	private void loadIfNecessary() {
+		if (this.loaded) {
+			return;
+		}
+		this.loaded = true;
+		if (!this.cacheFile.isFile()) {
+			return;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.cacheFile)));
+			try {
+				if (!readHeader(in)) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Discarding class metadata cache " + this.cacheFile +
+								" written by a different Java or Spring version");
+					}
+					this.modified = true;
+					return;
+				}
+				readEntries(in);
+			}
+			finally {
+				in.close();
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + this.entries.size() + " class metadata entries from " + this.cacheFile);
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Discarding unreadable class metadata cache " + this.cacheFile, ex);
+			}
+			this.entries.clear();
+			this.modified = true;
+		}
+	}
+
+	private void readEntries(DataInputStream in) throws IOException {
+		MetadataSnapshotCodec.Input input = new MetadataSnapshotCodec.Input(in, getResourceLoader().getClassLoader());
+		Set<String> stalePaths = new LinkedHashSet<String>();
+		int stampCount = input.readInt();
+		for (int i = 0; i < stampCount; i++) {
+			String path = input.readString();
+			FileStamp cachedStamp = new FileStamp(input.readLong(), input.readLong());
+			if (!cachedStamp.equals(getCurrentStamp(path))) {
+				stalePaths.add(path);
+			}
+		}
+		int entryCount = input.readInt();
+		for (int i = 0; i < entryCount; i++) {
+			String key = input.readString();
+			String[] dependencies = new String[input.readInt()];
+			boolean stale = false;
+			for (int j = 0; j < dependencies.length; j++) {
+				dependencies[j] = input.readString();
+				stale |= stalePaths.contains(dependencies[j]);
+			}
+			AnnotationMetadataSnapshot snapshot = null;
+			if (stale) {
+				input.skipSnapshot();
+			}
+			else {
+				snapshot = input.readSnapshot();
+			}
+			if (snapshot != null) {
+				this.entries.put(key, new CacheEntry(dependencies, snapshot));
+			}
+			else {
+				this.modified = true;
+			}
+		}
+		if (!stalePaths.isEmpty() && logger.isDebugEnabled()) {
+			logger.debug("Invalidated class metadata cached for changed files " + stalePaths);
+		}
+	}
+
+	private static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(getJavaVersion());
+		out.writeUTF(getSpringVersion());
+	}
+
+	private static boolean readHeader(DataInputStream in) throws IOException {
+		return (in.readInt() == MAGIC && in.readInt() == VERSION &&
+				in.readUTF().equals(getJavaVersion()) && in.readUTF().equals(getSpringVersion()));
+	}
+
+	private static String getJavaVersion() {
+		String javaVersion = System.getProperty("java.version");
+		return (javaVersion != null ? javaVersion : "");
+	}
+
+	private static String getSpringVersion() {
+		String springVersion = SpringVersion.getVersion();
+		return (springVersion != null ? springVersion : "");
+	}
+
+	/**
+	 * Determine the files that the given snapshot depends on: the file it has been
+	 * read from, followed by the files containing its annotation types.
+	 * @return the paths of these files, or {@code null} if the file that the
+	 * snapshot has been read from does not exist
+	 */
+	private Set<String> determineDependencies(String origin, AnnotationMetadataSnapshot snapshot) {
+		if (getCurrentStamp(origin) == null) {
+			return null;
+		}
+		Set<String> dependencies = new LinkedHashSet<String>(4);
+		dependencies.add(origin);
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		if (classLoader == null) {
+			return dependencies;
+		}
+		for (String annotationType : snapshot.getAnnotationTypes()) {
+			URL url = classLoader.getResource(
+					ClassUtils.convertClassNameToResourcePath(annotationType) + ClassUtils.CLASS_FILE_SUFFIX);
+			String dependency = (url != null ? determineOrigin(url) : null);
+			if (dependency != null && getCurrentStamp(dependency) != null) {
+				dependencies.add(dependency);
+			}
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Determine the file that the given class file URL refers to: the jar file
+	 * for a jar entry, or the class file itself.
+	 * @return the absolute path of that file, or {@code null} if not resolvable
+	 */
+	private static String determineOrigin(URL url) {
+		try {
+			if (ResourceUtils.isJarURL(url)) {
+				return ResourceUtils.getFile(ResourceUtils.extractJarFileURL(url)).getAbsolutePath();
+			}
+			if (ResourceUtils.isFileURL(url)) {
+				return ResourceUtils.getFile(url).getAbsolutePath();
+			}
+		}
+		catch (FileNotFoundException ex) {
+			// not a file in the file system
+		}
+		catch (IOException ex) {
+			// malformed jar URL
+		}
+		return null;
+	}
+
+	private FileStamp getCurrentStamp(String path) {
+		if (this.currentStamps.containsKey(path)) {
+			return this.currentStamps.get(path);
+		}
+		File file = new File(path);
+		FileStamp stamp = (file.isFile() ? new FileStamp(file.length(), file.lastModified()) : null);
+		this.currentStamps.put(path, stamp);
+		return stamp;
+	}
+
+
+	/**
+	 * A cached snapshot along with the paths of the files it depends on.
+	 */
+	private static class CacheEntry {
+
+		final String[] dependencies;
+
+		final AnnotationMetadataSnapshot snapshot;
+
+		public CacheEntry(String[] dependencies, AnnotationMetadataSnapshot snapshot) {
+			this.dependencies = dependencies;
+			this.snapshot = snapshot;
+		}
+	}
+
+
+	/**
+	 * Size and last-modified timestamp of a file.
+	 */
+	private static class FileStamp {
+
+		final long size;
+
+		final long lastModified;
+
+		public FileStamp(long size, long lastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof FileStamp)) {
+				return false;
+			}
+			FileStamp otherStamp = (FileStamp) other;
+			return (this.size == otherStamp.size && this.lastModified == otherStamp.lastModified);
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (this.size ^ this.lastModified);
+		}
+	}
+
+
+	/**
+	 * {@link MetadataReader} exposing a cached snapshot.
+	 */
+	private static class SnapshotMetadataReader implements MetadataReader {
+
+		private final Resource resource;
+
+		private final AnnotationMetadataSnapshot snapshot;
+
+		public SnapshotMetadataReader(Resource resource, AnnotationMetadataSnapshot snapshot) {
+			this.resource = resource;
+			this.snapshot = snapshot;
+		}
+
+		public Resource getResource() {
+			return this.resource;
+		}
+
+		public ClassMetadata getClassMetadata() {
+			return this.snapshot;
+		}
+
+		public AnnotationMetadata getAnnotationMetadata() {
+			return this.snapshot;
+		}
+	}
+
+}
@@ -41,6 +41,11 @@ import java.util.regex.Pattern;
  * <li>{@code org/&#42;&#42;/servlet/bla.jsp} - matches {@code org/springframework/servlet/bla.jsp} but also
  * {@code org/springframework/testing/servlet/bla.jsp} and {@code org/servlet/bla.jsp}</li> </ul>
  *
+ * <p>As of 3.2.17, patterns are compiled once into a tokenized form which compares
+ * literal and simple wildcard segments without regular expressions, so that
+ * {@link #match} and {@link #matchStart} do not allocate for such patterns.
+ * See {@link #setCachePatterns} for details on the pattern cache.
+ *
  * @author Alef Arendsen
  * @author Juergen Hoeller
  * @author Rob Harrop
@@ -53,6 +58,8 @@ public class AntPathMatcher implements PathMatcher {
 	/** Default path separator: "/" */
 	public static final String DEFAULT_PATH_SEPARATOR = "/";
 
+	private static final int CACHE_TURNOFF_THRESHOLD = 65536;
+
 	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?\\}");
 
 
@@ -60,7 +67,16 @@ public class AntPathMatcher implements PathMatcher {
 
 	private boolean trimTokens = true;
 
-	private final Map<String, AntPathStringMatcher> stringMatcherCache =
+	private volatile Boolean cachePatterns;
+
+	private final boolean customPathTokenization =
+			(ReflectionUtils.findMethod(getClass(), "tokenizePath", String.class).getDeclaringClass() !=
+					AntPathMatcher.class);
+
+	final Map<String, CompiledPattern> compiledPatternCache =
+			new ConcurrentHashMap<String, CompiledPattern>(256);
+
+	final Map<String, AntPathStringMatcher> stringMatcherCache =
 			new ConcurrentHashMap<String, AntPathStringMatcher>(256);
 
 
@@ -70,6 +86,7 @@ public class AntPathMatcher implements PathMatcher {
 	 */
 	public void setPathSeparator(String pathSeparator) {
 		this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+		this.compiledPatternCache.clear();
 	}
 
 	/**
@@ -78,6 +95,27 @@ public class AntPathMatcher implements PathMatcher {
 	 */
 	public void setTrimTokens(boolean trimTokens) {
 		this.trimTokens = trimTokens;
+		this.compiledPatternCache.clear();
+	}
+
+	/**
+	 * Specify whether to cache compiled patterns passed into this matcher's
+	 * {@link #match} method. A value of {@code true} activates an unlimited
+	 * pattern cache; a value of {@code false} turns the pattern cache off completely.
+	 * <p>Default is for the cache to be on, but with the variant to automatically
+	 * turn it off when encountering too many patterns to cache at runtime
+	 * (the threshold is 65536), assuming that arbitrary permutations of patterns
+	 * are coming in, with little chance for encountering a recurring pattern.
+	 * @since 3.2.17
+	 */
+	public void setCachePatterns(boolean cachePatterns) {
+		this.cachePatterns = cachePatterns;
+	}
+
+	private void deactivatePatternCache() {
+		this.cachePatterns = false;
+		this.compiledPatternCache.clear();
+		this.stringMatcherCache.clear();
 	}
 
 
@@ -107,7 +145,12 @@ public class AntPathMatcher implements PathMatcher {
 			return false;
 		}
 
-		String[] pattDirs = tokenizePath(pattern);
+		CompiledPattern compiledPattern = compilePattern(pattern);
+		if (uriTemplateVariables == null && !this.customPathTokenization) {
+			return compiledPattern.matches(path, fullMatch);
+		}
+
+		String[] pattDirs = compiledPattern.tokens;
 		String[] pathDirs = tokenizePath(path);
 
 		int pattIdxStart = 0;
@@ -227,8 +270,40 @@ public class AntPathMatcher implements PathMatcher {
 		return true;
 	}
 
+	/**
+	 * Return the compiled form of the given pattern, from the pattern cache if possible.
+	 * @param pattern the pattern to compile
+	 * @return the compiled pattern
+	 * @see #setCachePatterns
+	 */
+	private CompiledPattern compilePattern(String pattern) {
+		CompiledPattern compiledPattern = null;
+		Boolean cachePatterns = this.cachePatterns;
+		if (cachePatterns == null || cachePatterns.booleanValue()) {
+			compiledPattern = this.compiledPatternCache.get(pattern);
+		}
+		if (compiledPattern == null) {
+			compiledPattern = new CompiledPattern(pattern, tokenizePath(pattern), this.pathSeparator, this.trimTokens);
+			if (cachePatterns == null && this.compiledPatternCache.size() >= CACHE_TURNOFF_THRESHOLD) {
+				// Try to adapt to the runtime situation that we're encountering:
+				// There are obviously too many different patterns coming in here...
+				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
+				deactivatePatternCache();
+				return compiledPattern;
+			}
+			if (cachePatterns == null || cachePatterns.booleanValue()) {
+				this.compiledPatternCache.put(pattern, compiledPattern);
+			}
+		}
+		return compiledPattern;
+	}
+
 	/**
 	 * Tokenize the given path String into parts, based on this matcher's settings.
+	 * <p>As of 3.2.17, this method is only invoked for patterns (once per pattern
+	 * if the pattern cache is active) and for paths matched with URI template
+	 * variable extraction, unless overridden in a subclass: paths passed to
+	 * {@link #match} and {@link #matchStart} are split into segments in place.
 	 * @param path the path to tokenize
 	 * @return the tokenized path parts
 	 */
@@ -245,10 +320,20 @@ public class AntPathMatcher implements PathMatcher {
 	 * @return {@code true} if the string matches against the pattern, or {@code false} otherwise.
 	 */
 	private boolean matchStrings(String pattern, String str, Map<String, String> uriTemplateVariables) {
-		AntPathStringMatcher matcher = this.stringMatcherCache.get(pattern);
+		AntPathStringMatcher matcher = null;
+		Boolean cachePatterns = this.cachePatterns;
+		if (cachePatterns == null || cachePatterns.booleanValue()) {
+			matcher = this.stringMatcherCache.get(pattern);
+		}
 		if (matcher == null) {
 			matcher = new AntPathStringMatcher(pattern);
-			this.stringMatcherCache.put(pattern, matcher);
+			if (cachePatterns == null && this.stringMatcherCache.size() >= CACHE_TURNOFF_THRESHOLD) {
+				deactivatePatternCache();
+				return matcher.matchStrings(str, uriTemplateVariables);
+			}
+			if (cachePatterns == null || cachePatterns.booleanValue()) {
+				this.stringMatcherCache.put(pattern, matcher);
+			}
 		}
 		return matcher.matchStrings(str, uriTemplateVariables);
 	}
@@ -490,6 +575,322 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 
+	/**
+	 * A pattern tokenized once into {@link PatternSegment PatternSegments},
+	 * matching paths by scanning their segments in place rather than tokenizing
+	 * them. Implements the same algorithm as {@link #doMatch}: segments up to the
+	 * first "**" are matched from the start of the path, segments after the last
+	 * "**" from the end of the path, and each group of segments between two
+	 * "**" at the first position where it fits.
+	 */
+	private static class CompiledPattern {
+
+		private final String[] tokens;
+
+		private final PatternSegment[] segments;
+
+		private final String pathSeparator;
+
+		private final boolean trimTokens;
+
+		private final boolean endsWithSeparator;
+
+		/** Index of the next "**" segment after each segment, or -1 */
+		private final int[] nextDoubleWildcard;
+
+		public CompiledPattern(String pattern, String[] tokens, String pathSeparator, boolean trimTokens) {
+			this.tokens = tokens;
+			this.segments = new PatternSegment[tokens.length];
+			for (int i = 0; i < tokens.length; i++) {
+				this.segments[i] = new PatternSegment(tokens[i]);
+			}
+			this.pathSeparator = pathSeparator;
+			this.trimTokens = trimTokens;
+			this.endsWithSeparator = pattern.endsWith(pathSeparator);
+			this.nextDoubleWildcard = new int[this.segments.length];
+			int next = -1;
+			for (int i = this.segments.length - 1; i >= 0; i--) {
+				this.nextDoubleWildcard[i] = next;
+				if (this.segments[i].doubleWildcard) {
+					next = i;
+				}
+			}
+		}
+
+		public boolean matches(String path, boolean fullMatch) {
+			PatternSegment[] segments = this.segments;
+			int pattIdxStart = 0;
+			int pattIdxEnd = segments.length - 1;
+			int pathStart = 0;
+			int pathEnd = path.length();
+
+			// Match all elements up to the first **
+			while (pattIdxStart <= pattIdxEnd && !segments[pattIdxStart].doubleWildcard) {
+				long segment = nextSegment(path, pathStart, pathEnd);
+				if (segment == -1) {
+					break;
+				}
+				if (!segments[pattIdxStart].matches(path, segmentStart(segment), segmentEnd(segment))) {
+					return false;
+				}
+				pathStart = segmentEnd(segment);
+				pattIdxStart++;
+			}
+
+			if (nextSegment(path, pathStart, pathEnd) == -1) {
+				// Path is exhausted, only match if rest of pattern is * or **'s
+				if (pattIdxStart > pattIdxEnd) {
+					return (this.endsWithSeparator ? path.endsWith(this.pathSeparator) :
+							!path.endsWith(this.pathSeparator));
+				}
+				if (!fullMatch) {
+					return true;
+				}
+				if (pattIdxStart == pattIdxEnd && this.tokens[pattIdxStart].equals("*") &&
+						path.endsWith(this.pathSeparator)) {
+					return true;
+				}
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+			else if (pattIdxStart > pattIdxEnd) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			else if (!fullMatch && segments[pattIdxStart].doubleWildcard) {
+				// Path start definitely matches due to "**" part in pattern.
+				return true;
+			}
+
+			// up to last '**'
+			while (pattIdxStart <= pattIdxEnd && !segments[pattIdxEnd].doubleWildcard) {
+				long segment = previousSegment(path, pathStart, pathEnd);
+				if (segment == -1) {
+					break;
+				}
+				if (!segments[pattIdxEnd].matches(path, segmentStart(segment), segmentEnd(segment))) {
+					return false;
+				}
+				pathEnd = segmentStart(segment);
+				pattIdxEnd--;
+			}
+			if (nextSegment(path, pathStart, pathEnd) == -1) {
+				// String is exhausted
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+
+			while (pattIdxStart != pattIdxEnd && nextSegment(path, pathStart, pathEnd) != -1) {
+				int patIdxTmp = this.nextDoubleWildcard[pattIdxStart];
+				if (patIdxTmp == pattIdxStart + 1) {
+					// '**/**' situation, so skip one
+					pattIdxStart++;
+					continue;
+				}
+				// Find the first position in the remaining path where the segments
+				// between pattIdxStart and patIdxTmp match
+				int foundEnd = -1;
+				int candidateStart = pathStart;
+				long candidate;
+				while (foundEnd == -1 && (candidate = nextSegment(path, candidateStart, pathEnd)) != -1) {
+					foundEnd = matchSegments(path, candidateStart, pathEnd, pattIdxStart + 1, patIdxTmp);
+					if (foundEnd == -2) {
+						// not enough path segments left for any further candidate either
+						return false;
+					}
+					candidateStart = segmentEnd(candidate);
+				}
+				if (foundEnd < 0) {
+					return false;
+				}
+				pattIdxStart = patIdxTmp;
+				pathStart = foundEnd;
+			}
+
+			return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+		}
+
+		/**
+		 * Match the pattern segments from {@code from} (inclusive) to {@code to}
+		 * (exclusive) against consecutive path segments starting at {@code pathStart}.
+		 * @return the end of the last matched path segment, -1 if a segment did not
+		 * match, or -2 if the path ran out of segments
+		 */
+		private int matchSegments(String path, int pathStart, int pathEnd, int from, int to) {
+			int pos = pathStart;
+			for (int i = from; i < to; i++) {
+				long segment = nextSegment(path, pos, pathEnd);
+				if (segment == -1) {
+					return -2;
+				}
+				if (!this.segments[i].matches(path, segmentStart(segment), segmentEnd(segment))) {
+					return -1;
+				}
+				pos = segmentEnd(segment);
+			}
+			return pos;
+		}
+
+		private boolean onlyDoubleWildcards(int from, int to) {
+			for (int i = from; i <= to; i++) {
+				if (!this.segments[i].doubleWildcard) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Find the next path segment within the given bounds, in the same way as
+		 * {@link StringUtils#tokenizeToStringArray} would tokenize the path:
+		 * each character of the path separator is a delimiter, tokens are
+		 * trimmed if necessary, and empty tokens are ignored.
+		 * @return the start and end index of the segment, encoded into a long,
+		 * or -1 if there is no further segment
+		 */
+		private long nextSegment(String path, int from, int to) {
+			int pos = from;
+			while (pos < to) {
+				while (pos < to && isSeparator(path.charAt(pos))) {
+					pos++;
+				}
+				int start = pos;
+				while (pos < to && !isSeparator(path.charAt(pos))) {
+					pos++;
+				}
+				int end = pos;
+				if (this.trimTokens) {
+					while (start < end && path.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && path.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					return ((long) start << 32) | end;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Find the previous path segment within the given bounds, scanning backwards.
+		 * @see #nextSegment
+		 */
+		private long previousSegment(String path, int from, int to) {
+			int pos = to;
+			while (pos > from) {
+				while (pos > from && isSeparator(path.charAt(pos - 1))) {
+					pos--;
+				}
+				int end = pos;
+				while (pos > from && !isSeparator(path.charAt(pos - 1))) {
+					pos--;
+				}
+				int start = pos;
+				if (this.trimTokens) {
+					while (start < end && path.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && path.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					return ((long) start << 32) | end;
+				}
+			}
+			return -1;
+		}
+
+		private boolean isSeparator(char c) {
+			return (this.pathSeparator.indexOf(c) != -1);
+		}
+
+		private static int segmentStart(long segment) {
+			return (int) (segment >>> 32);
+		}
+
+		private static int segmentEnd(long segment) {
+			return (int) segment;
+		}
+	}
+
+
+	/**
+	 * A single token of a compiled pattern: either "**", a literal, a simple
+	 * wildcard pattern with '*' and '?' only (both matched without regular
+	 * expressions), or a URI template pattern matched via {@link AntPathStringMatcher}.
+	 */
+	private static class PatternSegment {
+
+		private final String token;
+
+		private final boolean doubleWildcard;
+
+		private final boolean literal;
+
+		private final AntPathStringMatcher templateMatcher;
+
+		public PatternSegment(String token) {
+			this.token = token;
+			this.doubleWildcard = "**".equals(token);
+			this.literal = (token.indexOf('*') == -1 && token.indexOf('?') == -1 && token.indexOf('{') == -1);
+			this.templateMatcher = (token.indexOf('{') != -1 ? new AntPathStringMatcher(token) : null);
+		}
+
+		public boolean matches(String path, int start, int end) {
+			if (this.literal) {
+				return (this.token.length() == end - start && path.regionMatches(start, this.token, 0, end - start));
+			}
+			if (this.templateMatcher != null) {
+				return this.templateMatcher.matchStrings(path.substring(start, end), null);
+			}
+			return matchWildcards(path, start, end);
+		}
+
+		/**
+		 * Match '*' and '?' wildcards with the same semantics as the {@code .*} and
+		 * {@code .} expressions used by {@link AntPathStringMatcher}, which do not
+		 * match line terminators.
+		 */
+		private boolean matchWildcards(String path, int start, int end) {
+			String pattern = this.token;
+			int patternLength = pattern.length();
+			int patternIdx = 0;
+			int pathIdx = start;
+			int starIdx = -1;
+			int starPathIdx = -1;
+			while (pathIdx < end) {
+				char c = path.charAt(pathIdx);
+				char p = (patternIdx < patternLength ? pattern.charAt(patternIdx) : 0);
+				if (patternIdx < patternLength && p == '*') {
+					starIdx = patternIdx++;
+					starPathIdx = pathIdx;
+				}
+				else if (patternIdx < patternLength && (p == '?' ? !isLineTerminator(c) : p == c)) {
+					patternIdx++;
+					pathIdx++;
+				}
+				else if (starIdx != -1 && !isLineTerminator(path.charAt(starPathIdx))) {
+					patternIdx = starIdx + 1;
+					pathIdx = ++starPathIdx;
+				}
+				else {
+					return false;
+				}
+			}
+			while (patternIdx < patternLength && pattern.charAt(patternIdx) == '*') {
+				patternIdx++;
+			}
+			return (patternIdx == patternLength);
+		}
+
+		private static boolean isLineTerminator(char c) {
+			return (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029');
+		}
+	}
+
+
 	/**
 	 * Tests whether or not a string matches against a pattern via a {@link Pattern}.
 	 * <p>The pattern may contain special characters: '*' means zero or more characters; '?' means one and
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -55,6 +57,25 @@ public abstract class DigestUtils {
 		return digestAsHexString(MD5_ALGORITHM_NAME, bytes);
 	}
 
+	/**
+	 * Return a hexadecimal string representation of the MD5 digest of the given
+	 * stream, reading it in chunks rather than loading its content into memory.
+	 * <p>This method does <i>not</i> close the given stream.
+	 * @param inputStream the stream to calculate the digest over
+	 * @return a hexadecimal digest string
+	 * @throws IOException in case of I/O errors
+	 * @since 3.2.17
+	 */
+	public static String md5DigestAsHex(InputStream inputStream) throws IOException {
+		MessageDigest messageDigest = getDigest(MD5_ALGORITHM_NAME);
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = inputStream.read(buffer)) != -1) {
+			messageDigest.update(buffer, 0, bytesRead);
+		}
+		return new String(encodeHex(messageDigest.digest()));
+	}
+
 	/**
 	 * Append a hexadecimal string representation of the MD5 digest of the given
 	 * bytes to the given {@link StringBuilder}.
@@ -0,0 +1,8 @@
+
+/**
+ *
+ * Useful generic {@code java.util.concurrent.Future} extensions,
+ * allowing for completion callbacks to be registered on a Future.
+ *
+ */
+package org.springframework.util.concurrent;
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompactSerializer} and {@link CompactDeserializer}.
+ */
+public class CompactSerializerTests {
+
+	private final CompactSerializer serializer = new CompactSerializer();
+
+	private final CompactDeserializer deserializer = new CompactDeserializer(getClass().getClassLoader());
+
+
+	@Test
+	public void simpleValues() throws IOException {
+		Object[] values = {null, "Testing", "\u00e9\u4e2d\u0000", 42, -42L, Long.MIN_VALUE, true, false, 1.5d, 2.5f,
+				(short) -7, (byte) 3, 'x', String.class, int.class, TimeUnit.SECONDS, new Date(1234567890L),
+				new BigDecimal("123.45"), Locale.GERMANY};
+		for (Object value : values) {
+			assertEquals(value, roundTrip(value));
+		}
+	}
+
+	@Test
+	public void arrays() throws IOException {
+		assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) roundTrip(new byte[] {1, 2, 3}));
+		assertArrayEquals(new int[] {1, -2, Integer.MAX_VALUE}, (int[]) roundTrip(new int[] {1, -2, Integer.MAX_VALUE}));
+		assertArrayEquals(new long[] {Long.MAX_VALUE, -1}, (long[]) roundTrip(new long[] {Long.MAX_VALUE, -1}));
+		assertArrayEquals(new char[] {'a', '\u20ac'}, (char[]) roundTrip(new char[] {'a', '\u20ac'}));
+		assertArrayEquals(new Class<?>[] {String.class, int[].class},
+				(Class<?>[]) roundTrip(new Class<?>[] {String.class, int[].class}));
+		assertArrayEquals(new Object[] {"a", 1, null}, (Object[]) roundTrip(new Object[] {"a", 1, null}));
+	}
+
+	@Test
+	public void collectionsAndMaps() throws IOException {
+		List<Object> list = new ArrayList<Object>(Arrays.asList("a", 1, null));
+		assertEquals(list, roundTrip(list));
+		LinkedHashSet<String> set = new LinkedHashSet<String>(Arrays.asList("c", "a", "b"));
+		assertEquals(new ArrayList<String>(set), new ArrayList<Object>((LinkedHashSet<?>) roundTrip(set)));
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("key", Arrays.asList(1, 2));
+		map.put("other", null);
+		assertEquals(map, roundTrip(map));
+		TreeMap<String, String> sortedMap = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		sortedMap.put("B", "b");
+		sortedMap.put("a", "a");
+		TreeMap<?, ?> result = (TreeMap<?, ?>) roundTrip(sortedMap);
+		assertEquals(sortedMap, result);
+		assertNotNull("Comparator lost", result.comparator());
+	}
+
+	@Test
+	public void objectGraph() throws IOException {
+		Person father = new Person("Homer", 39);
+		Person son = new Person("Bart", 10);
+		son.parent = father;
+		father.children.add(son);
+		father.nickname = "Dad";
+
+		Person result = (Person) roundTrip(father);
+		assertEquals("Homer", result.name);
+		assertEquals(39, result.age);
+		assertNull("Transient field transferred", result.nickname);
+		assertEquals(1, result.children.size());
+		Person resultSon = result.children.get(0);
+		assertEquals("Bart", resultSon.name);
+		assertSame("Circular reference not preserved", result, resultSon.parent);
+	}
+
+	@Test
+	public void sharedReferences() throws IOException {
+		Person person = new Person("Lisa", 8);
+		Object[] result = (Object[]) roundTrip(new Object[] {person, person, "x"});
+		assertSame(result[0], result[1]);
+	}
+
+	@Test
+	public void customSerialization() throws IOException {
+		CustomSerialized value = new CustomSerialized();
+		value.value = "test";
+		assertEquals("test!", ((CustomSerialized) roundTrip(value)).value);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nonSerializablePayload() throws IOException {
+		serializer.serialize(new Object(), new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IOException.class)
+	public void nonSerializableField() throws IOException {
+		Holder holder = new Holder();
+		holder.value = new Object();
+		serializer.serialize(holder, new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IOException.class)
+	public void invalidStream() throws IOException {
+		deserializer.deserialize(new ByteArrayInputStream("Junk".getBytes()));
+	}
+
+	@Test
+	public void moreCompactThanJavaSerialization() throws IOException {
+		List<Person> persons = new ArrayList<Person>();
+		for (int i = 0; i < 100; i++) {
+			persons.add(new Person("Person " + i, i));
+		}
+		ByteArrayOutputStream compact = new ByteArrayOutputStream();
+		serializer.serialize(persons, compact);
+		ByteArrayOutputStream java = new ByteArrayOutputStream();
+		new DefaultSerializer().serialize(persons, java);
+		assertTrue("Compact form not smaller: " + compact.size() + " vs " + java.size(),
+				compact.size() < java.size());
+	}
+
+
+	private Object roundTrip(Object value) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		serializer.serialize(value, bos);
+		return deserializer.deserialize(new ByteArrayInputStream(bos.toByteArray()));
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class Person implements Serializable {
+
+		private String name;
+
+		private int age;
+
+		private transient String nickname;
+
+		private Person parent;
+
+		private final List<Person> children = new ArrayList<Person>();
+
+		private Person() {
+		}
+
+		public Person(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class CustomSerialized implements Serializable {
+
+		private String value;
+
+		private void writeObject(java.io.ObjectOutputStream out) throws IOException {
+			out.writeUTF(this.value + "!");
+		}
+
+		private void readObject(java.io.ObjectInputStream in) throws IOException {
+			this.value = in.readUTF();
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class Holder implements Serializable {
+
+		private Object value;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,17 @@
 
 package org.springframework.core.task;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import junit.framework.TestCase;
 
 import org.springframework.util.ConcurrencyThrottleSupport;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
 /**
  * @author Rick Evans
@@ -75,6 +81,48 @@ public final class SimpleAsyncTaskExecutorTests extends TestCase {
 		}
 	}
 
+	public void testSubmitListenableRunnable() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		ListenableFuture<?> future = executor.submitListenable(new NoOpRunnable());
+		ResultHarvester<Object> callback = new ResultHarvester<Object>();
+		future.addCallback(callback);
+		callback.await();
+		assertNull(callback.result.get());
+		assertNull(callback.failure.get());
+		assertTrue(future.isDone());
+	}
+
+	public void testSubmitListenableCallable() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		ListenableFuture<String> future = executor.submitListenable(new Callable<String>() {
+			@Override
+			public String call() {
+				return "foo";
+			}
+		});
+		ResultHarvester<String> callback = new ResultHarvester<String>();
+		future.addCallback(callback);
+		callback.await();
+		assertEquals("foo", callback.result.get());
+		assertEquals("foo", future.get());
+	}
+
+	public void testSubmitListenableCallableWithFailure() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		final IllegalStateException ex = new IllegalStateException("foo");
+		ListenableFuture<String> future = executor.submitListenable(new Callable<String>() {
+			@Override
+			public String call() {
+				throw ex;
+			}
+		});
+		ResultHarvester<String> callback = new ResultHarvester<String>();
+		future.addCallback(callback);
+		callback.await();
+		assertNull(callback.result.get());
+		assertSame(ex, callback.failure.get());
+	}
+
 	private void executeAndWait(SimpleAsyncTaskExecutor executor, Runnable task, Object monitor) {
 		synchronized (monitor) {
 			executor.execute(task);
@@ -96,6 +144,32 @@ public final class SimpleAsyncTaskExecutorTests extends TestCase {
 	}
 
 
+	private static final class ResultHarvester<T> implements ListenableFutureCallback<T> {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private final AtomicReference<T> result = new AtomicReference<T>();
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		@Override
+		public void onSuccess(T result) {
+			this.result.set(result);
+			this.latch.countDown();
+		}
+
+		@Override
+		public void onFailure(Throwable ex) {
+			this.failure.set(ex);
+			this.latch.countDown();
+		}
+
+		public void await() throws InterruptedException {
+			assertTrue("Callback not invoked", this.latch.await(5, TimeUnit.SECONDS));
+		}
+	}
+
+
 	private static abstract class AbstractNotifyingRunnable implements Runnable {
 
 		private final Object monitor;
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PersistentMetadataReaderFactory}.
+ */
+public class PersistentMetadataReaderFactoryTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File cacheFile;
+
+	private File classFile;
+
+
+	@Before
+	public void setUp() throws IOException {
+		this.cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		this.classFile = this.temporaryFolder.newFile("Sample.class");
+		FileCopyUtils.copy(getClassBytes(AnnotatedSample.class), this.classFile);
+	}
+
+
+	@Test
+	public void readsMetadataWithoutCacheFile() throws IOException {
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		assertSampleMetadata(factory.getMetadataReader(new FileSystemResource(this.classFile)).getAnnotationMetadata());
+		assertFalse(this.cacheFile.exists());
+	}
+
+	@Test
+	public void restoresMetadataFromCacheFile() throws IOException {
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		factory.getMetadataReader(new FileSystemResource(this.classFile));
+		factory.persist();
+		assertTrue(this.cacheFile.exists());
+
+		// same size and timestamp: the class file does not get parsed again
+		long lastModified = this.classFile.lastModified();
+		FileCopyUtils.copy(new byte[(int) this.classFile.length()], this.classFile);
+		this.classFile.setLastModified(lastModified);
+
+		factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		assertSampleMetadata(factory.getMetadataReader(new FileSystemResource(this.classFile)).getAnnotationMetadata());
+	}
+
+	@Test
+	public void restoresMetadataFromJar() throws IOException {
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		ClassPathResource resource = new ClassPathResource("org/junit/Test.class");
+		AnnotationMetadata metadata = factory.getMetadataReader(resource).getAnnotationMetadata();
+		factory.persist();
+
+		factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		AnnotationMetadata restored = factory.getMetadataReader(resource).getAnnotationMetadata();
+		assertEquals(metadata.getClassName(), restored.getClassName());
+		assertEquals(metadata.isInterface(), restored.isInterface());
+		assertEquals(metadata.getAnnotationTypes(), restored.getAnnotationTypes());
+		assertEquals(metadata.getAnnotationAttributes(Retention.class.getName()),
+				restored.getAnnotationAttributes(Retention.class.getName()));
+	}
+
+	@Test
+	public void invalidatesEntryForChangedFile() throws IOException {
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		factory.getMetadataReader(new FileSystemResource(this.classFile));
+		factory.persist();
+
+		FileCopyUtils.copy(getClassBytes(PlainSample.class), this.classFile);
+		this.classFile.setLastModified(this.classFile.lastModified() + 2000);
+
+		factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		AnnotationMetadata metadata = factory.getMetadataReader(new FileSystemResource(this.classFile)).getAnnotationMetadata();
+		assertEquals(PlainSample.class.getName(), metadata.getClassName());
+		assertFalse(metadata.isAnnotated(SampleAnnotation.class.getName()));
+	}
+
+	@Test
+	public void discardsCorruptCacheFile() throws IOException {
+		FileCopyUtils.copy(new byte[] {1, 2, 3}, this.cacheFile);
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		assertSampleMetadata(factory.getMetadataReader(new FileSystemResource(this.classFile)).getAnnotationMetadata());
+		factory.persist();
+
+		factory = new PersistentMetadataReaderFactory(this.cacheFile);
+		assertSampleMetadata(factory.getMetadataReader(new FileSystemResource(this.classFile)).getAnnotationMetadata());
+	}
+
+
+	private static byte[] getClassBytes(Class<?> clazz) throws IOException {
+		return FileCopyUtils.copyToByteArray(
+				new ClassPathResource(ClassUtils.getClassFileName(clazz), clazz).getInputStream());
+	}
+
+	private static void assertSampleMetadata(AnnotationMetadata metadata) {
+		assertEquals(AnnotatedSample.class.getName(), metadata.getClassName());
+		assertTrue(metadata.isAbstract());
+		assertTrue(metadata.hasEnclosingClass());
+		assertEquals(Runnable.class.getName(), metadata.getInterfaceNames()[0]);
+
+		AnnotationAttributes attributes = (AnnotationAttributes) metadata.getAnnotationAttributes(
+				SampleAnnotation.class.getName());
+		assertEquals("sample", attributes.getString("name"));
+		assertEquals(Integer.class, attributes.getClass("type"));
+		assertEquals(ElementType.FIELD, attributes.getEnum("elementType"));
+		assertArrayEquals(new int[] {1, 2}, (int[]) attributes.get("numbers"));
+		attributes = (AnnotationAttributes) metadata.getAnnotationAttributes(SampleAnnotation.class.getName(), true);
+		assertArrayEquals(new String[] {Integer.class.getName(), Long.class.getName()}, attributes.getStringArray("types"));
+
+		assertTrue(metadata.hasAnnotatedMethods(SampleAnnotation.class.getName()));
+		assertEquals("run", metadata.getAnnotatedMethods(SampleAnnotation.class.getName()).iterator().next().getMethodName());
+	}
+
+
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface SampleAnnotation {
+
+		String name() default "";
+
+		Class<?> type() default Void.class;
+
+		Class<?>[] types() default {};
+
+		ElementType elementType() default ElementType.TYPE;
+
+		int[] numbers() default {};
+	}
+
+
+	@SampleAnnotation(name = "sample", type = Integer.class, types = {Integer.class, Long.class},
+			elementType = ElementType.FIELD, numbers = {1, 2})
+	public static abstract class AnnotatedSample implements Runnable {
+
+		@SampleAnnotation
+		public void run() {
+		}
+	}
+
+
+	public static class PlainSample {
+	}
+
+}
@@ -554,4 +554,59 @@ public class AntPathMatcherTests {
 		assertTrue(pathMatcher.match("/group/{groupName}/members", "/group/  sales/members"));
 	}
 
+	@Test
+	public void compiledPatternsMatchLikeTokenizedPaths() {
+		// overriding tokenizePath switches off in-place path segmentation
+		AntPathMatcher tokenizingMatcher = new AntPathMatcher() {
+			@Override
+			protected String[] tokenizePath(String path) {
+				return super.tokenizePath(path);
+			}
+		};
+		String[] patterns = {"", "/", "test", "/test", "/test/", "/t?st", "/*", "/*/", "/**", "/**/", "**",
+			"/bla/**", "/bla/**/bla", "/**/bla", "/bla/*/bla", "/*bla*/**/bla/**", "/**/*bla", "/x/x/**/bla",
+			"/x/**/x/**/x", "/**/**/bla", "/foo/{bar}/baz", "/{a}/{b}.html", "*.html", "/foo/*.*", "/f?o*/b*r",
+			"/a/**/b/c/**/d", "/docs/**/*.html", "test*aaa", "/x/*/y/**/z/*"};
+		String[] paths = {"", "/", "test", "/test", "/test/", "/tast", "/bla", "/bla/", "/bla/bla", "/bla/x/bla",
+			"/bla/x/y/bla", "/XXXblaXXXX/testing/testing/bla/testit/foo", "/x/x/y/bla", "/x/x/x", "/x/y/x/z/x",
+			"/foo/bar/baz", "/foo/x/y/baz", "/1/2.html", "x.html", "/x.html", "/foo/a.b", "/fxoooo/baaar",
+			"/a/x/b/c/y/d", "/a/b/c/d", "/a/b/x/c/d", "/docs/a/b/c.html", "testXaaa", "/x/1/y/2/3/z/4",
+			"//test//", "/ test /", "bla/bla", "/bla\nx/bla", "/x\ny"};
+		for (String pattern : patterns) {
+			for (String path : paths) {
+				assertEquals(pattern + " vs " + path, tokenizingMatcher.match(pattern, path), pathMatcher.match(pattern, path));
+				assertEquals(pattern + " vs " + path, tokenizingMatcher.matchStart(pattern, path),
+						pathMatcher.matchStart(pattern, path));
+			}
+		}
+	}
+
+	@Test
+	public void patternCacheDeactivatedBeyondThreshold() {
+		assertTrue(pathMatcher.match("/bla/**/bla", "/bla/x/y/bla"));
+		assertTrue(pathMatcher.match("/bla/**/bla", "/bla/x/y/bla"));
+		assertEquals(1, pathMatcher.compiledPatternCache.size());
+		for (int i = 0; i < 65536; i++) {
+			pathMatcher.match("/test" + i, "/test");
+		}
+		// Cache turned off because it went beyond the threshold
+		assertTrue(pathMatcher.compiledPatternCache.isEmpty());
+		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
+
+		assertTrue(pathMatcher.match("/test*", "/test1"));
+		assertFalse(pathMatcher.match("/test?", "/test10"));
+		assertTrue(pathMatcher.compiledPatternCache.isEmpty());
+		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
+	}
+
+	@Test
+	public void patternCacheOff() {
+		pathMatcher.setCachePatterns(false);
+		assertTrue(pathMatcher.match("/bla/**/bla", "/bla/x/y/bla"));
+		assertTrue(pathMatcher.match("/bla/**/bla", "/bla/x/y/bla"));
+		assertTrue(pathMatcher.match("/t?st*", "/test1"));
+		assertTrue(pathMatcher.compiledPatternCache.isEmpty());
+		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2009 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 
 import static org.junit.Assert.*;
@@ -45,6 +47,12 @@ public class DigestUtilsTests {
 		assertEquals("Invalid hash", "b10a8db164e0754105b7a99be72e3fe5", hash);
 	}
 
+	@Test
+	public void md5HexFromStream() throws IOException {
+		String hash = DigestUtils.md5DigestAsHex(new ByteArrayInputStream(bytes));
+		assertEquals("Invalid hash", "b10a8db164e0754105b7a99be72e3fe5", hash);
+	}
+
 	@Test
 	public void md5StringBuilder() throws UnsupportedEncodingException {
 		StringBuilder builder = new StringBuilder();
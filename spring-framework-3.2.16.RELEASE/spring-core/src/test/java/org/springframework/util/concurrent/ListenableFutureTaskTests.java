@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util.concurrent;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ListenableFutureTask} and {@link ListenableFutureAdapter}.
+ */
+public class ListenableFutureTaskTests {
+
+	@Test
+	public void success() throws Exception {
+		final String s = "Hello World";
+		Callable<String> callable = new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return s;
+			}
+		};
+		ListenableFutureTask<String> task = new ListenableFutureTask<String>(callable);
+		final AtomicReference<String> result = new AtomicReference<String>();
+		task.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String value) {
+				result.set(value);
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				fail(ex.getMessage());
+			}
+		});
+		task.run();
+		assertEquals(s, result.get());
+		assertEquals(s, task.get());
+	}
+
+	@Test
+	public void failure() throws Exception {
+		final String s = "Hello World";
+		Callable<String> callable = new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				throw new IOException(s);
+			}
+		};
+		ListenableFutureTask<String> task = new ListenableFutureTask<String>(callable);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		task.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				fail("onSuccess not expected");
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				failure.set(ex);
+			}
+		});
+		task.run();
+		assertTrue(failure.get() instanceof IOException);
+		assertEquals(s, failure.get().getMessage());
+	}
+
+	@Test
+	public void callbackAddedAfterCompletion() throws Exception {
+		ListenableFutureTask<String> task = new ListenableFutureTask<String>(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, "done");
+		task.run();
+		final AtomicReference<String> result = new AtomicReference<String>();
+		task.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String value) {
+				result.set(value);
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				fail(ex.getMessage());
+			}
+		});
+		assertEquals("done", result.get());
+	}
+
+	@Test
+	public void cancellation() throws Exception {
+		ListenableFutureTask<String> task = new ListenableFutureTask<String>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "not expected";
+			}
+		});
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		task.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				fail("onSuccess not expected");
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				failure.set(ex);
+			}
+		});
+		assertTrue(task.cancel(false));
+		assertTrue(failure.get() instanceof CancellationException);
+	}
+
+	@Test
+	public void adapter() throws Exception {
+		ListenableFutureTask<Integer> task = new ListenableFutureTask<Integer>(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return 42;
+			}
+		});
+		ListenableFuture<String> adapted = new ListenableFutureAdapter<String, Integer>(task) {
+			@Override
+			protected String adapt(Integer result) throws ExecutionException {
+				return "#" + result;
+			}
+		};
+		final AtomicReference<String> result = new AtomicReference<String>();
+		adapted.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String value) {
+				result.set(value);
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				fail(ex.getMessage());
+			}
+		});
+		task.run();
+		assertEquals("#42", result.get());
+		assertEquals("#42", adapted.get());
+	}
+
+	@Test
+	public void adapterFailure() throws Exception {
+		ListenableFutureTask<Integer> task = new ListenableFutureTask<Integer>(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return 42;
+			}
+		});
+		ListenableFuture<String> adapted = new ListenableFutureAdapter<String, Integer>(task) {
+			@Override
+			protected String adapt(Integer result) throws ExecutionException {
+				throw new ExecutionException(new IllegalStateException("adapt failed"));
+			}
+		};
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		adapted.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String value) {
+				fail("onSuccess not expected");
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				failure.set(ex);
+			}
+		});
+		task.run();
+		assertTrue(failure.get() instanceof IllegalStateException);
+		try {
+			adapted.get();
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Manages the generation of bytecode for a compiled expression. Tracks the type of the
+ * value on top of the operand stack for each compilation scope, so that AST nodes know
+ * whether they operate on the result of a previous node or on the root object, and
+ * provides helpers for boxing, unboxing and casting between stack types.
+ *
+ * <p>Within the generated {@code getValue(Object, EvaluationContext)} method, local
+ * variable 1 holds the root object and local variable 2 the evaluation context.
+ *
+ * @since 3.2.17
+ */
+public class CodeFlow implements Opcodes {
+
+	private static final Map<Class<?>, Class<?>> primitiveTypes = new HashMap<Class<?>, Class<?>>(16);
+
+	static {
+		primitiveTypes.put(Boolean.class, boolean.class);
+		primitiveTypes.put(Byte.class, byte.class);
+		primitiveTypes.put(Character.class, char.class);
+		primitiveTypes.put(Double.class, double.class);
+		primitiveTypes.put(Float.class, float.class);
+		primitiveTypes.put(Integer.class, int.class);
+		primitiveTypes.put(Long.class, long.class);
+		primitiveTypes.put(Short.class, short.class);
+	}
+
+
+	/**
+	 * Each scope holds the types of the values produced within it; a new scope is
+	 * entered for operands and method arguments, which are evaluated against the root.
+	 */
+	private final Stack<List<Class<?>>> compilationScopes = new Stack<List<Class<?>>>();
+
+
+	public CodeFlow() {
+		this.compilationScopes.push(new ArrayList<Class<?>>());
+	}
+
+
+	/**
+	 * Push the root object of the evaluation onto the operand stack.
+	 */
+	public void loadTarget(MethodVisitor mv) {
+		mv.visitVarInsn(ALOAD, 1);
+	}
+
+	/**
+	 * Push the evaluation context onto the operand stack.
+	 */
+	public void loadEvaluationContext(MethodVisitor mv) {
+		mv.visitVarInsn(ALOAD, 2);
+	}
+
+	/**
+	 * Record the type of the value that has just been left on the operand stack.
+	 */
+	public void pushType(Class<?> type) {
+		this.compilationScopes.peek().add(type);
+	}
+
+	/**
+	 * Return the type of the value on top of the operand stack in the current scope,
+	 * or {@code null} if nothing has been produced in the current scope yet.
+	 */
+	public Class<?> lastType() {
+		List<Class<?>> scope = this.compilationScopes.peek();
+		return (scope.isEmpty() ? null : scope.get(scope.size() - 1));
+	}
+
+	/**
+	 * Enter a new compilation scope, typically for an operand or method argument.
+	 */
+	public void enterCompilationScope() {
+		this.compilationScopes.push(new ArrayList<Class<?>>());
+	}
+
+	/**
+	 * Exit the current compilation scope.
+	 */
+	public void exitCompilationScope() {
+		this.compilationScopes.pop();
+	}
+
+
+	/**
+	 * Discard the value on top of the operand stack, if any.
+	 * @param type the type of the value on the stack (may be {@code null})
+	 */
+	public static void insertPop(MethodVisitor mv, Class<?> type) {
+		if (type != null) {
+			mv.visitInsn(type == long.class || type == double.class ? POP2 : POP);
+		}
+	}
+
+	/**
+	 * Box the value on top of the operand stack if it is of a primitive type.
+	 * @param type the type of the value on the stack
+	 */
+	public static void insertBoxIfNecessary(MethodVisitor mv, Class<?> type) {
+		if (type != null && type.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(type);
+			mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+					Type.getMethodDescriptor(Type.getType(wrapperType), new Type[] {Type.getType(type)}));
+		}
+	}
+
+	/**
+	 * Unbox the wrapper object on top of the operand stack.
+	 * @param primitiveType the primitive type to unbox to
+	 */
+	public static void insertUnboxInsns(MethodVisitor mv, Class<?> primitiveType) {
+		Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(primitiveType);
+		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(wrapperType), primitiveType.getName() + "Value",
+				Type.getMethodDescriptor(Type.getType(primitiveType), new Type[0]));
+	}
+
+	/**
+	 * Cast the reference on top of the operand stack if its type is not
+	 * assignable to the required type.
+	 */
+	public static void insertCheckCast(MethodVisitor mv, Class<?> stackType, Class<?> requiredType) {
+		if (stackType == null || !requiredType.isAssignableFrom(stackType)) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(requiredType));
+		}
+	}
+
+	/**
+	 * Convert the value on top of the operand stack to the required type, applying
+	 * boxing, unboxing, primitive widening and casts as necessary. Callers are expected
+	 * to have verified that the conversion is legal through {@link #isConvertible}.
+	 * @param stackType the type of the value on the stack
+	 * @param requiredType the type that is required
+	 */
+	public static void insertConversion(MethodVisitor mv, Class<?> stackType, Class<?> requiredType) {
+		if (requiredType.isPrimitive()) {
+			Class<?> primitiveStackType = stackType;
+			if (!stackType.isPrimitive()) {
+				primitiveStackType = toPrimitive(stackType);
+				if (primitiveStackType == null) {
+					primitiveStackType = requiredType;
+					mv.visitTypeInsn(CHECKCAST, Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(requiredType)));
+				}
+				insertUnboxInsns(mv, primitiveStackType);
+			}
+			if (primitiveStackType != requiredType) {
+				insertWidening(mv, primitiveStackType, requiredType);
+			}
+		}
+		else {
+			if (stackType.isPrimitive()) {
+				insertBoxIfNecessary(mv, stackType);
+				stackType = ClassUtils.resolvePrimitiveIfNecessary(stackType);
+			}
+			insertCheckCast(mv, stackType, requiredType);
+		}
+	}
+
+	private static void insertWidening(MethodVisitor mv, Class<?> fromType, Class<?> toType) {
+		if (fromType == int.class) {
+			if (toType == long.class) {
+				mv.visitInsn(I2L);
+				return;
+			}
+			if (toType == double.class) {
+				mv.visitInsn(I2D);
+				return;
+			}
+		}
+		else if (fromType == long.class && toType == double.class) {
+			mv.visitInsn(L2D);
+			return;
+		}
+		throw new IllegalStateException("Cannot convert from " + fromType + " to " + toType);
+	}
+
+	/**
+	 * Determine whether a value of the given stack type can be converted to the
+	 * required type through {@link #insertConversion}, without any conversion
+	 * other than boxing, unboxing and casting to a supertype.
+	 */
+	public static boolean isConvertible(Class<?> stackType, Class<?> requiredType) {
+		return (stackType != null && ClassUtils.isAssignable(requiredType, stackType));
+	}
+
+	/**
+	 * Determine whether the given type is {@code boolean} or {@code Boolean}.
+	 */
+	public static boolean isBooleanCompatible(Class<?> type) {
+		return (type == boolean.class || type == Boolean.class);
+	}
+
+	/**
+	 * Return the primitive numeric type that SpEL operators use for values of the given
+	 * type: {@code int}, {@code long} or {@code double} (for the primitive type or its
+	 * wrapper), or {@code null} if the given type is not one of these.
+	 */
+	public static Class<?> toPrimitiveNumeric(Class<?> type) {
+		if (type == null) {
+			return null;
+		}
+		Class<?> primitiveType = (type.isPrimitive() ? type : toPrimitive(type));
+		if (primitiveType == int.class || primitiveType == long.class || primitiveType == double.class) {
+			return primitiveType;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the primitive type for the given wrapper type,
+	 * or {@code null} if the given type is not a primitive wrapper.
+	 */
+	public static Class<?> toPrimitive(Class<?> wrapperType) {
+		return primitiveTypes.get(wrapperType);
+	}
+
+	/**
+	 * Determine whether values of the given type can be accessed from generated code,
+	 * that is, whether the type and all its enclosing types are public.
+	 */
+	public static boolean isPublic(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+			if (!Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
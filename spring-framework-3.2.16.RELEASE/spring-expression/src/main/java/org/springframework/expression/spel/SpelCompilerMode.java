@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+/**
+ * Captures the possible configuration settings for a compiler that can be
+ * used when evaluating expressions.
+ *
+ * @since 3.2.17
+ * @see SpelParserConfiguration#getCompilerMode()
+ */
+public enum SpelCompilerMode {
+
+	/**
+	 * The compiler is switched off; this is the default.
+	 */
+	OFF,
+
+	/**
+	 * In immediate mode, expressions are compiled as soon as possible, i.e. once
+	 * a first interpreted evaluation has established the types involved. If a
+	 * compiled expression fails, the exception is propagated to the caller.
+	 */
+	IMMEDIATE,
+
+	/**
+	 * In mixed mode, expressions are interpreted a number of times before being
+	 * compiled. If a compiled expression fails (for example because the types
+	 * involved have changed), evaluation silently reverts to the interpreter
+	 * and the expression may be compiled again later on, until its compiled
+	 * form has failed 100 times.
+	 * <p>Note that the interpreter evaluates the entire expression again: methods
+	 * that the compiled form invoked before failing get invoked a second time.
+	 * Use {@link #IMMEDIATE} mode for expressions with side effects that must
+	 * not be repeated.
+	 */
+	MIXED
+
+}
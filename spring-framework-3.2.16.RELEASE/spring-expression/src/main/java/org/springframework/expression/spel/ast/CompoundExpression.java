@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 
@@ -92,6 +94,29 @@ public class CompoundExpression extends SpelNodeImpl {
 		return getValueRef(state).isWritable();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		for (SpelNodeImpl child : this.children) {
+			if (!child.isCompilable()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		return this.children[this.children.length - 1].getExitType();
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		// Each component operates on the value left on the stack by the previous one
+		for (SpelNodeImpl child : this.children) {
+			child.generateCode(mv, cf);
+		}
+	}
+
 	@Override
 	public String toStringAST() {
 		StringBuilder sb = new StringBuilder();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.InternalParseException;
 import org.springframework.expression.spel.SpelEvaluationException;
@@ -62,6 +65,38 @@ public abstract class Literal extends SpelNodeImpl {
 
 	public abstract TypedValue getLiteralValue();
 
+	@Override
+	public boolean isCompilable() {
+		Object value = getLiteralValue().getValue();
+		return (value == null || value instanceof String || value instanceof Boolean ||
+				value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double);
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		Object value = getLiteralValue().getValue();
+		if (value == null) {
+			return Object.class;
+		}
+		Class<?> type = value.getClass();
+		return (type == String.class ? type : CodeFlow.toPrimitive(type));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		Object value = getLiteralValue().getValue();
+		if (value == null) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		}
+		else if (value instanceof Boolean) {
+			mv.visitInsn(((Boolean) value) ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+		}
+		else {
+			mv.visitLdcInsn(value);
+		}
+		cf.pushType(getExitType());
+	}
+
 
 	/**
 	 * Process the string form of a number, using the specified base if supplied and return an appropriate literal to
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,15 @@
 package org.springframework.expression.spel.ast;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
@@ -29,10 +34,13 @@ import org.springframework.expression.ExpressionInvocationTargetException;
 import org.springframework.expression.MethodExecutor;
 import org.springframework.expression.MethodResolver;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.support.ReflectiveMethodExecutor;
 import org.springframework.expression.spel.support.ReflectiveMethodResolver;
+import org.springframework.util.ClassUtils;
 
 /**
  * Expression language AST node that represents a method reference.
@@ -235,6 +243,74 @@ public class MethodReference extends SpelNodeImpl {
 		return sb.toString();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		Method method = getCompilableMethod();
+		if (method == null) {
+			return false;
+		}
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (!this.children[i].isCompilable() ||
+					!CodeFlow.isConvertible(this.children[i].getExitType(), parameterTypes[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		Method method = getCompilableMethod();
+		return (method != null ? method.getReturnType() : null);
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		Method method = getCompilableMethod();
+		if (method == null) {
+			throw new IllegalStateException("Method reference '" + this.name + "' is not compilable");
+		}
+		Class<?> stackType = cf.lastType();
+		if (stackType == null) {
+			cf.loadTarget(mv);
+		}
+		else if (stackType.isPrimitive()) {
+			CodeFlow.insertBoxIfNecessary(mv, stackType);
+			stackType = ClassUtils.resolvePrimitiveIfNecessary(stackType);
+		}
+		Class<?> declaringClass = method.getDeclaringClass();
+		CodeFlow.insertCheckCast(mv, stackType, declaringClass);
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			// Arguments are evaluated against the root object
+			generateCodeForOperand(this.children[i], parameterTypes[i], mv, cf);
+		}
+		mv.visitMethodInsn((declaringClass.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL),
+				Type.getInternalName(declaringClass), method.getName(), Type.getMethodDescriptor(method));
+		cf.pushType(method.getReturnType());
+	}
+
+	/**
+	 * Return the method that has been invoked by previous evaluations, provided that
+	 * it is an instance method that can be invoked directly from compiled code.
+	 */
+	private Method getCompilableMethod() {
+		CachedMethodExecutor executorToCheck = this.cachedExecutor;
+		if (this.nullSafe || executorToCheck == null || executorToCheck.staticClass != null ||
+				!(executorToCheck.get() instanceof ReflectiveMethodExecutor)) {
+			return null;
+		}
+		Method method = ((ReflectiveMethodExecutor) executorToCheck.get()).getMethod();
+		int modifiers = method.getModifiers();
+		if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || method.isVarArgs() ||
+				method.getReturnType() == void.class || method.getParameterTypes().length != getChildCount() ||
+				!CodeFlow.isPublic(method.getDeclaringClass())) {
+			return null;
+		}
+		return method;
+	}
+
 
 	private class MethodValueRef implements ValueRef {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.support.BooleanTypedValue;
 
@@ -52,4 +55,19 @@ public class OpLE extends Operator {
 		return BooleanTypedValue.forValue( state.getTypeComparator().compare(left, right) <= 0);
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return isCompilableComparison();
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		return boolean.class;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		generateComparisonCode(mv, cf, Opcodes.IFGT, true);
+	}
+
 }
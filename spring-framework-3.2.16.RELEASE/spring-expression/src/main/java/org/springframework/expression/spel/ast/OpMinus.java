@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Operation;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 
 /**
@@ -98,4 +101,19 @@ public class OpMinus extends Operator {
 		return children[1];
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return isCompilableNumericOperation();
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		return getNumericOperationType();
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		generateArithmeticCode(mv, cf, (getRightOperand() == null ? Opcodes.INEG : Opcodes.ISUB));
+	}
+
 }
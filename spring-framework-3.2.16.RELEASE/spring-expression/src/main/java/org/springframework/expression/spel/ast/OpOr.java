@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,11 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -63,4 +67,34 @@ public class OpOr extends Operator {
 		}
 	}
 
+	@Override
+	public boolean isCompilable() {
+		for (SpelNodeImpl child : this.children) {
+			if (!child.isCompilable() || !CodeFlow.isBooleanCompatible(child.getExitType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		return boolean.class;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		// Pseudo: if (leftOperandValue) { result=true; } else { result=rightOperandValue; }
+		Label elseTarget = new Label();
+		Label endOfIf = new Label();
+		generateCodeForOperand(getLeftOperand(), boolean.class, mv, cf);
+		mv.visitJumpInsn(Opcodes.IFNE, elseTarget);
+		generateCodeForOperand(getRightOperand(), boolean.class, mv, cf);
+		mv.visitJumpInsn(Opcodes.GOTO, endOfIf);
+		mv.visitLabel(elseTarget);
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitLabel(endOfIf);
+		cf.pushType(boolean.class);
+	}
+
 }
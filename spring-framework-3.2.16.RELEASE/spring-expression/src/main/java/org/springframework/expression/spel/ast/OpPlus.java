@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,14 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Operation;
 import org.springframework.expression.TypeConverter;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.util.Assert;
 
@@ -114,6 +117,58 @@ public class OpPlus extends Operator {
 		return children[1];
 	}
 
+	/**
+	 * Compilable for numeric operands and for the concatenation of two operands
+	 * of type String.
+	 */
+	@Override
+	public boolean isCompilable() {
+		return (isCompilableNumericOperation() || isCompilableStringConcatenation());
+	}
+
+	private boolean isCompilableStringConcatenation() {
+		return (this.children.length == 2 && isCompilableOperands() &&
+				getLeftOperand().getExitType() == String.class && getRightOperand().getExitType() == String.class);
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		Class<?> type = getNumericOperationType();
+		if (type == null && isCompilableStringConcatenation()) {
+			type = String.class;
+		}
+		return type;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (getNumericOperationType() != null) {
+			if (getRightOperand() == null) {
+				// unary plus leaves the operand as it is
+				generateCodeForOperand(getLeftOperand(), getNumericOperationType(), mv, cf);
+				cf.pushType(getNumericOperationType());
+			}
+			else {
+				generateArithmeticCode(mv, cf, Opcodes.IADD);
+			}
+		}
+		else if (isCompilableStringConcatenation()) {
+			mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V");
+			for (SpelNodeImpl child : this.children) {
+				generateCodeForOperand(child, String.class, mv, cf);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+						"(Ljava/lang/String;)Ljava/lang/StringBuilder;");
+			}
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
+			cf.pushType(String.class);
+		}
+		else {
+			throw new IllegalStateException("Operator '+' is not compilable");
+		}
+	}
+
 	/**
 	 * Convert operand value to string using registered converter or using
 	 * {@code toString} method.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,12 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.CodeFlow;
 
 /**
  * Common supertype for operators that operate on either one or two operands. In the case of multiply or divide there
@@ -61,4 +67,187 @@ public abstract class Operator extends SpelNodeImpl {
 		return sb.toString();
 	}
 
+	/**
+	 * Determine whether all operands are compilable and of a numeric type that compiled
+	 * code handles with the same promotion rules as the interpreter: {@code int},
+	 * {@code long} or {@code double}, or their wrapper types.
+	 */
+	protected boolean isCompilableNumericOperation() {
+		return (isCompilableOperands() && getNumericOperationType() != null);
+	}
+
+	/**
+	 * Determine whether all operands are compilable and have a known exit type.
+	 */
+	protected boolean isCompilableOperands() {
+		for (SpelNodeImpl child : this.children) {
+			if (!child.isCompilable() || child.getExitType() == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the primitive type a numeric operation on the operands is performed in,
+	 * or {@code null} if not all operands are of a supported numeric type.
+	 * @see CodeFlow#toPrimitiveNumeric
+	 */
+	protected Class<?> getNumericOperationType() {
+		Class<?> result = int.class;
+		for (SpelNodeImpl child : this.children) {
+			Class<?> type = CodeFlow.toPrimitiveNumeric(child.getExitType());
+			if (type == null) {
+				return null;
+			}
+			if (type == double.class || (type == long.class && result == int.class)) {
+				result = type;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Generate code for a numeric operation, converting all operands to the common
+	 * operation type and applying the given instruction.
+	 * @param intOpcode the instruction for {@code int} operands, e.g. {@code IADD};
+	 * the corresponding {@code long} or {@code double} instruction is used as appropriate
+	 */
+	protected void generateArithmeticCode(MethodVisitor mv, CodeFlow cf, int intOpcode) {
+		Class<?> type = getNumericOperationType();
+		if (type == null) {
+			throw new IllegalStateException("Operator '" + this.operatorName + "' is not compilable");
+		}
+		for (SpelNodeImpl child : this.children) {
+			generateCodeForOperand(child, type, mv, cf);
+		}
+		mv.visitInsn(Type.getType(type).getOpcode(intOpcode));
+		cf.pushType(type);
+	}
+
+	/**
+	 * Determine whether this relational operator can be compiled: both operands are
+	 * either of a supported numeric type, or of types that can never hold a number,
+	 * which are compared through the {@link org.springframework.expression.TypeComparator}.
+	 */
+	protected boolean isCompilableComparison() {
+		if (!isCompilableOperands()) {
+			return false;
+		}
+		if (getNumericOperationType() != null) {
+			return true;
+		}
+		for (SpelNodeImpl child : this.children) {
+			if (!isNonNumericType(child.getExitType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isNonNumericType(Class<?> type) {
+		if (type.isPrimitive()) {
+			return (type == boolean.class || type == char.class);
+		}
+		return (!type.isInterface() && !Number.class.isAssignableFrom(type) && !type.isAssignableFrom(Number.class));
+	}
+
+	/**
+	 * Generate code for a relational operator, leaving a {@code boolean} on the stack.
+	 * @param falseJumpOpcode the {@code IFxx} instruction that tests the result of a
+	 * comparison with zero for the case that the operator evaluates to {@code false}
+	 * @param nanAsGreater whether a comparison with {@code NaN} should be treated as
+	 * "greater" (rather than "less") in order to evaluate to {@code false}
+	 */
+	protected void generateComparisonCode(MethodVisitor mv, CodeFlow cf, int falseJumpOpcode, boolean nanAsGreater) {
+		Label elseTarget = new Label();
+		Label endOfIf = new Label();
+		Class<?> type = getNumericOperationType();
+		if (type != null) {
+			generateCodeForOperand(getLeftOperand(), type, mv, cf);
+			generateCodeForOperand(getRightOperand(), type, mv, cf);
+			if (type == int.class) {
+				mv.visitJumpInsn(falseJumpOpcode + (Opcodes.IF_ICMPEQ - Opcodes.IFEQ), elseTarget);
+			}
+			else {
+				mv.visitInsn(type == long.class ? Opcodes.LCMP : (nanAsGreater ? Opcodes.DCMPG : Opcodes.DCMPL));
+				mv.visitJumpInsn(falseJumpOpcode, elseTarget);
+			}
+		}
+		else {
+			cf.loadEvaluationContext(mv);
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, "org/springframework/expression/EvaluationContext",
+					"getTypeComparator", "()Lorg/springframework/expression/TypeComparator;");
+			generateCodeForOperand(getLeftOperand(), Object.class, mv, cf);
+			generateCodeForOperand(getRightOperand(), Object.class, mv, cf);
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, "org/springframework/expression/TypeComparator",
+					"compare", "(Ljava/lang/Object;Ljava/lang/Object;)I");
+			mv.visitJumpInsn(falseJumpOpcode, elseTarget);
+		}
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitJumpInsn(Opcodes.GOTO, endOfIf);
+		mv.visitLabel(elseTarget);
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitLabel(endOfIf);
+		cf.pushType(boolean.class);
+	}
+
+	/**
+	 * Generate code for an equality check, leaving a {@code boolean} on the stack.
+	 * Numeric operands are compared directly, anything else is delegated to
+	 * {@link #equalityCheck(EvaluationContext, Object, Object)}.
+	 * @param negate whether to generate code for "not equal"
+	 */
+	protected void generateEqualityCode(MethodVisitor mv, CodeFlow cf, boolean negate) {
+		if (getNumericOperationType() != null) {
+			generateComparisonCode(mv, cf, (negate ? Opcodes.IFEQ : Opcodes.IFNE), false);
+			return;
+		}
+		cf.loadEvaluationContext(mv);
+		generateCodeForOperand(getLeftOperand(), Object.class, mv, cf);
+		generateCodeForOperand(getRightOperand(), Object.class, mv, cf);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "org/springframework/expression/spel/ast/Operator", "equalityCheck",
+				"(Lorg/springframework/expression/EvaluationContext;Ljava/lang/Object;Ljava/lang/Object;)Z");
+		if (negate) {
+			mv.visitInsn(Opcodes.ICONST_1);
+			mv.visitInsn(Opcodes.IXOR);
+		}
+		cf.pushType(boolean.class);
+	}
+
+	/**
+	 * Perform an equality check for the given operand values.
+	 * <p>This method is not just used for reflective comparisons in subclasses
+	 * but also from compiled expression code, which is why it needs to be
+	 * declared as {@code public static} here.
+	 * @param context the current evaluation context
+	 * @param left the left-hand operand value
+	 * @param right the right-hand operand value
+	 * @since 3.2.17
+	 */
+	public static boolean equalityCheck(EvaluationContext context, Object left, Object right) {
+		if (left instanceof Number && right instanceof Number) {
+			Number op1 = (Number) left;
+			Number op2 = (Number) right;
+			if (op1 instanceof Double || op2 instanceof Double) {
+				return (op1.doubleValue() == op2.doubleValue());
+			}
+			else if (op1 instanceof Float || op2 instanceof Float) {
+				return (op1.floatValue() == op2.floatValue());
+			}
+			else if (op1 instanceof Long || op2 instanceof Long) {
+				return (op1.longValue() == op2.longValue());
+			}
+			else {
+				return (op1.intValue() == op2.intValue());
+			}
+		}
+		if (left != null && (left instanceof Comparable)) {
+			return (context.getTypeComparator().compare(left, right) == 0);
+		}
+		else {
+			return (left == right);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -58,4 +61,27 @@ public class OperatorNot extends SpelNodeImpl { // Not is a unary operator so do
 		return sb.toString();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		for (SpelNodeImpl child : this.children) {
+			if (!child.isCompilable() || !CodeFlow.isBooleanCompatible(child.getExitType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		return boolean.class;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		generateCodeForOperand(this.children[0], boolean.class, mv, cf);
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitInsn(Opcodes.IXOR);
+		cf.pushType(boolean.class);
+	}
+
 }
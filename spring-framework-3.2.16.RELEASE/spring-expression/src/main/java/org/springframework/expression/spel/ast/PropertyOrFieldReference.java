@@ -16,21 +16,30 @@
 
 package org.springframework.expression.spel.ast;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.util.ClassUtils;
 
 /**
  * Represents a simple property or field reference.
@@ -160,6 +169,69 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		return this.name;
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return (!this.nullSafe && getCompilableMember(this.cachedReadAccessor) != null);
+	}
+
+	@Override
+	public Class<?> getExitType() {
+		Member member = getCompilableMember(this.cachedReadAccessor);
+		if (member instanceof Method) {
+			return ((Method) member).getReturnType();
+		}
+		if (member instanceof Field) {
+			return ((Field) member).getType();
+		}
+		return null;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		Member member = getCompilableMember(this.cachedReadAccessor);
+		if (this.nullSafe || member == null) {
+			throw new IllegalStateException("Property or field '" + this.name + "' is not compilable");
+		}
+		Class<?> stackType = cf.lastType();
+		if (stackType == null) {
+			cf.loadTarget(mv);
+		}
+		else if (stackType.isPrimitive()) {
+			CodeFlow.insertBoxIfNecessary(mv, stackType);
+			stackType = ClassUtils.resolvePrimitiveIfNecessary(stackType);
+		}
+		Class<?> declaringClass = member.getDeclaringClass();
+		CodeFlow.insertCheckCast(mv, stackType, declaringClass);
+		if (member instanceof Method) {
+			Method method = (Method) member;
+			mv.visitMethodInsn((declaringClass.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL),
+					Type.getInternalName(declaringClass), method.getName(), Type.getMethodDescriptor(method));
+			cf.pushType(method.getReturnType());
+		}
+		else {
+			Field field = (Field) member;
+			mv.visitFieldInsn(Opcodes.GETFIELD, Type.getInternalName(declaringClass), field.getName(),
+					Type.getDescriptor(field.getType()));
+			cf.pushType(field.getType());
+		}
+	}
+
+	/**
+	 * Return the member that the given read accessor uses, provided that it can be
+	 * accessed directly from compiled code.
+	 */
+	private static Member getCompilableMember(PropertyAccessor accessor) {
+		if (accessor instanceof ReflectivePropertyAccessor.OptimalPropertyAccessor) {
+			Member member = ((ReflectivePropertyAccessor.OptimalPropertyAccessor) accessor).getMember();
+			int modifiers = member.getModifiers();
+			if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) &&
+					CodeFlow.isPublic(member.getDeclaringClass())) {
+				return member;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Attempt to read the named property from the current context object.
 	 * @return the value of the property
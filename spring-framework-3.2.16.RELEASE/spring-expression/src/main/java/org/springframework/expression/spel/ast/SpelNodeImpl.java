@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,11 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.common.ExpressionUtils;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -149,4 +151,54 @@ public abstract class SpelNodeImpl implements SpelNode {
 	protected ValueRef getValueRef(ExpressionState state) throws EvaluationException {
 		throw new SpelEvaluationException(pos,SpelMessage.NOT_ASSIGNABLE,toStringAST());
 	}
+
+	/**
+	 * Check whether a node can be compiled to bytecode. The reasoning in each node may
+	 * be different but will typically involve checking whether the types involved are
+	 * known from previous interpreted evaluations and whether the members used are
+	 * accessible from generated code.
+	 * @return {@code true} if this node can be compiled to bytecode
+	 */
+	public boolean isCompilable() {
+		return false;
+	}
+
+	/**
+	 * Return the type of the value this node leaves on the operand stack in compiled
+	 * code (possibly a primitive type), or {@code null} if not known yet.
+	 */
+	public Class<?> getExitType() {
+		return null;
+	}
+
+	/**
+	 * Generate the bytecode for this node into the supplied visitor. Context info about
+	 * the current expression being compiled is available in the codeflow object, e.g.
+	 * including information about the type of the object currently on the stack.
+	 * @param mv the ASM MethodVisitor into which code should be generated
+	 * @param cf a context object with info about what is on the stack
+	 * @throws IllegalStateException if code cannot be generated for this node,
+	 * in which case the expression will not be compiled
+	 */
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		throw new IllegalStateException(getClass().getName() + " has no generateCode(..) method");
+	}
+
+	/**
+	 * Generate the code for the given child node in a new compilation scope, i.e. with
+	 * the root object as active context object, converting the result to the given type.
+	 */
+	protected static void generateCodeForOperand(SpelNodeImpl operand, Class<?> requiredType,
+			MethodVisitor mv, CodeFlow cf) {
+
+		cf.enterCompilationScope();
+		try {
+			operand.generateCode(mv, cf);
+			CodeFlow.insertConversion(mv, cf.lastType(), requiredType);
+		}
+		finally {
+			cf.exitCompilationScope();
+		}
+	}
+
 }
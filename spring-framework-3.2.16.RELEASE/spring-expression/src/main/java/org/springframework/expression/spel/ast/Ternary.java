@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2009 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,12 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -62,4 +66,39 @@ public class Ternary extends SpelNodeImpl {
 				.append(" : ").append(getChild(2).toStringAST()).toString();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return (this.children[0].isCompilable() && this.children[1].isCompilable() &&
+				this.children[2].isCompilable() && CodeFlow.isBooleanCompatible(this.children[0].getExitType()) &&
+				getExitType() != null);
+	}
+
+	/**
+	 * Returns the exit type of the alternatives if they agree, {@code Object} otherwise.
+	 */
+	@Override
+	public Class<?> getExitType() {
+		Class<?> leftType = this.children[1].getExitType();
+		Class<?> rightType = this.children[2].getExitType();
+		if (leftType == null || rightType == null) {
+			return null;
+		}
+		return (leftType == rightType ? leftType : Object.class);
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		Class<?> exitType = getExitType();
+		Label elseTarget = new Label();
+		Label endOfIf = new Label();
+		generateCodeForOperand(this.children[0], boolean.class, mv, cf);
+		mv.visitJumpInsn(Opcodes.IFEQ, elseTarget);
+		generateCodeForOperand(this.children[1], exitType, mv, cf);
+		mv.visitJumpInsn(Opcodes.GOTO, endOfIf);
+		mv.visitLabel(elseTarget);
+		generateCodeForOperand(this.children[2], exitType, mv, cf);
+		mv.visitLabel(endOfIf);
+		cf.pushType(exitType);
+	}
+
 }
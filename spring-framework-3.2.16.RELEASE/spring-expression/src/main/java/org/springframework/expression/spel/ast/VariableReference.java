@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.util.ClassUtils;
 
 /**
  * Represents a variable reference, eg. #someVar. Note this is different to a *local* variable like $someVar
@@ -35,6 +39,9 @@ public class VariableReference extends SpelNodeImpl {
 
 	private final String name;
 
+	// The type of the value in the most recent evaluation, Object for a null value
+	private volatile Class<?> valueType;
+
 
 	public VariableReference(String variableName, int pos) {
 		super(pos);
@@ -85,14 +92,22 @@ public class VariableReference extends SpelNodeImpl {
 
 	@Override
 	public TypedValue getValueInternal(ExpressionState state) throws SpelEvaluationException {
+		TypedValue result;
 		if (this.name.equals(THIS)) {
-			return state.getActiveContextObject();
+			result = state.getActiveContextObject();
 		}
-		if (this.name.equals(ROOT)) {
-			return state.getRootContextObject();
+		else if (this.name.equals(ROOT)) {
+			result = state.getRootContextObject();
+		}
+		else {
+			result = state.lookupVariable(this.name);
+			// a null value will mean either the value was null or the variable was not found
+		}
+		Object value = result.getValue();
+		Class<?> valueType = (value != null ? value.getClass() : Object.class);
+		if (valueType != this.valueType) {
+			this.valueType = valueType;
 		}
-		TypedValue result = state.lookupVariable(this.name);
-		// a null value will mean either the value was null or the variable was not found
 		return result;
 	}
 
@@ -111,4 +126,56 @@ public class VariableReference extends SpelNodeImpl {
 		return !(this.name.equals(THIS) || this.name.equals(ROOT));
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return (this.valueType != null);
+	}
+
+	/**
+	 * Returns the most specific public type of the value observed in the most
+	 * recent evaluation; compiled code casts the variable value to that type.
+	 */
+	@Override
+	public Class<?> getExitType() {
+		Class<?> type = this.valueType;
+		while (type != null && !CodeFlow.isPublic(type)) {
+			type = type.getSuperclass();
+		}
+		return type;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		Class<?> exitType = getExitType();
+		if (exitType == null) {
+			throw new IllegalStateException("Variable '" + this.name + "' has not been evaluated yet");
+		}
+		Class<?> stackType = cf.lastType();
+		if (this.name.equals(THIS)) {
+			if (stackType == null) {
+				cf.loadTarget(mv);
+				stackType = Object.class;
+			}
+			else if (stackType.isPrimitive()) {
+				CodeFlow.insertBoxIfNecessary(mv, stackType);
+				stackType = ClassUtils.resolvePrimitiveIfNecessary(stackType);
+			}
+		}
+		else {
+			CodeFlow.insertPop(mv, stackType);
+			if (this.name.equals(ROOT)) {
+				cf.loadTarget(mv);
+			}
+			else {
+				cf.loadEvaluationContext(mv);
+				mv.visitLdcInsn(this.name);
+				mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, "org/springframework/expression/EvaluationContext",
+						"lookupVariable", "(Ljava/lang/String;)Ljava/lang/Object;");
+			}
+			stackType = Object.class;
+		}
+		CodeFlow.insertCheckCast(mv, stackType, exitType);
+		cf.pushType(exitType);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,11 @@ import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.common.ExpressionUtils;
+import org.springframework.expression.spel.CompiledExpression;
 import org.springframework.expression.spel.ExpressionState;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.SpelNode;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.ast.SpelNodeImpl;
@@ -35,11 +39,25 @@ import org.springframework.util.Assert;
  * standalone or in a specified context. During expression evaluation the context
  * may be asked to resolve references to types, beans, properties, and methods.
  *
+ * <p>Depending on the {@link SpelCompilerMode} of the parser configuration, an
+ * expression that has been evaluated a number of times is compiled to bytecode
+ * by the {@link SpelCompiler}; subsequent evaluations use the compiled form.
+ *
  * @author Andy Clement
  * @since 3.0
  */
 public class SpelExpression implements Expression {
 
+	// Number of times to interpret an expression before compiling it in MIXED mode
+	private static final int INTERPRETED_COUNT_THRESHOLD = 100;
+
+	// Number of times to try compiling an expression before giving up
+	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
+
+	// Marker for a failed evaluation of the compiled form of an expression
+	private static final Object COMPILED_EVALUATION_FAILED = new Object();
+
+
 	private final String expression;
 
 	private final SpelNodeImpl ast;
@@ -49,6 +67,17 @@ public class SpelExpression implements Expression {
 	// the default context is used if no override is supplied by the user
 	private EvaluationContext defaultContext;
 
+	// Holds the compiled form of the expression (if it has been compiled)
+	private volatile CompiledExpression compiledAst;
+
+	// Count of many times as the expression been interpreted - can trigger compilation
+	// when certain limit reached
+	private volatile int interpretedCount = 0;
+
+	// The number of times compilation was attempted and failed - enables us to eventually
+	// give up trying to compile it when it just doesn't seem to be possible.
+	private volatile int failedAttempts = 0;
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -63,44 +92,115 @@ public class SpelExpression implements Expression {
 	// implementing Expression
 
 	public Object getValue() throws EvaluationException {
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			EvaluationContext context = getEvaluationContext();
+			Object result = evaluateCompiledExpression(compiledAst, context.getRootObject().getValue(), context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return result;
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), configuration);
-		return ast.getValue(expressionState);
+		Object result = ast.getValue(expressionState);
+		checkCompile();
+		return result;
 	}
 
 	public Object getValue(Object rootObject) throws EvaluationException {
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			Object result = evaluateCompiledExpression(compiledAst, rootObject, getEvaluationContext());
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return result;
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), toTypedValue(rootObject), configuration);
-		return ast.getValue(expressionState);
+		Object result = ast.getValue(expressionState);
+		checkCompile();
+		return result;
 	}
 
 	public <T> T getValue(Class<T> expectedResultType) throws EvaluationException {
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			EvaluationContext context = getEvaluationContext();
+			Object result = evaluateCompiledExpression(compiledAst, context.getRootObject().getValue(), context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), configuration);
 		TypedValue typedResultValue = ast.getTypedValue(expressionState);
+		checkCompile();
 		return ExpressionUtils.convertTypedValue(expressionState.getEvaluationContext(), typedResultValue, expectedResultType);
 	}
 
 	public <T> T getValue(Object rootObject, Class<T> expectedResultType) throws EvaluationException {
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			EvaluationContext context = getEvaluationContext();
+			Object result = evaluateCompiledExpression(compiledAst, rootObject, context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
+			}
+		}
 		ExpressionState expressionState = new ExpressionState(getEvaluationContext(), toTypedValue(rootObject), configuration);
 		TypedValue typedResultValue = ast.getTypedValue(expressionState);
+		checkCompile();
 		return ExpressionUtils.convertTypedValue(expressionState.getEvaluationContext(), typedResultValue, expectedResultType);
 	}
 
 	public Object getValue(EvaluationContext context) throws EvaluationException {
 		Assert.notNull(context, "The EvaluationContext is required");
-		return ast.getValue(new ExpressionState(context, configuration));
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			Object result = evaluateCompiledExpression(compiledAst, context.getRootObject().getValue(), context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return result;
+			}
+		}
+		Object result = ast.getValue(new ExpressionState(context, configuration));
+		checkCompile();
+		return result;
 	}
 
 	public Object getValue(EvaluationContext context, Object rootObject) throws EvaluationException {
 		Assert.notNull(context, "The EvaluationContext is required");
-		return ast.getValue(new ExpressionState(context, toTypedValue(rootObject), configuration));
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			Object result = evaluateCompiledExpression(compiledAst, rootObject, context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return result;
+			}
+		}
+		Object result = ast.getValue(new ExpressionState(context, toTypedValue(rootObject), configuration));
+		checkCompile();
+		return result;
 	}
 
 	public <T> T getValue(EvaluationContext context, Class<T> expectedResultType) throws EvaluationException {
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			Object result = evaluateCompiledExpression(compiledAst, context.getRootObject().getValue(), context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
+			}
+		}
 		TypedValue typedResultValue = ast.getTypedValue(new ExpressionState(context, configuration));
+		checkCompile();
 		return ExpressionUtils.convertTypedValue(context, typedResultValue, expectedResultType);
 	}
 
 	public <T> T getValue(EvaluationContext context, Object rootObject, Class<T> expectedResultType) throws EvaluationException {
+		CompiledExpression compiledAst = this.compiledAst;
+		if (compiledAst != null) {
+			Object result = evaluateCompiledExpression(compiledAst, rootObject, context);
+			if (result != COMPILED_EVALUATION_FAILED) {
+				return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
+			}
+		}
 		TypedValue typedResultValue = ast.getTypedValue(new ExpressionState(context, toTypedValue(rootObject), configuration));
+		checkCompile();
 		return ExpressionUtils.convertTypedValue(context, typedResultValue, expectedResultType);
 	}
 
@@ -180,6 +280,110 @@ public class SpelExpression implements Expression {
 
 	// impl only
 
+	/**
+	 * Perform expression compilation. This will only succeed once exit descriptors for
+	 * all nodes have been determined. If the compilation fails and has failed more than
+	 * 100 times the expression is no longer considered suitable for compilation. In
+	 * {@link SpelCompilerMode#MIXED MIXED} mode, each failure of the compiled form at
+	 * evaluation time counts as a failed attempt as well.
+	 * @return {@code true} if the expression has been compiled
+	 */
+	public boolean compileExpression() {
+		if (this.compiledAst != null) {
+			// Previously compiled
+			return true;
+		}
+		if (this.failedAttempts > FAILED_ATTEMPTS_THRESHOLD) {
+			// Don't try again
+			return false;
+		}
+		synchronized (this) {
+			if (this.compiledAst != null) {
+				// Compiled by another thread before this thread got into the sync block
+				return true;
+			}
+			SpelCompiler compiler = SpelCompiler.getCompiler(this.configuration.getCompilerClassLoader());
+			CompiledExpression rc = compiler.compile(this.ast);
+			if (rc != null) {
+				// Successfully compiled
+				this.compiledAst = rc;
+				return true;
+			}
+			else {
+				// Failed to compile
+				this.failedAttempts++;
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Cause an expression to revert to being interpreted if it has been using a compiled
+	 * form. It also resets the compilation attempt failure count (an expression is normally no
+	 * longer considered compilable if it cannot be compiled after 100 attempts).
+	 */
+	public void revertToInterpreted() {
+		this.compiledAst = null;
+		this.interpretedCount = 0;
+		this.failedAttempts = 0;
+	}
+
+	/**
+	 * Compile the expression if it has been evaluated more than the threshold number
+	 * of times, as determined by the configured {@link SpelCompilerMode}.
+	 */
+	private void checkCompile() {
+		SpelCompilerMode compilerMode = this.configuration.getCompilerMode();
+		if (compilerMode == SpelCompilerMode.OFF) {
+			return;
+		}
+		this.interpretedCount++;
+		if (compilerMode == SpelCompilerMode.IMMEDIATE || this.interpretedCount > INTERPRETED_COUNT_THRESHOLD) {
+			compileExpression();
+		}
+	}
+
+	/**
+	 * Evaluate the given compiled form of this expression.
+	 * @return the result of the evaluation, or {@link #COMPILED_EVALUATION_FAILED} if the
+	 * compiled form failed in {@link SpelCompilerMode#MIXED MIXED} mode and the expression
+	 * needs to be interpreted instead
+	 */
+	private Object evaluateCompiledExpression(CompiledExpression compiledAst, Object rootObject,
+			EvaluationContext context) {
+
+		try {
+			return compiledAst.getValue(rootObject, context);
+		}
+		catch (Exception ex) {
+			// Compiled code invokes target methods directly, so checked exceptions
+			// thrown by them arrive here undeclared rather than wrapped
+			return handleCompiledExpressionFailure(ex);
+		}
+		catch (LinkageError err) {
+			return handleCompiledExpressionFailure(err);
+		}
+	}
+
+	private Object handleCompiledExpressionFailure(Throwable ex) {
+		if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
+			// The types may have changed since the expression was compiled:
+			// revert to interpreted mode and allow for recompilation later on.
+			// The caller re-evaluates the whole expression with the interpreter,
+			// repeating any method invocations that happened before the failure.
+			// Runtime failures count as failed attempts, so that an expression whose
+			// compiled form keeps failing does not get compiled again and again.
+			this.compiledAst = null;
+			this.interpretedCount = 0;
+			this.failedAttempts++;
+			return COMPILED_EVALUATION_FAILED;
+		}
+		if (ex instanceof SpelEvaluationException) {
+			throw (SpelEvaluationException) ex;
+		}
+		throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+	}
+
 	/**
 	 * @return return the Abstract Syntax Tree for the expression
 	 */
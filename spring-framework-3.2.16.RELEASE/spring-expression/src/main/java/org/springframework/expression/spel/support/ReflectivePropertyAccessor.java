@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -550,8 +550,10 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	 * may be invoked to access different properties on different classes. This optimal
 	 * accessor exists because looking up the appropriate reflective object by class/name
 	 * on each read is not cheap.
+	 * <p>Exposes the resolved member so that expressions accessing the property can be
+	 * compiled to direct invocations (see {@link org.springframework.expression.spel.standard.SpelCompiler}).
 	 */
-	private static class OptimalPropertyAccessor implements PropertyAccessor {
+	public static class OptimalPropertyAccessor implements PropertyAccessor {
 
 		private final Member member;
 
@@ -574,6 +576,14 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 			}
 		}
 
+		/**
+		 * Return the getter method or field this accessor reads the property through.
+		 * @since 3.2.17
+		 */
+		public Member getMember() {
+			return this.member;
+		}
+
 		public Class<?>[] getSpecificTargetClasses() {
 			throw new UnsupportedOperationException("Should not be called on an OptimalPropertyAccessor");
 		}
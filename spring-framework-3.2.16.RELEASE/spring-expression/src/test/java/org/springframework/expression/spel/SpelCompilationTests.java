@@ -0,0 +1,420 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ReflectionUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the compilation of expressions to bytecode, checking that compiled
+ * expressions produce the same results as interpreted ones.
+ */
+public class SpelCompilationTests {
+
+	private final SpelExpressionParser mixedParser =
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+
+	private StandardEvaluationContext context;
+
+
+	@Before
+	public void setUp() {
+		this.context = new StandardEvaluationContext(new Person("Ian", 42));
+		this.context.setVariable("limit", 40);
+	}
+
+
+	@Test
+	public void literals() {
+		assertEquals(3, compileAndEvaluate("3"));
+		assertEquals(3L, compileAndEvaluate("3L"));
+		assertEquals(3.5d, compileAndEvaluate("3.5"));
+		assertEquals("abc", compileAndEvaluate("'abc'"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("true"));
+		assertNull(compileAndEvaluate("null"));
+	}
+
+	@Test
+	public void propertiesAndMethods() {
+		assertEquals("Ian", compileAndEvaluate("name"));
+		assertEquals(42, compileAndEvaluate("age"));
+		assertEquals(3, compileAndEvaluate("name.length()"));
+		assertEquals("an", compileAndEvaluate("name.substring(1, 3)"));
+		assertEquals("Ian!", compileAndEvaluate("name.concat('!')"));
+		assertEquals("Ian", compileAndEvaluate("publicName"));
+		assertEquals("Ian", compileAndEvaluate("greet(name).substring(6)"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("olderThan(#limit)"));
+		assertEquals("42", compileAndEvaluate("age.toString()"));
+	}
+
+	@Test
+	public void variables() {
+		assertEquals(40, compileAndEvaluate("#limit"));
+		assertEquals("Ian", compileAndEvaluate("#root.name"));
+		assertEquals("Ian", compileAndEvaluate("#this.name"));
+		assertEquals(2, compileAndEvaluate("name.length() - 1"));
+		assertNull(compileAndEvaluate("#undefined"));
+	}
+
+	@Test
+	public void booleanOperators() {
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age > 18 and name != null"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("age < 18 and 1 == 1"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age < 18 or name == 'Ian'"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("!(age > #limit)"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("adult"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("!adult or false"));
+	}
+
+	@Test
+	public void relationalOperators() {
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age == 42"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age != 41"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age >= 42"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("age > 42"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age <= 42L"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("age < 41.5"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("name < 'Z'"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("name == 'Andy'"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("name == publicName"));
+		assertEquals(Boolean.TRUE, compileAndEvaluate("age == #limit + 2"));
+		assertEquals(Boolean.FALSE, compileAndEvaluate("weight > weight"));
+	}
+
+	@Test
+	public void arithmeticOperators() {
+		assertEquals(85, compileAndEvaluate("age * 2 + 1"));
+		assertEquals(21.25d, compileAndEvaluate("(age + 0.5) / 2"));
+		assertEquals(-42, compileAndEvaluate("-age"));
+		assertEquals(42, compileAndEvaluate("+age"));
+		assertEquals(2, compileAndEvaluate("age % 5"));
+		assertEquals(84L, compileAndEvaluate("age * 2L"));
+		assertEquals(21, compileAndEvaluate("age / 2"));
+		assertEquals("Ian Smith", compileAndEvaluate("name + ' Smith'"));
+	}
+
+	@Test
+	public void ternary() {
+		assertEquals("adult", compileAndEvaluate("age >= 18 ? 'adult' : 'minor'"));
+		assertEquals(42, compileAndEvaluate("adult ? age : 0"));
+		assertEquals("Ian", compileAndEvaluate("age < 18 ? 0 : name"));
+	}
+
+	@Test
+	public void notCompilableBeforeEvaluation() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("name");
+		assertFalse(expression.compileExpression());
+		expression.getValue(this.context);
+		assertTrue(expression.compileExpression());
+	}
+
+	@Test
+	public void notCompilableForNonPublicMembers() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("secret");
+		assertEquals("hidden", expression.getValue(new PrivateHolder()));
+		assertFalse(expression.compileExpression());
+		assertEquals("hidden", expression.getValue(new PrivateHolder()));
+	}
+
+	@Test
+	public void notCompilableForUnsupportedNodes() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("{1,2,3}[1]");
+		assertEquals(2, expression.getValue(this.context));
+		assertFalse(expression.compileExpression());
+		expression = (SpelExpression) this.mixedParser.parseExpression("name?.length()");
+		assertEquals(3, expression.getValue(this.context));
+		assertFalse(expression.compileExpression());
+	}
+
+	@Test
+	public void compiledAfterThresholdInMixedMode() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("name");
+		for (int i = 0; i < 100; i++) {
+			assertEquals("Ian", expression.getValue(this.context));
+		}
+		assertFalse(isCompiled(expression));
+		expression.getValue(this.context);
+		assertTrue(isCompiled(expression));
+		assertEquals("Ian", expression.getValue(this.context));
+	}
+
+	@Test
+	public void fallbackToInterpreterWhenTypesChangeInMixedMode() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("name.length()");
+		assertEquals(3, expression.getValue(new Person("Ian", 42)));
+		assertTrue(expression.compileExpression());
+		assertEquals(4, expression.getValue(new Person("Andy", 42)));
+		assertEquals(6, expression.getValue(new Pet("Buster")));
+		assertFalse(isCompiled(expression));
+		assertTrue(expression.compileExpression());
+		assertEquals(4, expression.getValue(new Pet("Fido")));
+	}
+
+	@Test
+	public void fallbackToInterpreterWhenArgumentTypesChangeInMixedMode() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("echo(#var)");
+		this.context.setVariable("var", 42);
+		assertEquals("int: 42", expression.getValue(this.context));
+		assertTrue(expression.compileExpression());
+		assertEquals("int: 42", expression.getValue(this.context));
+		this.context.setVariable("var", "Deep Thought");
+		assertEquals("String: Deep Thought", expression.getValue(this.context));
+		this.context.setVariable("var", null);
+		assertEquals("String: null", expression.getValue(this.context));
+	}
+
+	@Test
+	public void fallbackToInterpreterRepeatsMethodInvocationsInMixedMode() {
+		Sequence sequence = new Sequence();
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("next().name");
+		assertEquals("Ian", expression.getValue(sequence));
+		assertTrue(expression.compileExpression());
+		// the compiled form invokes next() and then fails on the changed return type,
+		// so the interpreter invokes next() once more
+		assertEquals("Buster", expression.getValue(sequence));
+		assertEquals(3, sequence.count);
+		assertFalse(isCompiled(expression));
+	}
+
+	@Test
+	public void repeatedFallbacksStopRecompilationInMixedMode() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("name");
+		Set<Object> compiledForms = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		int compiledFormsBefore = 0;
+		for (int i = 0; i < 150; i++) {
+			for (int j = 0; j <= 100; j++) {
+				assertEquals("Ian", expression.getValue(new Person("Ian", 42)));
+			}
+			if (isCompiled(expression)) {
+				compiledForms.add(getCompiledAst(expression));
+			}
+			// the compiled form fails on the different root object type
+			assertEquals("Buster", expression.getValue(new Pet("Buster")));
+			if (i == 120) {
+				compiledFormsBefore = compiledForms.size();
+			}
+		}
+		assertTrue(compiledForms.size() > 1);
+		assertEquals(compiledFormsBefore, compiledForms.size());
+		assertFalse(isCompiled(expression));
+		assertFalse(expression.compileExpression());
+	}
+
+	@Test
+	public void checkedExceptionFromCompiledMethodInvocation() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("riskyName(#fail)");
+		this.context.setVariable("fail", false);
+		assertEquals("Ian", expression.getValue(this.context));
+		assertTrue(expression.compileExpression());
+		assertEquals("Ian", expression.getValue(this.context));
+		this.context.setVariable("fail", true);
+		try {
+			expression.getValue(this.context);
+			fail("Should have thrown EvaluationException");
+		}
+		catch (EvaluationException ex) {
+			// interpreted after the compiled form failed
+			assertTrue(ex.getCause() instanceof IOException);
+		}
+		assertFalse(isCompiled(expression));
+
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, getClass().getClassLoader()));
+		expression = (SpelExpression) parser.parseExpression("riskyName(#fail)");
+		this.context.setVariable("fail", false);
+		assertEquals("Ian", expression.getValue(this.context));
+		assertTrue(isCompiled(expression));
+		this.context.setVariable("fail", true);
+		try {
+			expression.getValue(this.context);
+			fail("Should have thrown SpelEvaluationException");
+		}
+		catch (SpelEvaluationException ex) {
+			assertEquals(SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION, ex.getMessageCode());
+			assertTrue(ex.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void failureInImmediateMode() {
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, getClass().getClassLoader()));
+		SpelExpression expression = (SpelExpression) parser.parseExpression("name");
+		assertEquals("Ian", expression.getValue(new Person("Ian", 42)));
+		assertTrue(isCompiled(expression));
+		assertEquals("Andy", expression.getValue(new Person("Andy", 42)));
+		try {
+			expression.getValue(new Pet("Buster"));
+			fail("Should have failed with a SpelEvaluationException");
+		}
+		catch (SpelEvaluationException ex) {
+			assertEquals(SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION, ex.getMessageCode());
+			assertTrue(ex.getCause() instanceof ClassCastException);
+		}
+		expression.revertToInterpreted();
+		assertFalse(isCompiled(expression));
+		assertEquals("Buster", expression.getValue(new Pet("Buster")));
+	}
+
+	@Test
+	public void notCompiledWhenOff() {
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.OFF, getClass().getClassLoader()));
+		SpelExpression expression = (SpelExpression) parser.parseExpression("name");
+		for (int i = 0; i < 200; i++) {
+			assertEquals("Ian", expression.getValue(this.context));
+		}
+		assertFalse(isCompiled(expression));
+	}
+
+	@Test
+	public void typedValueConversion() {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression("age");
+		assertEquals("42", expression.getValue(this.context, String.class));
+		assertTrue(expression.compileExpression());
+		assertEquals("42", expression.getValue(this.context, String.class));
+		assertEquals(Long.valueOf(42), expression.getValue(new Person("Ian", 42), Long.class));
+	}
+
+
+	/**
+	 * Evaluate the given expression interpreted, compile it and check that
+	 * the compiled form returns the same result.
+	 */
+	private Object compileAndEvaluate(String expressionString) {
+		SpelExpression expression = (SpelExpression) this.mixedParser.parseExpression(expressionString);
+		Object interpreted = expression.getValue(this.context);
+		assertTrue("Expression '" + expressionString + "' should be compilable", expression.compileExpression());
+		Object compiled = expression.getValue(this.context);
+		assertEquals(interpreted, compiled);
+		assertTrue("Expression '" + expressionString + "' should have been compiled", isCompiled(expression));
+		return compiled;
+	}
+
+	private static boolean isCompiled(SpelExpression expression) {
+		return (getCompiledAst(expression) != null);
+	}
+
+	private static Object getCompiledAst(SpelExpression expression) {
+		Field field = ReflectionUtils.findField(SpelExpression.class, "compiledAst");
+		ReflectionUtils.makeAccessible(field);
+		return ReflectionUtils.getField(field, expression);
+	}
+
+
+	public static class Person {
+
+		private final String name;
+
+		private final int age;
+
+		public final String publicName;
+
+		public Person(String name, int age) {
+			this.name = name;
+			this.age = age;
+			this.publicName = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public Double getWeight() {
+			return Double.NaN;
+		}
+
+		public boolean isAdult() {
+			return this.age >= 18;
+		}
+
+		public Boolean olderThan(Integer limit) {
+			return this.age > limit;
+		}
+
+		public String greet(String other) {
+			return "Hello " + other;
+		}
+
+		public String echo(int value) {
+			return "int: " + value;
+		}
+
+		public String echo(String value) {
+			return "String: " + value;
+		}
+
+		public String riskyName(boolean fail) throws IOException {
+			if (fail) {
+				throw new IOException("Failed to read name");
+			}
+			return this.name;
+		}
+	}
+
+
+	public static class Pet {
+
+		private final String name;
+
+		public Pet(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+
+	public static class Sequence {
+
+		public int count;
+
+		public Object next() {
+			this.count++;
+			return (this.count == 1 ? new Person("Ian", 42) : new Pet("Buster"));
+		}
+	}
+
+
+	private static class PrivateHolder {
+
+		public String getSecret() {
+			return "hidden";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,11 +63,13 @@ import org.springframework.util.StringUtils;
  * will have been set to the primitive's default value instead of null.
  *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
- * For best performance consider using a custom RowMapper.
+ * For best performance consider using a custom RowMapper, or {@link CompiledBeanPropertyRowMapper}
+ * which applies the same mapping conventions with a per-query mapping plan.
  *
  * @author Thomas Risberg
  * @author Juergen Hoeller
  * @since 2.5
+ * @see CompiledBeanPropertyRowMapper
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
@@ -182,6 +184,22 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return result.toString();
 	}
 
+	/**
+	 * Return the mapped bean property for the given column name, if any.
+	 * @param column the column name as obtained from the result set metadata
+	 * @return the descriptor of the property, or {@code null} if not mapped
+	 */
+	PropertyDescriptor getMappedField(String column) {
+		return this.mappedFields.get(column.replaceAll(" ", "").toLowerCase());
+	}
+
+	/**
+	 * Return the names of all bean properties we provide mapping for.
+	 */
+	Set<String> getMappedProperties() {
+		return this.mappedProperties;
+	}
+
 	/**
 	 * Get the class that we are mapping to.
 	 */
@@ -242,7 +260,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
 		for (int index = 1; index <= columnCount; index++) {
 			String column = JdbcUtils.lookupColumnName(rsmd, index);
-			PropertyDescriptor pd = this.mappedFields.get(column.replaceAll(" ", "").toLowerCase());
+			PropertyDescriptor pd = getMappedField(column);
 			if (pd != null) {
 				try {
 					Object value = getColumnValue(rs, index, pd);
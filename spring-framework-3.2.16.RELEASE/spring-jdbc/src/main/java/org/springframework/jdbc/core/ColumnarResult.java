@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * Column-oriented representation of a query result, as created by
+ * {@link ColumnarResultSetExtractor}. Numeric columns are held in primitive
+ * {@code long[]} or {@code double[]} arrays, all other columns in {@code Object[]}
+ * arrays, with one array element per row.
+ *
+ * <p>Columns are addressed by their 0-based position or by their case-insensitive
+ * name. SQL NULL values are tracked separately per column; they are represented
+ * as 0 in primitive columns.
+ *
+ * @since 3.2.17
+ * @see ColumnarResultSetExtractor
+ */
+@SuppressWarnings("serial")
+public class ColumnarResult implements Serializable {
+
+	/**
+	 * The representation of a column's values.
+	 */
+	public enum ColumnType {
+
+		/** Values held in a {@code long[]} array */
+		LONG,
+
+		/** Values held in a {@code double[]} array */
+		DOUBLE,
+
+		/** Values held in an {@code Object[]} array */
+		OBJECT
+	}
+
+
+	private final String[] columnNames;
+
+	private final ColumnType[] columnTypes;
+
+	private final Object[] columns;
+
+	private final BitSet[] nulls;
+
+	private final int rowCount;
+
+	private final LinkedCaseInsensitiveMap<Integer> columnIndexes;
+
+
+	/**
+	 * Create a new ColumnarResult.
+	 * @param columnNames the names of the columns
+	 * @param columnTypes the representation of each column
+	 * @param columns the {@code long[]}, {@code double[]} or {@code Object[]} array
+	 * for each column, each of them containing {@code rowCount} values
+	 * @param nulls the rows with a SQL NULL value, per column
+	 * @param rowCount the number of rows
+	 */
+	ColumnarResult(String[] columnNames, ColumnType[] columnTypes, Object[] columns, BitSet[] nulls, int rowCount) {
+		this.columnNames = columnNames;
+		this.columnTypes = columnTypes;
+		this.columns = columns;
+		this.nulls = nulls;
+		this.rowCount = rowCount;
+		this.columnIndexes = new LinkedCaseInsensitiveMap<Integer>(columnNames.length);
+		for (int i = 0; i < columnNames.length; i++) {
+			if (!this.columnIndexes.containsKey(columnNames[i])) {
+				this.columnIndexes.put(columnNames[i], i);
+			}
+		}
+	}
+
+
+	/**
+	 * Return the number of rows.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Return the number of columns.
+	 */
+	public int getColumnCount() {
+		return this.columnNames.length;
+	}
+
+	/**
+	 * Return the name of the column at the given position.
+	 * @param column the 0-based column position
+	 */
+	public String getColumnName(int column) {
+		return this.columnNames[column];
+	}
+
+	/**
+	 * Return the position of the column with the given name.
+	 * If several columns share that name, the first one is returned.
+	 * @param columnName the case-insensitive column name
+	 * @return the 0-based column position
+	 * @throws IllegalArgumentException if there is no such column
+	 */
+	public int getColumnIndex(String columnName) {
+		Integer index = this.columnIndexes.get(columnName);
+		if (index == null) {
+			throw new IllegalArgumentException("No column named '" + columnName + "'");
+		}
+		return index;
+	}
+
+	/**
+	 * Return the representation of the column at the given position.
+	 * @param column the 0-based column position
+	 */
+	public ColumnType getColumnType(int column) {
+		return this.columnTypes[column];
+	}
+
+	/**
+	 * Return the values of the given {@link ColumnType#LONG} column.
+	 * @param column the 0-based column position
+	 * @throws IllegalArgumentException if the column is not held as {@code long[]}
+	 */
+	public long[] getLongColumn(int column) {
+		return (long[]) getColumn(column, ColumnType.LONG);
+	}
+
+	/**
+	 * Return the values of the given {@link ColumnType#LONG} column.
+	 * @param columnName the case-insensitive column name
+	 * @throws IllegalArgumentException if the column is not held as {@code long[]}
+	 */
+	public long[] getLongColumn(String columnName) {
+		return getLongColumn(getColumnIndex(columnName));
+	}
+
+	/**
+	 * Return the values of the given {@link ColumnType#DOUBLE} column.
+	 * @param column the 0-based column position
+	 * @throws IllegalArgumentException if the column is not held as {@code double[]}
+	 */
+	public double[] getDoubleColumn(int column) {
+		return (double[]) getColumn(column, ColumnType.DOUBLE);
+	}
+
+	/**
+	 * Return the values of the given {@link ColumnType#DOUBLE} column.
+	 * @param columnName the case-insensitive column name
+	 * @throws IllegalArgumentException if the column is not held as {@code double[]}
+	 */
+	public double[] getDoubleColumn(String columnName) {
+		return getDoubleColumn(getColumnIndex(columnName));
+	}
+
+	/**
+	 * Return the values of the given {@link ColumnType#OBJECT} column.
+	 * @param column the 0-based column position
+	 * @throws IllegalArgumentException if the column is not held as {@code Object[]}
+	 */
+	public Object[] getObjectColumn(int column) {
+		return (Object[]) getColumn(column, ColumnType.OBJECT);
+	}
+
+	/**
+	 * Return the values of the given {@link ColumnType#OBJECT} column.
+	 * @param columnName the case-insensitive column name
+	 * @throws IllegalArgumentException if the column is not held as {@code Object[]}
+	 */
+	public Object[] getObjectColumn(String columnName) {
+		return getObjectColumn(getColumnIndex(columnName));
+	}
+
+	/**
+	 * Return whether the given row has a SQL NULL value in the given column.
+	 * @param row the 0-based row number
+	 * @param column the 0-based column position
+	 */
+	public boolean isNull(int row, int column) {
+		return this.nulls[column].get(row);
+	}
+
+	/**
+	 * Return the value in the given row and column,
+	 * with primitive values in their wrapper form.
+	 * @param row the 0-based row number
+	 * @param column the 0-based column position
+	 * @return the value, or {@code null} for a SQL NULL value
+	 */
+	public Object getValue(int row, int column) {
+		if (row < 0 || row >= this.rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of range [0.." + this.rowCount + ")");
+		}
+		if (isNull(row, column)) {
+			return null;
+		}
+		switch (this.columnTypes[column]) {
+			case LONG:
+				return ((long[]) this.columns[column])[row];
+			case DOUBLE:
+				return ((double[]) this.columns[column])[row];
+			default:
+				return ((Object[]) this.columns[column])[row];
+		}
+	}
+
+	private Object getColumn(int column, ColumnType requiredType) {
+		if (this.columnTypes[column] != requiredType) {
+			throw new IllegalArgumentException("Column '" + this.columnNames[column] + "' is of type " +
+					this.columnTypes[column] + ", not " + requiredType);
+		}
+		return this.columns[column];
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.BitSet;
+
+import org.springframework.jdbc.core.ColumnarResult.ColumnType;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * {@link ResultSetExtractor} implementation that reads a ResultSet into a
+ * column-oriented {@link ColumnarResult}, keeping integral columns in
+ * {@code long[]} and floating-point columns in {@code double[]} arrays.
+ * Suitable for analytics-style queries over many rows with few columns,
+ * avoiding a per-row object as well as boxing of numeric values.
+ *
+ * <p>The representation of each column is determined from its SQL type
+ * through {@link #determineColumnType}, which may be overridden, e.g. to read
+ * {@code DECIMAL} columns into {@code double[]} arrays as well. Non-numeric
+ * columns are read via {@link #getColumnValue}, as with {@link ColumnMapRowMapper}.
+ *
+ * @since 3.2.17
+ * @see ColumnarResult
+ * @see JdbcTemplate#query(String, ResultSetExtractor)
+ */
+public class ColumnarResultSetExtractor implements ResultSetExtractor<ColumnarResult> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+
+	public ColumnarResult extractData(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		String[] columnNames = new String[columnCount];
+		ColumnType[] columnTypes = new ColumnType[columnCount];
+		Object[] columns = new Object[columnCount];
+		BitSet[] nulls = new BitSet[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columnNames[i] = JdbcUtils.lookupColumnName(rsmd, i + 1);
+			columnTypes[i] = determineColumnType(rsmd, i + 1);
+			columns[i] = newColumn(columnTypes[i], INITIAL_CAPACITY);
+			nulls[i] = new BitSet();
+		}
+
+		int capacity = INITIAL_CAPACITY;
+		int rowCount = 0;
+		while (rs.next()) {
+			if (rowCount == capacity) {
+				capacity = capacity * 2;
+				for (int i = 0; i < columnCount; i++) {
+					columns[i] = resizeColumn(columnTypes[i], columns[i], capacity);
+				}
+			}
+			for (int i = 0; i < columnCount; i++) {
+				int index = i + 1;
+				switch (columnTypes[i]) {
+					case LONG:
+						((long[]) columns[i])[rowCount] = rs.getLong(index);
+						if (rs.wasNull()) {
+							nulls[i].set(rowCount);
+						}
+						break;
+					case DOUBLE:
+						((double[]) columns[i])[rowCount] = rs.getDouble(index);
+						if (rs.wasNull()) {
+							nulls[i].set(rowCount);
+						}
+						break;
+					default:
+						Object value = getColumnValue(rs, index);
+						((Object[]) columns[i])[rowCount] = value;
+						if (value == null) {
+							nulls[i].set(rowCount);
+						}
+				}
+			}
+			rowCount++;
+		}
+
+		if (rowCount < capacity) {
+			for (int i = 0; i < columnCount; i++) {
+				columns[i] = resizeColumn(columnTypes[i], columns[i], rowCount);
+			}
+		}
+		return new ColumnarResult(columnNames, columnTypes, columns, nulls, rowCount);
+	}
+
+	/**
+	 * Determine the representation for the specified column.
+	 * <p>The default implementation uses {@link ColumnType#LONG} for integral
+	 * SQL types ({@code BIGINT}, {@code INTEGER}, {@code SMALLINT}, {@code TINYINT}),
+	 * {@link ColumnType#DOUBLE} for floating-point SQL types ({@code DOUBLE},
+	 * {@code FLOAT}, {@code REAL}) and {@link ColumnType#OBJECT} for all others.
+	 * @param rsmd the ResultSet metadata
+	 * @param index the column index (1-based)
+	 * @return the column representation to use
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	protected ColumnType determineColumnType(ResultSetMetaData rsmd, int index) throws SQLException {
+		switch (rsmd.getColumnType(index)) {
+			case Types.BIGINT:
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return ColumnType.LONG;
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return ColumnType.DOUBLE;
+			default:
+				return ColumnType.OBJECT;
+		}
+	}
+
+	/**
+	 * Retrieve a JDBC object value for the specified {@link ColumnType#OBJECT} column.
+	 * <p>The default implementation delegates to {@link JdbcUtils#getResultSetValue}.
+	 * @param rs is the ResultSet holding the data
+	 * @param index is the column index (1-based)
+	 * @return the Object returned
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	protected Object getColumnValue(ResultSet rs, int index) throws SQLException {
+		return JdbcUtils.getResultSetValue(rs, index);
+	}
+
+
+	private static Object newColumn(ColumnType columnType, int capacity) {
+		switch (columnType) {
+			case LONG:
+				return new long[capacity];
+			case DOUBLE:
+				return new double[capacity];
+			default:
+				return new Object[capacity];
+		}
+	}
+
+	private static Object resizeColumn(ColumnType columnType, Object column, int capacity) {
+		Object resized = newColumn(columnType, capacity);
+		System.arraycopy(column, 0, resized, 0, Math.min(Array.getLength(column), capacity));
+		return resized;
+	}
+
+}
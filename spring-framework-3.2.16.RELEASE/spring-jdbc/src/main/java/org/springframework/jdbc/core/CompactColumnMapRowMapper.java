@@ -0,0 +1,326 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Variant of {@link ColumnMapRowMapper} that represents each row in a compact
+ * form: all rows of a ResultSet share a single case-insensitive column index,
+ * with each row holding nothing but an array of its column values.
+ *
+ * <p>Rows are still exposed as {@code java.util.Map} instances, with the same
+ * key order and case-insensitive key lookup as a {@link LinkedCaseInsensitiveMap}.
+ * Values of existing columns can be replaced in place. Adding or removing keys
+ * turns the affected row into a regular {@link LinkedCaseInsensitiveMap} copy,
+ * so such modifications are supported at the expense of the compact form.
+ *
+ * <p>{@link #getColumnKey} and {@link #getColumnValue} apply as usual. A Map from
+ * {@link #createColumnMap} only serves for determining the order of the column keys;
+ * it needs to perform case-insensitive key lookups, as the default Map does.
+ *
+ * @since 3.2.17
+ * @see JdbcTemplate#setCompactColumnMaps
+ */
+public class CompactColumnMapRowMapper extends ColumnMapRowMapper {
+
+	/** Column index for the most recently mapped ResultSet */
+	private volatile ResultSetColumns resultSetColumns;
+
+
+	@Override
+	public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+		ResultSetColumns columns = this.resultSetColumns;
+		if (columns == null || !columns.isFor(rs)) {
+			columns = new ResultSetColumns(rs, buildColumnIndex(rs.getMetaData()));
+			this.resultSetColumns = columns;
+		}
+		ColumnIndex index = columns.columnIndex;
+		Object[] values = new Object[index.keys.length];
+		for (int i = 0; i < index.columnSlots.length; i++) {
+			values[index.columnSlots[i]] = getColumnValue(rs, i + 1);
+		}
+		return new CompactColumnMap(index, values);
+	}
+
+	/**
+	 * Build the shared column index for the given ResultSet metadata.
+	 * Columns with the same key share a slot, with the last column winning,
+	 * consistent with consecutive puts into a {@link ColumnMapRowMapper} Map.
+	 */
+	private ColumnIndex buildColumnIndex(ResultSetMetaData rsmd) throws SQLException {
+		int columnCount = rsmd.getColumnCount();
+		String[] columnKeys = new String[columnCount];
+		Map<String, Object> keyOrder = createColumnMap(columnCount);
+		for (int i = 0; i < columnCount; i++) {
+			columnKeys[i] = getColumnKey(JdbcUtils.lookupColumnName(rsmd, i + 1));
+			keyOrder.put(columnKeys[i], null);
+		}
+		LinkedCaseInsensitiveMap<Integer> slots = new LinkedCaseInsensitiveMap<Integer>(keyOrder.size());
+		String[] keys = keyOrder.keySet().toArray(new String[keyOrder.size()]);
+		for (int slot = 0; slot < keys.length; slot++) {
+			slots.put(keys[slot], slot);
+		}
+		int[] columnSlots = new int[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columnSlots[i] = slots.get(columnKeys[i]);
+		}
+		return new ColumnIndex(slots, keys, columnSlots);
+	}
+
+
+	/**
+	 * Holder for the column index of a specific ResultSet.
+	 */
+	private static class ResultSetColumns {
+
+		private final Reference<ResultSet> resultSet;
+
+		private final ColumnIndex columnIndex;
+
+		public ResultSetColumns(ResultSet resultSet, ColumnIndex columnIndex) {
+			this.resultSet = new WeakReference<ResultSet>(resultSet);
+			this.columnIndex = columnIndex;
+		}
+
+		public boolean isFor(ResultSet rs) {
+			return (this.resultSet.get() == rs);
+		}
+	}
+
+
+	/**
+	 * Column keys and their value slots, shared by all rows of a ResultSet.
+	 */
+	@SuppressWarnings("serial")
+	private static class ColumnIndex implements Serializable {
+
+		private final LinkedCaseInsensitiveMap<Integer> slots;
+
+		private final String[] keys;
+
+		private final int[] columnSlots;
+
+		public ColumnIndex(LinkedCaseInsensitiveMap<Integer> slots, String[] keys, int[] columnSlots) {
+			this.slots = slots;
+			this.keys = keys;
+			this.columnSlots = columnSlots;
+		}
+
+		public int getSlot(Object key) {
+			if (!(key instanceof String)) {
+				return -1;
+			}
+			Integer slot = this.slots.get(key);
+			return (slot != null ? slot : -1);
+		}
+	}
+
+
+	/**
+	 * Row Map backed by a shared {@link ColumnIndex} and an array of values.
+	 */
+	@SuppressWarnings("serial")
+	private static class CompactColumnMap extends AbstractMap<String, Object> implements Serializable {
+
+		private final ColumnIndex index;
+
+		private final Object[] values;
+
+		/** Regular copy of this Map, once keys have been added or removed */
+		private Map<String, Object> inflated;
+
+		public CompactColumnMap(ColumnIndex index, Object[] values) {
+			this.index = index;
+			this.values = values;
+		}
+
+		@Override
+		public int size() {
+			return (this.inflated != null ? this.inflated.size() : this.values.length);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return (this.inflated != null ? this.inflated.containsKey(key) : this.index.getSlot(key) >= 0);
+		}
+
+		@Override
+		public Object get(Object key) {
+			if (this.inflated != null) {
+				return this.inflated.get(key);
+			}
+			int slot = this.index.getSlot(key);
+			return (slot >= 0 ? this.values[slot] : null);
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if (this.inflated == null) {
+				int slot = this.index.getSlot(key);
+				if (slot >= 0) {
+					Object oldValue = this.values[slot];
+					this.values[slot] = value;
+					return oldValue;
+				}
+				inflate();
+			}
+			return this.inflated.put(key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			if (this.inflated == null) {
+				if (this.index.getSlot(key) < 0) {
+					return null;
+				}
+				inflate();
+			}
+			return this.inflated.remove(key);
+		}
+
+		@Override
+		public void clear() {
+			if (this.inflated == null) {
+				inflate();
+			}
+			this.inflated.clear();
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return (this.inflated != null ? this.inflated.entrySet() : new CompactEntrySet());
+		}
+
+		private void inflate() {
+			Map<String, Object> map = new LinkedCaseInsensitiveMap<Object>(this.values.length);
+			for (int i = 0; i < this.values.length; i++) {
+				map.put(this.index.keys[i], this.values[i]);
+			}
+			this.inflated = map;
+		}
+
+
+		private class CompactEntrySet extends AbstractSet<Entry<String, Object>> {
+
+			@Override
+			public int size() {
+				return CompactColumnMap.this.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new Iterator<Entry<String, Object>>() {
+
+					private int slot = 0;
+
+					private int lastSlot = -1;
+
+					public boolean hasNext() {
+						return (this.slot < values.length);
+					}
+
+					public Entry<String, Object> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						this.lastSlot = this.slot++;
+						return new CompactEntry(this.lastSlot);
+					}
+
+					public void remove() {
+						if (this.lastSlot < 0) {
+							throw new IllegalStateException("No current entry to remove");
+						}
+						// same as Map.remove(key): switch to a regular copy of this Map
+						if (inflated == null) {
+							inflate();
+						}
+						inflated.remove(index.keys[this.lastSlot]);
+						this.lastSlot = -1;
+					}
+				};
+			}
+		}
+
+
+		private class CompactEntry implements Entry<String, Object> {
+
+			private final int slot;
+
+			public CompactEntry(int slot) {
+				this.slot = slot;
+			}
+
+			public String getKey() {
+				return index.keys[this.slot];
+			}
+
+			public Object getValue() {
+				return (inflated != null ? inflated.get(getKey()) : values[this.slot]);
+			}
+
+			public Object setValue(Object value) {
+				if (inflated != null) {
+					return inflated.put(getKey(), value);
+				}
+				Object oldValue = values[this.slot];
+				values[this.slot] = value;
+				return oldValue;
+			}
+
+			@Override
+			public boolean equals(Object other) {
+				if (this == other) {
+					return true;
+				}
+				if (!(other instanceof Entry)) {
+					return false;
+				}
+				Entry<?, ?> otherEntry = (Entry<?, ?>) other;
+				return (getKey().equals(otherEntry.getKey()) &&
+						ObjectUtils.nullSafeEquals(getValue(), otherEntry.getValue()));
+			}
+
+			@Override
+			public int hashCode() {
+				return (getKey().hashCode() ^ ObjectUtils.nullSafeHashCode(getValue()));
+			}
+
+			@Override
+			public String toString() {
+				return getKey() + "=" + getValue();
+			}
+		}
+	}
+
+}
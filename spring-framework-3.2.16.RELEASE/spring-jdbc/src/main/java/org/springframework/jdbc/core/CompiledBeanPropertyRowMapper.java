@@ -0,0 +1,397 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.GeneratedPropertyAccessor;
+import org.springframework.beans.MethodInvocationException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Variant of {@link BeanPropertyRowMapper} that applies the same convention-based
+ * column-to-property mapping, but resolves it into a mapping plan once per
+ * column signature (column labels and SQL types) instead of once per row.
+ *
+ * <p>The mapping plan determines the mapped property for each column upfront,
+ * along with a typed {@code ResultSet} getter ({@code getLong}, {@code getInt} etc.)
+ * for primitive, primitive wrapper and String properties. Values are passed to the
+ * property's write method through a {@link GeneratedPropertyAccessor} if possible,
+ * falling back to reflection for non-public classes and methods. A BeanWrapper is
+ * only created for values that actually require type conversion, and for properties
+ * with a custom editor or a ConversionService registered in {@link #initBeanWrapper}.
+ *
+ * <p>Mapping plans are cached per column signature, and the plan for each
+ * {@code ResultSet} that is currently being mapped is looked up by identity,
+ * so a single mapper instance may be shared across concurrently executing queries.
+ *
+ * <p>Note that {@link #getColumnValue} will only be called for columns that
+ * are not covered by a typed getter, unless it is overridden in a subclass.
+ *
+ * @since 3.2.17
+ * @see BeanPropertyRowMapper
+ */
+public class CompiledBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	/** Mapping plans, keyed by column signature */
+	private final Map<List<Object>, MappingPlan> mappingPlans = new ConcurrentHashMap<List<Object>, MappingPlan>(16);
+
+	/** Mapping plans for the ResultSets that are currently being mapped */
+	private final Map<ResultSet, MappingPlan> resultSetPlans =
+			new ConcurrentReferenceHashMap<ResultSet, MappingPlan>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+
+	/**
+	 * Create a new CompiledBeanPropertyRowMapper for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public CompiledBeanPropertyRowMapper() {
+	}
+
+	/**
+	 * Create a new CompiledBeanPropertyRowMapper, accepting unpopulated properties
+	 * in the target bean.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+	/**
+	 * Create a new CompiledBeanPropertyRowMapper.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @param checkFullyPopulated whether we're strictly validating that
+	 * all bean properties have been mapped from corresponding database fields
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass, boolean checkFullyPopulated) {
+		super(mappedClass, checkFullyPopulated);
+	}
+
+
+	/**
+	 * Extract the values for all columns in the current row,
+	 * following the mapping plan for the given ResultSet.
+	 */
+	@Override
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		Assert.state(getMappedClass() != null, "Mapped class was not specified");
+		MappingPlan plan = this.resultSetPlans.get(rs);
+		if (plan == null) {
+			plan = getMappingPlan(rs);
+			this.resultSetPlans.put(rs, plan);
+		}
+
+		T mappedObject = BeanUtils.instantiate(getMappedClass());
+		BeanWrapper bw = null;
+		for (ColumnMapping mapping : plan.columnMappings) {
+			Object value = mapping.getValue(rs);
+			try {
+				if (mapping.isDirectlyApplicable(value)) {
+					mapping.setValue(mappedObject, value);
+				}
+				else {
+					if (bw == null) {
+						bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+						initBeanWrapper(bw);
+					}
+					bw.setPropertyValue(mapping.propertyName, value);
+				}
+			}
+			catch (TypeMismatchException ex) {
+				if (value == null && isPrimitivesDefaultedForNullValue()) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Intercepted TypeMismatchException for row " + rowNumber +
+								" and column " + mapping.index + " with null value when setting property '" +
+								mapping.propertyName + "' of type " + mapping.propertyType);
+					}
+				}
+				else {
+					throw ex;
+				}
+			}
+		}
+		return mappedObject;
+	}
+
+	/**
+	 * Obtain the mapping plan for the column signature of the given ResultSet,
+	 * building it if no plan has been cached for that signature yet.
+	 * @param rs the ResultSet to map
+	 * @return the mapping plan
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	private MappingPlan getMappingPlan(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		List<Object> signature = new ArrayList<Object>(columnCount * 2);
+		for (int index = 1; index <= columnCount; index++) {
+			signature.add(JdbcUtils.lookupColumnName(rsmd, index));
+			signature.add(rsmd.getColumnType(index));
+		}
+		MappingPlan plan = this.mappingPlans.get(signature);
+		if (plan == null) {
+			plan = buildMappingPlan(rsmd);
+			this.mappingPlans.put(signature, plan);
+		}
+		if (isCheckFullyPopulated() && !plan.populatedProperties.equals(getMappedProperties())) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of class [" + getMappedClass() + "]: " + getMappedProperties());
+		}
+		return plan;
+	}
+
+	/**
+	 * Build the mapping plan for the given ResultSet metadata.
+	 * @param rsmd the metadata of the ResultSet to map
+	 * @return the mapping plan
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	private MappingPlan buildMappingPlan(ResultSetMetaData rsmd) throws SQLException {
+		GeneratedPropertyAccessor accessor = GeneratedPropertyAccessor.forClass(getMappedClass());
+		// Only used for detecting custom editors and a ConversionService: no target instance needed
+		BeanWrapper bw = new BeanWrapperImpl();
+		initBeanWrapper(bw);
+		boolean typedGetters = isDefaultColumnValueRetrieval();
+
+		int columnCount = rsmd.getColumnCount();
+		List<ColumnMapping> columnMappings = new ArrayList<ColumnMapping>(columnCount);
+		Set<String> populatedProperties = new HashSet<String>();
+		for (int index = 1; index <= columnCount; index++) {
+			String column = JdbcUtils.lookupColumnName(rsmd, index);
+			PropertyDescriptor pd = getMappedField(column);
+			if (pd != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" +
+							pd.getName() + "' of type " + pd.getPropertyType());
+				}
+				boolean customConversion = (bw.getConversionService() != null ||
+						bw.findCustomEditor(pd.getPropertyType(), pd.getName()) != null);
+				columnMappings.add(new ColumnMapping(index, pd, (typedGetters ? pd.getPropertyType() : null),
+						accessor, customConversion));
+				populatedProperties.add(pd.getName());
+			}
+		}
+		return new MappingPlan(columnMappings, populatedProperties);
+	}
+
+	/**
+	 * Check whether {@link #getColumnValue} has been overridden, in which
+	 * case it needs to be called for every column.
+	 */
+	private boolean isDefaultColumnValueRetrieval() {
+		Method method = ReflectionUtils.findMethod(
+				getClass(), "getColumnValue", ResultSet.class, int.class, PropertyDescriptor.class);
+		return (method == null || BeanPropertyRowMapper.class.equals(method.getDeclaringClass()));
+	}
+
+
+	/**
+	 * Static factory method to create a new CompiledBeanPropertyRowMapper
+	 * (with the mapped class specified only once).
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> CompiledBeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
+		CompiledBeanPropertyRowMapper<T> newInstance = new CompiledBeanPropertyRowMapper<T>();
+		newInstance.setMappedClass(mappedClass);
+		return newInstance;
+	}
+
+
+	/**
+	 * The typed {@code ResultSet} getters that a column can be retrieved with.
+	 */
+	private enum ValueType {
+
+		STRING, BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, OBJECT;
+
+		public static ValueType forPropertyType(Class<?> propertyType) {
+			if (propertyType == null) {
+				return OBJECT;
+			}
+			if (String.class.equals(propertyType)) {
+				return STRING;
+			}
+			Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(propertyType);
+			if (Boolean.class.equals(type)) {
+				return BOOLEAN;
+			}
+			else if (Byte.class.equals(type)) {
+				return BYTE;
+			}
+			else if (Short.class.equals(type)) {
+				return SHORT;
+			}
+			else if (Integer.class.equals(type)) {
+				return INT;
+			}
+			else if (Long.class.equals(type)) {
+				return LONG;
+			}
+			else if (Float.class.equals(type)) {
+				return FLOAT;
+			}
+			else if (Double.class.equals(type)) {
+				return DOUBLE;
+			}
+			return OBJECT;
+		}
+	}
+
+
+	/**
+	 * The resolved column mappings for a specific column signature.
+	 */
+	private class MappingPlan {
+
+		private final List<ColumnMapping> columnMappings;
+
+		private final Set<String> populatedProperties;
+
+		public MappingPlan(List<ColumnMapping> columnMappings, Set<String> populatedProperties) {
+			this.columnMappings = columnMappings;
+			this.populatedProperties = populatedProperties;
+		}
+	}
+
+
+	/**
+	 * The mapping of a single column to a bean property.
+	 */
+	private class ColumnMapping {
+
+		private final int index;
+
+		private final PropertyDescriptor pd;
+
+		private final String propertyName;
+
+		private final Class<?> propertyType;
+
+		private final boolean primitive;
+
+		private final ValueType valueType;
+
+		private final Class<?> assignableType;
+
+		private final GeneratedPropertyAccessor accessor;
+
+		private final int accessorIndex;
+
+		private final Method writeMethod;
+
+		public ColumnMapping(int index, PropertyDescriptor pd, Class<?> typedGetterType,
+				GeneratedPropertyAccessor accessor, boolean customConversion) {
+
+			this.index = index;
+			this.pd = pd;
+			this.propertyName = pd.getName();
+			this.propertyType = pd.getPropertyType();
+			this.primitive = this.propertyType.isPrimitive();
+			this.valueType = ValueType.forPropertyType(typedGetterType);
+			this.assignableType = (customConversion ? null : ClassUtils.resolvePrimitiveIfNecessary(this.propertyType));
+			this.writeMethod = pd.getWriteMethod();
+			this.accessor = accessor;
+			this.accessorIndex = (accessor != null ? accessor.getMethodIndex(this.writeMethod) : -1);
+			if (this.accessorIndex < 0) {
+				ReflectionUtils.makeAccessible(this.writeMethod);
+			}
+		}
+
+		public Object getValue(ResultSet rs) throws SQLException {
+			Object value;
+			switch (this.valueType) {
+				case STRING:
+					return rs.getString(this.index);
+				case BOOLEAN:
+					value = rs.getBoolean(this.index);
+					break;
+				case BYTE:
+					value = rs.getByte(this.index);
+					break;
+				case SHORT:
+					value = rs.getShort(this.index);
+					break;
+				case INT:
+					value = rs.getInt(this.index);
+					break;
+				case LONG:
+					value = rs.getLong(this.index);
+					break;
+				case FLOAT:
+					value = rs.getFloat(this.index);
+					break;
+				case DOUBLE:
+					value = rs.getDouble(this.index);
+					break;
+				default:
+					return getColumnValue(rs, this.index, this.pd);
+			}
+			return (rs.wasNull() ? null : value);
+		}
+
+		public boolean isDirectlyApplicable(Object value) {
+			return (this.assignableType != null && (value == null || this.assignableType.isInstance(value)));
+		}
+
+		public void setValue(Object target, Object value) {
+			if (value == null && this.primitive) {
+				throw new TypeMismatchException(
+						new PropertyChangeEvent(target, this.propertyName, null, null), this.propertyType);
+			}
+			try {
+				if (this.accessorIndex >= 0) {
+					this.accessor.invokeWriteMethod(target, this.accessorIndex, value);
+				}
+				else {
+					this.writeMethod.invoke(target, value);
+				}
+			}
+			catch (InvocationTargetException ex) {
+				throw new MethodInvocationException(
+						new PropertyChangeEvent(target, this.propertyName, null, value), ex.getTargetException());
+			}
+			catch (Exception ex) {
+				throw new MethodInvocationException(
+						new PropertyChangeEvent(target, this.propertyName, null, value), ex);
+			}
+		}
+	}
+
+}
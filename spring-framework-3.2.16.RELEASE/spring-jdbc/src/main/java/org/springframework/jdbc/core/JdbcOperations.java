@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -917,6 +917,74 @@ public interface JdbcOperations {
 	 */
 	SqlRowSet queryForRowSet(String sql, Object... args) throws DataAccessException;
 
+	/**
+	 * Query using a prepared statement, returning a cursor that maps each row
+	 * via a RowMapper as the caller iterates over it, rather than a List of all rows.
+	 * <p>The cursor holds the JDBC Connection, Statement and ResultSet until it is
+	 * exhausted or closed, and needs to be closed before a current transaction
+	 * completes.
+	 * @param psc object that can create a PreparedStatement given a Connection
+	 * @param rowMapper object that will map one object per row
+	 * @return the cursor over the mapped rows, to be closed by the caller
+	 * @throws DataAccessException if the query fails
+	 * @since 3.2.17
+	 * @see ResultCursor#close()
+	 */
+	<T> ResultCursor<T> queryForCursor(PreparedStatementCreator psc, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a
+	 * PreparedStatementSetter implementation that knows how to bind values
+	 * to the query, returning a cursor that maps each row via a RowMapper.
+	 * @param sql SQL query to execute
+	 * @param pss object that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper object that will map one object per row
+	 * @return the cursor over the mapped rows, to be closed by the caller
+	 * @throws DataAccessException if the query fails
+	 * @since 3.2.17
+	 * @see #queryForCursor(PreparedStatementCreator, RowMapper)
+	 */
+	<T> ResultCursor<T> queryForCursor(String sql, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, returning a cursor that maps each row
+	 * via a RowMapper.
+	 * @param sql SQL query to execute
+	 * @param args arguments to bind to the query
+	 * @param argTypes SQL types of the arguments
+	 * (constants from {@code java.sql.Types})
+	 * @param rowMapper object that will map one object per row
+	 * @return the cursor over the mapped rows, to be closed by the caller
+	 * @throws DataAccessException if the query fails
+	 * @since 3.2.17
+	 * @see #queryForCursor(PreparedStatementCreator, RowMapper)
+	 * @see java.sql.Types
+	 */
+	<T> ResultCursor<T> queryForCursor(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list
+	 * of arguments to bind to the query, returning a cursor that maps each row
+	 * via a RowMapper.
+	 * @param sql SQL query to execute
+	 * @param rowMapper object that will map one object per row
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type);
+	 * may also contain {@link SqlParameterValue} objects which indicate not
+	 * only the argument value but also the SQL type and optionally the scale
+	 * @return the cursor over the mapped rows, to be closed by the caller
+	 * @throws DataAccessException if the query fails
+	 * @since 3.2.17
+	 * @see #queryForCursor(PreparedStatementCreator, RowMapper)
+	 */
+	<T> ResultCursor<T> queryForCursor(String sql, RowMapper<T> rowMapper, Object... args)
+			throws DataAccessException;
+
 	/**
 	 * Issue a single SQL update operation (such as an insert, update or delete statement)
 	 * using a PreparedStatementCreator to provide SQL and any required parameters.
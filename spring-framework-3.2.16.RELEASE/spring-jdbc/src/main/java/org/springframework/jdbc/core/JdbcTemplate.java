@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -137,6 +137,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/**
+	 * If this variable is set to true then Maps returned by {@code queryForList}
+	 * and {@code queryForMap} share a single column index per result set.
+	 */
+	private boolean compactColumnMaps = false;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -311,6 +317,25 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set whether column Maps (as returned by {@code queryForList} and {@code queryForMap})
+	 * should be represented in a compact form, sharing a single column index per result set
+	 * and holding just an array of values per row. Default is "false".
+	 * @since 3.2.17
+	 * @see CompactColumnMapRowMapper
+	 */
+	public void setCompactColumnMaps(boolean compactColumnMaps) {
+		this.compactColumnMaps = compactColumnMaps;
+	}
+
+	/**
+	 * Return whether column Maps are represented in a compact form.
+	 * @since 3.2.17
+	 */
+	public boolean isCompactColumnMaps() {
+		return this.compactColumnMaps;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -831,6 +856,114 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return query(sql, args, new SqlRowSetResultSetExtractor());
 	}
 
+	/**
+	 * Query using a prepared statement, returning a cursor that maps each row
+	 * via a RowMapper as the caller iterates over it, rather than a List of all rows.
+	 * <p>The JDBC Connection is obtained via {@link DataSourceUtils} and held until
+	 * the cursor is exhausted or closed, so it participates in a current transaction
+	 * like any other JdbcTemplate operation; the cursor needs to be closed before the
+	 * transaction completes. Statement settings such as {@link #setFetchSize fetch size}
+	 * apply as usual: a driver-specific fetch size is typically required for the
+	 * driver itself not to read the entire result into memory.
+	 * @param psc object that can create a PreparedStatement given a Connection
+	 * @param pss object that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper object that will map one object per row
+	 * @return the cursor over the mapped rows, to be closed by the caller
+	 * @throws DataAccessException if the query fails
+	 * @since 3.2.17
+	 * @see ResultCursor#close()
+	 */
+	public <T> ResultCursor<T> queryForCursor(
+			PreparedStatementCreator psc, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		Assert.notNull(psc, "PreparedStatementCreator must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			String sql = getSql(psc);
+			logger.debug("Executing prepared SQL query for cursor" + (sql != null ? " [" + sql + "]" : ""));
+		}
+
+		Connection con = DataSourceUtils.getConnection(getDataSource());
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			Connection conToUse = con;
+			if (this.nativeJdbcExtractor != null &&
+					this.nativeJdbcExtractor.isNativeConnectionNecessaryForNativePreparedStatements()) {
+				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
+			}
+			ps = psc.createPreparedStatement(conToUse);
+			applyStatementSettings(ps);
+			PreparedStatement psToUse = ps;
+			if (this.nativeJdbcExtractor != null) {
+				psToUse = this.nativeJdbcExtractor.getNativePreparedStatement(ps);
+			}
+			if (pss != null) {
+				pss.setValues(psToUse);
+			}
+			rs = psToUse.executeQuery();
+			ResultSet rsToUse = rs;
+			if (this.nativeJdbcExtractor != null) {
+				rsToUse = this.nativeJdbcExtractor.getNativeResultSet(rs);
+			}
+			ResultCursor<T> cursor = new ResultSetCursor<T>(con, ps, rs, rsToUse, psc, pss, rowMapper);
+			// Resources are owned by the cursor from here on
+			con = null;
+			return cursor;
+		}
+		catch (SQLException ex) {
+			String sql = getSql(psc);
+			releaseCursorResources(con, ps, rs, psc, pss);
+			con = null;
+			throw getExceptionTranslator().translate("ResultCursor", sql, ex);
+		}
+		finally {
+			if (con != null) {
+				releaseCursorResources(con, ps, rs, psc, pss);
+			}
+		}
+	}
+
+	public <T> ResultCursor<T> queryForCursor(PreparedStatementCreator psc, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForCursor(psc, null, rowMapper);
+	}
+
+	public <T> ResultCursor<T> queryForCursor(String sql, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForCursor(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	public <T> ResultCursor<T> queryForCursor(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForCursor(sql, newArgTypePreparedStatementSetter(args, argTypes), rowMapper);
+	}
+
+	public <T> ResultCursor<T> queryForCursor(String sql, RowMapper<T> rowMapper, Object... args)
+			throws DataAccessException {
+
+		return queryForCursor(sql, newArgPreparedStatementSetter(args), rowMapper);
+	}
+
+	private void releaseCursorResources(Connection con, Statement stmt, ResultSet rs,
+			PreparedStatementCreator psc, PreparedStatementSetter pss) {
+
+		JdbcUtils.closeResultSet(rs);
+		if (pss instanceof ParameterDisposer) {
+			((ParameterDisposer) pss).cleanupParameters();
+		}
+		if (psc instanceof ParameterDisposer) {
+			((ParameterDisposer) psc).cleanupParameters();
+		}
+		JdbcUtils.closeStatement(stmt);
+		DataSourceUtils.releaseConnection(con, getDataSource());
+	}
+
 	protected int update(final PreparedStatementCreator psc, final PreparedStatementSetter pss)
 			throws DataAccessException {
 
@@ -1259,11 +1392,19 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 	/**
 	 * Create a new RowMapper for reading columns as key-value pairs.
+	 * <p>If "isCompactColumnMaps" has been set to true,
+	 * a {@link CompactColumnMapRowMapper} will be created.
 	 * @return the RowMapper to use
 	 * @see ColumnMapRowMapper
+	 * @see #setCompactColumnMaps
 	 */
 	protected RowMapper<Map<String, Object>> getColumnMapRowMapper() {
-		return new ColumnMapRowMapper();
+		if (isCompactColumnMaps()) {
+			return new CompactColumnMapRowMapper();
+		}
+		else {
+			return new ColumnMapRowMapper();
+		}
 	}
 
 	/**
@@ -1498,6 +1639,114 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * ResultCursor implementation on top of an open ResultSet, owning the
+	 * ResultSet, Statement and Connection until closed.
+	 */
+	private class ResultSetCursor<T> implements ResultCursor<T> {
+
+		private Connection con;
+
+		private final PreparedStatement ps;
+
+		private final ResultSet rs;
+
+		private final ResultSet rsToUse;
+
+		private final PreparedStatementCreator psc;
+
+		private final PreparedStatementSetter pss;
+
+		private final RowMapper<T> rowMapper;
+
+		private boolean rowAvailable = false;
+
+		private int rowCount = 0;
+
+		public ResultSetCursor(Connection con, PreparedStatement ps, ResultSet rs, ResultSet rsToUse,
+				PreparedStatementCreator psc, PreparedStatementSetter pss, RowMapper<T> rowMapper) {
+
+			this.con = con;
+			this.ps = ps;
+			this.rs = rs;
+			this.rsToUse = rsToUse;
+			this.psc = psc;
+			this.pss = pss;
+			this.rowMapper = rowMapper;
+		}
+
+		public boolean hasNext() {
+			if (this.con == null) {
+				return false;
+			}
+			if (!this.rowAvailable) {
+				try {
+					this.rowAvailable = this.rsToUse.next();
+				}
+				catch (SQLException ex) {
+					throw translateAndClose(ex);
+				}
+				if (!this.rowAvailable) {
+					close();
+				}
+			}
+			return this.rowAvailable;
+		}
+
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("No more rows in ResultCursor");
+			}
+			this.rowAvailable = false;
+			try {
+				return this.rowMapper.mapRow(this.rsToUse, this.rowCount++);
+			}
+			catch (SQLException ex) {
+				throw translateAndClose(ex);
+			}
+			catch (RuntimeException ex) {
+				release();
+				throw ex;
+			}
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException("ResultCursor does not support remove");
+		}
+
+		public int getRowCount() {
+			return this.rowCount;
+		}
+
+		public void close() {
+			if (this.con == null) {
+				return;
+			}
+			try {
+				handleWarnings(this.ps);
+			}
+			catch (SQLException ex) {
+				throw translateAndClose(ex);
+			}
+			finally {
+				release();
+			}
+		}
+
+		private DataAccessException translateAndClose(SQLException ex) {
+			release();
+			return getExceptionTranslator().translate("ResultCursor", getSql(this.psc), ex);
+		}
+
+		private void release() {
+			if (this.con != null) {
+				releaseCursorResources(this.con, this.ps, this.rs, this.psc, this.pss);
+				this.con = null;
+			}
+		}
+	}
+
+
 	/**
 	 * Adapter to enable use of a RowCallbackHandler inside a ResultSetExtractor.
 	 * <p>Uses a regular ResultSet, so we have to be careful when using it:
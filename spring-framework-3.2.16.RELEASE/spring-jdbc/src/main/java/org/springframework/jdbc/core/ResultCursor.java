@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over the mapped rows of an open JDBC {@link java.sql.ResultSet},
+ * as returned by the {@code queryForCursor} methods on {@link JdbcTemplate}.
+ *
+ * <p>In contrast to the {@code query} methods taking a {@link RowMapper}, rows
+ * are mapped one at a time as the caller pulls them, so that arbitrarily large
+ * results can be processed without holding them in memory. The underlying
+ * {@code ResultSet}, {@code Statement} and {@code Connection} remain open
+ * until the cursor is exhausted or {@link #close() closed}; callers must
+ * therefore always close the cursor, typically in a {@code finally} block:
+ *
+ * <pre class="code">
+ * ResultCursor&lt;Customer&gt; cursor = jdbcTemplate.queryForCursor(sql, rowMapper);
+ * try {
+ *   while (cursor.hasNext()) {
+ *     export(cursor.next());
+ *   }
+ * }
+ * finally {
+ *   cursor.close();
+ * }</pre>
+ *
+ * <p>{@link java.sql.SQLException SQLExceptions} thrown while advancing the
+ * cursor are translated into Spring's {@link org.springframework.dao.DataAccessException}
+ * hierarchy, closing the cursor. {@link #remove()} is not supported.
+ *
+ * @since 3.2.17
+ * @see JdbcTemplate#queryForCursor(String, RowMapper, Object...)
+ */
+public interface ResultCursor<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * Return the number of rows that have been returned by {@link #next()} so far.
+	 */
+	int getRowCount();
+
+	/**
+	 * Release the underlying JDBC resources, returning the {@code Connection}
+	 * to the {@code DataSource} (or to the current transaction).
+	 * <p>Can be called multiple times; calls after the first have no effect.
+	 * @throws org.springframework.dao.DataAccessException in case of a SQL warning
+	 * that is not to be ignored
+	 * @see JdbcTemplate#setIgnoreWarnings
+	 */
+	void close();
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import org.junit.Test;
+
+import org.springframework.jdbc.core.ColumnarResult.ColumnType;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link ColumnarResultSetExtractor}.
+ */
+public class ColumnarResultSetExtractorTests {
+
+	@Test
+	public void testExtractColumns() throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(3);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("id");
+		given(resultSetMetaData.getColumnLabel(2)).willReturn("amount");
+		given(resultSetMetaData.getColumnLabel(3)).willReturn("name");
+		given(resultSetMetaData.getColumnType(1)).willReturn(Types.BIGINT);
+		given(resultSetMetaData.getColumnType(2)).willReturn(Types.DOUBLE);
+		given(resultSetMetaData.getColumnType(3)).willReturn(Types.VARCHAR);
+
+		given(resultSet.next()).willReturn(true, true, true, false);
+		given(resultSet.getLong(1)).willReturn(1L, 2L, 3L);
+		given(resultSet.getDouble(2)).willReturn(1.5, 0.0, 3.5);
+		given(resultSet.wasNull()).willReturn(false, false, false, true, false, false);
+		given(resultSet.getObject(3)).willReturn("a", "b", null);
+
+		ColumnarResult result = new ColumnarResultSetExtractor().extractData(resultSet);
+		assertEquals(3, result.getRowCount());
+		assertEquals(3, result.getColumnCount());
+		assertEquals("amount", result.getColumnName(1));
+		assertEquals(ColumnType.LONG, result.getColumnType(0));
+		assertEquals(ColumnType.DOUBLE, result.getColumnType(result.getColumnIndex("AMOUNT")));
+		assertEquals(ColumnType.OBJECT, result.getColumnType(2));
+
+		assertArrayEquals(new long[] {1L, 2L, 3L}, result.getLongColumn("id"));
+		double[] amounts = result.getDoubleColumn(1);
+		assertEquals(3, amounts.length);
+		assertEquals(3.5, amounts[2], 0.0);
+		assertTrue(result.isNull(1, 1));
+		assertNull(result.getValue(1, 1));
+		assertEquals(1.5, result.getValue(0, 1));
+		assertEquals(2L, result.getValue(1, 0));
+		assertArrayEquals(new Object[] {"a", "b", null}, result.getObjectColumn("name"));
+		assertTrue(result.isNull(2, 2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongColumnType() throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(1);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("name");
+		given(resultSetMetaData.getColumnType(1)).willReturn(Types.VARCHAR);
+
+		ColumnarResult result = new ColumnarResultSetExtractor().extractData(resultSet);
+		assertEquals(0, result.getRowCount());
+		result.getLongColumn("name");
+	}
+
+}
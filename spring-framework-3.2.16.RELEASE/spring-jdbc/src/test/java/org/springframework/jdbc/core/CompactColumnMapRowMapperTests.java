@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link CompactColumnMapRowMapper}.
+ */
+public class CompactColumnMapRowMapperTests {
+
+	private ResultSet resultSet;
+
+	private ResultSetMetaData resultSetMetaData;
+
+
+	@Before
+	public void setUp() throws Exception {
+		resultSet = mock(ResultSet.class);
+		resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(3);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("ID");
+		given(resultSetMetaData.getColumnLabel(2)).willReturn("Name");
+		given(resultSetMetaData.getColumnLabel(3)).willReturn("id");
+		given(resultSet.getObject(1)).willReturn(1L, 2L);
+		given(resultSet.getObject(2)).willReturn("first", "second");
+		given(resultSet.getObject(3)).willReturn(10L, 20L);
+	}
+
+
+	@Test
+	public void testMapRows() throws Exception {
+		CompactColumnMapRowMapper rowMapper = new CompactColumnMapRowMapper();
+		Map<String, Object> row1 = rowMapper.mapRow(resultSet, 0);
+		Map<String, Object> row2 = rowMapper.mapRow(resultSet, 1);
+
+		assertEquals(2, row1.size());
+		assertEquals(Arrays.asList("Name", "id"), Arrays.asList(row1.keySet().toArray()));
+		assertEquals(10L, row1.get("id"));
+		assertEquals("first", row1.get("NAME"));
+		assertEquals(20L, row2.get("Id"));
+		assertEquals("second", row2.get("name"));
+		assertTrue(row2.containsKey("name"));
+		assertFalse(row2.containsKey("other"));
+		assertNull(row2.get("other"));
+		verify(resultSet, times(1)).getMetaData();
+
+		Map<String, Object> expected = new LinkedHashMap<String, Object>();
+		expected.put("Name", "first");
+		expected.put("id", 10L);
+		assertEquals(expected, row1);
+		assertEquals(expected.hashCode(), row1.hashCode());
+	}
+
+	@Test
+	public void testModifyRow() throws Exception {
+		Map<String, Object> row = new CompactColumnMapRowMapper().mapRow(resultSet, 0);
+		assertEquals("first", row.put("name", "changed"));
+		assertEquals("changed", row.get("Name"));
+
+		Iterator<Map.Entry<String, Object>> it = row.entrySet().iterator();
+		assertEquals("Name", it.next().getKey());
+		it.next().setValue(5L);
+		assertEquals(5L, row.get("ID"));
+
+		row.put("extra", "value");
+		assertEquals(3, row.size());
+		assertEquals("value", row.get("EXTRA"));
+		assertEquals(5L, row.remove("Id"));
+		assertEquals(Arrays.asList("Name", "extra"), Arrays.asList(row.keySet().toArray()));
+	}
+
+	@Test
+	public void testRemoveThroughIterators() throws Exception {
+		CompactColumnMapRowMapper rowMapper = new CompactColumnMapRowMapper();
+		Map<String, Object> row1 = rowMapper.mapRow(resultSet, 0);
+		Map<String, Object> row2 = rowMapper.mapRow(resultSet, 1);
+
+		Iterator<String> keyIterator = row1.keySet().iterator();
+		assertEquals("Name", keyIterator.next());
+		keyIterator.remove();
+		assertEquals(1, row1.size());
+		assertFalse(row1.containsKey("name"));
+		assertNull(row1.get("Name"));
+		assertTrue(keyIterator.hasNext());
+		Map.Entry<String, Object> entry = row1.entrySet().iterator().next();
+		assertEquals("id", entry.getKey());
+		assertEquals(10L, entry.getValue());
+
+		Iterator<Map.Entry<String, Object>> entryIterator = row2.entrySet().iterator();
+		entryIterator.next();
+		assertEquals("id", entryIterator.next().getKey());
+		entryIterator.remove();
+		assertFalse(entryIterator.hasNext());
+		assertEquals(Arrays.asList("Name"), Arrays.asList(row2.keySet().toArray()));
+
+		Iterator<Object> valueIterator = row2.values().iterator();
+		assertEquals("second", valueIterator.next());
+		valueIterator.remove();
+		assertTrue(row2.isEmpty());
+
+		try {
+			valueIterator.remove();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+
+		// rows sharing the column index are unaffected
+		Map<String, Object> row3 = rowMapper.mapRow(resultSet, 2);
+		assertEquals(2, row3.size());
+		assertTrue(row3.containsKey("NAME"));
+	}
+
+	@Test
+	public void testNewResultSetRebuildsIndex() throws Exception {
+		CompactColumnMapRowMapper rowMapper = new CompactColumnMapRowMapper();
+		rowMapper.mapRow(resultSet, 0);
+
+		ResultSet otherResultSet = mock(ResultSet.class);
+		ResultSetMetaData otherMetaData = mock(ResultSetMetaData.class);
+		given(otherResultSet.getMetaData()).willReturn(otherMetaData);
+		given(otherMetaData.getColumnCount()).willReturn(1);
+		given(otherMetaData.getColumnLabel(1)).willReturn("total");
+		given(otherResultSet.getObject(1)).willReturn(42);
+
+		Map<String, Object> row = rowMapper.mapRow(otherResultSet, 0);
+		assertEquals(1, row.size());
+		assertEquals(42, row.get("TOTAL"));
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ExtendedPerson;
+import org.springframework.jdbc.core.test.Person;
+import org.springframework.jdbc.core.test.SpacePerson;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link CompiledBeanPropertyRowMapper}.
+ */
+public class CompiledBeanPropertyRowMapperTests extends AbstractRowMapperTests {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+
+	@Test
+	public void testStaticQueryWithRowMapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<Person>(Person.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithInheritance() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				CompiledBeanPropertyRowMapper.newInstance(ConcretePerson.class));
+		assertEquals(1, result.size());
+		verifyConcretePerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithUnpopulatedFieldsNotChecked() throws Exception {
+		Mock mock = new Mock();
+		List<ExtendedPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<ExtendedPerson>(ExtendedPerson.class));
+		assertEquals(1, result.size());
+		verifyConcretePerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		thrown.expect(InvalidDataAccessApiUsageException.class);
+		mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<ExtendedPerson>(ExtendedPerson.class, true));
+	}
+
+	@Test
+	public void testMappingNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		thrown.expect(TypeMismatchException.class);
+		mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<Person>(Person.class));
+	}
+
+	@Test
+	public void testMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<Person>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals(0L, result.get(0).getAge());
+	}
+
+	@Test
+	public void testQueryWithSpaceInColumnName() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<SpacePerson>(SpacePerson.class));
+		assertEquals(1, result.size());
+		verifySpacePerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testCustomEditorFromInitBeanWrapper() throws Exception {
+		Mock mock = new Mock();
+		CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<Person>(Person.class) {
+			@Override
+			protected void initBeanWrapper(BeanWrapper bw) {
+				bw.registerCustomEditor(String.class, "name", new StringTrimmerEditor(true) {
+					@Override
+					public void setAsText(String text) {
+						setValue(text.toUpperCase());
+					}
+				});
+			}
+		};
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals("BUBBA", result.get(0).getName());
+	}
+
+	@Test
+	public void testConcurrentMappingWithSharedMapper() throws Exception {
+		final CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<Person>(Person.class);
+		int threadCount = 8;
+		final int rowCount = 500;
+		final ResultSet[] resultSets = new ResultSet[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			resultSets[i] = (i % 2 == 0 ? mockResultSet() : mockReorderedResultSet());
+		}
+
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final ResultSet rs = resultSets[i];
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+						for (int row = 0; row < rowCount; row++) {
+							verifyPerson(mapper.mapRow(rs, row));
+						}
+					}
+					catch (Throwable ex) {
+						failure.compareAndSet(null, ex);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		startLatch.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		for (ResultSet rs : resultSets) {
+			verify(rs, times(1)).getMetaData();
+		}
+	}
+
+	private ResultSet mockResultSet() throws Exception {
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rsmd.getColumnCount()).willReturn(4);
+		given(rsmd.getColumnLabel(1)).willReturn("name");
+		given(rsmd.getColumnType(1)).willReturn(Types.VARCHAR);
+		given(rsmd.getColumnLabel(2)).willReturn("age");
+		given(rsmd.getColumnType(2)).willReturn(Types.BIGINT);
+		given(rsmd.getColumnLabel(3)).willReturn("birth_date");
+		given(rsmd.getColumnType(3)).willReturn(Types.TIMESTAMP);
+		given(rsmd.getColumnLabel(4)).willReturn("balance");
+		given(rsmd.getColumnType(4)).willReturn(Types.DECIMAL);
+
+		ResultSet rs = mock(ResultSet.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rs.getString(1)).willReturn("Bubba");
+		given(rs.getLong(2)).willReturn(22L);
+		given(rs.getTimestamp(3)).willReturn(new Timestamp(1221222L));
+		given(rs.getBigDecimal(4)).willReturn(new BigDecimal("1234.56"));
+		return rs;
+	}
+
+	private ResultSet mockReorderedResultSet() throws Exception {
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rsmd.getColumnCount()).willReturn(4);
+		given(rsmd.getColumnLabel(1)).willReturn("balance");
+		given(rsmd.getColumnType(1)).willReturn(Types.DECIMAL);
+		given(rsmd.getColumnLabel(2)).willReturn("birth_date");
+		given(rsmd.getColumnType(2)).willReturn(Types.TIMESTAMP);
+		given(rsmd.getColumnLabel(3)).willReturn("age");
+		given(rsmd.getColumnType(3)).willReturn(Types.BIGINT);
+		given(rsmd.getColumnLabel(4)).willReturn("name");
+		given(rsmd.getColumnType(4)).willReturn(Types.VARCHAR);
+
+		ResultSet rs = mock(ResultSet.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rs.getBigDecimal(1)).willReturn(new BigDecimal("1234.56"));
+		given(rs.getTimestamp(2)).willReturn(new Timestamp(1221222L));
+		given(rs.getLong(3)).willReturn(22L);
+		given(rs.getString(4)).willReturn("Bubba");
+		return rs;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1253,6 +1253,70 @@ public class JdbcTemplateTests {
 		}
 	}
 
+	@Test
+	public void testQueryForCursor() throws Exception {
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getString(1)).willReturn("rod", "juergen");
+		this.template.setFetchSize(100);
+
+		ResultCursor<String> cursor = this.template.queryForCursor(
+				"SELECT FORENAME FROM CUSTMR WHERE ID > ?", new ForenameRowMapper(), 3);
+		verify(this.preparedStatement).setFetchSize(100);
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.connection, never()).close();
+
+		assertTrue(cursor.hasNext());
+		assertEquals("rod", cursor.next());
+		assertEquals("juergen", cursor.next());
+		verify(this.connection, never()).close();
+		assertFalse(cursor.hasNext());
+		assertEquals(2, cursor.getRowCount());
+		cursor.close();
+
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForCursorClosedEarly() throws Exception {
+		given(this.resultSet.next()).willReturn(true);
+		given(this.resultSet.getString(1)).willReturn("rod");
+
+		ResultCursor<String> cursor = this.template.queryForCursor(
+				"SELECT FORENAME FROM CUSTMR", new ForenameRowMapper());
+		assertEquals("rod", cursor.next());
+		cursor.close();
+		cursor.close();
+		assertFalse(cursor.hasNext());
+
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForCursorWithSqlExceptionWhileIterating() throws Exception {
+		SQLException sqlException = new SQLException("failed fetch");
+		given(this.resultSet.next()).willReturn(true).willThrow(sqlException);
+		given(this.resultSet.getString(1)).willReturn("rod");
+
+		ResultCursor<String> cursor = this.template.queryForCursor(
+				"SELECT FORENAME FROM CUSTMR", new ForenameRowMapper());
+		assertEquals("rod", cursor.next());
+
+		this.thrown.expect(UncategorizedSQLException.class);
+		this.thrown.expect(exceptionCause(equalTo(sqlException)));
+		try {
+			cursor.hasNext();
+		}
+		finally {
+			verify(this.resultSet).close();
+			verify(this.preparedStatement).close();
+			verify(this.connection, atLeastOnce()).close();
+		}
+	}
+
 	@Test
 	public void testCaseInsensitiveResultsMap() throws Exception {
 
@@ -1329,4 +1393,14 @@ public class JdbcTemplateTests {
 			return this.sql;
 		}
 	}
+
+
+	private static class ForenameRowMapper implements RowMapper<String> {
+
+		@Override
+		public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+			return rs.getString(1);
+		}
+	}
+
 }
@@ -37,6 +37,9 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
 import javax.xml.XMLConstants;
@@ -122,6 +125,7 @@ import org.springframework.util.xml.StaxUtils;
  * @see #setMarshallerListener(javax.xml.bind.Marshaller.Listener)
  * @see #setUnmarshallerListener(javax.xml.bind.Unmarshaller.Listener)
  * @see #setAdapters(XmlAdapter[])
+ * @see #setPoolSize(int)
  */
 public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, GenericMarshaller, GenericUnmarshaller,
 		BeanClassLoaderAware, InitializingBean {
@@ -180,6 +184,10 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 
 	private boolean processExternalEntities = false;
 
+	private volatile JaxbPool<Marshaller> marshallerPool;
+
+	private volatile JaxbPool<Unmarshaller> unmarshallerPool;
+
 
 	/**
 	 * Set multiple JAXB context paths. The given array of context paths gets
@@ -431,6 +439,74 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 		return this.processExternalEntities;
 	}
 
+	/**
+	 * Set the maximum number of idle JAXB {@code Marshaller} and {@code Unmarshaller}
+	 * instances (each) to keep for reuse across {@code marshal} and {@code unmarshal} calls.
+	 * <p>Default is 0, creating and initializing a new instance for every call. Reusing
+	 * instances avoids the repeated setup of properties, schema, adapters and listeners,
+	 * which can be costly for large schemas. Pooled instances are obtained through
+	 * {@link #createMarshaller()} and {@link #createUnmarshaller()}, so they carry the
+	 * configuration that these methods apply; the configuration is therefore expected
+	 * to be complete once {@link #afterPropertiesSet()} has been called.
+	 * <p>An instance is only returned to the pool after a successful call. If no
+	 * idle instance is available, a new one gets created: the pool size bounds the
+	 * number of retained instances, not the number of concurrent calls.
+	 * @since 3.2.17
+	 * @see #getMarshallerPoolHitCount()
+	 * @see #getMarshallerPoolMissCount()
+	 * @see #getUnmarshallerPoolHitCount()
+	 * @see #getUnmarshallerPoolMissCount()
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize >= 0, "Pool size must not be negative");
+		this.marshallerPool = (poolSize > 0 ? new JaxbPool<Marshaller>(poolSize) : null);
+		this.unmarshallerPool = (poolSize > 0 ? new JaxbPool<Unmarshaller>(poolSize) : null);
+	}
+
+	/**
+	 * Return the number of {@code marshal} calls that reused a pooled JAXB
+	 * {@code Marshaller}, or 0 if pooling is not enabled.
+	 * @since 3.2.17
+	 * @see #setPoolSize(int)
+	 */
+	public long getMarshallerPoolHitCount() {
+		JaxbPool<Marshaller> pool = this.marshallerPool;
+		return (pool != null ? pool.hits.get() : 0);
+	}
+
+	/**
+	 * Return the number of {@code marshal} calls that had to create a new JAXB
+	 * {@code Marshaller} since the pool was empty, or 0 if pooling is not enabled.
+	 * @since 3.2.17
+	 * @see #setPoolSize(int)
+	 */
+	public long getMarshallerPoolMissCount() {
+		JaxbPool<Marshaller> pool = this.marshallerPool;
+		return (pool != null ? pool.misses.get() : 0);
+	}
+
+	/**
+	 * Return the number of {@code unmarshal} calls that reused a pooled JAXB
+	 * {@code Unmarshaller}, or 0 if pooling is not enabled.
+	 * @since 3.2.17
+	 * @see #setPoolSize(int)
+	 */
+	public long getUnmarshallerPoolHitCount() {
+		JaxbPool<Unmarshaller> pool = this.unmarshallerPool;
+		return (pool != null ? pool.hits.get() : 0);
+	}
+
+	/**
+	 * Return the number of {@code unmarshal} calls that had to create a new JAXB
+	 * {@code Unmarshaller} since the pool was empty, or 0 if pooling is not enabled.
+	 * @since 3.2.17
+	 * @see #setPoolSize(int)
+	 */
+	public long getUnmarshallerPoolMissCount() {
+		JaxbPool<Unmarshaller> pool = this.unmarshallerPool;
+		return (pool != null ? pool.misses.get() : 0);
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.beanClassLoader = classLoader;
@@ -457,6 +533,13 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 		if (!ObjectUtils.isEmpty(this.schemaResources)) {
 			this.schema = loadSchema(this.schemaResources, this.schemaLanguage);
 		}
+		// Discard instances that may have been initialized with an incomplete configuration
+		if (this.marshallerPool != null) {
+			this.marshallerPool.clear();
+		}
+		if (this.unmarshallerPool != null) {
+			this.unmarshallerPool.clear();
+		}
 	}
 
 	/**
@@ -667,7 +750,7 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 
 	public void marshal(Object graph, Result result, MimeContainer mimeContainer) throws XmlMappingException {
 		try {
-			Marshaller marshaller = createMarshaller();
+			Marshaller marshaller = obtainMarshaller();
 			if (this.mtomEnabled && mimeContainer != null) {
 				marshaller.setAttachmentMarshaller(new Jaxb2AttachmentMarshaller(mimeContainer));
 			}
@@ -677,6 +760,7 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 			else {
 				marshaller.marshal(graph, result);
 			}
+			releaseMarshaller(marshaller);
 		}
 		catch (JAXBException ex) {
 			throw convertJaxbException(ex);
@@ -699,6 +783,34 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 		}
 	}
 
+	/**
+	 * Obtain a JAXB marshaller for a single {@code marshal} call: a pooled one
+	 * if available, or else a newly created one.
+	 */
+	private Marshaller obtainMarshaller() {
+		JaxbPool<Marshaller> pool = this.marshallerPool;
+		if (pool != null) {
+			Marshaller marshaller = pool.poll();
+			if (marshaller != null) {
+				return marshaller;
+			}
+		}
+		return createMarshaller();
+	}
+
+	/**
+	 * Return the given JAXB marshaller to the pool, if any, after a successful call.
+	 */
+	private void releaseMarshaller(Marshaller marshaller) throws JAXBException {
+		JaxbPool<Marshaller> pool = this.marshallerPool;
+		if (pool != null) {
+			if (this.mtomEnabled) {
+				marshaller.setAttachmentMarshaller(null);
+			}
+			pool.release(marshaller);
+		}
+	}
+
 	/**
 	 * Return a newly created JAXB marshaller. JAXB marshallers are not necessarily thread safe.
 	 */
@@ -754,19 +866,22 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 		source = processSource(source);
 
 		try {
-			Unmarshaller unmarshaller = createUnmarshaller();
+			Unmarshaller unmarshaller = obtainUnmarshaller();
 			if (this.mtomEnabled && mimeContainer != null) {
 				unmarshaller.setAttachmentUnmarshaller(new Jaxb2AttachmentUnmarshaller(mimeContainer));
 			}
+			Object result;
 			if (StaxUtils.isStaxSource(source)) {
-				return unmarshalStaxSource(unmarshaller, source);
+				result = unmarshalStaxSource(unmarshaller, source);
 			}
 			else if (this.mappedClass != null) {
-				return unmarshaller.unmarshal(source, this.mappedClass).getValue();
+				result = unmarshaller.unmarshal(source, this.mappedClass).getValue();
 			}
 			else {
-				return unmarshaller.unmarshal(source);
+				result = unmarshaller.unmarshal(source);
 			}
+			releaseUnmarshaller(unmarshaller);
+			return result;
 		}
 		catch (NullPointerException ex) {
 			if (!isSupportDtd()) {
@@ -845,6 +960,34 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 		}
 	}
 
+	/**
+	 * Obtain a JAXB unmarshaller for a single {@code unmarshal} call: a pooled one
+	 * if available, or else a newly created one.
+	 */
+	private Unmarshaller obtainUnmarshaller() {
+		JaxbPool<Unmarshaller> pool = this.unmarshallerPool;
+		if (pool != null) {
+			Unmarshaller unmarshaller = pool.poll();
+			if (unmarshaller != null) {
+				return unmarshaller;
+			}
+		}
+		return createUnmarshaller();
+	}
+
+	/**
+	 * Return the given JAXB unmarshaller to the pool, if any, after a successful call.
+	 */
+	private void releaseUnmarshaller(Unmarshaller unmarshaller) throws JAXBException {
+		JaxbPool<Unmarshaller> pool = this.unmarshallerPool;
+		if (pool != null) {
+			if (this.mtomEnabled) {
+				unmarshaller.setAttachmentUnmarshaller(null);
+			}
+			pool.release(unmarshaller);
+		}
+	}
+
 	/**
 	 * Return a newly created JAXB unmarshaller.
 	 * Note: JAXB unmarshallers are not necessarily thread-safe.
@@ -913,6 +1056,43 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller, Generi
 	}
 
 
+	/**
+	 * Bounded pool of idle JAXB marshallers or unmarshallers, with hit and miss counts.
+	 */
+	private static class JaxbPool<T> {
+
+		private final BlockingQueue<T> idleInstances;
+
+		private final AtomicLong hits = new AtomicLong();
+
+		private final AtomicLong misses = new AtomicLong();
+
+		public JaxbPool(int size) {
+			this.idleInstances = new ArrayBlockingQueue<T>(size);
+		}
+
+		public T poll() {
+			T instance = this.idleInstances.poll();
+			if (instance != null) {
+				this.hits.incrementAndGet();
+			}
+			else {
+				this.misses.incrementAndGet();
+			}
+			return instance;
+		}
+
+		public void release(T instance) {
+			// Simply drop the instance if the pool is full already
+			this.idleInstances.offer(instance);
+		}
+
+		public void clear() {
+			this.idleInstances.clear();
+		}
+	}
+
+
 	private static class Jaxb2AttachmentMarshaller extends AttachmentMarshaller {
 
 		private final MimeContainer mimeContainer;
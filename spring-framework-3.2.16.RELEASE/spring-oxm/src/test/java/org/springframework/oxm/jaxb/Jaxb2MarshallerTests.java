@@ -131,6 +131,25 @@ public class Jaxb2MarshallerTests extends AbstractMarshallerTests {
 		marshaller.afterPropertiesSet();
 	}
 
+	@Test
+	public void pooledMarshaller() throws Exception {
+		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+		marshaller.setContextPath(CONTEXT_PATH);
+		marshaller.setMarshallerProperties(
+				Collections.<String, Object>singletonMap(javax.xml.bind.Marshaller.JAXB_FORMATTED_OUTPUT,
+						Boolean.TRUE));
+		marshaller.setPoolSize(1);
+		marshaller.afterPropertiesSet();
+		for (int i = 0; i < 3; i++) {
+			StringWriter writer = new StringWriter();
+			marshaller.marshal(flights, new StreamResult(writer));
+			assertXMLEqual("Marshaller writes invalid StreamResult", EXPECTED_STRING, writer.toString());
+			assertTrue("Marshaller properties not applied", writer.toString().contains("\n"));
+		}
+		assertEquals(1, marshaller.getMarshallerPoolMissCount());
+		assertEquals(2, marshaller.getMarshallerPoolHitCount());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void noContextPathOrClassesToBeBound() throws Exception {
 		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
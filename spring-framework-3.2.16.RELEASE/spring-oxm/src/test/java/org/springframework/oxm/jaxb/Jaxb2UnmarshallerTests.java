@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,7 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.oxm.AbstractUnmarshallerTests;
 import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.UnmarshallingFailureException;
 import org.springframework.oxm.jaxb.test.FlightType;
 import org.springframework.oxm.jaxb.test.Flights;
 import org.springframework.oxm.mime.MimeContainer;
@@ -93,6 +94,27 @@ public class Jaxb2UnmarshallerTests extends AbstractUnmarshallerTests {
 		assertNotNull("datahandler property not set", object.getSwaDataHandler());
 	}
 
+	@Test
+	public void pooledUnmarshaller() throws Exception {
+		unmarshaller.setPoolSize(1);
+		for (int i = 0; i < 3; i++) {
+			testFlights(unmarshaller.unmarshal(new StreamSource(new StringReader(INPUT_STRING))));
+		}
+		assertEquals(1, unmarshaller.getUnmarshallerPoolMissCount());
+		assertEquals(2, unmarshaller.getUnmarshallerPoolHitCount());
+
+		// pooled unmarshaller still validates against the schema
+		String invalid = INPUT_STRING.replace(">42<", ">forty-two<");
+		try {
+			unmarshaller.unmarshal(new StreamSource(new StringReader(invalid)));
+			fail("Expected UnmarshallingFailureException");
+		}
+		catch (UnmarshallingFailureException ex) {
+			// expected
+		}
+		assertEquals(3, unmarshaller.getUnmarshallerPoolHitCount());
+	}
+
 	@Override
 	protected void testFlights(Object o) {
 		Flights flights = (Flights) o;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,7 @@ package org.springframework.transaction.support;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +63,10 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>All of this state is held in a single context object per thread, which can
+ * be {@link #captureTransactionContext() captured} and
+ * {@link #restoreTransactionContext restored} on another thread as a whole.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +82,37 @@ public abstract class TransactionSynchronizationManager {
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
 	//当前线程资源变量
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<Map<Object, Object>>("Transactional resources");
-
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<Set<TransactionSynchronization>>("Transaction synchronizations");
+	private static final ThreadLocal<TransactionContext> transactionContext =
+			new NamedThreadLocal<TransactionContext>("Transactional context");
 
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<String>("Current transaction name");
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<Boolean>("Current transaction read-only status");
+	/**
+	 * Return the context of the current thread, or {@code null} if none.
+	 */
+	private static TransactionContext getContext() {
+		return transactionContext.get();
+	}
 
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<Integer>("Current transaction isolation level");
+	/**
+	 * Return the context of the current thread, creating it if necessary.
+	 */
+	private static TransactionContext obtainContext() {
+		TransactionContext context = transactionContext.get();
+		if (context == null) {
+			context = new TransactionContext();
+			transactionContext.set(context);
+		}
+		return context;
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<Boolean>("Actual transaction active");
+	/**
+	 * Remove the given context from the current thread if it does not hold any state anymore.
+	 */
+	private static void removeContextIfEmpty(TransactionContext context) {
+		if (context.isEmpty()) {
+			transactionContext.remove();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -111,8 +129,15 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
-		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
+		TransactionContext context = getContext();
+		if (context == null || context.resourceCount == 0) {
+			return Collections.emptyMap();
+		}
+		Map<Object, Object> map = new LinkedHashMap<Object, Object>(context.resourceCount * 2);
+		for (int i = 0; i < context.resourceCount; i++) {
+			map.put(context.resourceKeys[i], context.resourceValues[i]);
+		}
+		return Collections.unmodifiableMap(map);
 	}
 
 	/**
@@ -148,18 +173,20 @@ public abstract class TransactionSynchronizationManager {
 	 * Actually check the value of the resource that is bound for the given key.
 	 */
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionContext context = getContext();
+		if (context == null) {
 			return null;
 		}
-		Object value = map.get(actualKey);
+		int index = context.indexOfResource(actualKey);
+		if (index < 0) {
+			return null;
+		}
+		Object value = context.resourceValues[index];
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
-			map.remove(actualKey);
+			context.removeResource(index);
 			// Remove entire ThreadLocal if empty...
-			if (map.isEmpty()) {
-				resources.remove();
-			}
+			removeContextIfEmpty(context);
 			value = null;
 		}
 		return value;
@@ -175,15 +202,11 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
-		if (map == null) {
-			map = new HashMap<Object, Object>();
-			resources.set(map);
-		}
+		// set ThreadLocal context if none found
+		TransactionContext context = obtainContext();
 
 		//将数据库的链接、datasource 放入threadLocal 里面
-		Object oldValue = map.put(actualKey, value);
+		Object oldValue = context.putResource(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
 			oldValue = null;
@@ -229,15 +252,17 @@ public abstract class TransactionSynchronizationManager {
 	 * Actually remove the value of the resource that is bound for the given key.
 	 */
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionContext context = getContext();
+		if (context == null) {
 			return null;
 		}
-		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
-		if (map.isEmpty()) {
-			resources.remove();
+		int index = context.indexOfResource(actualKey);
+		if (index < 0) {
+			return null;
 		}
+		Object value = context.removeResource(index);
+		// Remove entire ThreadLocal if empty...
+		removeContextIfEmpty(context);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			value = null;
@@ -260,7 +285,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionContext context = getContext();
+		return (context != null && context.synchronizations != null);
 	}
 
 	/**
@@ -269,11 +295,12 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is already active
 	 */
 	public static void initSynchronization() throws IllegalStateException {
-		if (isSynchronizationActive()) {
+		TransactionContext context = obtainContext();
+		if (context.synchronizations != null) {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<TransactionSynchronization>());
+		context.synchronizations = new LinkedHashSet<TransactionSynchronization>(8);
 	}
 
 	/**
@@ -290,12 +317,13 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		if (!isSynchronizationActive()) {
+		TransactionContext context = getContext();
+		if (context == null || context.synchronizations == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
 
-		// ThreadLocal 里面放置的是一个 LinkedHashSet 集合
-		synchronizations.get().add(synchronization);
+		// registered at most once, in registration order
+		context.synchronizations.add(synchronization);
 	}
 
 	/**
@@ -306,7 +334,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
+		TransactionContext context = getContext();
+		Set<TransactionSynchronization> synchs = (context != null ? context.synchronizations : null);
 		if (synchs == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
@@ -330,11 +359,13 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is not active
 	 */
 	public static void clearSynchronization() throws IllegalStateException {
-		if (!isSynchronizationActive()) {
+		TransactionContext context = getContext();
+		if (context == null || context.synchronizations == null) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		context.synchronizations = null;
+		removeContextIfEmpty(context);
 	}
 
 
@@ -349,7 +380,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(String name) {
-		currentTransactionName.set(name);
+		if (name != null) {
+			obtainContext().name = name;
+		}
+		else {
+			TransactionContext context = getContext();
+			if (context != null) {
+				context.name = null;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -359,7 +399,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionContext context = getContext();
+		return (context != null ? context.name : null);
 	}
 
 	/**
@@ -370,7 +411,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		if (readOnly) {
+			obtainContext().readOnly = true;
+		}
+		else {
+			TransactionContext context = getContext();
+			if (context != null) {
+				context.readOnly = false;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -386,7 +436,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionContext context = getContext();
+		return (context != null && context.readOnly);
 	}
 
 	/**
@@ -406,7 +457,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		if (isolationLevel != null) {
+			obtainContext().isolationLevel = isolationLevel;
+		}
+		else {
+			TransactionContext context = getContext();
+			if (context != null) {
+				context.isolationLevel = null;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -427,7 +487,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionContext context = getContext();
+		return (context != null ? context.isolationLevel : null);
 	}
 
 	/**
@@ -437,7 +498,16 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		if (active) {
+			obtainContext().actualTransactionActive = true;
+		}
+		else {
+			TransactionContext context = getContext();
+			if (context != null) {
+				context.actualTransactionActive = false;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -452,7 +522,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionContext context = getContext();
+		return (context != null && context.actualTransactionActive);
 	}
 
 
@@ -466,11 +537,172 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		clearSynchronization();
-		setCurrentTransactionName(null);
-		setCurrentTransactionReadOnly(false);
-		setCurrentTransactionIsolationLevel(null);
-		setActualTransactionActive(false);
+		TransactionContext context = getContext();
+		if (context == null || context.synchronizations == null) {
+			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
+		}
+		logger.trace("Clearing transaction synchronization");
+		context.synchronizations = null;
+		context.name = null;
+		context.readOnly = false;
+		context.isolationLevel = null;
+		context.actualTransactionActive = false;
+		removeContextIfEmpty(context);
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Propagation of the entire transactional context
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Capture the entire transactional state of the current thread: bound resources,
+	 * registered synchronizations and the current transaction characteristics.
+	 * <p>The returned snapshot can be {@link #restoreTransactionContext restored}
+	 * on a worker thread, e.g. for participating in the transaction's resources.
+	 * Note that the resources themselves are shared, not copied: it is up to the
+	 * caller to make sure that they are not accessed concurrently, as most of them
+	 * (e.g. a JDBC Connection) are not thread-safe.
+	 * @return an immutable snapshot of the current thread's transactional context
+	 * @since 3.2.17
+	 */
+	public static TransactionContext captureTransactionContext() {
+		TransactionContext context = getContext();
+		return (context != null ? context.copy() : TransactionContext.EMPTY);
+	}
+
+	/**
+	 * Replace the transactional state of the current thread with the given snapshot.
+	 * <p>Typical usage on a worker thread, restoring the previous state afterwards:
+	 * <pre class="code">
+	 * TransactionContext previous = TransactionSynchronizationManager.restoreTransactionContext(snapshot);
+	 * try {
+	 *   ...
+	 * }
+	 * finally {
+	 *   TransactionSynchronizationManager.restoreTransactionContext(previous);
+	 * }</pre>
+	 * <p>Changes made on the current thread, e.g. synchronizations registered there,
+	 * apply to the current thread only and are not reflected in the snapshot.
+	 * @param snapshot a snapshot obtained from {@link #captureTransactionContext()}
+	 * @return a snapshot of the current thread's previous transactional context
+	 * @since 3.2.17
+	 */
+	public static TransactionContext restoreTransactionContext(TransactionContext snapshot) {
+		Assert.notNull(snapshot, "TransactionContext must not be null");
+		TransactionContext previous = getContext();
+		if (snapshot.isEmpty()) {
+			transactionContext.remove();
+		}
+		else {
+			transactionContext.set(snapshot.copy());
+		}
+		return (previous != null ? previous : TransactionContext.EMPTY);
+	}
+
+
+	/**
+	 * Holder for the entire transactional state of a thread, also serving as an
+	 * opaque snapshot of that state for propagation to another thread.
+	 * @since 3.2.17
+	 * @see #captureTransactionContext()
+	 * @see #restoreTransactionContext
+	 */
+	public static final class TransactionContext {
+
+		private static final Object[] EMPTY_ARRAY = new Object[0];
+
+		private static final TransactionContext EMPTY = new TransactionContext();
+
+		/** Resource keys and values in parallel arrays, as there are usually very few of them */
+		private Object[] resourceKeys = EMPTY_ARRAY;
+
+		private Object[] resourceValues = EMPTY_ARRAY;
+
+		private int resourceCount;
+
+		/** Registered synchronizations, or {@code null} if synchronization is not active */
+		private Set<TransactionSynchronization> synchronizations;
+
+		private String name;
+
+		private boolean readOnly;
+
+		private Integer isolationLevel;
+
+		private boolean actualTransactionActive;
+
+		private TransactionContext() {
+		}
+
+		private int indexOfResource(Object key) {
+			for (int i = 0; i < this.resourceCount; i++) {
+				Object candidate = this.resourceKeys[i];
+				if (candidate == key || candidate.equals(key)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private Object putResource(Object key, Object value) {
+			int index = indexOfResource(key);
+			if (index >= 0) {
+				Object oldValue = this.resourceValues[index];
+				this.resourceValues[index] = value;
+				return oldValue;
+			}
+			if (this.resourceCount == this.resourceKeys.length) {
+				int newLength = Math.max(4, this.resourceCount * 2);
+				Object[] newKeys = new Object[newLength];
+				Object[] newValues = new Object[newLength];
+				System.arraycopy(this.resourceKeys, 0, newKeys, 0, this.resourceCount);
+				System.arraycopy(this.resourceValues, 0, newValues, 0, this.resourceCount);
+				this.resourceKeys = newKeys;
+				this.resourceValues = newValues;
+			}
+			this.resourceKeys[this.resourceCount] = key;
+			this.resourceValues[this.resourceCount] = value;
+			this.resourceCount++;
+			return null;
+		}
+
+		private Object removeResource(int index) {
+			Object value = this.resourceValues[index];
+			int last = this.resourceCount - 1;
+			if (index < last) {
+				System.arraycopy(this.resourceKeys, index + 1, this.resourceKeys, index, last - index);
+				System.arraycopy(this.resourceValues, index + 1, this.resourceValues, index, last - index);
+			}
+			this.resourceKeys[last] = null;
+			this.resourceValues[last] = null;
+			this.resourceCount = last;
+			return value;
+		}
+
+		private boolean isEmpty() {
+			return (this.resourceCount == 0 && this.synchronizations == null && this.name == null &&
+					!this.readOnly && this.isolationLevel == null && !this.actualTransactionActive);
+		}
+
+		private TransactionContext copy() {
+			TransactionContext copy = new TransactionContext();
+			if (this.resourceCount > 0) {
+				copy.resourceKeys = new Object[this.resourceCount];
+				copy.resourceValues = new Object[this.resourceCount];
+				System.arraycopy(this.resourceKeys, 0, copy.resourceKeys, 0, this.resourceCount);
+				System.arraycopy(this.resourceValues, 0, copy.resourceValues, 0, this.resourceCount);
+				copy.resourceCount = this.resourceCount;
+			}
+			if (this.synchronizations != null) {
+				copy.synchronizations = new LinkedHashSet<TransactionSynchronization>(this.synchronizations);
+			}
+			copy.name = this.name;
+			copy.readOnly = this.readOnly;
+			copy.isolationLevel = this.isolationLevel;
+			copy.actualTransactionActive = this.actualTransactionActive;
+			return copy;
+		}
 	}
 
 }
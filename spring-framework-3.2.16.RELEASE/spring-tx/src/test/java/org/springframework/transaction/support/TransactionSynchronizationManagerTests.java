@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionSynchronizationManager}.
+ */
+public class TransactionSynchronizationManagerTests {
+
+	@After
+	public void clearContext() {
+		for (Object key : TransactionSynchronizationManager.getResourceMap().keySet()) {
+			TransactionSynchronizationManager.unbindResource(key);
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clear();
+		}
+	}
+
+
+	@Test
+	public void bindAndUnbindResources() {
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+		for (int i = 0; i < 10; i++) {
+			TransactionSynchronizationManager.bindResource("key" + i, "value" + i);
+		}
+		assertEquals("value3", TransactionSynchronizationManager.getResource("key3"));
+		assertTrue(TransactionSynchronizationManager.hasResource("key9"));
+		Map<Object, Object> resources = TransactionSynchronizationManager.getResourceMap();
+		assertEquals(10, resources.size());
+		assertEquals("value5", resources.get("key5"));
+
+		assertEquals("value3", TransactionSynchronizationManager.unbindResource("key3"));
+		assertNull(TransactionSynchronizationManager.getResource("key3"));
+		assertNull(TransactionSynchronizationManager.unbindResourceIfPossible("key3"));
+		assertEquals("value9", TransactionSynchronizationManager.getResource("key9"));
+		for (int i = 0; i < 10; i++) {
+			if (i != 3) {
+				TransactionSynchronizationManager.unbindResource("key" + i);
+			}
+		}
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void bindResourceTwice() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.bindResource("key", "other");
+	}
+
+	@Test
+	public void voidResourceHolderIsRemoved() {
+		ResourceHolderSupport holder = new ResourceHolderSupport() {};
+		TransactionSynchronizationManager.bindResource("key", holder);
+		holder.unbound();
+		assertNull(TransactionSynchronizationManager.getResource("key"));
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+	}
+
+	@Test
+	public void synchronizationsRegisteredOnce() {
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronization synchronization = new TransactionSynchronizationAdapter() {};
+		TransactionSynchronizationManager.registerSynchronization(synchronization);
+		TransactionSynchronizationManager.registerSynchronization(synchronization);
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+		TransactionSynchronizationManager.clearSynchronization();
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+	}
+
+	@Test
+	public void synchronizationsKeepRegistrationOrder() {
+		TransactionSynchronizationManager.initSynchronization();
+		List<TransactionSynchronization> registered = new ArrayList<TransactionSynchronization>();
+		for (int i = 0; i < 1000; i++) {
+			TransactionSynchronization synchronization = new TransactionSynchronizationAdapter() {};
+			registered.add(synchronization);
+			TransactionSynchronizationManager.registerSynchronization(synchronization);
+			TransactionSynchronizationManager.registerSynchronization(registered.get(i / 2));
+		}
+		assertEquals(registered, TransactionSynchronizationManager.getSynchronizations());
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	public void transactionCharacteristics() {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(2);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+		assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertEquals(Integer.valueOf(2), TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+
+		TransactionSynchronizationManager.clear();
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+		assertFalse(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+	}
+
+	@Test
+	public void captureAndRestoreOnOtherThread() throws Exception {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		final TransactionSynchronizationManager.TransactionContext snapshot =
+				TransactionSynchronizationManager.captureTransactionContext();
+		final Object[] seen = new Object[4];
+
+		Thread worker = new Thread() {
+			@Override
+			public void run() {
+				TransactionSynchronizationManager.TransactionContext previous =
+						TransactionSynchronizationManager.restoreTransactionContext(snapshot);
+				try {
+					seen[0] = TransactionSynchronizationManager.getResource("key");
+					seen[1] = TransactionSynchronizationManager.getCurrentTransactionName();
+					seen[2] = TransactionSynchronizationManager.isActualTransactionActive();
+					TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {});
+				}
+				finally {
+					TransactionSynchronizationManager.restoreTransactionContext(previous);
+				}
+				seen[3] = TransactionSynchronizationManager.getResource("key");
+			}
+		};
+		worker.start();
+		worker.join();
+
+		assertEquals("value", seen[0]);
+		assertEquals("tx", seen[1]);
+		assertEquals(Boolean.TRUE, seen[2]);
+		assertNull(seen[3]);
+		assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+	}
+
+	@Test
+	public void restoreEmptyContext() {
+		TransactionSynchronizationManager.TransactionContext empty =
+				TransactionSynchronizationManager.captureTransactionContext();
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.TransactionContext previous =
+				TransactionSynchronizationManager.restoreTransactionContext(empty);
+		assertFalse(TransactionSynchronizationManager.hasResource("key"));
+		TransactionSynchronizationManager.restoreTransactionContext(previous);
+		assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+	}
+
+}
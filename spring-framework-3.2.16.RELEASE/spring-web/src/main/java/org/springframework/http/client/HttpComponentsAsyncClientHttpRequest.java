@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.protocol.HttpContext;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.concurrent.FutureAdapter;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.ListenableFutureCallbackRegistry;
+
+/**
+ * {@link AsyncClientHttpRequest} implementation that uses Apache HttpComponents
+ * HttpAsyncClient to execute requests.
+ *
+ * <p>Created via the {@link HttpComponentsAsyncClientHttpRequestFactory}.
+ *
+ * @since 3.2.17
+ * @see HttpComponentsAsyncClientHttpRequestFactory#createAsyncRequest
+ */
+final class HttpComponentsAsyncClientHttpRequest extends AbstractBufferingAsyncClientHttpRequest {
+
+	private final HttpAsyncClient httpClient;
+
+	private final HttpUriRequest httpRequest;
+
+	private final HttpContext httpContext;
+
+
+	HttpComponentsAsyncClientHttpRequest(HttpAsyncClient httpClient, HttpUriRequest httpRequest,
+			HttpContext httpContext) {
+
+		this.httpClient = httpClient;
+		this.httpRequest = httpRequest;
+		this.httpContext = httpContext;
+	}
+
+
+	public HttpMethod getMethod() {
+		return HttpMethod.valueOf(this.httpRequest.getMethod());
+	}
+
+	public URI getURI() {
+		return this.httpRequest.getURI();
+	}
+
+	@Override
+	protected ListenableFuture<ClientHttpResponse> executeInternal(HttpHeaders headers, byte[] bufferedOutput)
+			throws IOException {
+
+		HttpComponentsClientHttpRequest.addHeaders(this.httpRequest, headers);
+
+		if (this.httpRequest instanceof HttpEntityEnclosingRequest) {
+			HttpEntityEnclosingRequest entityEnclosingRequest = (HttpEntityEnclosingRequest) this.httpRequest;
+			HttpEntity requestEntity = new ByteArrayEntity(bufferedOutput);
+			entityEnclosingRequest.setEntity(requestEntity);
+		}
+
+		HttpResponseFutureCallback callback = new HttpResponseFutureCallback();
+		Future<HttpResponse> futureResponse = this.httpClient.execute(this.httpRequest, this.httpContext, callback);
+		return new ClientHttpResponseFuture(futureResponse, callback);
+	}
+
+
+	/**
+	 * HttpAsyncClient callback that relays the outcome to registered
+	 * {@link ListenableFutureCallback ListenableFutureCallbacks}.
+	 */
+	private static class HttpResponseFutureCallback implements FutureCallback<HttpResponse> {
+
+		private final ListenableFutureCallbackRegistry<ClientHttpResponse> callbacks =
+				new ListenableFutureCallbackRegistry<ClientHttpResponse>();
+
+		public void addCallback(ListenableFutureCallback<? super ClientHttpResponse> callback) {
+			this.callbacks.addCallback(callback);
+		}
+
+		public void completed(HttpResponse result) {
+			this.callbacks.success(new HttpComponentsClientHttpResponse(result));
+		}
+
+		public void failed(Exception ex) {
+			this.callbacks.failure(ex);
+		}
+
+		public void cancelled() {
+			this.callbacks.failure(new CancellationException());
+		}
+	}
+
+
+	/**
+	 * Adapts the HttpAsyncClient's {@code Future<HttpResponse>}
+	 * to a {@code ListenableFuture<ClientHttpResponse>}.
+	 */
+	private static class ClientHttpResponseFuture extends FutureAdapter<ClientHttpResponse, HttpResponse>
+			implements ListenableFuture<ClientHttpResponse> {
+
+		private final HttpResponseFutureCallback callback;
+
+		public ClientHttpResponseFuture(Future<HttpResponse> futureResponse, HttpResponseFutureCallback callback) {
+			super(futureResponse);
+			this.callback = callback;
+		}
+
+		@Override
+		protected ClientHttpResponse adapt(HttpResponse response) throws ExecutionException {
+			return new HttpComponentsClientHttpResponse(response);
+		}
+
+		public void addCallback(ListenableFutureCallback<? super ClientHttpResponse> callback) {
+			this.callback.addCallback(callback);
+		}
+	}
+
+}
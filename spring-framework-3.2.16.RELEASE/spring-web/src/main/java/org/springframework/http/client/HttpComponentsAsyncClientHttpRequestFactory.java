@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+
+/**
+ * Asynchronous extension of the {@link HttpComponentsClientHttpRequestFactory}. Uses
+ * <a href="http://hc.apache.org/httpcomponents-asyncclient-dev/">Apache HttpComponents
+ * HttpAsyncClient 4.0</a> to create requests.
+ *
+ * <p>HttpAsyncClient performs all I/O on a small number of non-blocking reactor
+ * threads, so a large number of concurrent requests does not tie up a thread each.
+ * The response body is received in full before the returned future completes.
+ *
+ * <p>Allows to use a pre-configured {@link CloseableHttpAsyncClient} instance -
+ * potentially with authentication, HTTP connection pooling, etc.
+ *
+ * @since 3.2.17
+ * @see HttpAsyncClients
+ */
+public class HttpComponentsAsyncClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory
+		implements AsyncClientHttpRequestFactory, InitializingBean {
+
+	private CloseableHttpAsyncClient httpAsyncClient;
+
+
+	/**
+	 * Create a new instance of the {@code HttpComponentsAsyncClientHttpRequestFactory}
+	 * with a default {@link CloseableHttpAsyncClient} and {@link HttpClient}.
+	 */
+	public HttpComponentsAsyncClientHttpRequestFactory() {
+		this(HttpAsyncClients.createSystem());
+	}
+
+	/**
+	 * Create a new instance of the {@code HttpComponentsAsyncClientHttpRequestFactory}
+	 * with the given {@link CloseableHttpAsyncClient} instance and a default {@link HttpClient}.
+	 * @param httpAsyncClient the CloseableHttpAsyncClient instance to use for this request factory
+	 */
+	public HttpComponentsAsyncClientHttpRequestFactory(CloseableHttpAsyncClient httpAsyncClient) {
+		super();
+		Assert.notNull(httpAsyncClient, "HttpAsyncClient must not be null");
+		this.httpAsyncClient = httpAsyncClient;
+	}
+
+	/**
+	 * Create a new instance of the {@code HttpComponentsAsyncClientHttpRequestFactory}
+	 * with the given {@link HttpClient} and {@link CloseableHttpAsyncClient} instances.
+	 * @param httpClient the HttpClient instance to use for this request factory
+	 * @param httpAsyncClient the CloseableHttpAsyncClient instance to use for this request factory
+	 */
+	public HttpComponentsAsyncClientHttpRequestFactory(HttpClient httpClient, CloseableHttpAsyncClient httpAsyncClient) {
+		super(httpClient);
+		Assert.notNull(httpAsyncClient, "HttpAsyncClient must not be null");
+		this.httpAsyncClient = httpAsyncClient;
+	}
+
+
+	/**
+	 * Set the {@code HttpAsyncClient} used for
+	 * {@linkplain #createAsyncRequest(java.net.URI, org.springframework.http.HttpMethod) asynchronous execution}.
+	 */
+	public void setHttpAsyncClient(CloseableHttpAsyncClient httpAsyncClient) {
+		this.httpAsyncClient = httpAsyncClient;
+	}
+
+	/**
+	 * Return the {@code HttpAsyncClient} used for
+	 * {@linkplain #createAsyncRequest(java.net.URI, org.springframework.http.HttpMethod) asynchronous execution}.
+	 */
+	public CloseableHttpAsyncClient getHttpAsyncClient() {
+		return this.httpAsyncClient;
+	}
+
+
+	public void afterPropertiesSet() {
+		startAsyncClient();
+	}
+
+	private void startAsyncClient() {
+		CloseableHttpAsyncClient asyncClient = getHttpAsyncClient();
+		synchronized (asyncClient) {
+			if (!asyncClient.isRunning()) {
+				asyncClient.start();
+			}
+		}
+	}
+
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		startAsyncClient();
+		HttpUriRequest httpRequest = createHttpUriRequest(httpMethod, uri);
+		postProcessHttpRequest(httpRequest);
+		HttpContext context = createHttpContext(httpMethod, uri);
+		if (context == null) {
+			context = new BasicHttpContext();
+		}
+		return new HttpComponentsAsyncClientHttpRequest(getHttpAsyncClient(), httpRequest, context);
+	}
+
+
+	/**
+	 * Shutdown hook that closes the underlying
+	 * {@link org.apache.http.conn.ClientConnectionManager ClientConnectionManager}'s
+	 * connection pool, if any, as well as the underlying {@code HttpAsyncClient}.
+	 */
+	@Override
+	public void destroy() {
+		try {
+			super.destroy();
+		}
+		finally {
+			try {
+				getHttpAsyncClient().close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+}
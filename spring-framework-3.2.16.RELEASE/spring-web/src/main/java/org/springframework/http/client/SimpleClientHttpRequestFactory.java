@@ -23,19 +23,24 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 
+import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.Assert;
 
 /**
  * {@link ClientHttpRequestFactory} implementation that uses standard JDK facilities.
  *
+ * <p>Also serves as an {@link AsyncClientHttpRequestFactory} once a
+ * {@linkplain #setTaskExecutor task executor} has been specified: asynchronous
+ * requests are then executed on that executor rather than in the calling thread.
+ *
  * @author Arjen Poutsma
  * @author Juergen Hoeller
  * @since 3.0
  * @see java.net.HttpURLConnection
  * @see HttpComponentsClientHttpRequestFactory
  */
-public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory {
+public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory, AsyncClientHttpRequestFactory {
 
 	private static final int DEFAULT_CHUNK_SIZE = 4096;
 
@@ -52,6 +57,8 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory
 
 	private boolean outputStreaming = true;
 
+	private AsyncListenableTaskExecutor taskExecutor;
+
 
 	/**
 	 * Set the {@link Proxy} to use for this request factory.
@@ -120,6 +127,17 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory
 	}
 
 
+	/**
+	 * Set the task executor for this request factory. Setting this property is required
+	 * for {@linkplain #createAsyncRequest(URI, HttpMethod) creating asynchronous requests}.
+	 * @param taskExecutor the task executor
+	 * @since 3.2.17
+	 */
+	public void setTaskExecutor(AsyncListenableTaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
 		HttpURLConnection connection = openConnection(uri.toURL(), this.proxy);
 		prepareConnection(connection, httpMethod.name());
@@ -131,6 +149,24 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>Setting the {@link #setTaskExecutor taskExecutor} property is required before calling this method.
+	 * @since 3.2.17
+	 */
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		Assert.state(this.taskExecutor != null, "Asynchronous execution requires an AsyncTaskExecutor to be set");
+		HttpURLConnection connection = openConnection(uri.toURL(), this.proxy);
+		prepareConnection(connection, httpMethod.name());
+		if (this.bufferRequestBody) {
+			return new SimpleBufferingAsyncClientHttpRequest(connection, this.outputStreaming, this.taskExecutor);
+		}
+		else {
+			return new SimpleStreamingAsyncClientHttpRequest(
+					connection, this.chunkSize, this.outputStreaming, this.taskExecutor);
+		}
+	}
+
 	/**
 	 * Opens and returns a connection to the given URL.
 	 * <p>The default implementation uses the given {@linkplain #setProxy(java.net.Proxy) proxy} -
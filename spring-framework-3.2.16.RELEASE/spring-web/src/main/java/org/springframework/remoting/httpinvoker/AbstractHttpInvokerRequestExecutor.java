@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@ package org.springframework.remoting.httpinvoker;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
 import org.springframework.remoting.rmi.CodebaseAwareObjectInputStream;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
@@ -26,12 +28,16 @@ import org.springframework.util.Assert;
 
 import java.io.*;
 import java.rmi.RemoteException;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Abstract base implementation of the HttpInvokerRequestExecutor interface.
  *
  * <p>Pre-implements serialization of RemoteInvocation objects and
- * deserialization of RemoteInvocationResults objects.
+ * deserialization of RemoteInvocationResults objects, using Java Serialization
+ * or a specified {@link Serializer} and {@link Deserializer}. Request bodies
+ * are buffered in memory by default; they may optionally be GZIP-compressed
+ * and streamed to the server with chunked transfer encoding instead.
  *
  * @author Juergen Hoeller
  * @since 1.1
@@ -70,6 +76,14 @@ public abstract class AbstractHttpInvokerRequestExecutor
 
 	private boolean acceptGzipEncoding = true;
 
+	private boolean compressRequestBody = false;
+
+	private boolean chunkedRequestBody = false;
+
+	private Serializer<Object> serializer;
+
+	private Deserializer<Object> deserializer;
+
 	private ClassLoader beanClassLoader;
 
 
@@ -107,6 +121,85 @@ public abstract class AbstractHttpInvokerRequestExecutor
 		return this.acceptGzipEncoding;
 	}
 
+	/**
+	 * Set whether to GZIP-compress request bodies, sending the HTTP
+	 * "Content-Encoding" header with "gzip" as value.
+	 * <p>Default is "false". Note that the server needs to understand GZIP
+	 * requests, as Spring's HTTP invoker service exporters do as of 3.2.17.
+	 * @since 3.2.17
+	 */
+	public void setCompressRequestBody(boolean compressRequestBody) {
+		this.compressRequestBody = compressRequestBody;
+	}
+
+	/**
+	 * Return whether to GZIP-compress request bodies.
+	 * @since 3.2.17
+	 */
+	public boolean isCompressRequestBody() {
+		return this.compressRequestBody;
+	}
+
+	/**
+	 * Set whether to stream request bodies to the server as they are being
+	 * serialized, using chunked transfer encoding, rather than serializing
+	 * them into an in-memory buffer first in order to send a "Content-Length".
+	 * <p>Default is "false". Switch this flag on for large invocations,
+	 * provided that the server accepts chunked requests.
+	 * @since 3.2.17
+	 * @see #doExecuteChunkedRequest
+	 */
+	public void setChunkedRequestBody(boolean chunkedRequestBody) {
+		this.chunkedRequestBody = chunkedRequestBody;
+	}
+
+	/**
+	 * Return whether to stream request bodies with chunked transfer encoding.
+	 * @since 3.2.17
+	 */
+	public boolean isChunkedRequestBody() {
+		return this.chunkedRequestBody;
+	}
+
+	/**
+	 * Specify a {@link Serializer} for writing remote invocations,
+	 * replacing the default {@code ObjectOutputStream} based writing.
+	 * <p>Consider specifying a corresponding {@link #setContentType content type}
+	 * as well, in particular when using a non-Java-Serialization wire format.
+	 * @since 3.2.17
+	 * @see org.springframework.core.serializer.CompactSerializer
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Return the {@link Serializer} for writing remote invocations, if any.
+	 * @since 3.2.17
+	 */
+	public Serializer<Object> getSerializer() {
+		return this.serializer;
+	}
+
+	/**
+	 * Specify a {@link Deserializer} for reading remote invocation results,
+	 * replacing the default {@code ObjectInputStream} based reading.
+	 * <p>Needs to match the serializer used by the server.
+	 * @since 3.2.17
+	 * @see org.springframework.core.serializer.CompactDeserializer
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		this.deserializer = deserializer;
+	}
+
+	/**
+	 * Return the {@link Deserializer} for reading remote invocation results, if any.
+	 * @since 3.2.17
+	 */
+	public Deserializer<Object> getDeserializer() {
+		return this.deserializer;
+	}
+
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.beanClassLoader = classLoader;
 	}
@@ -122,6 +215,13 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	public final RemoteInvocationResult executeRequest(
 			HttpInvokerClientConfiguration config, RemoteInvocation invocation) throws Exception {
 
+		if (isChunkedRequestBody()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Sending chunked HTTP invoker request for service at [" + config.getServiceUrl() + "]");
+			}
+			return doExecuteChunkedRequest(config, invocation);
+		}
+
 		//获取输出流
 		ByteArrayOutputStream baos = getByteArrayOutputStream(invocation);
 		if (logger.isDebugEnabled()) {
@@ -149,8 +249,11 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	/**
 	 * Serialize the given RemoteInvocation to the given OutputStream.
 	 * <p>The default implementation gives {@code decorateOutputStream} a chance
-	 * to decorate the stream first (for example, for custom encryption or compression).
-	 * Creates an {@code ObjectOutputStream} for the final stream and calls
+	 * to decorate the stream first (for example, for custom encryption or compression),
+	 * after wrapping it in a {@code GZIPOutputStream} if {@link #setCompressRequestBody
+	 * compressRequestBody} is on. Writes the object through the specified
+	 * {@link #setSerializer Serializer}, if any; otherwise creates an
+	 * {@code ObjectOutputStream} for the final stream and calls
 	 * {@code doWriteRemoteInvocation} to actually write the object.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param invocation the RemoteInvocation object
@@ -160,7 +263,17 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	 * @see #doWriteRemoteInvocation
 	 */
 	protected void writeRemoteInvocation(RemoteInvocation invocation, OutputStream os) throws IOException {
-		ObjectOutputStream oos = new ObjectOutputStream(decorateOutputStream(os));
+		OutputStream decoratedStream = decorateOutputStream(isCompressRequestBody() ? new GZIPOutputStream(os) : os);
+		if (this.serializer != null) {
+			try {
+				this.serializer.serialize(invocation, decoratedStream);
+			}
+			finally {
+				decoratedStream.close();
+			}
+			return;
+		}
+		ObjectOutputStream oos = new ObjectOutputStream(decoratedStream);
 		try {
 			doWriteRemoteInvocation(invocation, oos);
 		}
@@ -215,11 +328,37 @@ public abstract class AbstractHttpInvokerRequestExecutor
 			HttpInvokerClientConfiguration config, ByteArrayOutputStream baos)
 			throws Exception;
 
+	/**
+	 * Execute a request to send the given remote invocation, streaming it to
+	 * the server with chunked transfer encoding while it is being serialized.
+	 * Called instead of {@link #doExecuteRequest} if {@link #setChunkedRequestBody
+	 * chunkedRequestBody} is on.
+	 * <p>The default implementation serializes the invocation into a buffer and
+	 * delegates to {@link #doExecuteRequest}. Executors that are able to stream
+	 * request bodies override this, usually calling {@code writeRemoteInvocation}
+	 * for the request body and {@code readRemoteInvocationResult} for the response.
+	 * @param config the HTTP invoker configuration that specifies the
+	 * target service
+	 * @param invocation the RemoteInvocation to send
+	 * @return the RemoteInvocationResult object
+	 * @throws Exception in case of general errors
+	 * @since 3.2.17
+	 * @see #writeRemoteInvocation
+	 * @see #readRemoteInvocationResult(java.io.InputStream, String)
+	 */
+	protected RemoteInvocationResult doExecuteChunkedRequest(
+			HttpInvokerClientConfiguration config, RemoteInvocation invocation)
+			throws Exception {
+
+		return doExecuteRequest(config, getByteArrayOutputStream(invocation));
+	}
+
 	/**
 	 * Deserialize a RemoteInvocationResult object from the given InputStream.
 	 * <p>Gives {@code decorateInputStream} a chance to decorate the stream
-	 * first (for example, for custom encryption or compression). Creates an
-	 * {@code ObjectInputStream} via {@code createObjectInputStream} and
+	 * first (for example, for custom encryption or compression). Reads the object
+	 * through the specified {@link #setDeserializer Deserializer}, if any; otherwise
+	 * creates an {@code ObjectInputStream} via {@code createObjectInputStream} and
 	 * calls {@code doReadRemoteInvocationResult} to actually read the object.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param is the InputStream to read from
@@ -234,7 +373,21 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	protected RemoteInvocationResult readRemoteInvocationResult(InputStream is, String codebaseUrl)
 			throws IOException, ClassNotFoundException {
 
-		ObjectInputStream ois = createObjectInputStream(decorateInputStream(is), codebaseUrl);
+		InputStream decoratedStream = decorateInputStream(is);
+		if (this.deserializer != null) {
+			try {
+				Object obj = this.deserializer.deserialize(new BufferedInputStream(decoratedStream));
+				if (!(obj instanceof RemoteInvocationResult)) {
+					throw new RemoteException("Deserialized object needs to be assignable to type [" +
+							RemoteInvocationResult.class.getName() + "]: " + obj);
+				}
+				return (RemoteInvocationResult) obj;
+			}
+			finally {
+				decoratedStream.close();
+			}
+		}
+		ObjectInputStream ois = createObjectInputStream(decoratedStream, codebaseUrl);
 		try {
 			return doReadRemoteInvocationResult(ois);
 		}
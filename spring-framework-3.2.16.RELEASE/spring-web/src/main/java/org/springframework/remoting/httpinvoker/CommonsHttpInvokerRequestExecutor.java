@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,15 +22,19 @@ import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
 import org.springframework.context.i18n.LocaleContext;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
 import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -157,6 +161,31 @@ public class CommonsHttpInvokerRequestExecutor extends AbstractHttpInvokerReques
 		}
 	}
 
+	/**
+	 * Execute the given request through Commons HttpClient, with a request
+	 * entity that serializes the invocation straight into the request body.
+	 * @since 3.2.17
+	 * @see #setRequestBody(HttpInvokerClientConfiguration, PostMethod, RemoteInvocation)
+	 */
+	@Override
+	protected RemoteInvocationResult doExecuteChunkedRequest(
+			HttpInvokerClientConfiguration config, RemoteInvocation invocation)
+			throws IOException, ClassNotFoundException {
+
+		PostMethod postMethod = createPostMethod(config);
+		try {
+			setRequestBody(config, postMethod, invocation);
+			executePostMethod(config, getHttpClient(), postMethod);
+			validateResponse(config, postMethod);
+			InputStream responseBody = getResponseBody(config, postMethod);
+			return readRemoteInvocationResult(responseBody, config.getCodebaseUrl());
+		}
+		finally {
+			// Need to explicitly release because it might be pooled.
+			postMethod.releaseConnection();
+		}
+	}
+
 	/**
 	 * Create a PostMethod for the given configuration.
 	 * <p>The default implementation creates a standard PostMethod with
@@ -182,6 +211,9 @@ public class CommonsHttpInvokerRequestExecutor extends AbstractHttpInvokerReques
 			//编码方式
 			postMethod.addRequestHeader(HTTP_HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
 		}
+		if (isCompressRequestBody()) {
+			postMethod.addRequestHeader(HTTP_HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+		}
 		return postMethod;
 	}
 
@@ -206,6 +238,40 @@ public class CommonsHttpInvokerRequestExecutor extends AbstractHttpInvokerReques
 		postMethod.setRequestEntity(new ByteArrayRequestEntity(baos.toByteArray(), getContentType()));
 	}
 
+	/**
+	 * Set the given remote invocation as request body of unknown length,
+	 * to be serialized when HttpClient writes out the request. HttpClient
+	 * sends such a body with chunked transfer encoding.
+	 * @param config the HTTP invoker configuration that specifies the target service
+	 * @param postMethod the PostMethod to set the request body on
+	 * @param invocation the RemoteInvocation to serialize
+	 * @throws IOException if thrown by I/O methods
+	 * @since 3.2.17
+	 * @see #writeRemoteInvocation
+	 */
+	protected void setRequestBody(
+			HttpInvokerClientConfiguration config, PostMethod postMethod, final RemoteInvocation invocation)
+			throws IOException {
+
+		postMethod.setRequestEntity(new RequestEntity() {
+			public boolean isRepeatable() {
+				return false;
+			}
+
+			public void writeRequest(OutputStream out) throws IOException {
+				writeRemoteInvocation(invocation, StreamUtils.nonClosing(out));
+			}
+
+			public long getContentLength() {
+				return -1;
+			}
+
+			public String getContentType() {
+				return CommonsHttpInvokerRequestExecutor.this.getContentType();
+			}
+		});
+	}
+
 	/**
 	 * Execute the given PostMethod instance.
 	 * @param config the HTTP invoker configuration that specifies the target service
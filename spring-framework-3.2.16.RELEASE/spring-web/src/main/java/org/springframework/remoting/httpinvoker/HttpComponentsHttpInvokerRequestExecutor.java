@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.remoting.httpinvoker;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.http.Header;
@@ -32,14 +33,18 @@ import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.EntityTemplate;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.CoreConnectionPNames;
 
 import org.springframework.context.i18n.LocaleContext;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
 import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -148,6 +153,28 @@ public class HttpComponentsHttpInvokerRequestExecutor extends AbstractHttpInvoke
 
 		HttpPost postMethod = createHttpPost(config);
 		setRequestBody(config, postMethod, baos);
+		return executeAndReadResult(config, postMethod);
+	}
+
+	/**
+	 * Execute the given request through the HttpClient, with an entity
+	 * that serializes the invocation straight into the request body.
+	 * @since 3.2.17
+	 * @see #setRequestBody(HttpInvokerClientConfiguration, HttpPost, RemoteInvocation)
+	 */
+	@Override
+	protected RemoteInvocationResult doExecuteChunkedRequest(
+			HttpInvokerClientConfiguration config, RemoteInvocation invocation)
+			throws IOException, ClassNotFoundException {
+
+		HttpPost postMethod = createHttpPost(config);
+		setRequestBody(config, postMethod, invocation);
+		return executeAndReadResult(config, postMethod);
+	}
+
+	private RemoteInvocationResult executeAndReadResult(HttpInvokerClientConfiguration config, HttpPost postMethod)
+			throws IOException, ClassNotFoundException {
+
 		try {
 			HttpResponse response = executeHttpPost(config, getHttpClient(), postMethod);
 			validateResponse(config, response);
@@ -177,6 +204,9 @@ public class HttpComponentsHttpInvokerRequestExecutor extends AbstractHttpInvoke
 		if (isAcceptGzipEncoding()) {
 			httpPost.addHeader(HTTP_HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
 		}
+		if (isCompressRequestBody()) {
+			httpPost.addHeader(HTTP_HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+		}
 		return httpPost;
 	}
 
@@ -200,6 +230,30 @@ public class HttpComponentsHttpInvokerRequestExecutor extends AbstractHttpInvoke
 		httpPost.setEntity(entity);
 	}
 
+	/**
+	 * Set the given remote invocation as chunked request body, to be
+	 * serialized when the HttpClient writes out the request.
+	 * @param config the HTTP invoker configuration that specifies the target service
+	 * @param httpPost the HttpPost to set the request body on
+	 * @param invocation the RemoteInvocation to serialize
+	 * @throws IOException if thrown by I/O methods
+	 * @since 3.2.17
+	 * @see #writeRemoteInvocation
+	 */
+	protected void setRequestBody(
+			HttpInvokerClientConfiguration config, HttpPost httpPost, final RemoteInvocation invocation)
+			throws IOException {
+
+		EntityTemplate entity = new EntityTemplate(new ContentProducer() {
+			public void writeTo(OutputStream outputStream) throws IOException {
+				writeRemoteInvocation(invocation, StreamUtils.nonClosing(outputStream));
+			}
+		});
+		entity.setContentType(getContentType());
+		entity.setChunked(true);
+		httpPost.setEntity(entity);
+	}
+
 	/**
 	 * Execute the given HttpPost instance.
 	 * @param config the HTTP invoker configuration that specifies the target service
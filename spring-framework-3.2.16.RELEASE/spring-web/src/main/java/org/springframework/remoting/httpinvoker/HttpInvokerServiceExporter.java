@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Servlet-API-based HTTP request handler that exports the specified service bean
@@ -87,7 +88,8 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	 * <p>Delegates to
 	 * {@link #readRemoteInvocation(javax.servlet.http.HttpServletRequest, java.io.InputStream)}
 	 * with the
-	 * {@link javax.servlet.ServletRequest#getInputStream() servlet request's input stream}.
+	 * {@link javax.servlet.ServletRequest#getInputStream() servlet request's input stream},
+	 * unzipping it first in case of a {@linkplain #isGzipRequest GZIP request}.
 	 * @param request current HTTP request
 	 * @return the RemoteInvocation object
 	 * @throws IOException in case of I/O failure
@@ -96,7 +98,24 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	protected RemoteInvocation readRemoteInvocation(HttpServletRequest request)
 			throws IOException, ClassNotFoundException {
 
-		return readRemoteInvocation(request, request.getInputStream());
+		InputStream is = request.getInputStream();
+		if (isGzipRequest(request)) {
+			is = new GZIPInputStream(is);
+		}
+		return readRemoteInvocation(request, is);
+	}
+
+	/**
+	 * Determine whether the given request has a GZIP-encoded body.
+	 * <p>Default implementation checks whether the HTTP "Content-Encoding"
+	 * header contains "gzip" (in any casing).
+	 * @param request current HTTP request
+	 * @since 3.2.17
+	 * @see AbstractHttpInvokerRequestExecutor#setCompressRequestBody
+	 */
+	protected boolean isGzipRequest(HttpServletRequest request) {
+		String encodingHeader = request.getHeader("Content-Encoding");
+		return (encodingHeader != null && encodingHeader.toLowerCase().contains("gzip"));
 	}
 
 	/**
@@ -104,7 +123,8 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	 * <p>Gives {@link #decorateInputStream} a chance to decorate the stream
 	 * first (for example, for custom encryption or compression). Creates a
 	 * {@link org.springframework.remoting.rmi.CodebaseAwareObjectInputStream}
-	 * and calls {@link #doReadRemoteInvocation} to actually read the object.
+	 * and calls {@link #doReadRemoteInvocation} to actually read the object,
+	 * unless a {@link #setDeserializer Deserializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param request current HTTP request
 	 * @param is the InputStream to read from
@@ -115,7 +135,16 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	protected RemoteInvocation readRemoteInvocation(HttpServletRequest request, InputStream is)
 			throws IOException, ClassNotFoundException {
 
-		ObjectInputStream ois = createObjectInputStream(decorateInputStream(request, is));
+		InputStream decoratedStream = decorateInputStream(request, is);
+		if (getDeserializer() != null) {
+			try {
+				return deserializeRemoteInvocation(new BufferedInputStream(decoratedStream));
+			}
+			finally {
+				decoratedStream.close();
+			}
+		}
+		ObjectInputStream ois = createObjectInputStream(decoratedStream);
 		try {
 			return doReadRemoteInvocation(ois);
 		}
@@ -158,7 +187,8 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	 * <p>The default implementation gives {@link #decorateOutputStream} a chance
 	 * to decorate the stream first (for example, for custom encryption or compression).
 	 * Creates an {@link java.io.ObjectOutputStream} for the final stream and calls
-	 * {@link #doWriteRemoteInvocationResult} to actually write the object.
+	 * {@link #doWriteRemoteInvocationResult} to actually write the object,
+	 * unless a {@link #setSerializer Serializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param request current HTTP request
 	 * @param response current HTTP response
@@ -172,8 +202,18 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 			HttpServletRequest request, HttpServletResponse response, RemoteInvocationResult result, OutputStream os)
 			throws IOException {
 
+		OutputStream decoratedStream = decorateOutputStream(request, response, os);
+		if (getSerializer() != null) {
+			try {
+				serializeRemoteInvocationResult(result, decoratedStream);
+			}
+			finally {
+				decoratedStream.close();
+			}
+			return;
+		}
 		// 对象输出流
-		ObjectOutputStream oos = createObjectOutputStream(decorateOutputStream(request, response, os));
+		ObjectOutputStream oos = createObjectOutputStream(decoratedStream);
 		try {
 			doWriteRemoteInvocationResult(result, oos);
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.zip.GZIPInputStream;
 
 import org.springframework.context.i18n.LocaleContext;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
 import org.springframework.util.StringUtils;
 
@@ -95,6 +96,28 @@ public class SimpleHttpInvokerRequestExecutor extends AbstractHttpInvokerRequest
 		return readRemoteInvocationResult(responseBody, config.getCodebaseUrl());
 	}
 
+	/**
+	 * Execute the given request through a standard J2SE HttpURLConnection
+	 * in chunked streaming mode, serializing the invocation straight
+	 * into the connection's OutputStream.
+	 * @since 3.2.17
+	 * @see java.net.HttpURLConnection#setChunkedStreamingMode
+	 */
+	@Override
+	protected RemoteInvocationResult doExecuteChunkedRequest(
+			HttpInvokerClientConfiguration config, RemoteInvocation invocation)
+			throws IOException, ClassNotFoundException {
+
+		HttpURLConnection con = openConnection(config);
+		prepareConnection(con, -1);
+		con.setChunkedStreamingMode(0);
+		writeRemoteInvocation(invocation, con.getOutputStream());
+		validateResponse(config, con);
+		InputStream responseBody = readResponseBody(config, con);
+
+		return readRemoteInvocationResult(responseBody, config.getCodebaseUrl());
+	}
+
 	/**
 	 * Open an HttpURLConnection for the given remote invocation request.
 	 * @param config the HTTP invoker configuration that specifies the
@@ -117,7 +140,8 @@ public class SimpleHttpInvokerRequestExecutor extends AbstractHttpInvokerRequest
 	 * "application/x-java-serialized-object" as "Content-Type" header,
 	 * and the given content length as "Content-Length" header.
 	 * @param connection the HTTP connection to prepare
-	 * @param contentLength the length of the content to send
+	 * @param contentLength the length of the content to send,
+	 * or -1 if not known upfront (as of 3.2.17)
 	 * @throws IOException if thrown by HttpURLConnection methods
 	 * @see java.net.HttpURLConnection#setRequestMethod
 	 * @see java.net.HttpURLConnection#setRequestProperty
@@ -132,7 +156,12 @@ public class SimpleHttpInvokerRequestExecutor extends AbstractHttpInvokerRequest
 		connection.setDoOutput(true);
 		connection.setRequestMethod(HTTP_METHOD_POST);
 		connection.setRequestProperty(HTTP_HEADER_CONTENT_TYPE, getContentType());
-		connection.setRequestProperty(HTTP_HEADER_CONTENT_LENGTH, Integer.toString(contentLength));
+		if (contentLength >= 0) {
+			connection.setRequestProperty(HTTP_HEADER_CONTENT_LENGTH, Integer.toString(contentLength));
+		}
+		if (isCompressRequestBody()) {
+			connection.setRequestProperty(HTTP_HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+		}
 		LocaleContext locale = LocaleContextHolder.getLocaleContext();
 		if (locale != null) {
 			connection.setRequestProperty(HTTP_HEADER_ACCEPT_LANGUAGE, StringUtils.toLanguageTag(locale.getLocale()));
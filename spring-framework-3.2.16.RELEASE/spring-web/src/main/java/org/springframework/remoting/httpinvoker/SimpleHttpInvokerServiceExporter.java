@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2009 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,13 @@
 
 package org.springframework.remoting.httpinvoker;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -79,7 +81,8 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	 * <p>Delegates to
 	 * {@link #readRemoteInvocation(com.sun.net.httpserver.HttpExchange, java.io.InputStream)}
 	 * with the
-	 * {@link com.sun.net.httpserver.HttpExchange#getRequestBody()} request's input stream}.
+	 * {@link com.sun.net.httpserver.HttpExchange#getRequestBody()} request's input stream},
+	 * unzipping it first in case of a {@linkplain #isGzipRequest GZIP request}.
 	 * @param exchange current HTTP request/response
 	 * @return the RemoteInvocation object
 	 * @throws java.io.IOException in case of I/O failure
@@ -88,7 +91,24 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	protected RemoteInvocation readRemoteInvocation(HttpExchange exchange)
 			throws IOException, ClassNotFoundException {
 
-		return readRemoteInvocation(exchange, exchange.getRequestBody());
+		InputStream is = exchange.getRequestBody();
+		if (isGzipRequest(exchange)) {
+			is = new GZIPInputStream(is);
+		}
+		return readRemoteInvocation(exchange, is);
+	}
+
+	/**
+	 * Determine whether the given request has a GZIP-encoded body.
+	 * <p>Default implementation checks whether the HTTP "Content-Encoding"
+	 * header contains "gzip" (in any casing).
+	 * @param exchange current HTTP request/response
+	 * @since 3.2.17
+	 * @see AbstractHttpInvokerRequestExecutor#setCompressRequestBody
+	 */
+	protected boolean isGzipRequest(HttpExchange exchange) {
+		String encodingHeader = exchange.getRequestHeaders().getFirst("Content-Encoding");
+		return (encodingHeader != null && encodingHeader.toLowerCase().contains("gzip"));
 	}
 
 	/**
@@ -96,7 +116,8 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	 * <p>Gives {@link #decorateInputStream} a chance to decorate the stream
 	 * first (for example, for custom encryption or compression). Creates a
 	 * {@link org.springframework.remoting.rmi.CodebaseAwareObjectInputStream}
-	 * and calls {@link #doReadRemoteInvocation} to actually read the object.
+	 * and calls {@link #doReadRemoteInvocation} to actually read the object,
+	 * unless a {@link #setDeserializer Deserializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param exchange current HTTP request/response
 	 * @param is the InputStream to read from
@@ -107,7 +128,11 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	protected RemoteInvocation readRemoteInvocation(HttpExchange exchange, InputStream is)
 			throws IOException, ClassNotFoundException {
 
-		ObjectInputStream ois = createObjectInputStream(decorateInputStream(exchange, is));
+		InputStream decoratedStream = decorateInputStream(exchange, is);
+		if (getDeserializer() != null) {
+			return deserializeRemoteInvocation(new BufferedInputStream(decoratedStream));
+		}
+		ObjectInputStream ois = createObjectInputStream(decoratedStream);
 		return doReadRemoteInvocation(ois);
 	}
 
@@ -144,7 +169,8 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	 * <p>The default implementation gives {@link #decorateOutputStream} a chance
 	 * to decorate the stream first (for example, for custom encryption or compression).
 	 * Creates an {@link java.io.ObjectOutputStream} for the final stream and calls
-	 * {@link #doWriteRemoteInvocationResult} to actually write the object.
+	 * {@link #doWriteRemoteInvocationResult} to actually write the object,
+	 * unless a {@link #setSerializer Serializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param exchange current HTTP request/response
 	 * @param result the RemoteInvocationResult object
@@ -156,7 +182,12 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	protected void writeRemoteInvocationResult(
 			HttpExchange exchange, RemoteInvocationResult result, OutputStream os) throws IOException {
 
-		ObjectOutputStream oos = createObjectOutputStream(decorateOutputStream(exchange, os));
+		OutputStream decoratedStream = decorateOutputStream(exchange, os);
+		if (getSerializer() != null) {
+			serializeRemoteInvocationResult(result, decoratedStream);
+			return;
+		}
+		ObjectOutputStream oos = createObjectOutputStream(decoratedStream);
 		doWriteRemoteInvocationResult(result, oos);
 		oos.flush();
 	}
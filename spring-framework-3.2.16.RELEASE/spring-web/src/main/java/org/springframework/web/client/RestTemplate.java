@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -541,6 +541,51 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 		}
 	}
 
+	/**
+	 * Returns a request callback implementation that prepares the request {@code Accept}
+	 * headers based on the given response type and configured
+	 * {@linkplain #getMessageConverters() message converters}.
+	 * @since 3.2.17
+	 */
+	protected RequestCallback acceptHeaderRequestCallback(Type responseType) {
+		return new AcceptHeaderRequestCallback(responseType);
+	}
+
+	/**
+	 * Returns a request callback implementation that writes the given object to the
+	 * request stream.
+	 * @since 3.2.17
+	 */
+	protected RequestCallback httpEntityCallback(Object requestBody) {
+		return new HttpEntityRequestCallback(requestBody);
+	}
+
+	/**
+	 * Returns a request callback implementation that writes the given object to the
+	 * request stream, preparing the request {@code Accept} headers for the given
+	 * response type as well.
+	 * @since 3.2.17
+	 */
+	protected RequestCallback httpEntityCallback(Object requestBody, Type responseType) {
+		return new HttpEntityRequestCallback(requestBody, responseType);
+	}
+
+	/**
+	 * Returns a response extractor for {@link ResponseEntity}.
+	 * @since 3.2.17
+	 */
+	protected <T> ResponseExtractor<ResponseEntity<T>> responseEntityExtractor(Type responseType) {
+		return new ResponseEntityResponseExtractor<T>(responseType);
+	}
+
+	/**
+	 * Returns a response extractor for {@link HttpHeaders}.
+	 * @since 3.2.17
+	 */
+	protected ResponseExtractor<HttpHeaders> headersExtractor() {
+		return this.headersExtractor;
+	}
+
 	private void logResponseStatus(HttpMethod method, URI url, ClientHttpResponse response) {
 		if (logger.isDebugEnabled()) {
 			try {
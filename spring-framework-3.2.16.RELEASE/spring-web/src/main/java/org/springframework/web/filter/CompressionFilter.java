@@ -0,0 +1,671 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * {@link javax.servlet.Filter} that compresses response content on the fly with
+ * "gzip" or "deflate", as negotiated through the {@code Accept-Encoding} request header.
+ *
+ * <p>A response is compressed if it has a 2xx status code other than 204 and 206,
+ * has a content type matching one of the {@linkplain #setMimeTypes compressible
+ * MIME types}, does not specify a {@code Content-Encoding} of its own, and is at least
+ * {@linkplain #setMinCompressionSize minCompressionSize} bytes long. To determine the
+ * latter, content is buffered up to that size before compression starts; a response
+ * that is flushed before reaching that size is sent uncompressed, since an early flush
+ * typically indicates streaming content that is meant to reach the client right away.
+ *
+ * <p>{@link Deflater} instances are reused across requests, keeping up to
+ * {@linkplain #setDeflaterPoolSize deflaterPoolSize} idle instances per encoding.
+ *
+ * <p>The filter also takes part in async dispatches, completing the compressed
+ * response at the end of the last dispatch of an asynchronously processed request.
+ *
+ * @since 3.2.17
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+	private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
+	private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+	private static final String HEADER_VARY = "Vary";
+
+	private static final String ENCODING_GZIP = "gzip";
+
+	private static final String ENCODING_DEFLATE = "deflate";
+
+	private static final String[] DEFAULT_MIME_TYPES = {"text/*", "application/json", "application/xml",
+			"application/javascript", "application/x-javascript", "application/xhtml+xml", "image/svg+xml"};
+
+
+	private int minCompressionSize = 1024;
+
+	private List<MediaType> mimeTypes = parseMimeTypes(DEFAULT_MIME_TYPES);
+
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private int deflaterPoolSize = 32;
+
+	private final DeflaterPool gzipDeflaterPool = new DeflaterPool(true);
+
+	private final DeflaterPool deflateDeflaterPool = new DeflaterPool(false);
+
+
+	/**
+	 * Set the minimum content length in bytes for a response to be compressed.
+	 * <p>Default is 1024.
+	 */
+	public void setMinCompressionSize(int minCompressionSize) {
+		Assert.isTrue(minCompressionSize >= 0, "Minimum compression size must not be negative");
+		this.minCompressionSize = minCompressionSize;
+	}
+
+	/**
+	 * Set the MIME types of responses to compress, possibly using wildcards such as
+	 * "text/*". Parameters such as the charset are ignored.
+	 * <p>Default is "text/*", "application/json", "application/xml", "application/javascript",
+	 * "application/x-javascript", "application/xhtml+xml" and "image/svg+xml".
+	 */
+	public void setMimeTypes(String... mimeTypes) {
+		Assert.notNull(mimeTypes, "MIME types must not be null");
+		this.mimeTypes = parseMimeTypes(mimeTypes);
+	}
+
+	/**
+	 * Set the compression level (0-9) for the {@link Deflater}.
+	 * <p>Default is {@link Deflater#DEFAULT_COMPRESSION}.
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		Assert.isTrue(compressionLevel == Deflater.DEFAULT_COMPRESSION ||
+				(compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION),
+				"Invalid compression level: " + compressionLevel);
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Set the maximum number of idle {@link Deflater} instances to keep for reuse,
+	 * per content encoding. Instances beyond that number are released right away.
+	 * <p>Default is 32.
+	 */
+	public void setDeflaterPoolSize(int deflaterPoolSize) {
+		Assert.isTrue(deflaterPoolSize >= 0, "Deflater pool size must not be negative");
+		this.deflaterPoolSize = deflaterPoolSize;
+	}
+
+	private static List<MediaType> parseMimeTypes(String[] mimeTypes) {
+		List<MediaType> result = new ArrayList<MediaType>(mimeTypes.length);
+		for (String mimeType : mimeTypes) {
+			result.add(MediaType.parseMediaType(mimeType));
+		}
+		return result;
+	}
+
+
+	/**
+	 * The default value is "false" so that the filter may complete the compressed
+	 * response at the end of the last asynchronously dispatched thread.
+	 */
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		HttpServletResponse responseToUse = response;
+		if (!isAsyncDispatch(request)) {
+			String encoding = negotiateEncoding(request.getHeader(HEADER_ACCEPT_ENCODING));
+			if (encoding == null) {
+				filterChain.doFilter(request, response);
+				return;
+			}
+			responseToUse = new CompressionResponseWrapper(request, response, encoding);
+		}
+
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, responseToUse);
+			completed = true;
+		}
+		finally {
+			CompressionResponseWrapper responseWrapper =
+					WebUtils.getNativeResponse(responseToUse, CompressionResponseWrapper.class);
+			if (responseWrapper != null) {
+				if (!completed) {
+					responseWrapper.release();
+				}
+				else if (!isAsyncStarted(request)) {
+					responseWrapper.finishResponse();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine the content encoding to use for the given {@code Accept-Encoding}
+	 * header value, preferring "gzip" over "deflate" for equal quality values.
+	 * @param acceptEncoding the header value (may be {@code null})
+	 * @return "gzip", "deflate", or {@code null} for no compression
+	 */
+	protected String negotiateEncoding(String acceptEncoding) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return null;
+		}
+		float gzipQuality = -1;
+		float deflateQuality = -1;
+		float wildcardQuality = -1;
+		for (String token : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			String coding = token;
+			float quality = 1;
+			int paramIndex = token.indexOf(';');
+			if (paramIndex != -1) {
+				coding = token.substring(0, paramIndex).trim();
+				String param = token.substring(paramIndex + 1).trim();
+				if (param.startsWith("q=")) {
+					try {
+						quality = Float.parseFloat(param.substring(2).trim());
+					}
+					catch (NumberFormatException ex) {
+						quality = 0;
+					}
+				}
+			}
+			if (ENCODING_GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+				gzipQuality = quality;
+			}
+			else if (ENCODING_DEFLATE.equalsIgnoreCase(coding)) {
+				deflateQuality = quality;
+			}
+			else if ("*".equals(coding)) {
+				wildcardQuality = quality;
+			}
+		}
+		if (gzipQuality < 0) {
+			gzipQuality = wildcardQuality;
+		}
+		if (deflateQuality < 0) {
+			deflateQuality = wildcardQuality;
+		}
+		if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+			return ENCODING_GZIP;
+		}
+		if (deflateQuality > 0) {
+			return ENCODING_DEFLATE;
+		}
+		return null;
+	}
+
+	/**
+	 * Indicates whether a response with the given status code and content type
+	 * is eligible for compression.
+	 * <p>The default implementation returns {@code true} for 2xx status codes other than
+	 * 204 and 206, combined with a content type matching one of the configured MIME types.
+	 * @param request the HTTP request
+	 * @param responseStatusCode the HTTP response status code
+	 * @param contentType the response content type (may be {@code null})
+	 * @return {@code true} if eligible for compression; {@code false} otherwise
+	 */
+	protected boolean isEligibleForCompression(HttpServletRequest request, int responseStatusCode,
+			String contentType) {
+
+		if (responseStatusCode < 200 || responseStatusCode >= 300 ||
+				responseStatusCode == HttpServletResponse.SC_NO_CONTENT ||
+				responseStatusCode == HttpServletResponse.SC_PARTIAL_CONTENT || contentType == null) {
+			return false;
+		}
+		MediaType mediaType;
+		try {
+			mediaType = MediaType.parseMediaType(contentType);
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+		for (MediaType mimeType : this.mimeTypes) {
+			if (mimeType.includes(mediaType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Pool of idle {@link Deflater} instances for one content encoding.
+	 */
+	private class DeflaterPool {
+
+		private final boolean nowrap;
+
+		private final Queue<Deflater> idle = new ConcurrentLinkedQueue<Deflater>();
+
+		private final AtomicInteger idleCount = new AtomicInteger();
+
+		public DeflaterPool(boolean nowrap) {
+			this.nowrap = nowrap;
+		}
+
+		public Deflater obtain() {
+			Deflater deflater = this.idle.poll();
+			if (deflater == null) {
+				return new Deflater(compressionLevel, this.nowrap);
+			}
+			this.idleCount.decrementAndGet();
+			deflater.setLevel(compressionLevel);
+			return deflater;
+		}
+
+		public void release(Deflater deflater) {
+			if (this.idleCount.incrementAndGet() <= deflaterPoolSize) {
+				deflater.reset();
+				this.idle.offer(deflater);
+			}
+			else {
+				this.idleCount.decrementAndGet();
+				deflater.end();
+			}
+		}
+	}
+
+
+	/**
+	 * {@link DeflaterOutputStream} that writes either the zlib format used by the
+	 * "deflate" encoding or, with a raw {@link Deflater}, the GZIP file format.
+	 */
+	private static class CompressorOutputStream extends DeflaterOutputStream {
+
+		private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+		private final CRC32 crc;
+
+		public CompressorOutputStream(OutputStream out, Deflater deflater, boolean gzip) throws IOException {
+			super(out, deflater, 8192);
+			if (gzip) {
+				this.crc = new CRC32();
+				out.write(GZIP_HEADER);
+			}
+			else {
+				this.crc = null;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			if (this.crc != null) {
+				this.crc.update(b, off, len);
+			}
+		}
+
+		@Override
+		public void finish() throws IOException {
+			super.finish();
+			if (this.crc != null) {
+				writeIntLittleEndian(this.crc.getValue());
+				writeIntLittleEndian(this.def.getBytesRead());
+			}
+		}
+
+		private void writeIntLittleEndian(long value) throws IOException {
+			this.out.write((int) (value & 0xff));
+			this.out.write((int) ((value >> 8) & 0xff));
+			this.out.write((int) ((value >> 16) & 0xff));
+			this.out.write((int) ((value >> 24) & 0xff));
+		}
+	}
+
+
+	/**
+	 * {@link HttpServletResponseWrapper} that buffers content up to the minimum
+	 * compression size, and then decides whether to compress the rest of it.
+	 */
+	private class CompressionResponseWrapper extends HttpServletResponseWrapper {
+
+		private final HttpServletRequest request;
+
+		private final String encoding;
+
+		private final ServletOutputStream outputStream = new CompressionServletOutputStream();
+
+		private PrintWriter writer;
+
+		private int statusCode = HttpServletResponse.SC_OK;
+
+		private boolean encodedByApplication = false;
+
+		private long contentLength = -1;
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+		/** Whether it has been decided to compress or not to compress */
+		private boolean decided = false;
+
+		/** The compressing stream, if it has been decided to compress */
+		private CompressorOutputStream compressor;
+
+		private Deflater deflater;
+
+		/** Whether the response has been completed, or abandoned after an error */
+		private boolean released = false;
+
+		public CompressionResponseWrapper(HttpServletRequest request, HttpServletResponse response, String encoding) {
+			super(response);
+			this.request = request;
+			this.encoding = encoding;
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			super.setStatus(sc);
+			this.statusCode = sc;
+		}
+
+		@SuppressWarnings("deprecation")
+		@Override
+		public void setStatus(int sc, String sm) {
+			super.setStatus(sc, sm);
+			this.statusCode = sc;
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			decide(false);
+			super.sendError(sc);
+			this.statusCode = sc;
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			decide(false);
+			super.sendError(sc, msg);
+			this.statusCode = sc;
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			decide(false);
+			super.sendRedirect(location);
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			setContentLengthInternal(len);
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			if (!checkHeader(name, value)) {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if (!checkHeader(name, value)) {
+				super.addHeader(name, value);
+			}
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			if (!checkHeader(name, String.valueOf(value))) {
+				super.setIntHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			if (!checkHeader(name, String.valueOf(value))) {
+				super.addIntHeader(name, value);
+			}
+		}
+
+		/**
+		 * Check for headers that affect compression.
+		 * @return {@code true} if the header has been handled, {@code false} to pass it on
+		 */
+		private boolean checkHeader(String name, String value) {
+			if (HEADER_CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				setContentLengthInternal(value != null ? Long.parseLong(value.trim()) : -1);
+				return true;
+			}
+			if (HEADER_CONTENT_ENCODING.equalsIgnoreCase(name) && this.compressor == null) {
+				this.encodedByApplication = true;
+			}
+			return false;
+		}
+
+		private void setContentLengthInternal(long len) {
+			this.contentLength = len;
+			if (this.decided && this.compressor == null) {
+				applyContentLength(len);
+			}
+		}
+
+		private void applyContentLength(long len) {
+			if (len >= 0 && len <= Integer.MAX_VALUE) {
+				super.setContentLength((int) len);
+			}
+			else if (len > Integer.MAX_VALUE) {
+				super.setHeader(HEADER_CONTENT_LENGTH, Long.toString(len));
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (this.writer == null) {
+				String characterEncoding = getCharacterEncoding();
+				this.writer = new PrintWriter(new OutputStreamWriter(this.outputStream,
+						(characterEncoding != null ? characterEncoding : WebUtils.DEFAULT_CHARACTER_ENCODING)));
+			}
+			return this.writer;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (this.writer != null) {
+				this.writer.flush();
+			}
+			flushContent();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			releaseDeflater();
+			this.compressor = null;
+			this.decided = false;
+			this.buffer.reset();
+			this.statusCode = HttpServletResponse.SC_OK;
+			this.encodedByApplication = false;
+			this.contentLength = -1;
+		}
+
+		@Override
+		public void resetBuffer() {
+			super.resetBuffer();
+			this.buffer.reset();
+			if (this.compressor != null) {
+				// restart the compressed stream; the Content-Encoding header is still in place
+				this.deflater.reset();
+				try {
+					this.compressor = new CompressorOutputStream(
+							getResponse().getOutputStream(), this.deflater, ENCODING_GZIP.equals(this.encoding));
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Failed to restart compressed response content", ex);
+				}
+			}
+		}
+
+		private void write(byte[] b, int off, int len) throws IOException {
+			if (this.released) {
+				throw new IOException("Response content has already been completed");
+			}
+			if (!this.decided) {
+				if (this.buffer.size() + len < minCompressionSize) {
+					this.buffer.write(b, off, len);
+					return;
+				}
+				decide(true);
+			}
+			if (this.compressor != null) {
+				this.compressor.write(b, off, len);
+			}
+			else {
+				getResponse().getOutputStream().write(b, off, len);
+			}
+		}
+
+		/**
+		 * Decide whether to compress, and write out any buffered content.
+		 * @param compressible whether the content is long enough to be compressed
+		 */
+		private void decide(boolean compressible) throws IOException {
+			if (this.decided) {
+				return;
+			}
+			this.decided = true;
+			if (compressible && !this.encodedByApplication &&
+					(this.contentLength < 0 || this.contentLength >= minCompressionSize) &&
+					isEligibleForCompression(this.request, this.statusCode, getContentType())) {
+				super.setHeader(HEADER_CONTENT_ENCODING, this.encoding);
+				super.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+				boolean gzip = ENCODING_GZIP.equals(this.encoding);
+				this.deflater = (gzip ? gzipDeflaterPool : deflateDeflaterPool).obtain();
+				this.compressor = new CompressorOutputStream(getResponse().getOutputStream(), this.deflater, gzip);
+				if (this.buffer.size() > 0) {
+					this.buffer.writeTo(this.compressor);
+				}
+			}
+			else {
+				applyContentLength(this.contentLength);
+				if (this.buffer.size() > 0) {
+					this.buffer.writeTo(getResponse().getOutputStream());
+				}
+			}
+			this.buffer.reset();
+		}
+
+		private void flushContent() throws IOException {
+			if (this.released) {
+				return;
+			}
+			decide(false);
+			if (this.compressor != null) {
+				this.compressor.flush();
+			}
+		}
+
+		/**
+		 * Complete the response: write out buffered content, or the remaining
+		 * compressed content, and release the Deflater.
+		 */
+		public void finishResponse() throws IOException {
+			if (this.released) {
+				return;
+			}
+			try {
+				if (this.writer != null) {
+					this.writer.flush();
+				}
+				if (!this.decided && this.contentLength < 0) {
+					// the complete content is buffered, so its length is known
+					this.contentLength = this.buffer.size();
+				}
+				decide(false);
+				if (this.compressor != null) {
+					this.compressor.finish();
+				}
+			}
+			finally {
+				release();
+			}
+		}
+
+		/**
+		 * Release the Deflater, if any, without completing the response.
+		 * Any further content written to the response is rejected.
+		 */
+		public void release() {
+			releaseDeflater();
+			this.compressor = null;
+			this.released = true;
+		}
+
+		private void releaseDeflater() {
+			if (this.deflater != null) {
+				(ENCODING_GZIP.equals(this.encoding) ? gzipDeflaterPool : deflateDeflaterPool).release(this.deflater);
+				this.deflater = null;
+			}
+		}
+
+
+		private class CompressionServletOutputStream extends ServletOutputStream {
+
+			@Override
+			public void write(int b) throws IOException {
+				CompressionResponseWrapper.this.write(new byte[] {(byte) b}, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				CompressionResponseWrapper.this.write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				flushContent();
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,19 @@
 
 package org.springframework.web.filter;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
@@ -43,6 +51,16 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>If the handler sets an {@code ETag} header itself, e.g. derived from a version
+ * column, that value is used as it is and the content is not hashed. If it matches
+ * the {@code If-None-Match} header, any content written afterwards is discarded.
+ *
+ * <p>By default, the entire response content is buffered in memory and hashed once
+ * complete. In {@linkplain #setStreaming streaming mode}, the hash is computed
+ * incrementally while the content is written, and content beyond the
+ * {@linkplain #setMemoryThreshold memory threshold} is spooled to a temporary file,
+ * keeping memory usage bounded for large responses.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @since 3.0
@@ -53,6 +71,64 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
 
+	private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+	private static final String MD5_ALGORITHM_NAME = "MD5";
+
+	private static final char[] HEX_CHARS =
+			{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+
+	private boolean streaming = false;
+
+	private int memoryThreshold = 64 * 1024;
+
+	private File tempDirectory;
+
+
+	/**
+	 * Set whether to compute the ETag incrementally while the response content is
+	 * written, spooling content beyond the {@linkplain #setMemoryThreshold memory
+	 * threshold} to a temporary file instead of buffering all of it in memory.
+	 * <p>In streaming mode, the ETag is always an MD5 hash as generated by default:
+	 * {@link #generateETagHeaderValue(byte[])} is not called, and the body passed to
+	 * {@link #isEligibleForEtag} is {@code null} if spooled to a temporary file.
+	 * <p>Default is "false".
+	 * @since 3.2.17
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Return whether the ETag is computed in streaming mode.
+	 * @since 3.2.17
+	 */
+	public boolean isStreaming() {
+		return this.streaming;
+	}
+
+	/**
+	 * Set the number of bytes to buffer in memory in {@linkplain #setStreaming
+	 * streaming mode} before spooling the response content to a temporary file.
+	 * <p>Default is 64 KB.
+	 * @since 3.2.17
+	 */
+	public void setMemoryThreshold(int memoryThreshold) {
+		Assert.isTrue(memoryThreshold >= 0, "Memory threshold must not be negative");
+		this.memoryThreshold = memoryThreshold;
+	}
+
+	/**
+	 * Set the directory for temporary files in {@linkplain #setStreaming streaming mode}.
+	 * <p>Default is the servlet container's temporary directory for the web application,
+	 * falling back to the "java.io.tmpdir" system property.
+	 * @since 3.2.17
+	 */
+	public void setTempDirectory(File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
 
 	/**
 	 * The default value is "false" so that the filter may delay the generation of
@@ -69,13 +145,55 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse responseToUse = response;
 		if (!isAsyncDispatch(request)) {
-			responseToUse = new ShallowEtagResponseWrapper(response);
+			ResponseContent content = (this.streaming ?
+					new ResponseContent(getDigest(), this.memoryThreshold, getTempDirectory()) :
+					new ResponseContent(null, Integer.MAX_VALUE, null));
+			responseToUse = new ShallowEtagResponseWrapper(response, request.getHeader(HEADER_IF_NONE_MATCH), content);
 		}
 
-		filterChain.doFilter(request, responseToUse);
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, responseToUse);
+			completed = true;
+		}
+		finally {
+			if (!completed) {
+				discardContent(responseToUse);
+			}
+		}
 
 		if (!isAsyncStarted(request)) {
-			updateResponse(request, responseToUse);
+			try {
+				updateResponse(request, responseToUse);
+			}
+			finally {
+				discardContent(responseToUse);
+			}
+		}
+	}
+
+	private File getTempDirectory() {
+		if (this.tempDirectory != null) {
+			return this.tempDirectory;
+		}
+		return (getServletContext() != null ? WebUtils.getTempDir(getServletContext()) : null);
+	}
+
+	private void discardContent(HttpServletResponse response) {
+		ShallowEtagResponseWrapper responseWrapper =
+				WebUtils.getNativeResponse(response, ShallowEtagResponseWrapper.class);
+		if (responseWrapper != null) {
+			responseWrapper.getContent().discard();
+		}
+	}
+
+	private static MessageDigest getDigest() {
+		try {
+			return MessageDigest.getInstance(MD5_ALGORITHM_NAME);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"" +
+					MD5_ALGORITHM_NAME + "\"", ex);
 		}
 	}
 
@@ -86,10 +204,15 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse rawResponse = (HttpServletResponse) responseWrapper.getResponse();
 		int statusCode = responseWrapper.getStatusCode();
-		byte[] body = responseWrapper.toByteArray();
+		ResponseContent content = responseWrapper.getContent();
+		byte[] body = content.toByteArray();
 
 		if (isEligibleForEtag(request, responseWrapper, statusCode, body)) {
-			String responseETag = generateETagHeaderValue(body);
+			String responseETag = responseWrapper.getPresetETag();
+			if (responseETag == null) {
+				responseETag = (content.isDigesting() ? generateETagHeaderValue(content.getDigest()) :
+						generateETagHeaderValue(body));
+			}
 			rawResponse.setHeader(HEADER_ETAG, responseETag);
 			String requestETag = request.getHeader(HEADER_IF_NONE_MATCH);
 			if (responseETag.equals(requestETag)) {
@@ -103,21 +226,14 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 					logger.trace("ETag [" + responseETag + "] not equal to If-None-Match [" + requestETag +
 							"], sending normal response");
 				}
-				copyBodyToResponse(body, rawResponse);
+				content.copyToResponse(rawResponse);
 			}
 		}
 		else {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Response with status code [" + statusCode + "] not eligible for ETag");
 			}
-			copyBodyToResponse(body, rawResponse);
-		}
-	}
-
-	private void copyBodyToResponse(byte[] body, HttpServletResponse response) throws IOException {
-		if (body.length > 0) {
-			response.setContentLength(body.length);
-			StreamUtils.copy(body, response.getOutputStream());
+			content.copyToResponse(rawResponse);
 		}
 	}
 
@@ -127,7 +243,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 	 * @param request the HTTP request
 	 * @param response the HTTP response
 	 * @param responseStatusCode the HTTP response status code
-	 * @param responseBody the response body
+	 * @param responseBody the response body, or {@code null} if it has been spooled
+	 * to a temporary file in {@linkplain #setStreaming streaming mode}
 	 * @return {@code true} if eligible for ETag generation; {@code false} otherwise
 	 */
 	protected boolean isEligibleForEtag(HttpServletRequest request, HttpServletResponse response,
@@ -150,15 +267,32 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return builder.toString();
 	}
 
+	/**
+	 * Format the ETag header value for an MD5 digest computed in streaming mode,
+	 * consistent with the default {@link #generateETagHeaderValue(byte[])}.
+	 */
+	private static String generateETagHeaderValue(MessageDigest digest) {
+		byte[] bytes = digest.digest();
+		StringBuilder builder = new StringBuilder("\"0");
+		for (byte b : bytes) {
+			builder.append(HEX_CHARS[(b >>> 4) & 0xf]);
+			builder.append(HEX_CHARS[b & 0xf]);
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
 
 	/**
 	 * {@link HttpServletRequest} wrapper that buffers all content written to the
-	 * {@linkplain #getOutputStream() output stream} and {@linkplain #getWriter() writer},
-	 * and allows this content to be retrieved via a {@link #toByteArray() byte array}.
+	 * {@linkplain #getOutputStream() output stream} and {@linkplain #getWriter() writer}
+	 * in a {@link ResponseContent}, and keeps track of an ETag set by the handler.
 	 */
 	private static class ShallowEtagResponseWrapper extends HttpServletResponseWrapper {
 
-		private final ByteArrayOutputStream content = new ByteArrayOutputStream(1024);
+		private final String requestETag;
+
+		private final ResponseContent content;
 
 		private final ServletOutputStream outputStream = new ResponseServletOutputStream();
 
@@ -166,8 +300,12 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		private int statusCode = HttpServletResponse.SC_OK;
 
-		public ShallowEtagResponseWrapper(HttpServletResponse response) {
+		private String presetETag;
+
+		public ShallowEtagResponseWrapper(HttpServletResponse response, String requestETag, ResponseContent content) {
 			super(response);
+			this.requestETag = requestETag;
+			this.content = content;
 		}
 
 		@Override
@@ -199,6 +337,26 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		public void setContentLength(int len) {
 		}
 
+		@Override
+		public void setHeader(String name, String value) {
+			super.setHeader(name, value);
+			checkPresetETag(name, value);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			super.addHeader(name, value);
+			checkPresetETag(name, value);
+		}
+
+		private void checkPresetETag(String name, String value) {
+			if (HEADER_ETAG.equalsIgnoreCase(name) && value != null) {
+				this.presetETag = value;
+				// a precomputed ETag makes hashing unnecessary, and a matching one makes the content obsolete
+				this.content.skipDigest(value.equals(this.requestETag));
+			}
+		}
+
 		@Override
 		public ServletOutputStream getOutputStream() {
 			return this.outputStream;
@@ -217,7 +375,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		@Override
 		public void reset() {
 			super.reset();
-			resetBuffer();
+			this.content.restart();
+			this.presetETag = null;
 		}
 
 		@Override
@@ -229,8 +388,12 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			return this.statusCode;
 		}
 
-		public byte[] toByteArray() {
-			return this.content.toByteArray();
+		public String getPresetETag() {
+			return this.presetETag;
+		}
+
+		public ResponseContent getContent() {
+			return this.content;
 		}
 
 
@@ -274,4 +437,159 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		}
 	}
 
+
+	/**
+	 * Buffer for the response content: held in memory up to a threshold and spooled
+	 * to a temporary file beyond that, optionally feeding an MD5 digest on the way.
+	 */
+	private static class ResponseContent extends OutputStream {
+
+		private final int memoryThreshold;
+
+		private final File tempDirectory;
+
+		private final MessageDigest digest;
+
+		private boolean digesting;
+
+		private final ByteArrayOutputStream memoryContent = new ByteArrayOutputStream(1024);
+
+		private File spoolFile;
+
+		private OutputStream spoolContent;
+
+		private long size = 0;
+
+		private boolean discarding = false;
+
+		public ResponseContent(MessageDigest digest, int memoryThreshold, File tempDirectory) {
+			this.digest = digest;
+			this.digesting = (digest != null);
+			this.memoryThreshold = memoryThreshold;
+			this.tempDirectory = tempDirectory;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (this.discarding) {
+				return;
+			}
+			if (this.digesting) {
+				this.digest.update((byte) b);
+			}
+			getTarget(1).write(b);
+			this.size++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (this.discarding) {
+				return;
+			}
+			if (this.digesting) {
+				this.digest.update(b, off, len);
+			}
+			getTarget(len).write(b, off, len);
+			this.size += len;
+		}
+
+		private OutputStream getTarget(int len) throws IOException {
+			if (this.spoolContent == null && this.size + len > this.memoryThreshold) {
+				this.spoolFile = File.createTempFile("etag", ".tmp", this.tempDirectory);
+				this.spoolContent = new BufferedOutputStream(new FileOutputStream(this.spoolFile));
+				this.memoryContent.writeTo(this.spoolContent);
+				this.memoryContent.reset();
+			}
+			return (this.spoolContent != null ? this.spoolContent : this.memoryContent);
+		}
+
+		/**
+		 * Stop feeding the digest, and discard all content if it is not going to be sent.
+		 */
+		public void skipDigest(boolean discardContent) {
+			this.digesting = false;
+			if (discardContent) {
+				reset();
+				this.discarding = true;
+			}
+		}
+
+		/**
+		 * Clear the content and undo {@link #skipDigest}, after a reset of the response.
+		 */
+		public void restart() {
+			this.digesting = (this.digest != null);
+			this.discarding = false;
+			reset();
+		}
+
+		public boolean isDigesting() {
+			return this.digesting;
+		}
+
+		public MessageDigest getDigest() {
+			return this.digest;
+		}
+
+		/**
+		 * Return the content as byte array, or {@code null} if spooled to a temporary file.
+		 */
+		public byte[] toByteArray() {
+			return (this.spoolFile != null ? null : this.memoryContent.toByteArray());
+		}
+
+		public void copyToResponse(HttpServletResponse response) throws IOException {
+			if (this.size == 0) {
+				return;
+			}
+			if (this.size <= Integer.MAX_VALUE) {
+				response.setContentLength((int) this.size);
+			}
+			else {
+				response.setHeader(HEADER_CONTENT_LENGTH, Long.toString(this.size));
+			}
+			if (this.spoolFile == null) {
+				this.memoryContent.writeTo(response.getOutputStream());
+				return;
+			}
+			this.spoolContent.close();
+			InputStream in = new FileInputStream(this.spoolFile);
+			try {
+				StreamUtils.copy(in, response.getOutputStream());
+			}
+			finally {
+				try {
+					in.close();
+				}
+				catch (IOException ex) {
+				}
+			}
+		}
+
+		public void reset() {
+			this.memoryContent.reset();
+			discard();
+			this.size = 0;
+			if (this.digest != null) {
+				this.digest.reset();
+			}
+		}
+
+		/**
+		 * Release the temporary file, if any.
+		 */
+		public void discard() {
+			if (this.spoolFile != null) {
+				try {
+					this.spoolContent.close();
+				}
+				catch (IOException ex) {
+				}
+				this.spoolFile.delete();
+				this.spoolFile = null;
+				this.spoolContent = null;
+			}
+		}
+	}
+
 }
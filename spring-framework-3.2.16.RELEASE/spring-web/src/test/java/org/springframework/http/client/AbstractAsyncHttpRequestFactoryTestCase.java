@@ -0,0 +1,289 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import static org.junit.Assert.*;
+
+/**
+ * Base class for {@link AsyncClientHttpRequestFactory} tests, running against
+ * the JDK's built-in HTTP server.
+ */
+public abstract class AbstractAsyncHttpRequestFactoryTestCase {
+
+	protected AsyncClientHttpRequestFactory factory;
+
+	protected static String baseUrl;
+
+	private static HttpServer server;
+
+	private static ExecutorService serverExecutor;
+
+	private static CountDownLatch slowResponseLatch;
+
+
+	@BeforeClass
+	public static void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/echo", new EchoHandler());
+		server.createContext("/status/ok", new StatusHandler(200));
+		server.createContext("/status/notfound", new StatusHandler(404));
+		slowResponseLatch = new CountDownLatch(1);
+		server.createContext("/slow", new SlowHandler(slowResponseLatch));
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		slowResponseLatch.countDown();
+		if (server != null) {
+			server.stop(0);
+		}
+		if (serverExecutor != null) {
+			serverExecutor.shutdownNow();
+		}
+	}
+
+	@Before
+	public final void createFactory() throws Exception {
+		this.factory = createRequestFactory();
+		if (this.factory instanceof InitializingBean) {
+			((InitializingBean) this.factory).afterPropertiesSet();
+		}
+	}
+
+	@After
+	public final void destroyFactory() throws Exception {
+		if (this.factory instanceof DisposableBean) {
+			((DisposableBean) this.factory).destroy();
+		}
+	}
+
+	protected abstract AsyncClientHttpRequestFactory createRequestFactory();
+
+
+	@Test
+	public void status() throws Exception {
+		URI uri = new URI(baseUrl + "/status/notfound");
+		AsyncClientHttpRequest request = this.factory.createAsyncRequest(uri, HttpMethod.GET);
+		assertEquals("Invalid HTTP method", HttpMethod.GET, request.getMethod());
+		assertEquals("Invalid HTTP URI", uri, request.getURI());
+		ClientHttpResponse response = request.executeAsync().get();
+		try {
+			assertEquals("Invalid status code", HttpStatus.NOT_FOUND, response.getStatusCode());
+		}
+		finally {
+			response.close();
+		}
+	}
+
+	@Test
+	public void statusCallback() throws Exception {
+		URI uri = new URI(baseUrl + "/status/notfound");
+		AsyncClientHttpRequest request = this.factory.createAsyncRequest(uri, HttpMethod.GET);
+		ListenableFuture<ClientHttpResponse> future = request.executeAsync();
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		future.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+			@Override
+			public void onSuccess(ClientHttpResponse response) {
+				try {
+					result.set(response.getStatusCode());
+				}
+				catch (IOException ex) {
+					result.set(ex);
+				}
+				finally {
+					response.close();
+					latch.countDown();
+				}
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				result.set(ex);
+				latch.countDown();
+			}
+		});
+		assertTrue("Callback not invoked", latch.await(5, TimeUnit.SECONDS));
+		assertEquals("Invalid status code", HttpStatus.NOT_FOUND, result.get());
+	}
+
+	@Test
+	public void echo() throws Exception {
+		AsyncClientHttpRequest request = this.factory.createAsyncRequest(new URI(baseUrl + "/echo"), HttpMethod.PUT);
+		assertEquals("Invalid HTTP method", HttpMethod.PUT, request.getMethod());
+		request.getHeaders().add("MyHeader", "value1");
+		request.getHeaders().add("MyHeader", "value2");
+		byte[] body = "Hello World".getBytes("UTF-8");
+		request.getHeaders().setContentLength(body.length);
+		FileCopyUtils.copy(body, request.getBody());
+		ClientHttpResponse response = request.executeAsync().get();
+		try {
+			assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+			assertEquals("Header value not found", Arrays.asList("value1", "value2"),
+					response.getHeaders().get("MyHeader"));
+			byte[] result = FileCopyUtils.copyToByteArray(response.getBody());
+			assertTrue("Invalid body", Arrays.equals(body, result));
+		}
+		finally {
+			response.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void multipleWrites() throws Exception {
+		AsyncClientHttpRequest request = this.factory.createAsyncRequest(new URI(baseUrl + "/echo"), HttpMethod.POST);
+		byte[] body = "Hello World".getBytes("UTF-8");
+		FileCopyUtils.copy(body, request.getBody());
+		ClientHttpResponse response = request.executeAsync().get();
+		try {
+			FileCopyUtils.copy(body, request.getBody());
+		}
+		finally {
+			response.close();
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void headersAfterExecute() throws Exception {
+		AsyncClientHttpRequest request = this.factory.createAsyncRequest(new URI(baseUrl + "/echo"), HttpMethod.POST);
+		request.getHeaders().add("MyHeader", "value");
+		byte[] body = "Hello World".getBytes("UTF-8");
+		FileCopyUtils.copy(body, request.getBody());
+		ClientHttpResponse response = request.executeAsync().get();
+		try {
+			request.getHeaders().add("MyHeader", "value");
+		}
+		finally {
+			response.close();
+		}
+	}
+
+	@Test
+	public void cancel() throws Exception {
+		AsyncClientHttpRequest request = this.factory.createAsyncRequest(new URI(baseUrl + "/slow"), HttpMethod.GET);
+		ListenableFuture<ClientHttpResponse> future = request.executeAsync();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch latch = new CountDownLatch(1);
+		future.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+			@Override
+			public void onSuccess(ClientHttpResponse response) {
+				response.close();
+				latch.countDown();
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				failure.set(ex);
+				latch.countDown();
+			}
+		});
+		assertTrue("Not cancelled", future.cancel(true));
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		assertTrue("Callback not invoked", latch.await(5, TimeUnit.SECONDS));
+		assertTrue("Invalid failure: " + failure.get(), failure.get() instanceof CancellationException);
+	}
+
+
+	private static class EchoHandler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			List<String> myHeader = exchange.getRequestHeaders().get("MyHeader");
+			if (myHeader != null) {
+				exchange.getResponseHeaders().put("MyHeader", myHeader);
+			}
+			byte[] body = FileCopyUtils.copyToByteArray(exchange.getRequestBody());
+			exchange.sendResponseHeaders(200, (body.length > 0 ? body.length : -1));
+			exchange.getResponseBody().write(body);
+			exchange.getResponseBody().close();
+			exchange.close();
+		}
+	}
+
+
+	private static class StatusHandler implements HttpHandler {
+
+		private final int status;
+
+		public StatusHandler(int status) {
+			this.status = status;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			exchange.sendResponseHeaders(this.status, -1);
+			exchange.getResponseBody().close();
+			exchange.close();
+		}
+	}
+
+
+	private static class SlowHandler implements HttpHandler {
+
+		private final CountDownLatch latch;
+
+		public SlowHandler(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				this.latch.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(200, -1);
+			exchange.getResponseBody().close();
+			exchange.close();
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.URI;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.Assert.*;
+
+public class HttpComponentsAsyncClientHttpRequestFactoryTests extends AbstractAsyncHttpRequestFactoryTestCase {
+
+	@Override
+	protected AsyncClientHttpRequestFactory createRequestFactory() {
+		return new HttpComponentsAsyncClientHttpRequestFactory();
+	}
+
+
+	@Test
+	public void startsClientOnInitialization() throws Exception {
+		CloseableHttpAsyncClient client = HttpAsyncClients.createSystem();
+		HttpComponentsAsyncClientHttpRequestFactory factory = new HttpComponentsAsyncClientHttpRequestFactory(client);
+		try {
+			assertFalse(client.isRunning());
+			factory.afterPropertiesSet();
+			assertTrue(client.isRunning());
+		}
+		finally {
+			factory.destroy();
+		}
+		assertFalse(client.isRunning());
+	}
+
+	@Test
+	public void startsClientOnFirstRequest() throws Exception {
+		HttpComponentsAsyncClientHttpRequestFactory factory = new HttpComponentsAsyncClientHttpRequestFactory();
+		try {
+			assertFalse(factory.getHttpAsyncClient().isRunning());
+			AsyncClientHttpRequest request =
+					factory.createAsyncRequest(new URI(baseUrl + "/status/ok"), HttpMethod.GET);
+			assertTrue(factory.getHttpAsyncClient().isRunning());
+			ClientHttpResponse response = request.executeAsync().get();
+			try {
+				assertEquals("Invalid status code", HttpStatus.OK, response.getStatusCode());
+			}
+			finally {
+				response.close();
+			}
+		}
+		finally {
+			factory.destroy();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,19 +25,29 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.sun.net.httpserver.HttpServer;
 import junit.framework.TestCase;
 import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
 
 import org.springframework.tests.sample.beans.ITestBean;
 import org.springframework.tests.sample.beans.TestBean;
 import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.core.serializer.CompactDeserializer;
+import org.springframework.core.serializer.CompactSerializer;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.remoting.RemoteAccessException;
@@ -434,6 +444,146 @@ public class HttpInvokerTests extends TestCase {
 		assertEquals(99, proxy.getAge());
 	}
 
+	public void testHttpInvokerProxyFactoryBeanAndServiceExporterWithCompactSerializationAndGzipRequestBody()
+			throws Throwable {
+
+		TestBean target = new TestBean("myname", 99);
+
+		final HttpInvokerServiceExporter exporter = new HttpInvokerServiceExporter();
+		exporter.setServiceInterface(ITestBean.class);
+		exporter.setService(target);
+		exporter.setSerializer(new CompactSerializer());
+		exporter.setDeserializer(new CompactDeserializer(getClass().getClassLoader()));
+		exporter.afterPropertiesSet();
+
+		HttpInvokerProxyFactoryBean pfb = new HttpInvokerProxyFactoryBean();
+		pfb.setServiceInterface(ITestBean.class);
+		pfb.setServiceUrl("http://myurl");
+
+		AbstractHttpInvokerRequestExecutor executor = new AbstractHttpInvokerRequestExecutor() {
+			@Override
+			protected RemoteInvocationResult doExecuteRequest(
+					HttpInvokerClientConfiguration config, ByteArrayOutputStream baos) throws Exception {
+				byte[] content = baos.toByteArray();
+				assertEquals("Request body not GZIP-compressed", (byte) 0x1f, content[0]);
+				assertEquals("Request body not GZIP-compressed", (byte) 0x8b, content[1]);
+				MockHttpServletRequest request = new MockHttpServletRequest();
+				request.addHeader("Content-Encoding", "gzip");
+				MockHttpServletResponse response = new MockHttpServletResponse();
+				request.setContent(content);
+				exporter.handleRequest(request, response);
+				return readRemoteInvocationResult(
+						new ByteArrayInputStream(response.getContentAsByteArray()), config.getCodebaseUrl());
+			}
+		};
+		executor.setSerializer(new CompactSerializer());
+		executor.setDeserializer(new CompactDeserializer(getClass().getClassLoader()));
+		executor.setCompressRequestBody(true);
+		// not supported by this executor: falls back to a buffered request body
+		executor.setChunkedRequestBody(true);
+		pfb.setHttpInvokerRequestExecutor(executor);
+
+		pfb.afterPropertiesSet();
+		ITestBean proxy = (ITestBean) pfb.getObject();
+		assertEquals("myname", proxy.getName());
+		assertEquals(99, proxy.getAge());
+		proxy.setAge(50);
+		assertEquals(50, proxy.getAge());
+		proxy.setNestedIntArray(new int[][] {{1, 2, 3}, {4, 5, 6}});
+		int[][] intArray = proxy.getNestedIntArray();
+		assertTrue(Arrays.equals(new int[] {1, 2, 3}, intArray[0]));
+		assertTrue(Arrays.equals(new int[] {4, 5, 6}, intArray[1]));
+
+		try {
+			proxy.exceptional(new IllegalStateException());
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	public void testSimpleHttpInvokerWithChunkedGzipRequestBody() throws Throwable {
+		doTestHttpInvokerWithChunkedGzipRequestBody(new SimpleHttpInvokerRequestExecutor());
+	}
+
+	public void testHttpComponentsHttpInvokerWithChunkedGzipRequestBody() throws Throwable {
+		final AtomicInteger requestCount = new AtomicInteger();
+		HttpComponentsHttpInvokerRequestExecutor executor = new HttpComponentsHttpInvokerRequestExecutor() {
+			@Override
+			protected HttpResponse executeHttpPost(HttpInvokerClientConfiguration config,
+					org.apache.http.client.HttpClient httpClient, HttpPost httpPost) throws IOException {
+				HttpEntity entity = httpPost.getEntity();
+				assertTrue("Request entity not chunked", entity.isChunked());
+				assertEquals(-1, entity.getContentLength());
+				assertEquals("gzip", httpPost.getFirstHeader("Content-Encoding").getValue());
+				requestCount.incrementAndGet();
+				return super.executeHttpPost(config, httpClient, httpPost);
+			}
+		};
+		doTestHttpInvokerWithChunkedGzipRequestBody(executor);
+		assertEquals(3, requestCount.get());
+	}
+
+	public void testCommonsHttpInvokerWithChunkedGzipRequestBody() throws Throwable {
+		final AtomicInteger requestCount = new AtomicInteger();
+		CommonsHttpInvokerRequestExecutor executor = new CommonsHttpInvokerRequestExecutor() {
+			@Override
+			protected void executePostMethod(HttpInvokerClientConfiguration config,
+					org.apache.commons.httpclient.HttpClient httpClient, PostMethod postMethod) throws IOException {
+				RequestEntity entity = postMethod.getRequestEntity();
+				assertEquals("Request entity not streamed", -1, entity.getContentLength());
+				assertFalse(entity.isRepeatable());
+				assertEquals("gzip", postMethod.getRequestHeader("Content-Encoding").getValue());
+				requestCount.incrementAndGet();
+				super.executePostMethod(config, httpClient, postMethod);
+			}
+		};
+		doTestHttpInvokerWithChunkedGzipRequestBody(executor);
+		assertEquals(3, requestCount.get());
+	}
+
+	private void doTestHttpInvokerWithChunkedGzipRequestBody(AbstractHttpInvokerRequestExecutor executor)
+			throws Throwable {
+
+		TestBean target = new TestBean("myname", 99);
+
+		SimpleHttpInvokerServiceExporter exporter = new SimpleHttpInvokerServiceExporter();
+		exporter.setServiceInterface(ITestBean.class);
+		exporter.setService(target);
+		exporter.setSerializer(new CompactSerializer());
+		exporter.setDeserializer(new CompactDeserializer(getClass().getClassLoader()));
+		exporter.afterPropertiesSet();
+
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/service", exporter);
+		server.start();
+		try {
+			executor.setSerializer(new CompactSerializer());
+			executor.setDeserializer(new CompactDeserializer(getClass().getClassLoader()));
+			executor.setCompressRequestBody(true);
+			executor.setChunkedRequestBody(true);
+
+			HttpInvokerProxyFactoryBean pfb = new HttpInvokerProxyFactoryBean();
+			pfb.setServiceInterface(ITestBean.class);
+			pfb.setServiceUrl("http://localhost:" + server.getAddress().getPort() + "/service");
+			pfb.setHttpInvokerRequestExecutor(executor);
+			pfb.afterPropertiesSet();
+			ITestBean proxy = (ITestBean) pfb.getObject();
+
+			String[] strings = new String[10000];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = "str" + i;
+			}
+			proxy.setStringArray(strings);
+			assertTrue(Arrays.equals(strings, proxy.getStringArray()));
+			assertEquals("myname", proxy.getName());
+		}
+		finally {
+			server.stop(0);
+		}
+	}
+
 	public void testHttpInvokerWithSpecialLocalMethods() throws Exception {
 		String serviceUrl = "http://myurl";
 		HttpInvokerProxyFactoryBean pfb = new HttpInvokerProxyFactoryBean();
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import static org.junit.Assert.*;
+
+/**
+ * Integration tests for {@link AsyncRestTemplate}, running against
+ * the JDK's built-in HTTP server.
+ */
+public class AsyncRestTemplateIntegrationTests {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String helloWorld = "H\u00e9llo W\u00f6rld";
+
+	private static HttpServer server;
+
+	private static String baseUrl;
+
+	private AsyncRestTemplate template;
+
+
+	@BeforeClass
+	public static void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/get", new GetHandler());
+		server.createContext("/post", new PostHandler());
+		server.createContext("/status/notfound", new StatusHandler(404));
+		server.createContext("/status/nocontent", new StatusHandler(204));
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+	@Before
+	public void createTemplate() {
+		this.template = new AsyncRestTemplate();
+	}
+
+
+	@Test
+	public void getEntity() throws Exception {
+		ListenableFuture<ResponseEntity<String>> future =
+				this.template.getForEntity(baseUrl + "/{method}", String.class, "get");
+		ResponseEntity<String> entity = future.get();
+		assertEquals("Invalid content", helloWorld, entity.getBody());
+		assertFalse("No headers", entity.getHeaders().isEmpty());
+		assertEquals("Invalid content-type", new MediaType("text", "plain", UTF_8),
+				entity.getHeaders().getContentType());
+		assertEquals("Invalid status code", HttpStatus.OK, entity.getStatusCode());
+	}
+
+	@Test
+	public void getEntityCallback() throws Exception {
+		ListenableFuture<ResponseEntity<String>> future =
+				this.template.getForEntity(baseUrl + "/{method}", String.class, "get");
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<ResponseEntity<String>> result = new AtomicReference<ResponseEntity<String>>();
+		future.addCallback(new ListenableFutureCallback<ResponseEntity<String>>() {
+			@Override
+			public void onSuccess(ResponseEntity<String> entity) {
+				result.set(entity);
+				latch.countDown();
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				latch.countDown();
+			}
+		});
+		assertTrue("Callback not invoked", latch.await(5, TimeUnit.SECONDS));
+		assertNotNull("No result", result.get());
+		assertEquals("Invalid content", helloWorld, result.get().getBody());
+		assertEquals("Invalid status code", HttpStatus.OK, result.get().getStatusCode());
+	}
+
+	@Test
+	public void headForHeaders() throws Exception {
+		HttpHeaders headers = this.template.headForHeaders(baseUrl + "/get").get();
+		assertTrue("No Content-Type header", headers.containsKey("Content-Type"));
+	}
+
+	@Test
+	public void postForLocation() throws Exception {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.setContentType(new MediaType("text", "plain", UTF_8));
+		HttpEntity<String> entity = new HttpEntity<String>(helloWorld, requestHeaders);
+		URI location = this.template.postForLocation(baseUrl + "/{method}", entity, "post").get();
+		assertEquals("Invalid location", new URI(baseUrl + "/post/1"), location);
+	}
+
+	@Test
+	public void postForEntity() throws Exception {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.setContentType(new MediaType("text", "plain", UTF_8));
+		HttpEntity<String> requestEntity = new HttpEntity<String>(helloWorld, requestHeaders);
+		ResponseEntity<String> result =
+				this.template.postForEntity(baseUrl + "/{method}", requestEntity, String.class, "post").get();
+		assertEquals("Invalid status code", HttpStatus.CREATED, result.getStatusCode());
+		assertEquals("Invalid content", helloWorld, result.getBody());
+	}
+
+	@Test
+	public void delete() throws Exception {
+		ListenableFuture<?> future = this.template.delete(new URI(baseUrl + "/status/nocontent"));
+		assertNull(future.get());
+	}
+
+	@Test
+	public void optionsForAllow() throws Exception {
+		Set<HttpMethod> allowed = this.template.optionsForAllow(new URI(baseUrl + "/get")).get();
+		assertEquals("Invalid response", EnumSet.of(HttpMethod.GET, HttpMethod.HEAD), allowed);
+	}
+
+	@Test
+	public void exchange() throws Exception {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.set("MyHeader", "MyValue");
+		HttpEntity<String> requestEntity = new HttpEntity<String>(requestHeaders);
+		ResponseEntity<String> response = this.template.exchange(
+				baseUrl + "/{method}", HttpMethod.GET, requestEntity, String.class, "get").get();
+		assertEquals("Invalid content", helloWorld, response.getBody());
+		assertEquals("MyValue", response.getHeaders().getFirst("MyHeader"));
+	}
+
+	@Test
+	public void notFound() throws Exception {
+		try {
+			this.template.getForEntity(baseUrl + "/status/notfound", String.class).get();
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof HttpClientErrorException);
+			HttpClientErrorException cause = (HttpClientErrorException) ex.getCause();
+			assertEquals(HttpStatus.NOT_FOUND, cause.getStatusCode());
+		}
+	}
+
+	@Test
+	public void notFoundCallback() throws Exception {
+		ListenableFuture<ResponseEntity<String>> future =
+				this.template.getForEntity(baseUrl + "/status/notfound", String.class);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		future.addCallback(new ListenableFutureCallback<ResponseEntity<String>>() {
+			@Override
+			public void onSuccess(ResponseEntity<String> entity) {
+				latch.countDown();
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+				failure.set(ex);
+				latch.countDown();
+			}
+		});
+		assertTrue("Callback not invoked", latch.await(5, TimeUnit.SECONDS));
+		assertTrue(failure.get() instanceof HttpClientErrorException);
+		assertEquals(HttpStatus.NOT_FOUND, ((HttpClientErrorException) failure.get()).getStatusCode());
+	}
+
+
+	private static class GetHandler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String method = exchange.getRequestMethod();
+			if ("OPTIONS".equals(method)) {
+				exchange.getResponseHeaders().set("Allow", "GET,HEAD");
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+				return;
+			}
+			byte[] body = helloWorld.getBytes(UTF_8.name());
+			exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+			String myHeader = exchange.getRequestHeaders().getFirst("MyHeader");
+			if (myHeader != null) {
+				exchange.getResponseHeaders().set("MyHeader", myHeader);
+			}
+			if ("HEAD".equals(method)) {
+				exchange.sendResponseHeaders(200, -1);
+			}
+			else {
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream os = exchange.getResponseBody();
+				os.write(body);
+			}
+			exchange.close();
+		}
+	}
+
+
+	private static class PostHandler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			byte[] body = FileCopyUtils.copyToByteArray(exchange.getRequestBody());
+			assertEquals("Invalid request body", helloWorld, new String(body, UTF_8.name()));
+			exchange.getResponseHeaders().set("Location", baseUrl + "/post/1");
+			exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+			exchange.sendResponseHeaders(201, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		}
+	}
+
+
+	private static class StatusHandler implements HttpHandler {
+
+		private final int status;
+
+		public StatusHandler(int status) {
+			this.status = status;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			exchange.sendResponseHeaders(this.status, -1);
+			exchange.close();
+		}
+	}
+
+}
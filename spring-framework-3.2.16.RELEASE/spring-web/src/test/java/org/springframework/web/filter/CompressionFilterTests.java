@@ -0,0 +1,371 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.mock.web.test.MockHttpServletResponse;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fixture for {@link CompressionFilter}.
+ */
+public class CompressionFilterTests {
+
+	private CompressionFilter filter;
+
+	private byte[] responseBody;
+
+
+	@Before
+	public void setUp() throws Exception {
+		filter = new CompressionFilter();
+		filter.setMinCompressionSize(64);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			builder.append("Hello World ").append(i).append('\n');
+		}
+		responseBody = builder.toString().getBytes("UTF-8");
+	}
+
+
+	@Test
+	public void negotiateEncoding() {
+		assertNull(filter.negotiateEncoding(null));
+		assertNull(filter.negotiateEncoding("identity"));
+		assertEquals("gzip", filter.negotiateEncoding("gzip, deflate"));
+		assertEquals("gzip", filter.negotiateEncoding("deflate, gzip"));
+		assertEquals("deflate", filter.negotiateEncoding("deflate"));
+		assertEquals("deflate", filter.negotiateEncoding("gzip;q=0.5, deflate"));
+		assertEquals("deflate", filter.negotiateEncoding("gzip;q=0, *"));
+		assertEquals("gzip", filter.negotiateEncoding("*"));
+		assertNull(filter.negotiateEncoding("gzip;q=0, deflate;q=0"));
+	}
+
+	@Test
+	public void gzip() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip, deflate");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("text/html;charset=UTF-8", responseBody));
+
+		assertEquals("Invalid status", 200, response.getStatus());
+		assertEquals("Invalid Content-Encoding header", "gzip", response.getHeader("Content-Encoding"));
+		assertEquals("Invalid Vary header", "Accept-Encoding", response.getHeader("Vary"));
+		byte[] compressed = response.getContentAsByteArray();
+		assertTrue("Content not compressed", compressed.length < responseBody.length);
+		assertArrayEquals("Invalid content", responseBody,
+				FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	public void deflate() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "deflate");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("application/json", responseBody));
+
+		assertEquals("Invalid Content-Encoding header", "deflate", response.getHeader("Content-Encoding"));
+		byte[] compressed = response.getContentAsByteArray();
+		assertArrayEquals("Invalid content", responseBody,
+				FileCopyUtils.copyToByteArray(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	public void writer() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.setContentType("text/plain");
+				filterResponse.setCharacterEncoding("UTF-8");
+				filterResponse.getWriter().write(new String(responseBody, "UTF-8"));
+			}
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid Content-Encoding header", "gzip", response.getHeader("Content-Encoding"));
+		byte[] compressed = response.getContentAsByteArray();
+		assertArrayEquals("Invalid content", responseBody,
+				FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	public void belowMinCompressionSize() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		byte[] body = "Hello World".getBytes("UTF-8");
+
+		filter.doFilter(request, response, new ContentFilterChain("text/html", body));
+
+		assertNull("Invalid Content-Encoding header", response.getHeader("Content-Encoding"));
+		assertEquals("Invalid Content-Length header", body.length, response.getContentLength());
+		assertArrayEquals("Invalid content", body, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void declaredContentLength() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.setContentType("text/html");
+				filterResponse.setContentLength(responseBody.length);
+				FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+			}
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid Content-Encoding header", "gzip", response.getHeader("Content-Encoding"));
+		assertFalse("Uncompressed Content-Length passed on", response.getContentLength() == responseBody.length);
+	}
+
+	@Test
+	public void nonCompressibleContentType() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("image/png", responseBody));
+
+		assertNull("Invalid Content-Encoding header", response.getHeader("Content-Encoding"));
+		assertArrayEquals("Invalid content", responseBody, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void customMimeTypes() throws Exception {
+		filter.setMimeTypes("image/*");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("image/bmp", responseBody));
+
+		assertEquals("Invalid Content-Encoding header", "gzip", response.getHeader("Content-Encoding"));
+	}
+
+	@Test
+	public void noAcceptEncoding() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("text/html", responseBody));
+
+		assertNull("Invalid Content-Encoding header", response.getHeader("Content-Encoding"));
+		assertArrayEquals("Invalid content", responseBody, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void encodedByApplication() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.setContentType("text/html");
+				((HttpServletResponse) filterResponse).setHeader("Content-Encoding", "br");
+				FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+			}
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid Content-Encoding header", "br", response.getHeader("Content-Encoding"));
+		assertArrayEquals("Invalid content", responseBody, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void errorStatus() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_NOT_FOUND);
+				filterResponse.setContentType("text/html");
+				FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+			}
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid status", 404, response.getStatus());
+		assertNull("Invalid Content-Encoding header", response.getHeader("Content-Encoding"));
+		assertArrayEquals("Invalid content", responseBody, response.getContentAsByteArray());
+	}
+
+	@Test
+	public void deflaterReuse() throws Exception {
+		filter.setDeflaterPoolSize(1);
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+			request.addHeader("Accept-Encoding", "gzip");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+
+			filter.doFilter(request, response, new ContentFilterChain("text/html", responseBody));
+
+			byte[] compressed = response.getContentAsByteArray();
+			assertArrayEquals("Invalid content", responseBody,
+					FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+		}
+	}
+
+	@Test
+	public void asyncDispatch() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.setAsyncSupported(true);
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		final WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+		asyncManager.setTaskExecutor(new SyncTaskExecutor());
+		asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+
+		final AtomicReference<ServletResponse> asyncResponse = new AtomicReference<ServletResponse>();
+		FilterChain initialChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.setContentType("text/plain");
+				filterResponse.getOutputStream().write(responseBody, 0, 10);
+				asyncResponse.set(filterResponse);
+				try {
+					asyncManager.startCallableProcessing(new Callable<Object>() {
+						@Override
+						public Object call() {
+							return "async";
+						}
+					});
+				}
+				catch (Exception ex) {
+					throw new ServletException(ex);
+				}
+			}
+		};
+		filter.doFilter(request, response, initialChain);
+
+		assertTrue(request.isAsyncStarted());
+		assertNull("Response compressed before async dispatch", response.getHeader("Content-Encoding"));
+		assertEquals("Response written before async dispatch", 0, response.getContentAsByteArray().length);
+
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		FilterChain asyncChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.getOutputStream().write(responseBody, 10, responseBody.length - 10);
+			}
+		};
+		filter.doFilter(request, asyncResponse.get(), asyncChain);
+
+		assertEquals("Invalid Content-Encoding header", "gzip", response.getHeader("Content-Encoding"));
+		byte[] compressed = response.getContentAsByteArray();
+		assertArrayEquals("Invalid content", responseBody,
+				FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	public void writeAfterCompletion() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Encoding", "gzip");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		final AtomicReference<ServletResponse> filteredResponse = new AtomicReference<ServletResponse>();
+
+		filter.doFilter(request, response, new ContentFilterChain("text/html", responseBody) {
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+				super.doFilter(request, response);
+				filteredResponse.set(response);
+			}
+		});
+		byte[] compressed = response.getContentAsByteArray();
+
+		filteredResponse.get().getOutputStream().flush();
+		try {
+			filteredResponse.get().getOutputStream().write(responseBody);
+			fail("Expected IOException");
+		}
+		catch (IOException ex) {
+			// expected
+		}
+		assertArrayEquals("Content changed after completion", compressed, response.getContentAsByteArray());
+		assertArrayEquals("Invalid content", responseBody,
+				FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+
+	private static class ContentFilterChain implements FilterChain {
+
+		private final String contentType;
+
+		private final byte[] content;
+
+		public ContentFilterChain(String contentType, byte[] content) {
+			this.contentType = contentType;
+			this.content = content;
+		}
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			response.setContentType(this.contentType);
+			FileCopyUtils.copy(this.content, response.getOutputStream());
+		}
+	}
+
+}
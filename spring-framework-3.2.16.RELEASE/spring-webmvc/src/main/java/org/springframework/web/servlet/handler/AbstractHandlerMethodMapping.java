@@ -18,9 +18,11 @@ package org.springframework.web.servlet.handler;
 
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.HandlerMethodSelector;
@@ -53,6 +55,12 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	private final MultiValueMap<String, T> urlMap = new LinkedMultiValueMap<String, T>();
 
+	private final MappingPatternIndex<T> mappingPatternIndex = new MappingPatternIndex<T>();
+
+	private boolean useMappingPatternIndex = true;
+
+	private volatile PathMatcher indexablePathMatcher;
+
 
 	/**
 	 * Whether to detect handler methods in beans in ancestor ApplicationContexts.
@@ -66,6 +74,22 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to narrow down the mappings to check for a lookup path without a
+	 * direct match through an index over the URL patterns of all mappings.
+	 * Only mappings whose literal leading path segments and number of path
+	 * segments can match the lookup path are then evaluated, rather than all
+	 * registered mappings.
+	 * <p>Default is "true". The index is only consulted if the configured
+	 * {@link #getPathMatcher() PathMatcher} is a plain {@link AntPathMatcher}
+	 * using "/" as path separator. Switch this flag off if a subclass evaluates
+	 * the patterns returned from {@link #getMappingPathPatterns} differently.
+	 * @since 3.2.17
+	 */
+	public void setUseMappingPatternIndex(boolean useMappingPatternIndex) {
+		this.useMappingPatternIndex = useMappingPatternIndex;
+	}
+
 	/**
 	 * Return a map with all handler methods and their mappings.
 	 */
@@ -192,6 +216,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				this.urlMap.add(pattern, mapping);
 			}
 		}
+		if (oldHandlerMethod == null) {
+			this.mappingPatternIndex.add(mapping, patterns);
+		}
 	}
 
 	/**
@@ -274,8 +301,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		// 没有匹配条件则只能将所有的匹配条件加入
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...  别无选择,只能通过所有映射
-			addMatchingMappings(this.handlerMethods.keySet(), matches, request);
+			List<T> candidateMappings = getCandidateMappings(lookupPath);
+			if (candidateMappings != null) {
+				addMatchingMappings(candidateMappings, matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...  别无选择,只能通过所有映射
+				addMatchingMappings(this.handlerMethods.keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -311,6 +344,31 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 	}
 
+	/**
+	 * Return the mappings that may match the given lookup path according to the
+	 * mapping pattern index, in registration order, or {@code null} if the index
+	 * cannot be used and all mappings need to be checked.
+	 */
+	private List<T> getCandidateMappings(String lookupPath) {
+		if (!this.useMappingPatternIndex || !isIndexablePathMatcher(getPathMatcher())) {
+			return null;
+		}
+		return this.mappingPatternIndex.getCandidates(lookupPath);
+	}
+
+	private boolean isIndexablePathMatcher(PathMatcher pathMatcher) {
+		if (pathMatcher == this.indexablePathMatcher) {
+			return true;
+		}
+		// The separator of an AntPathMatcher is not exposed: with "/" as separator,
+		// "/*" must not match a path with two segments.
+		if (pathMatcher.getClass() == AntPathMatcher.class && !pathMatcher.match("/*", "/a/b")) {
+			this.indexablePathMatcher = pathMatcher;
+			return true;
+		}
+		return false;
+	}
+
 	private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
 		for (T mapping : mappings) {
 			T match = getMatchingMapping(mapping, request);
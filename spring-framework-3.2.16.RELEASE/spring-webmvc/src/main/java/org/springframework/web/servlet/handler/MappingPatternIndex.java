@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * A segment trie over the URL patterns of handler method mappings, used by
+ * {@link AbstractHandlerMethodMapping} to narrow down the mappings that need
+ * to be evaluated for a lookup path that has no direct match.
+ *
+ * <p>Each pattern is keyed by its leading literal segments (excluding the last
+ * segment, which may still be subject to suffix pattern or trailing slash
+ * matching) together with the range of path segment counts it can match.
+ * A lookup returns every mapping with at least one pattern whose literal prefix
+ * is a prefix of the lookup path and whose segment count range admits the lookup
+ * path, in registration order. The result is therefore always a superset of
+ * the mappings that match, as long as patterns are evaluated with
+ * {@link org.springframework.util.AntPathMatcher} semantics and "/" separators.
+ *
+ * <p>Not thread-safe for registration; lookups may be performed concurrently
+ * once all mappings have been added.
+ *
+ * @since 3.2.17
+ * @see AbstractHandlerMethodMapping#setUseMappingPatternIndex
+ */
+class MappingPatternIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+	private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+
+	private final Node root = new Node();
+
+	private final List<T> mappings = new ArrayList<T>();
+
+
+	/**
+	 * Add a mapping with the given URL patterns to the index. A mapping without
+	 * patterns is considered to match any lookup path.
+	 * @param mapping the mapping to add
+	 * @param patterns the URL patterns of the mapping
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		int index = this.mappings.size();
+		this.mappings.add(mapping);
+		if (patterns.isEmpty()) {
+			this.root.entries.add(new Entry(index, 0, UNBOUNDED));
+		}
+		for (String pattern : patterns) {
+			addPattern(index, pattern);
+		}
+	}
+
+	private void addPattern(int index, String pattern) {
+		if (!pattern.startsWith(PATH_SEPARATOR) || StringUtils.containsWhitespace(pattern)) {
+			this.root.entries.add(new Entry(index, 0, UNBOUNDED));
+			return;
+		}
+		String[] segments = tokenize(pattern);
+		Node node = this.root;
+		for (int i = 0; i < segments.length - 1 && isLiteral(segments[i]); i++) {
+			node = node.getOrCreateChild(segments[i]);
+		}
+		int doubleWildcards = 0;
+		for (String segment : segments) {
+			if ("**".equals(segment)) {
+				doubleWildcards++;
+			}
+		}
+		int minSegments;
+		int maxSegments;
+		if (doubleWildcards > 0) {
+			minSegments = segments.length - doubleWildcards;
+			maxSegments = UNBOUNDED;
+		}
+		else {
+			maxSegments = segments.length;
+			// "/path/*" also matches "/path/"
+			minSegments = (segments.length > 0 && "*".equals(segments[segments.length - 1]) ?
+					maxSegments - 1 : maxSegments);
+			if (pattern.endsWith(PATH_SEPARATOR)) {
+				// a suffix pattern appended to "/path/" forms an additional segment
+				maxSegments++;
+			}
+		}
+		node.entries.add(new Entry(index, minSegments, maxSegments));
+	}
+
+	/**
+	 * Return the mappings that may match the given lookup path, in registration order.
+	 * @param lookupPath the lookup path
+	 * @return the candidate mappings, or {@code null} if the lookup path cannot
+	 * be resolved through the index and all mappings need to be checked
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		if (StringUtils.containsWhitespace(lookupPath)) {
+			return null;
+		}
+		String[] segments = tokenize(lookupPath);
+		BitSet candidates = new BitSet(this.mappings.size());
+		Node node = this.root;
+		int depth = 0;
+		while (node != null) {
+			for (Entry entry : node.entries) {
+				if (segments.length >= entry.minSegments && segments.length <= entry.maxSegments) {
+					candidates.set(entry.index);
+				}
+			}
+			node = (depth < segments.length ? node.getChild(segments[depth]) : null);
+			depth++;
+		}
+		List<T> result = new ArrayList<T>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			result.add(this.mappings.get(i));
+		}
+		return result;
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+	}
+
+	private static boolean isLiteral(String segment) {
+		return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+	}
+
+
+	private static class Node {
+
+		private Map<String, Node> children;
+
+		private final List<Entry> entries = new ArrayList<Entry>(1);
+
+		public Node getChild(String segment) {
+			return (this.children != null ? this.children.get(segment) : null);
+		}
+
+		public Node getOrCreateChild(String segment) {
+			if (this.children == null) {
+				this.children = new HashMap<String, Node>();
+			}
+			Node child = this.children.get(segment);
+			if (child == null) {
+				child = new Node();
+				this.children.put(segment, child);
+			}
+			return child;
+		}
+	}
+
+
+	private static class Entry {
+
+		private final int index;
+
+		private final int minSegments;
+
+		private final int maxSegments;
+
+		public Entry(int index, int minSegments, int maxSegments) {
+			this.index = index;
+			this.minSegments = minSegments;
+			this.maxSegments = maxSegments;
+		}
+	}
+
+}
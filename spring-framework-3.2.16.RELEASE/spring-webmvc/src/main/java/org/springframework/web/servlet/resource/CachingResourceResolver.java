@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ResourceResolver} that caches the resources resolved by the rest of
+ * the chain in memory, avoiding repeated lookups against the configured locations
+ * for the same request path. Expected to be configured at the start of a chain.
+ *
+ * <p>The cache key includes the request path as well as the gzip acceptance of
+ * the request, so that a {@link GzipResourceResolver} further down the chain gets
+ * to resolve a separate variant for clients that do or do not accept gzip.
+ * Unresolved paths are not cached, keeping the cache bounded by the number of
+ * existing resources. Cached entries are never invalidated: this resolver is
+ * meant for deployments where the set of resources does not change at runtime.
+ *
+ * @since 3.2.17
+ */
+public class CachingResourceResolver implements ResourceResolver {
+
+	private static final Log logger = LogFactory.getLog(CachingResourceResolver.class);
+
+	private static final String GZIP_KEY_SUFFIX = "+encoding=gzip";
+
+
+	private final Map<String, Resource> cache = new ConcurrentHashMap<String, Resource>(64);
+
+
+	public Resource resolveResource(HttpServletRequest request, String requestPath,
+			List<Resource> locations, ResourceResolverChain chain) {
+
+		String key = getCacheKey(request, requestPath);
+		Resource resource = this.cache.get(key);
+		if (resource != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Found match in cache: " + resource);
+			}
+			return resource;
+		}
+		resource = chain.resolveResource(request, requestPath, locations);
+		if (resource != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Putting resolved resource in cache: " + resource);
+			}
+			this.cache.put(key, resource);
+		}
+		return resource;
+	}
+
+	/**
+	 * Build the cache key for the given request path.
+	 * @param request the current request
+	 * @param requestPath the validated path within the handler mapping
+	 * @return the cache key
+	 */
+	protected String getCacheKey(HttpServletRequest request, String requestPath) {
+		return (GzipResourceResolver.isGzipAccepted(request) ? requestPath + GZIP_KEY_SUFFIX : requestPath);
+	}
+
+	/**
+	 * Remove all cached resources, e.g. after resources have been redeployed.
+	 */
+	public void clearCache() {
+		this.cache.clear();
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ResourceTransformer} that caches the results of the rest of the chain
+ * in memory, so that each resource is transformed once rather than per request.
+ * Expected to be configured at the start of a chain.
+ *
+ * <p>Cached results are keyed by the original resource and are discarded once
+ * the last-modified timestamp of the original resource changes.
+ *
+ * @since 3.2.17
+ */
+public class CachingResourceTransformer implements ResourceTransformer {
+
+	private static final Log logger = LogFactory.getLog(CachingResourceTransformer.class);
+
+
+	private final Map<Resource, CachedTransformation> cache =
+			new ConcurrentHashMap<Resource, CachedTransformation>(64);
+
+
+	public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+			throws IOException {
+
+		long lastModified = resource.lastModified();
+		CachedTransformation cached = this.cache.get(resource);
+		if (cached != null && cached.lastModified == lastModified) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Found match in cache: " + cached.transformed);
+			}
+			return cached.transformed;
+		}
+		Resource transformed = chain.transform(request, resource);
+		this.cache.put(resource, new CachedTransformation(transformed, lastModified));
+		return transformed;
+	}
+
+	/**
+	 * Remove all cached transformation results.
+	 */
+	public void clearCache() {
+		this.cache.clear();
+	}
+
+
+	private static class CachedTransformation {
+
+		private final Resource transformed;
+
+		private final long lastModified;
+
+		public CachedTransformation(Resource transformed, long lastModified) {
+			this.transformed = transformed;
+			this.lastModified = lastModified;
+		}
+	}
+
+}
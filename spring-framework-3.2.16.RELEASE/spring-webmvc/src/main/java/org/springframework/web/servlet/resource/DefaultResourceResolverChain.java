@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Default immutable implementation of {@link ResourceResolverChain},
+ * walking through the given resolvers by index.
+ *
+ * @since 3.2.17
+ */
+class DefaultResourceResolverChain implements ResourceResolverChain {
+
+	private final List<ResourceResolver> resolvers;
+
+	private final int index;
+
+
+	public DefaultResourceResolverChain(List<ResourceResolver> resolvers) {
+		this(resolvers, 0);
+	}
+
+	private DefaultResourceResolverChain(List<ResourceResolver> resolvers, int index) {
+		this.resolvers = resolvers;
+		this.index = index;
+	}
+
+
+	public Resource resolveResource(HttpServletRequest request, String requestPath, List<Resource> locations) {
+		if (this.index >= this.resolvers.size()) {
+			return null;
+		}
+		ResourceResolver resolver = this.resolvers.get(this.index);
+		return resolver.resolveResource(request, requestPath, locations,
+				new DefaultResourceResolverChain(this.resolvers, this.index + 1));
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Default immutable implementation of {@link ResourceTransformerChain},
+ * walking through the given transformers by index.
+ *
+ * @since 3.2.17
+ */
+class DefaultResourceTransformerChain implements ResourceTransformerChain {
+
+	private final List<ResourceTransformer> transformers;
+
+	private final int index;
+
+
+	public DefaultResourceTransformerChain(List<ResourceTransformer> transformers) {
+		this(transformers, 0);
+	}
+
+	private DefaultResourceTransformerChain(List<ResourceTransformer> transformers, int index) {
+		this.transformers = transformers;
+		this.index = index;
+	}
+
+
+	public Resource transform(HttpServletRequest request, Resource resource) throws IOException {
+		if (this.index >= this.transformers.size()) {
+			return resource;
+		}
+		ResourceTransformer transformer = this.transformers.get(this.index);
+		return transformer.transform(request, resource,
+				new DefaultResourceTransformerChain(this.transformers, this.index + 1));
+	}
+
+}
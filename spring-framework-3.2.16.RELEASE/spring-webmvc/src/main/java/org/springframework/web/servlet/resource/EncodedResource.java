@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Interface for a {@link Resource} that holds an encoded (e.g. precompressed)
+ * variant of another resource. {@link ResourceHttpRequestHandler} serves such a
+ * resource with a corresponding {@code Content-Encoding} header, deriving the
+ * media type from the {@link #getFilename() filename} of the original resource.
+ *
+ * @since 3.2.17
+ * @see GzipResourceResolver
+ */
+public interface EncodedResource extends Resource {
+
+	/**
+	 * Return the content coding of this resource, e.g. "gzip".
+	 */
+	String getContentEncoding();
+
+}
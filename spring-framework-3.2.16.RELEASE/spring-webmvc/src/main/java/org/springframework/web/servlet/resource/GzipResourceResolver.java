@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link ResourceResolver} that serves a precompressed variant of a resource
+ * resolved by the rest of the chain, i.e. a sibling resource with the same name
+ * plus a ".gz" extension, if present and if the request's {@code Accept-Encoding}
+ * header includes "gzip". Compression happens ahead of time, e.g. as part of the
+ * build, so no CPU is spent on compressing resources per request.
+ *
+ * <p>The precompressed variant is returned as an {@link EncodedResource},
+ * which {@link ResourceHttpRequestHandler} serves with a
+ * {@code Content-Encoding: gzip} header.
+ *
+ * @since 3.2.17
+ */
+public class GzipResourceResolver implements ResourceResolver {
+
+	private static final Log logger = LogFactory.getLog(GzipResourceResolver.class);
+
+
+	public Resource resolveResource(HttpServletRequest request, String requestPath,
+			List<Resource> locations, ResourceResolverChain chain) {
+
+		Resource resource = chain.resolveResource(request, requestPath, locations);
+		if (resource == null || resource instanceof EncodedResource || !isGzipAccepted(request)) {
+			return resource;
+		}
+		try {
+			Resource gzipped = new GzippedResource(resource);
+			if (gzipped.exists()) {
+				return gzipped;
+			}
+		}
+		catch (IOException ex) {
+			logger.trace("No gzipped resource for [" + resource.getFilename() + "]", ex);
+		}
+		return resource;
+	}
+
+	/**
+	 * Determine whether the given request accepts gzip-encoded content.
+	 * <p>Evaluates the quality values of the {@code Accept-Encoding} header:
+	 * "gzip;q=0" rules gzip out, and a "*" entry applies unless gzip is
+	 * listed explicitly.
+	 * @param request the current request (may be {@code null})
+	 */
+	static boolean isGzipAccepted(HttpServletRequest request) {
+		if (request == null) {
+			return false;
+		}
+		String value = request.getHeader("Accept-Encoding");
+		if (value == null) {
+			return false;
+		}
+		Boolean wildcard = null;
+		for (String coding : StringUtils.tokenizeToStringArray(value, ",")) {
+			String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+			if (parts.length == 0) {
+				continue;
+			}
+			String name = parts[0].toLowerCase();
+			if (name.equals("gzip") || name.equals("x-gzip")) {
+				return isAcceptable(parts);
+			}
+			if (name.equals("*")) {
+				wildcard = isAcceptable(parts);
+			}
+		}
+		return (wildcard != null && wildcard);
+	}
+
+	private static boolean isAcceptable(String[] codingParts) {
+		for (int i = 1; i < codingParts.length; i++) {
+			String param = codingParts[i];
+			if (param.length() > 2 && Character.toLowerCase(param.charAt(0)) == 'q' &&
+					param.substring(1).trim().startsWith("=")) {
+				try {
+					return (Double.parseDouble(param.substring(param.indexOf('=') + 1).trim()) > 0);
+				}
+				catch (NumberFormatException ex) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * A gzipped sibling of an original resource.
+	 */
+	private static final class GzippedResource extends AbstractResource implements EncodedResource {
+
+		private final Resource original;
+
+		private final Resource gzipped;
+
+		public GzippedResource(Resource original) throws IOException {
+			this.original = original;
+			this.gzipped = original.createRelative(original.getFilename() + ".gz");
+		}
+
+		public String getContentEncoding() {
+			return "gzip";
+		}
+
+		public InputStream getInputStream() throws IOException {
+			return this.gzipped.getInputStream();
+		}
+
+		@Override
+		public boolean exists() {
+			return this.gzipped.exists();
+		}
+
+		@Override
+		public boolean isReadable() {
+			return this.gzipped.isReadable();
+		}
+
+		@Override
+		public URL getURL() throws IOException {
+			return this.gzipped.getURL();
+		}
+
+		@Override
+		public URI getURI() throws IOException {
+			return this.gzipped.getURI();
+		}
+
+		@Override
+		public File getFile() throws IOException {
+			return this.gzipped.getFile();
+		}
+
+		@Override
+		public long contentLength() throws IOException {
+			return this.gzipped.contentLength();
+		}
+
+		@Override
+		public long lastModified() throws IOException {
+			return this.gzipped.lastModified();
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.gzipped.createRelative(relativePath);
+		}
+
+		@Override
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		public String getDescription() {
+			return this.gzipped.getDescription();
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.support.ServletContextResource;
+
+/**
+ * A simple {@link ResourceResolver} that tries to find a resource under the given
+ * locations matching the request path, taking the first existing and readable
+ * resource that is actually located under its location.
+ *
+ * <p>This resolver does not delegate to the rest of the chain and is therefore
+ * expected to be configured at the end of a chain.
+ *
+ * @since 3.2.17
+ */
+public class PathResourceResolver implements ResourceResolver {
+
+	private static final Log logger = LogFactory.getLog(PathResourceResolver.class);
+
+
+	public Resource resolveResource(HttpServletRequest request, String requestPath,
+			List<Resource> locations, ResourceResolverChain chain) {
+
+		for (Resource location : locations) {
+			try {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Trying relative path [" + requestPath + "] against base location: " + location);
+				}
+				Resource resource = location.createRelative(requestPath);
+				if (resource.exists() && resource.isReadable()) {
+					if (isResourceUnderLocation(resource, location)) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Found matching resource: " + resource);
+						}
+						return resource;
+					}
+					else {
+						if (logger.isTraceEnabled()) {
+							logger.trace("resource=\"" + resource + "\" was successfully resolved " +
+									"but is not under the location=\"" + location);
+						}
+						return null;
+					}
+				}
+				else if (logger.isTraceEnabled()) {
+					logger.trace("Relative resource doesn't exist or isn't readable: " + resource);
+				}
+			}
+			catch (IOException ex) {
+				logger.debug("Failed to create relative resource - trying next resource location", ex);
+			}
+		}
+		return null;
+	}
+
+	private boolean isResourceUnderLocation(Resource resource, Resource location) throws IOException {
+		if (!resource.getClass().equals(location.getClass())) {
+			return false;
+		}
+		String resourcePath;
+		String locationPath;
+		if (resource instanceof UrlResource) {
+			resourcePath = resource.getURL().toExternalForm();
+			locationPath = location.getURL().toExternalForm();
+		}
+		else if (resource instanceof ClassPathResource) {
+			resourcePath = ((ClassPathResource) resource).getPath();
+			locationPath = ((ClassPathResource) location).getPath();
+		}
+		else if (resource instanceof ServletContextResource) {
+			resourcePath = ((ServletContextResource) resource).getPath();
+			locationPath = ((ServletContextResource) location).getPath();
+		}
+		else {
+			resourcePath = resource.getURL().getPath();
+			locationPath = location.getURL().getPath();
+		}
+		if(locationPath.equals(resourcePath)) {
+			return true;
+		}
+		locationPath = (locationPath.endsWith("/") ||
+				!StringUtils.hasLength(locationPath) ? locationPath : locationPath + "/");
+		if (!resourcePath.startsWith(locationPath)) {
+			return false;
+		}
+		if (resourcePath.contains("%")) {
+			// Use URLDecoder (vs UriUtils) to preserve potentially decoded UTF-8 chars...
+			if (URLDecoder.decode(resourcePath, "UTF-8").contains("../")) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Resolved resource path contains \"../\" after decoding: " + resourcePath);
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
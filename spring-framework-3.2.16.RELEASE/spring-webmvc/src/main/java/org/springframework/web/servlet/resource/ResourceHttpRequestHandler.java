@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,21 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.activation.FileTypeMap;
 import javax.activation.MimetypesFileTypeMap;
 import javax.servlet.ServletException;
@@ -31,19 +41,19 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.ResourceUtils;
 import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpRequestHandler;
 import org.springframework.web.context.request.ServletWebRequest;
-import org.springframework.web.context.support.ServletContextResource;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.support.WebContentGenerator;
 
@@ -68,6 +78,15 @@ import org.springframework.web.servlet.support.WebContentGenerator;
  * is used in the URL  mapping pattern that selects this handler. Such patterns can be easily parameterized
  * using Spring EL. See the reference manual for further examples of this approach.
  *
+ * <p>Resources are looked up through a chain of {@link ResourceResolver ResourceResolvers}
+ * and then passed through a chain of {@link ResourceTransformer ResourceTransformers}. By default,
+ * a single {@link PathResourceResolver} looks up resources against the locations on every request.
+ * For production use, consider putting a {@link CachingResourceResolver} in front of it, optionally
+ * followed by a {@link GzipResourceResolver} for serving precompressed variants of resources.
+ * Content-hash ETags can be enabled through the {@linkplain #setUseETags "useETags" property}.
+ * Single byte-range requests are supported, with file-based resources being written through
+ * {@link FileChannel#transferTo}.
+ *
  * <p>Rather than being directly configured as a bean, this handler will typically be configured
  * through use of the {@code <mvc:resources/>} XML configuration element.
  *
@@ -83,8 +102,22 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	private static final boolean jafPresent =
 			ClassUtils.isPresent("javax.activation.FileTypeMap", ResourceHttpRequestHandler.class.getClassLoader());
 
+	private static final long[] UNSATISFIABLE_RANGE = new long[0];
+
+
 	private List<Resource> locations;
 
+	private List<ResourceResolver> resourceResolvers =
+			Collections.<ResourceResolver>singletonList(new PathResourceResolver());
+
+	private List<ResourceTransformer> resourceTransformers = Collections.emptyList();
+
+	private boolean varyByAcceptEncoding = false;
+
+	private boolean useETags = false;
+
+	private final Map<Resource, ContentHash> contentHashCache = new ConcurrentHashMap<Resource, ContentHash>(64);
+
 
 	public ResourceHttpRequestHandler() {
 		super(METHOD_GET, METHOD_HEAD);
@@ -99,6 +132,71 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		this.locations = locations;
 	}
 
+	/**
+	 * Configure the chain of resolvers for looking up resources,
+	 * typically ending with a {@link PathResourceResolver}.
+	 * <p>By default, a single {@link PathResourceResolver} is used.
+	 * @since 3.2.17
+	 */
+	public void setResourceResolvers(List<ResourceResolver> resourceResolvers) {
+		Assert.notEmpty(resourceResolvers, "ResourceResolver list must not be empty");
+		this.resourceResolvers = new ArrayList<ResourceResolver>(resourceResolvers);
+		boolean gzip = false;
+		for (ResourceResolver resolver : resourceResolvers) {
+			if (resolver instanceof GzipResourceResolver) {
+				gzip = true;
+			}
+		}
+		this.varyByAcceptEncoding = gzip;
+	}
+
+	/**
+	 * Return the configured resource resolvers.
+	 * @since 3.2.17
+	 */
+	public List<ResourceResolver> getResourceResolvers() {
+		return this.resourceResolvers;
+	}
+
+	/**
+	 * Configure the chain of transformers to apply to resolved resources.
+	 * Encoded (e.g. precompressed) resources are served as they are.
+	 * <p>By default, resources are not transformed.
+	 * @since 3.2.17
+	 */
+	public void setResourceTransformers(List<ResourceTransformer> resourceTransformers) {
+		this.resourceTransformers = (resourceTransformers != null ?
+				new ArrayList<ResourceTransformer>(resourceTransformers) :
+				Collections.<ResourceTransformer>emptyList());
+	}
+
+	/**
+	 * Return the configured resource transformers.
+	 * @since 3.2.17
+	 */
+	public List<ResourceTransformer> getResourceTransformers() {
+		return this.resourceTransformers;
+	}
+
+	/**
+	 * Set whether to send an {@code ETag} header based on an MD5 hash of the
+	 * resource content, and to evaluate {@code If-None-Match} against it.
+	 * Hashes are computed once per resource and last-modified timestamp.
+	 * <p>Default is "false".
+	 * @since 3.2.17
+	 */
+	public void setUseETags(boolean useETags) {
+		this.useETags = useETags;
+	}
+
+	/**
+	 * Return whether content-hash ETags are sent.
+	 * @since 3.2.17
+	 */
+	public boolean isUseETags() {
+		return this.useETags;
+	}
+
 	public void afterPropertiesSet() throws Exception {
 		if (logger.isWarnEnabled() && CollectionUtils.isEmpty(this.locations)) {
 			logger.warn("Locations list is empty. No resources will be served");
@@ -115,7 +213,10 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	 * {@code Last-Modified} value  is greater. If the resource is newer than the
 	 * {@code Last-Modified} value, or the header is not present, the content resource
 	 * of the resource will be written to the response with caching headers
-	 * set to expire one year in the future.
+	 * set to expire one year in the future. If {@linkplain #setUseETags content-hash
+	 * ETags} are enabled, the {@code If-None-Match} header is evaluated as well.
+	 * A satisfiable single byte range requested through the {@code Range} header
+	 * results in a {@code 206} response with just that part of the content.
 	 */
 	public void handleRequest(HttpServletRequest request, HttpServletResponse response)
 			throws ServletException, IOException {
@@ -129,6 +230,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 			response.sendError(HttpServletResponse.SC_NOT_FOUND);
 			return;
 		}
+		resource = transformResource(request, resource);
 
 		// check the resource's media type
 		MediaType mediaType = getMediaType(resource);
@@ -144,18 +246,54 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		}
 
 		// header phase
-		if (new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+		long lastModified = resource.lastModified();
+		String eTag = (this.useETags ? getETag(resource) : null);
+		ServletWebRequest webRequest = new ServletWebRequest(request, response);
+		if (eTag != null && webRequest.checkNotModified(eTag)) {
 			logger.debug("Resource not modified - returning 304");
 			return;
 		}
+		if (eTag != null && request.getHeader("If-None-Match") != null) {
+			// If-None-Match takes precedence over If-Modified-Since
+			response.setDateHeader("Last-Modified", lastModified);
+		}
+		else if (webRequest.checkNotModified(lastModified)) {
+			logger.debug("Resource not modified - returning 304");
+			return;
+		}
+		long[] range = getRequestedRange(request, resource, eTag, lastModified);
+		if (range == UNSATISFIABLE_RANGE) {
+			logger.debug("Requested range not satisfiable - returning 416");
+			response.setHeader("Content-Range", "bytes */" + resource.contentLength());
+			response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return;
+		}
 		setHeaders(response, resource, mediaType);
+		if (resource instanceof EncodedResource) {
+			response.setHeader("Content-Encoding", ((EncodedResource) resource).getContentEncoding());
+		}
+		if (this.varyByAcceptEncoding) {
+			response.addHeader("Vary", "Accept-Encoding");
+		}
+		response.setHeader("Accept-Ranges", "bytes");
+		if (range != null) {
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader("Content-Range",
+					"bytes " + range[0] + "-" + range[1] + "/" + resource.contentLength());
+			response.setContentLength((int) (range[1] - range[0] + 1));
+		}
 
 		// content phase
 		if (METHOD_HEAD.equals(request.getMethod())) {
 			logger.trace("HEAD request - skipping content");
 			return;
 		}
-		writeContent(response, resource);
+		if (range != null) {
+			writePartialContent(response, resource, range[0], range[1] - range[0] + 1);
+		}
+		else {
+			writeContent(response, resource);
+		}
 	}
 
 	protected Resource getResource(HttpServletRequest request) {
@@ -188,36 +326,23 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 				// ignore
 			}
 		}
-		for (Resource location : this.locations) {
-			try {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Trying relative path [" + path + "] against base location: " + location);
-				}
-				Resource resource = location.createRelative(path);
-				if (resource.exists() && resource.isReadable()) {
-					if (isResourceUnderLocation(resource, location)) {
-						if (logger.isDebugEnabled()) {
-							logger.debug("Found matching resource: " + resource);
-						}
-						return resource;
-					}
-					else {
-						if (logger.isTraceEnabled()) {
-							logger.trace("resource=\"" + resource + "\" was successfully resolved " +
-									"but is not under the location=\"" + location);
-						}
-						return null;
-					}
-				}
-				else if (logger.isTraceEnabled()) {
-					logger.trace("Relative resource doesn't exist or isn't readable: " + resource);
-				}
-			}
-			catch (IOException ex) {
-				logger.debug("Failed to create relative resource - trying next resource location", ex);
-			}
+		return new DefaultResourceResolverChain(this.resourceResolvers).resolveResource(request, path, this.locations);
+	}
+
+	/**
+	 * Apply the configured {@linkplain #setResourceTransformers transformers}
+	 * to the given resource. Encoded resources are returned as they are.
+	 * @param request current servlet request
+	 * @param resource the resolved resource (never {@code null})
+	 * @return the transformed resource
+	 * @throws IOException if a transformer fails
+	 * @since 3.2.17
+	 */
+	protected Resource transformResource(HttpServletRequest request, Resource resource) throws IOException {
+		if (resource instanceof EncodedResource || this.resourceTransformers.isEmpty()) {
+			return resource;
 		}
-		return null;
+		return new DefaultResourceTransformerChain(this.resourceTransformers).transform(request, resource);
 	}
 
 	/**
@@ -293,48 +418,6 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		return false;
 	}
 
-	private boolean isResourceUnderLocation(Resource resource, Resource location) throws IOException {
-		if (!resource.getClass().equals(location.getClass())) {
-			return false;
-		}
-		String resourcePath;
-		String locationPath;
-		if (resource instanceof UrlResource) {
-			resourcePath = resource.getURL().toExternalForm();
-			locationPath = location.getURL().toExternalForm();
-		}
-		else if (resource instanceof ClassPathResource) {
-			resourcePath = ((ClassPathResource) resource).getPath();
-			locationPath = ((ClassPathResource) location).getPath();
-		}
-		else if (resource instanceof ServletContextResource) {
-			resourcePath = ((ServletContextResource) resource).getPath();
-			locationPath = ((ServletContextResource) location).getPath();
-		}
-		else {
-			resourcePath = resource.getURL().getPath();
-			locationPath = location.getURL().getPath();
-		}
-		if(locationPath.equals(resourcePath)) {
-			return true;
-		}
-		locationPath = (locationPath.endsWith("/") ||
-				!StringUtils.hasLength(locationPath) ? locationPath : locationPath + "/");
-		if (!resourcePath.startsWith(locationPath)) {
-			return false;
-		}
-		if (resourcePath.contains("%")) {
-			// Use URLDecoder (vs UriUtils) to preserve potentially decoded UTF-8 chars...
-			if (URLDecoder.decode(resourcePath, "UTF-8").contains("../")) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Resolved resource path contains \"../\" after decoding: " + resourcePath);
-				}
-				return false;
-			}
-		}
-		return true;
-	}
-
 	/**
 	 * Determine an appropriate media type for the given resource.
 	 * @param resource the resource to check
@@ -383,6 +466,11 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	 * @throws IOException in case of errors while writing the content
 	 */
 	protected void writeContent(HttpServletResponse response, Resource resource) throws IOException {
+		File file = getFile(resource);
+		if (file != null) {
+			transferFileContent(file, response.getOutputStream(), 0, file.length());
+			return;
+		}
 		InputStream in = resource.getInputStream();
 		try {
 			StreamUtils.copy(in, response.getOutputStream());
@@ -396,6 +484,222 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		}
 	}
 
+	/**
+	 * Write the given byte range of the resource's content out to the given
+	 * servlet response, in reply to a {@code Range} request.
+	 * @param response current servlet response
+	 * @param resource the identified resource (never {@code null})
+	 * @param start the position of the first byte to write
+	 * @param count the number of bytes to write
+	 * @throws IOException in case of errors while writing the content
+	 * @since 3.2.17
+	 */
+	protected void writePartialContent(HttpServletResponse response, Resource resource, long start, long count)
+			throws IOException {
+
+		File file = getFile(resource);
+		if (file != null) {
+			transferFileContent(file, response.getOutputStream(), start, count);
+			return;
+		}
+		InputStream in = resource.getInputStream();
+		try {
+			long skipped = 0;
+			while (skipped < start) {
+				long n = in.skip(start - skipped);
+				if (n <= 0) {
+					throw new IOException("Unexpected end of content in " + resource);
+				}
+				skipped += n;
+			}
+			OutputStream out = response.getOutputStream();
+			byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+			long remaining = count;
+			while (remaining > 0) {
+				int bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (bytesRead == -1) {
+					throw new IOException("Unexpected end of content in " + resource);
+				}
+				out.write(buffer, 0, bytesRead);
+				remaining -= bytesRead;
+			}
+			out.flush();
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+			}
+		}
+	}
+
+	/**
+	 * Return the content-hash ETag for the given resource, computing the MD5 hash
+	 * of its content once per resource and last-modified timestamp, or once per
+	 * {@link TransformedResource} instance.
+	 * @param resource the identified resource (never {@code null})
+	 * @return the quoted ETag value
+	 * @throws IOException in case of errors while reading the content
+	 * @since 3.2.17
+	 */
+	protected String getETag(Resource resource) throws IOException {
+		if (resource instanceof TransformedResource) {
+			// hashed once per transformed resource, e.g. as cached by CachingResourceTransformer
+			return "\"" + ((TransformedResource) resource).getContentHash() + "\"";
+		}
+		if (resource instanceof ByteArrayResource) {
+			// ad-hoc in-memory content: not worth keeping as a cache key
+			return "\"" + DigestUtils.md5DigestAsHex(((ByteArrayResource) resource).getByteArray()) + "\"";
+		}
+		long lastModified = resource.lastModified();
+		ContentHash contentHash = this.contentHashCache.get(resource);
+		if (contentHash == null || contentHash.lastModified != lastModified) {
+			InputStream in = resource.getInputStream();
+			try {
+				contentHash = new ContentHash("\"" + DigestUtils.md5DigestAsHex(in) + "\"", lastModified);
+			}
+			finally {
+				try {
+					in.close();
+				}
+				catch (IOException ex) {
+				}
+			}
+			this.contentHashCache.put(resource, contentHash);
+		}
+		return contentHash.eTag;
+	}
+
+	/**
+	 * Determine the single byte range requested through the {@code Range} header, if any.
+	 * Multiple ranges are not supported; such requests get served the full content.
+	 * @return a two-element array with the positions of the first and the last byte,
+	 * {@link #UNSATISFIABLE_RANGE}, or {@code null} to serve the full content
+	 */
+	private long[] getRequestedRange(HttpServletRequest request, Resource resource, String eTag, long lastModified)
+			throws IOException {
+
+		String rangeHeader = request.getHeader("Range");
+		if (rangeHeader == null || !rangeHeader.startsWith("bytes=") || rangeHeader.indexOf(',') != -1) {
+			return null;
+		}
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange != null) {
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+				if (!ifRange.equals(eTag)) {
+					return null;
+				}
+			}
+			else {
+				try {
+					if (request.getDateHeader("If-Range") != lastModified / 1000 * 1000) {
+						return null;
+					}
+				}
+				catch (IllegalArgumentException ex) {
+					return null;
+				}
+			}
+		}
+
+		String spec = rangeHeader.substring(6).trim();
+		int dashIndex = spec.indexOf('-');
+		if (dashIndex == -1) {
+			return null;
+		}
+		long length = resource.contentLength();
+		long start;
+		long end;
+		try {
+			if (dashIndex == 0) {
+				long suffixLength = Long.parseLong(spec.substring(1).trim());
+				if (suffixLength <= 0) {
+					return UNSATISFIABLE_RANGE;
+				}
+				start = Math.max(length - suffixLength, 0);
+				end = length - 1;
+			}
+			else {
+				start = Long.parseLong(spec.substring(0, dashIndex).trim());
+				String endSpec = spec.substring(dashIndex + 1).trim();
+				end = (endSpec.length() > 0 ? Math.min(Long.parseLong(endSpec), length - 1) : length - 1);
+				if (end < start && start < length) {
+					return null;
+				}
+			}
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+		if (start < 0 || start >= length) {
+			return UNSATISFIABLE_RANGE;
+		}
+		return new long[] {start, end};
+	}
+
+	/**
+	 * Return the file behind the given resource, if it is file-based.
+	 */
+	private static File getFile(Resource resource) {
+		try {
+			if (resource instanceof ByteArrayResource || !ResourceUtils.isFileURL(resource.getURL())) {
+				return null;
+			}
+			return resource.getFile();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Transfer the given byte range of a file through {@link FileChannel#transferTo},
+	 * leaving the copying to the file channel rather than to an intermediate stream buffer.
+	 */
+	private static void transferFileContent(File file, OutputStream out, long start, long count)
+			throws IOException {
+
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			WritableByteChannel target = Channels.newChannel(out);
+			long position = start;
+			long end = start + count;
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, target);
+				if (transferred <= 0) {
+					throw new IOException("Unexpected end of content in " + file);
+				}
+				position += transferred;
+			}
+			out.flush();
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+			}
+		}
+	}
+
+
+	/**
+	 * Content hash of a resource, along with the last-modified timestamp it applies to.
+	 */
+	private static class ContentHash {
+
+		private final String eTag;
+
+		private final long lastModified;
+
+		public ContentHash(String eTag, long lastModified) {
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+		}
+	}
+
 
 	/**
 	 * Inner class to avoid hard-coded JAF dependency.
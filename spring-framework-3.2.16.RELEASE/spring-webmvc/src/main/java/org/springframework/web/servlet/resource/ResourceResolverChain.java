@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A contract for invoking a chain of {@link ResourceResolver ResourceResolvers},
+ * where each resolver is given a reference to the chain for delegating to the
+ * remaining resolvers.
+ *
+ * @since 3.2.17
+ */
+public interface ResourceResolverChain {
+
+	/**
+	 * Resolve the given request path to a resource, using the remaining
+	 * resolvers in the chain.
+	 * @param request the current request
+	 * @param requestPath the validated path within the handler mapping
+	 * @param locations the locations to search in
+	 * @return the resolved resource, or {@code null} if unresolved
+	 */
+	Resource resolveResource(HttpServletRequest request, String requestPath, List<Resource> locations);
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A strategy for transforming the content of a resolved {@link Resource}
+ * before {@link ResourceHttpRequestHandler} writes it to the response.
+ *
+ * <p>Transformers are arranged in a {@link ResourceTransformerChain}. A transformer
+ * that does not apply to a given resource simply delegates to the rest of the chain.
+ * Transformed content is typically returned as a {@link TransformedResource}.
+ *
+ * @since 3.2.17
+ * @see ResourceHttpRequestHandler#setResourceTransformers
+ */
+public interface ResourceTransformer {
+
+	/**
+	 * Transform the given resource.
+	 * @param request the current request
+	 * @param resource the resource to transform
+	 * @param chain the chain of remaining transformers to delegate to
+	 * @return the transformed resource (never {@code null})
+	 * @throws IOException if the transformation fails
+	 */
+	Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+			throws IOException;
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A contract for invoking a chain of {@link ResourceTransformer ResourceTransformers},
+ * where each transformer is given a reference to the chain for delegating to the
+ * remaining transformers.
+ *
+ * @since 3.2.17
+ */
+public interface ResourceTransformerChain {
+
+	/**
+	 * Transform the given resource, using the remaining transformers in the chain.
+	 * @param request the current request
+	 * @param resource the resource to transform
+	 * @return the transformed resource (never {@code null})
+	 * @throws IOException if the transformation fails
+	 */
+	Resource transform(HttpServletRequest request, Resource resource) throws IOException;
+
+}
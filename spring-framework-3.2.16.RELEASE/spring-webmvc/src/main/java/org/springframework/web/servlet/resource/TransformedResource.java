@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+
+/**
+ * In-memory {@link Resource} holding the transformed content of an original
+ * resource, exposing the filename and last-modified timestamp of the original.
+ *
+ * @since 3.2.17
+ * @see ResourceTransformer
+ */
+public class TransformedResource extends ByteArrayResource {
+
+	private final String filename;
+
+	private final long lastModified;
+
+	private volatile String contentHash;
+
+
+	/**
+	 * Create a new TransformedResource.
+	 * @param original the resource that has been transformed
+	 * @param transformedContent the transformed content
+	 */
+	public TransformedResource(Resource original, byte[] transformedContent) {
+		super(transformedContent, "transformed " + original.getDescription());
+		this.filename = original.getFilename();
+		long lastModified;
+		try {
+			lastModified = original.lastModified();
+		}
+		catch (IOException ex) {
+			lastModified = -1;
+		}
+		this.lastModified = lastModified;
+	}
+
+
+	@Override
+	public String getFilename() {
+		return this.filename;
+	}
+
+	@Override
+	public long lastModified() {
+		return this.lastModified;
+	}
+
+	/**
+	 * Return the MD5 hash of the transformed content as a hex String,
+	 * computed on first access and kept along with this resource.
+	 * @see org.springframework.util.DigestUtils#md5DigestAsHex(byte[])
+	 */
+	public String getContentHash() {
+		String contentHash = this.contentHash;
+		if (contentHash == null) {
+			contentHash = DigestUtils.md5DigestAsHex(getByteArray());
+			this.contentHash = contentHash;
+		}
+		return contentHash;
+	}
+
+}
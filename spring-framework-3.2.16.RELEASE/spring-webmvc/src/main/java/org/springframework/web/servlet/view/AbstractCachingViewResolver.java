@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,10 +22,13 @@ import org.springframework.web.servlet.ViewResolver;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Convenient base class for {@link org.springframework.web.servlet.ViewResolver}
@@ -36,6 +39,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * <p>Subclasses need to implement the {@link #loadView} template method,
  * building the View object for a specific view name and locale.
  *
+ * <p>Cached views are looked up without locking. A view that is not cached yet
+ * gets created once per cache key, with concurrent requests for the same key
+ * waiting for that creation rather than for the creation of any other view.
+ * Beyond the {@link #setCacheLimit cache limit}, the least recently used views
+ * are evicted in an approximate fashion: the oldest cached view is evicted unless
+ * it has been accessed since it was last considered for eviction.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @see #loadView
@@ -63,29 +73,19 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 	private boolean cacheUnresolved = true;
 
 
-	// TODO: 2016/12/2   viewAccessCache(ConcurrentHashMap)    viewCreationCache(LinkedHashMap)  两种map结合使用的最佳实践
-	/** Fast access cache for Views, returning already cached instances without a global lock */
-	private final Map<Object, View> viewAccessCache = new ConcurrentHashMap<Object, View>(DEFAULT_CACHE_LIMIT);
+	// viewCache(ConcurrentHashMap) 无锁读取已缓存的视图，evictionQueue 按 CLOCK(second-chance) 算法淘汰最早缓存的视图
+	/** Map from view key to cache entry, each entry creating its View once */
+	private final ConcurrentMap<Object, CachedView> viewCache =
+			new ConcurrentHashMap<Object, CachedView>(DEFAULT_CACHE_LIMIT);
 
-	/** Map from view key to View instance, synchronized for View creation */
-	@SuppressWarnings("serial")
-	private final Map<Object, View> viewCreationCache =
-			new LinkedHashMap<Object, View>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
+	/** Entries with a created View, in the order of being considered for eviction */
+	private final Queue<CachedView> evictionQueue = new ConcurrentLinkedQueue<CachedView>();
 
-				// 一方面删除  viewCreationCache 里面缓存的最早的记录
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<Object, View> eldest) {
-					// 缓存超限，则将最早缓存的视图删除
-					if (size() > getCacheLimit()) {
+	private final AtomicLong hitCount = new AtomicLong();
 
-						// 另一方面删除 viewAccessCache 里面缓存的最早的记录
-						viewAccessCache.remove(eldest.getKey());
-						return true;
-					} else {
-						return false;
-					}
-				}
-			};
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
 
 
 	/**
@@ -144,35 +144,50 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		return this.cacheUnresolved;
 	}
 
+	/**
+	 * Return the number of view resolutions that have been served from the cache,
+	 * including resolutions that waited for a concurrent creation of the same view.
+	 * @since 3.2.17
+	 */
+	public long getCacheHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of view resolutions that had to create the view
+	 * while caching was enabled.
+	 * @since 3.2.17
+	 */
+	public long getCacheMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the number of views that have been evicted from the cache
+	 * since the {@link #setCacheLimit cache limit} had been reached.
+	 * @since 3.2.17
+	 */
+	public long getCacheEvictionCount() {
+		return this.evictionCount.get();
+	}
+
 
 	public View resolveViewName(String viewName, Locale locale) throws Exception {
 		if (!isCache()) {
 			// 创建视图
 			return createView(viewName, locale);
-		} else {
+		}
+		else {
 			Object cacheKey = getCacheKey(viewName, locale);
-			View view = this.viewAccessCache.get(cacheKey);
-			if (view == null) {
-				synchronized (this.viewCreationCache) {
-					view = this.viewCreationCache.get(cacheKey);
-					if (view == null) {
-						// Ask the subclass to create the View object.  根据viewName / locale 创建视图
-						view = createView(viewName, locale);
-						if (view == null && this.cacheUnresolved) {
-							view = UNRESOLVED_VIEW;
-						}
-
-						// 视图放缓存
-						if (view != null) {
-							this.viewAccessCache.put(cacheKey, view);
-							this.viewCreationCache.put(cacheKey, view);
-							if (logger.isTraceEnabled()) {
-								logger.trace("Cached view [" + cacheKey + "]");
-							}
-						}
-					}
+			CachedView cachedView = this.viewCache.get(cacheKey);
+			if (cachedView == null) {
+				CachedView newCachedView = new CachedView(cacheKey);
+				cachedView = this.viewCache.putIfAbsent(cacheKey, newCachedView);
+				if (cachedView == null) {
+					cachedView = newCachedView;
 				}
 			}
+			View view = cachedView.getView(viewName, locale);
 			return (view != UNRESOLVED_VIEW ? view : null);
 		}
 	}
@@ -203,10 +218,9 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		}
 		else {
 			Object cacheKey = getCacheKey(viewName, locale);
-			Object cachedView;
-			synchronized (this.viewCreationCache) {
-				this.viewAccessCache.remove(cacheKey);
-				cachedView = this.viewCreationCache.remove(cacheKey);
+			CachedView cachedView = this.viewCache.remove(cacheKey);
+			if (cachedView != null) {
+				this.evictionQueue.remove(cachedView);
 			}
 			if (logger.isDebugEnabled()) {
 				// Some debug output might be useful...
@@ -226,9 +240,37 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 	 */
 	public void clearCache() {
 		logger.debug("Clearing entire view cache");
-		synchronized (this.viewCreationCache) {
-			this.viewAccessCache.clear();
-			this.viewCreationCache.clear();
+		this.viewCache.clear();
+		this.evictionQueue.clear();
+	}
+
+	/**
+	 * Evict entries until the cache is within its limit again, giving entries
+	 * that have been accessed since they were last considered another round.
+	 */
+	private void evictIfNecessary() {
+		int cacheLimit = getCacheLimit();
+		// 缓存超限，则将最早缓存的视图删除
+		while (this.viewCache.size() > cacheLimit) {
+			CachedView eldest = this.evictionQueue.poll();
+			if (eldest == null) {
+				return;
+			}
+			if (this.viewCache.get(eldest.cacheKey) != eldest) {
+				// Stale entry, removed from the cache concurrently
+				continue;
+			}
+			if (eldest.accessed) {
+				eldest.accessed = false;
+				this.evictionQueue.add(eldest);
+			}
+			else if (this.viewCache.remove(eldest.cacheKey, eldest)) {
+				// 删除缓存里面最早的记录
+				this.evictionCount.incrementAndGet();
+				if (logger.isTraceEnabled()) {
+					logger.trace("Evicted view [" + eldest.cacheKey + "] from cache");
+				}
+			}
 		}
 	}
 
@@ -265,4 +307,71 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 	 */
 	protected abstract View loadView(String viewName, Locale locale) throws Exception;
 
+
+	/**
+	 * Cache entry that creates its View on first access, holding back concurrent
+	 * accesses to the same entry until the View is available.
+	 */
+	private class CachedView {
+
+		private final Object cacheKey;
+
+		private volatile View view;
+
+		private volatile boolean accessed;
+
+		public CachedView(Object cacheKey) {
+			this.cacheKey = cacheKey;
+		}
+
+		public View getView(String viewName, Locale locale) throws Exception {
+			View view = this.view;
+			if (view == null) {
+				synchronized (this) {
+					view = this.view;
+					if (view == null) {
+						return createAndCacheView(viewName, locale);
+					}
+				}
+			}
+			hitCount.incrementAndGet();
+			if (!this.accessed) {
+				this.accessed = true;
+			}
+			return view;
+		}
+
+		private View createAndCacheView(String viewName, Locale locale) throws Exception {
+			missCount.incrementAndGet();
+			View view = null;
+			try {
+				// Ask the subclass to create the View object.  根据viewName / locale 创建视图
+				view = createView(viewName, locale);
+				if (view == null && cacheUnresolved) {
+					view = UNRESOLVED_VIEW;
+				}
+			}
+			finally {
+				if (view == null) {
+					// Not to be cached: let the next resolution attempt start over
+					viewCache.remove(this.cacheKey, this);
+				}
+			}
+			// 视图放缓存
+			if (view != null) {
+				this.view = view;
+				evictionQueue.add(this);
+				if (viewCache.get(this.cacheKey) != this) {
+					// Removed through removeFromCache or clearCache in the meantime
+					evictionQueue.remove(this);
+				}
+				if (logger.isTraceEnabled()) {
+					logger.trace("Cached view [" + this.cacheKey + "]");
+				}
+				evictIfNecessary();
+			}
+			return view;
+		}
+	}
+
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.util.AntPathMatcher;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MappingPatternIndex}.
+ */
+public class MappingPatternIndexTests {
+
+	private static final String[] PATTERNS = {
+		"/orders", "/orders/{id}", "/orders/{id}/items", "/orders/{id}/items/{item}", "/orders/search",
+		"/customers/{id}", "/customers/{id}/addresses/", "/products/**", "/products/**/reviews",
+		"/{catchAll}", "/files/*", "/a/b/c/d", "/**/*.css", "relative/{path}"
+	};
+
+	private final MappingPatternIndex<String> index = new MappingPatternIndex<String>();
+
+
+	@Before
+	public void setUp() {
+		for (String pattern : PATTERNS) {
+			this.index.add(pattern, Collections.singleton(pattern));
+		}
+	}
+
+
+	@Test
+	public void literalPrefixAndSegmentCount() {
+		List<String> candidates = this.index.getCandidates("/orders/42/items");
+		assertEquals(Arrays.asList("/orders/{id}/items", "/**/*.css", "relative/{path}"), candidates);
+		candidates = this.index.getCandidates("/customers/42");
+		assertEquals(Arrays.asList("/customers/{id}", "/**/*.css", "relative/{path}"), candidates);
+		candidates = this.index.getCandidates("/other");
+		assertEquals(Arrays.asList("/orders", "/{catchAll}", "/**/*.css", "relative/{path}"), candidates);
+	}
+
+	@Test
+	public void registrationOrder() {
+		List<String> candidates = this.index.getCandidates("/orders/42");
+		assertEquals(Arrays.asList("/orders/{id}", "/orders/search", "/**/*.css", "relative/{path}"), candidates);
+	}
+
+	@Test
+	public void doubleWildcard() {
+		List<String> candidates = this.index.getCandidates("/products/books/fiction/reviews");
+		assertTrue(candidates.contains("/products/**"));
+		assertTrue(candidates.contains("/products/**/reviews"));
+		candidates = this.index.getCandidates("/products");
+		assertTrue(candidates.contains("/products/**"));
+		assertFalse(candidates.contains("/products/**/reviews"));
+	}
+
+	@Test
+	public void trailingWildcardMatchesTrailingSlash() {
+		assertTrue(this.index.getCandidates("/files/").contains("/files/*"));
+		assertTrue(this.index.getCandidates("/files/readme.txt").contains("/files/*"));
+		assertFalse(this.index.getCandidates("/files/docs/readme.txt").contains("/files/*"));
+	}
+
+	@Test
+	public void suffixAfterTrailingSlash() {
+		assertTrue(this.index.getCandidates("/customers/7/addresses").contains("/customers/{id}/addresses/"));
+		assertTrue(this.index.getCandidates("/customers/7/addresses/.json").contains("/customers/{id}/addresses/"));
+	}
+
+	@Test
+	public void whitespaceInLookupPath() {
+		assertNull(this.index.getCandidates("/orders/ 42"));
+	}
+
+	@Test
+	public void mappingWithoutPatterns() {
+		this.index.add("none", Collections.<String>emptySet());
+		assertTrue(this.index.getCandidates("/x/y/z").contains("none"));
+	}
+
+	@Test
+	public void candidatesAreSupersetOfMatches() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		String[] paths = {"/orders", "/orders/", "/orders/42", "/orders/42.json", "/orders/42/", "/orders/42/items",
+				"/orders/42/items/7", "/orders/search", "/customers/1", "/customers/1/addresses/",
+				"/products", "/products/1", "/products/1/2/reviews", "/x", "/files/", "/files/x", "/a/b/c/d",
+				"/a/b/c/d.html", "/css/main.css", "relative/x", "/"};
+		for (String path : paths) {
+			List<String> candidates = this.index.getCandidates(path);
+			for (String pattern : PATTERNS) {
+				boolean matches = pathMatcher.match(pattern, path) || pathMatcher.match(pattern + ".*", path) ||
+						pathMatcher.match(pattern + "/", path);
+				if (matches) {
+					assertTrue("Pattern " + pattern + " missing for " + path, candidates.contains(pattern));
+				}
+			}
+		}
+	}
+
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,20 +16,30 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.mock.web.test.MockServletContext;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.servlet.HandlerMapping;
 
@@ -295,6 +305,243 @@ public class ResourceHttpRequestHandlerTests {
 		assertEquals(17, response.getContentLength());
 	}
 
+	@Test
+	public void getResourceWithETag() throws Exception {
+		this.handler.setUseETags(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		String eTag = "\"" + DigestUtils.md5DigestAsHex("h1 { color:red; }".getBytes("UTF-8")) + "\"";
+		assertEquals(eTag, response.getHeader("ETag"));
+		assertTrue(response.containsHeader("Last-Modified"));
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void notModifiedWithETag() throws Exception {
+		this.handler.setUseETags(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("If-None-Match", "\"" + DigestUtils.md5DigestAsHex("h1 { color:red; }".getBytes("UTF-8")) + "\"");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+	}
+
+	@Test
+	public void modifiedWithETagTakesPrecedenceOverLastModified() throws Exception {
+		this.handler.setUseETags(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("If-None-Match", "\"outdated\"");
+		request.addHeader("If-Modified-Since", new ClassPathResource("test/foo.css", getClass()).getFile().lastModified());
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void getResourceWithRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", "bytes=0-1");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		assertEquals("bytes 0-1/17", response.getHeader("Content-Range"));
+		assertEquals(2, response.getContentLength());
+		assertEquals("h1", response.getContentAsString());
+	}
+
+	@Test
+	public void getResourceWithOpenEndedAndSuffixRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", "bytes=5-");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals("bytes 5-16/17", response.getHeader("Content-Range"));
+		assertEquals("color:red; }", response.getContentAsString());
+
+		request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", "bytes=-3");
+		request.setMethod("GET");
+		response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals("bytes 14-16/17", response.getHeader("Content-Range"));
+		assertEquals("; }", response.getContentAsString());
+	}
+
+	@Test
+	public void getResourceWithUnsatisfiableRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", "bytes=17-20");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+		assertEquals("bytes */17", response.getHeader("Content-Range"));
+		assertNull(response.getContentType());
+		assertNull(response.getHeader("Content-Length"));
+		assertNull(response.getHeader("Accept-Ranges"));
+	}
+
+	@Test
+	public void getResourceWithOutdatedIfRange() throws Exception {
+		this.handler.setUseETags(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", "bytes=0-1");
+		request.addHeader("If-Range", "\"outdated\"");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void getResourceWithMultipleRanges() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.addHeader("Range", "bytes=0-1,5-6");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals("h1 { color:red; }", response.getContentAsString());
+	}
+
+	@Test
+	public void getGzippedResource() throws Exception {
+		File dir = createTempDirectory();
+		try {
+			FileCopyUtils.copy("h1 { color:red; }".getBytes("UTF-8"), new File(dir, "foo.css"));
+			GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(new File(dir, "foo.css.gz")));
+			FileCopyUtils.copy("h1 { color:red; }".getBytes("UTF-8"), out);
+			byte[] gzipped = FileCopyUtils.copyToByteArray(new File(dir, "foo.css.gz"));
+
+			List<ResourceResolver> resolvers = new ArrayList<ResourceResolver>();
+			resolvers.add(new CachingResourceResolver());
+			resolvers.add(new GzipResourceResolver());
+			resolvers.add(new PathResourceResolver());
+			this.handler.setResourceResolvers(resolvers);
+			this.handler.setLocations(Collections.<Resource>singletonList(new FileSystemResource(dir.getPath() + "/")));
+
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+			request.addHeader("Accept-Encoding", "gzip, deflate");
+			request.setMethod("GET");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			handler.handleRequest(request, response);
+			assertEquals("text/css", response.getContentType());
+			assertEquals("gzip", response.getHeader("Content-Encoding"));
+			assertEquals("Accept-Encoding", response.getHeader("Vary"));
+			assertEquals(gzipped.length, response.getContentLength());
+			assertArrayEquals(gzipped, response.getContentAsByteArray());
+
+			request = new MockHttpServletRequest();
+			request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+			request.setMethod("GET");
+			response = new MockHttpServletResponse();
+			handler.handleRequest(request, response);
+			assertNull(response.getHeader("Content-Encoding"));
+			assertEquals("Accept-Encoding", response.getHeader("Vary"));
+			assertEquals("h1 { color:red; }", response.getContentAsString());
+
+			request = new MockHttpServletRequest();
+			request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+			request.addHeader("Accept-Encoding", "deflate, gzip;q=0");
+			request.setMethod("GET");
+			response = new MockHttpServletResponse();
+			handler.handleRequest(request, response);
+			assertNull(response.getHeader("Content-Encoding"));
+			assertEquals("h1 { color:red; }", response.getContentAsString());
+
+			request = new MockHttpServletRequest();
+			request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+			request.addHeader("Accept-Encoding", "identity;q=0.5, *;q=0.1");
+			request.setMethod("GET");
+			response = new MockHttpServletResponse();
+			handler.handleRequest(request, response);
+			assertEquals("gzip", response.getHeader("Content-Encoding"));
+			assertArrayEquals(gzipped, response.getContentAsByteArray());
+		}
+		finally {
+			FileSystemUtils.deleteRecursively(dir);
+		}
+	}
+
+	@Test
+	public void getTransformedResource() throws Exception {
+		CachingResourceTransformer cachingTransformer = new CachingResourceTransformer();
+		List<ResourceTransformer> transformers = new ArrayList<ResourceTransformer>();
+		transformers.add(cachingTransformer);
+		transformers.add(new UpperCaseTransformer());
+		this.handler.setResourceTransformers(transformers);
+		this.handler.setUseETags(true);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals("text/css", response.getContentType());
+		assertEquals(17, response.getContentLength());
+		assertEquals("H1 { COLOR:RED; }", response.getContentAsString());
+		assertEquals("\"" + DigestUtils.md5DigestAsHex("H1 { COLOR:RED; }".getBytes("UTF-8")) + "\"",
+				response.getHeader("ETag"));
+		assertEquals(Long.valueOf(response.getHeader("Last-Modified")).longValue(),
+				new ClassPathResource("test/foo.css", getClass()).getFile().lastModified());
+
+		Resource original = new ClassPathResource("test/foo.css", getClass());
+		Resource transformed = cachingTransformer.transform(null, original, new DefaultResourceTransformerChain(transformers));
+		assertSame(transformed,
+				cachingTransformer.transform(null, original, new DefaultResourceTransformerChain(transformers)));
+
+		// the content hash of the cached resource is not computed again
+		String contentHash = ((TransformedResource) transformed).getContentHash();
+		assertEquals(DigestUtils.md5DigestAsHex("H1 { COLOR:RED; }".getBytes("UTF-8")), contentHash);
+		request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "/foo.css");
+		request.setMethod("GET");
+		response = new MockHttpServletResponse();
+		handler.handleRequest(request, response);
+		assertEquals("\"" + contentHash + "\"", response.getHeader("ETag"));
+		assertSame(contentHash, ((TransformedResource) transformed).getContentHash());
+	}
+
+
+	private static File createTempDirectory() throws Exception {
+		File dir = File.createTempFile("resources", "");
+		assertTrue(dir.delete());
+		assertTrue(dir.mkdir());
+		return dir;
+	}
+
+
+	private static class UpperCaseTransformer implements ResourceTransformer {
+
+		public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+				throws IOException {
+
+			String content = new String(FileCopyUtils.copyToByteArray(resource.getInputStream()), "UTF-8");
+			return chain.transform(request, new TransformedResource(resource, content.toUpperCase().getBytes("UTF-8")));
+		}
+	}
+
 
 	private static class TestServletContext extends MockServletContext {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,12 @@
 
 package org.springframework.web.servlet.view;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
@@ -33,6 +35,7 @@ import javax.servlet.jsp.jstl.fmt.LocalizationContext;
 
 import org.junit.Test;
 
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.PropertyValue;
 import org.springframework.tests.sample.beans.TestBean;
@@ -536,6 +539,120 @@ public class ViewResolverTests {
 	}
 
 
+	@Test
+	public void testCacheLimitEvictsLeastRecentlyAccessedViews() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		AbstractCachingViewResolver viewResolver = new AbstractCachingViewResolver() {
+			@Override
+			protected View loadView(String viewName, Locale locale) throws Exception {
+				count.incrementAndGet();
+				return new InternalResourceView(viewName);
+			}
+		};
+		viewResolver.setCacheLimit(2);
+
+		View a = viewResolver.resolveViewName("a", Locale.ENGLISH);
+		viewResolver.resolveViewName("b", Locale.ENGLISH);
+		assertSame(a, viewResolver.resolveViewName("a", Locale.ENGLISH));
+		viewResolver.resolveViewName("c", Locale.ENGLISH);
+
+		assertEquals(3, count.intValue());
+		assertEquals(1, viewResolver.getCacheEvictionCount());
+		assertSame(a, viewResolver.resolveViewName("a", Locale.ENGLISH));
+		assertEquals(3, count.intValue());
+		viewResolver.resolveViewName("b", Locale.ENGLISH);
+		assertEquals(4, count.intValue());
+
+		assertEquals(2, viewResolver.getCacheHitCount());
+		assertEquals(4, viewResolver.getCacheMissCount());
+		assertEquals(2, viewResolver.getCacheEvictionCount());
+	}
+
+	@Test
+	public void testCacheRemovalDuringViewCreation() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		final AbstractCachingViewResolver viewResolver = new AbstractCachingViewResolver() {
+			@Override
+			protected View loadView(String viewName, Locale locale) throws Exception {
+				count.incrementAndGet();
+				// as if removed by another thread while the view is being created
+				if (viewName.equals("removed")) {
+					removeFromCache(viewName, locale);
+				}
+				else if (viewName.equals("cleared")) {
+					clearCache();
+				}
+				return new InternalResourceView(viewName);
+			}
+		};
+		viewResolver.setCacheLimit(2);
+
+		assertNotNull(viewResolver.resolveViewName("removed", Locale.ENGLISH));
+		assertNotNull(viewResolver.resolveViewName("cleared", Locale.ENGLISH));
+		Collection<?> evictionQueue =
+				(Collection<?>) new DirectFieldAccessor(viewResolver).getPropertyValue("evictionQueue");
+		assertTrue("Removed views must not stay queued for eviction", evictionQueue.isEmpty());
+
+		viewResolver.resolveViewName("a", Locale.ENGLISH);
+		viewResolver.resolveViewName("b", Locale.ENGLISH);
+		viewResolver.resolveViewName("c", Locale.ENGLISH);
+		assertEquals(1, viewResolver.getCacheEvictionCount());
+		assertEquals(2, evictionQueue.size());
+		assertEquals(5, count.intValue());
+	}
+
+	@Test
+	public void testConcurrentResolutionCreatesViewOnce() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		final CountDownLatch creationStarted = new CountDownLatch(1);
+		final CountDownLatch creationReleased = new CountDownLatch(1);
+		final AbstractCachingViewResolver viewResolver = new AbstractCachingViewResolver() {
+			@Override
+			protected View loadView(String viewName, Locale locale) throws Exception {
+				if (viewName.equals("view")) {
+					count.incrementAndGet();
+					creationStarted.countDown();
+					creationReleased.await();
+				}
+				return new InternalResourceView(viewName);
+			}
+		};
+
+		int threadCount = 8;
+		final View[] views = new View[threadCount];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						views[index] = viewResolver.resolveViewName("view", Locale.ENGLISH);
+					}
+					catch (Exception ex) {
+						throw new IllegalStateException(ex);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		creationStarted.await();
+		// a view with a different key does not wait for the pending creation
+		assertNotNull(viewResolver.resolveViewName("other", Locale.ENGLISH));
+		creationReleased.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(1, count.intValue());
+		for (View view : views) {
+			assertSame(views[0], view);
+		}
+		assertEquals(2, viewResolver.getCacheMissCount());
+		assertEquals(threadCount - 1, viewResolver.getCacheHitCount());
+	}
+
+
 	public static class TestView extends InternalResourceView {
 
 		public void setLocation(Resource location) {